@@ -20,6 +20,7 @@ import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricRequest;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricValuesService;
 import com.hp.autonomy.searchcomponents.core.search.DocumentsService;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
+import com.hp.autonomy.searchcomponents.core.search.QueryRestrictions;
 import com.hp.autonomy.searchcomponents.core.search.RelatedConceptsRequest;
 import com.hp.autonomy.searchcomponents.core.search.RelatedConceptsService;
 import com.hp.autonomy.searchcomponents.core.typeahead.TypeAheadService;
@@ -50,11 +51,23 @@ public interface CacheNames {
      */
     String DATE_PARAMETRIC_VALUES_IN_BUCKETS = "date-parametric-values-in-buckets";
 
+    /**
+     * Cache identifier for the fine bucket counts from which {@link ParametricValuesService#getNumericParametricValuesInBuckets(ParametricRequest, Map)}
+     * and {@link ParametricValuesService#getDateParametricValuesInBuckets(ParametricRequest, Map)} answer coarser or
+     * shifted requests
+     */
+    String PARAMETRIC_HISTOGRAMS = "parametric-histograms";
+
     /**
      * Cache identifier for {@link DocumentsService#queryTextIndex(QueryRequest)}
      */
     String GET_DOCUMENT_CONTENT = "get-content";
 
+    /**
+     * Cache identifier for the results of {@link DocumentsService#queryTextIndex(QueryRequest)}
+     */
+    String QUERY_TEXT_INDEX = "query-text-index";
+
     /**
      * Cache identifier for {@link RelatedConceptsService#findRelatedConcepts(RelatedConceptsRequest)}
      */
@@ -64,4 +77,9 @@ public interface CacheNames {
      * Cache identifier for {@link TypeAheadService#getSuggestions(String)}
      */
     String TYPE_AHEAD = "type-ahead";
+
+    /**
+     * Cache identifier for {@link DocumentsService#getStateTokenAndResultCount(QueryRestrictions, int, boolean)}
+     */
+    String STATE_TOKEN_AND_RESULT_COUNT = "state-token-and-result-count";
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.caching;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Hashes the details of a principal which determine the results a backend returns for it, such as its name and
+ * security info, so that caches can keep results separately for each user without retaining raw security info.
+ * <p>
+ * The hash is remembered for as long as the principal object is in use, and recomputed if its details change.
+ */
+public class PrincipalHasher {
+    private final Cache<Object, PrincipalHash> hashes = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
+
+    /**
+     * @param principal The current principal, or null if there is none
+     * @param details   The details of the principal which determine its results
+     * @return The SHA-256 hash of the details, or null if there is no principal
+     */
+    public String hash(final Object principal, final Object... details) {
+        if (principal == null) {
+            return null;
+        }
+
+        final PrincipalHash known = hashes.getIfPresent(principal);
+        if (known != null && Arrays.equals(known.details, details)) {
+            return known.hash;
+        }
+
+        final String hash = sha256(details);
+        hashes.put(principal, new PrincipalHash(details, hash));
+        return hash;
+    }
+
+    private static String sha256(final Object... details) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (final Object detail : details) {
+                digest.update(String.valueOf(detail).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class PrincipalHash {
+        private final Object[] details;
+        private final String hash;
+
+        private PrincipalHash(final Object[] details, final String hash) {
+            this.details = details;
+            this.hash = hash;
+        }
+    }
+}
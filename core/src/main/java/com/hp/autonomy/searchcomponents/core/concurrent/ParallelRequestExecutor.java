@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.concurrent;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent backend requests concurrently on a bounded pool of threads.
+ * <p>
+ * The security context of the calling thread is made available to the tasks, so request parameters which depend on
+ * the current principal (security info, user identifiers) are unaffected by moving the work onto another thread.
+ */
+public interface ParallelRequestExecutor {
+    /**
+     * The bean name of the default implementation.
+     * Use this in an {@link Qualifier} tag to access this implementation via autowiring.
+     */
+    String PARALLEL_REQUEST_EXECUTOR_BEAN_NAME = "parallelRequestExecutor";
+
+    /**
+     * Property key for the maximum number of requests which may run concurrently.
+     * A value of 1 or less disables parallel execution.
+     */
+    String PARALLEL_THREADS_PROPERTY_KEY = "haven.search.parallel.threads";
+
+    /**
+     * Property key for the maximum time in milliseconds to wait for the requests started by a single call
+     */
+    String PARALLEL_TIMEOUT_PROPERTY_KEY = "haven.search.parallel.timeout";
+
+    /**
+     * Applies the task to each input concurrently and waits for all of the results.
+     * If any task fails or the timeout elapses, the outstanding tasks are cancelled.
+     *
+     * @param inputs The inputs to process
+     * @param task   The (blocking) request to run for each input
+     * @param <I>    The input type
+     * @param <O>    The output type
+     * @return The outputs, in the iteration order of the inputs
+     * @throws ParallelRequestTimeoutException If the results are not available in time
+     */
+    <I, O> List<O> executeAll(Collection<? extends I> inputs, Function<? super I, ? extends O> task);
+
+    /**
+     * Applies the task to each input concurrently, collecting whatever results are available rather than failing as a
+     * whole when some of the tasks fail or time out. At most {@code parallelism} tasks are outstanding at once, and
+     * each has {@code timeoutMillis} from when it starts; a task which times out is cancelled.
+     * <p>
+     * Callers decide what to do when every task fails, since such a failure is usually not specific to any one input.
+     *
+     * @param inputs        The distinct inputs to process
+     * @param task          The (blocking) request to run for each input
+     * @param parallelism   The maximum number of tasks to run at once
+     * @param timeoutMillis The maximum time in milliseconds to wait for each task
+     * @param <I>           The input type
+     * @param <O>           The output type
+     * @return The outputs and failures, each in the iteration order of the inputs
+     */
+    <I, O> PartialResults<I, O> executeAllPartial(Collection<? extends I> inputs, Function<? super I, ? extends O> task, int parallelism, long timeoutMillis);
+
+    /**
+     * Starts a single task asynchronously.
+     *
+     * @param task The (blocking) request to run
+     * @param <T>  The output type
+     * @return A future holding the output of the task
+     */
+    <T> CompletableFuture<T> submit(Supplier<T> task);
+
+    /**
+     * Waits for the result of a future created by {@link #submit(Supplier)}, subject to the configured timeout.
+     * Unchecked exceptions thrown by the task are rethrown unwrapped; the future is cancelled if the wait is abandoned.
+     *
+     * @param future The future to wait for
+     * @param <T>    The output type
+     * @return The output of the task
+     * @throws ParallelRequestTimeoutException If the result is not available in time
+     */
+    <T> T await(CompletableFuture<T> future);
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.concurrent;
+
+import lombok.Data;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestExecutor.PARALLEL_REQUEST_EXECUTOR_BEAN_NAME;
+
+/**
+ * Default implementation of {@link ParallelRequestExecutor}.
+ * <p>
+ * Tasks submitted from one of the executor's own threads run inline, so nested fan-outs cannot starve the pool. When
+ * the queue is full, tasks run on the calling thread.
+ */
+@Component(PARALLEL_REQUEST_EXECUTOR_BEAN_NAME)
+class ParallelRequestExecutorImpl implements ParallelRequestExecutor, DisposableBean {
+    private static final String THREAD_NAME_PREFIX = "haven-search-parallel-";
+    private static final int QUEUE_CAPACITY_PER_THREAD = 16;
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private final ThreadLocal<Boolean> workerThread = ThreadLocal.withInitial(() -> false);
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private final ThreadPoolExecutor threadPool;
+    private final ExecutorService executorService;
+    private final long timeoutNanos;
+
+    @Autowired
+    ParallelRequestExecutorImpl(
+        @Value("${" + PARALLEL_THREADS_PROPERTY_KEY + ":10}") final int threads,
+        @Value("${" + PARALLEL_TIMEOUT_PROPERTY_KEY + ":180000}") final long timeoutMillis
+    ) {
+        timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        if(threads > 1) {
+            final ThreadFactory threadFactory = runnable -> {
+                final Thread thread = new Thread(() -> {
+                    workerThread.set(true);
+                    runnable.run();
+                }, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+
+            threadPool = new ThreadPoolExecutor(
+                threads,
+                threads,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_CAPACITY_PER_THREAD),
+                threadFactory,
+                new ThreadPoolExecutor.CallerRunsPolicy()
+            );
+            threadPool.allowCoreThreadTimeOut(true);
+            executorService = new DelegatingSecurityContextExecutorService(threadPool);
+        } else {
+            threadPool = null;
+            executorService = null;
+        }
+    }
+
+    @Override
+    public <I, O> List<O> executeAll(final Collection<? extends I> inputs, final Function<? super I, ? extends O> task) {
+        if(inputs.size() <= 1 || runInline()) {
+            return inputs.stream()
+                .<O>map(task)
+                .collect(Collectors.toList());
+        }
+
+        final CompletionService<O> completionService = new ExecutorCompletionService<>(executorService);
+        final List<Future<O>> futures = new ArrayList<>(inputs.size());
+        final long deadline = System.nanoTime() + timeoutNanos;
+        boolean complete = false;
+
+        try {
+            for(final I input : inputs) {
+                futures.add(completionService.submit(() -> task.apply(input)));
+            }
+
+            for(int i = 0; i < futures.size(); i++) {
+                final Future<O> future = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if(future == null) {
+                    throw new ParallelRequestTimeoutException("Timed out waiting for " + futures.size() + " parallel requests", null);
+                }
+
+                // fail fast: the first failure cancels everything still outstanding
+                future.get();
+            }
+
+            final List<O> results = new ArrayList<>(futures.size());
+            for(final Future<O> future : futures) {
+                results.add(future.get());
+            }
+
+            complete = true;
+            return results;
+        } catch(final ExecutionException e) {
+            throw unwrap(e);
+        } catch(final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for parallel requests");
+        } finally {
+            if(!complete) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+    }
+
+    @Override
+    public <I, O> PartialResults<I, O> executeAllPartial(final Collection<? extends I> inputs, final Function<? super I, ? extends O> task, final int parallelism, final long timeoutMillis) {
+        final Map<I, O> results = new LinkedHashMap<>();
+        final Map<I, RuntimeException> failures = new LinkedHashMap<>();
+        final Deque<PendingTask<I, O>> pendingTasks = new ArrayDeque<>();
+        final long taskTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        try {
+            for(final I input : inputs) {
+                if(pendingTasks.size() >= Math.max(1, parallelism)) {
+                    collect(pendingTasks.remove(), results, failures);
+                }
+
+                final CompletableFuture<O> output = submit(() -> task.apply(input));
+                pendingTasks.add(new PendingTask<>(input, System.nanoTime() + taskTimeoutNanos, output));
+            }
+
+            while(!pendingTasks.isEmpty()) {
+                collect(pendingTasks.remove(), results, failures);
+            }
+        } finally {
+            pendingTasks.forEach(pendingTask -> pendingTask.getOutput().cancel(true));
+        }
+
+        return new PartialResults<>(results, failures);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(final Supplier<T> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        if(runInline()) {
+            try {
+                result.complete(task.get());
+            } catch(final RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+
+            return result;
+        }
+
+        final Future<?> future = executorService.submit(() -> {
+            try {
+                result.complete(task.get());
+            } catch(final RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        // CompletableFuture#cancel does not interrupt, so propagate cancellation to the underlying task
+        result.whenComplete((value, e) -> {
+            if(result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public <T> T await(final CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch(final ExecutionException e) {
+            throw unwrap(e);
+        } catch(final TimeoutException e) {
+            future.cancel(true);
+            throw new ParallelRequestTimeoutException("Timed out waiting for parallel request", e);
+        } catch(final InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for parallel request");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if(threadPool != null) {
+            threadPool.shutdownNow();
+        }
+    }
+
+    private <I, O> void collect(final PendingTask<I, O> pendingTask, final Map<I, O> results, final Map<I, RuntimeException> failures) {
+        try {
+            results.put(pendingTask.getInput(), pendingTask.getOutput().get(pendingTask.getDeadline() - System.nanoTime(), TimeUnit.NANOSECONDS));
+        } catch(final ExecutionException e) {
+            failures.put(pendingTask.getInput(), unwrap(e));
+        } catch(final TimeoutException e) {
+            pendingTask.getOutput().cancel(true);
+            failures.put(pendingTask.getInput(), new ParallelRequestTimeoutException("Timed out waiting for parallel request", e));
+        } catch(final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for parallel requests");
+        }
+    }
+
+    private boolean runInline() {
+        return executorService == null || workerThread.get();
+    }
+
+    private RuntimeException unwrap(final Throwable throwable) {
+        Throwable cause = throwable;
+        while((cause instanceof ExecutionException || cause instanceof CompletionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        if(cause instanceof Error) {
+            throw (Error) cause;
+        }
+
+        return cause instanceof RuntimeException
+            ? (RuntimeException) cause
+            : new IllegalStateException("Parallel request failed", cause);
+    }
+
+    @Data
+    private static class PendingTask<I, O> {
+        private final I input;
+        private final long deadline;
+        private final CompletableFuture<O> output;
+    }
+}
@@ -0,0 +1,17 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.concurrent;
+
+/**
+ * Thrown when concurrently executed requests do not complete within the configured timeout
+ */
+public class ParallelRequestTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = -3043718560298874313L;
+
+    public ParallelRequestTimeoutException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
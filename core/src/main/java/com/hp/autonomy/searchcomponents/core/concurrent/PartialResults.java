@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.concurrent;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * The outcome of {@link ParallelRequestExecutor#executeAllPartial}: the outputs of the tasks which succeeded and the
+ * failures of those which did not, each keyed by input in the iteration order of the inputs.
+ *
+ * @param <I> The input type
+ * @param <O> The output type
+ */
+@Data
+public class PartialResults<I, O> {
+    private final Map<I, O> results;
+
+    /**
+     * Tasks which did not complete in time are recorded as {@link ParallelRequestTimeoutException}s
+     */
+    private final Map<I, RuntimeException> failures;
+
+    /**
+     * @return The failure of the earliest failed input, or null if every task succeeded
+     */
+    public RuntimeException getFirstFailure() {
+        return failures.values().stream().findFirst().orElse(null);
+    }
+}
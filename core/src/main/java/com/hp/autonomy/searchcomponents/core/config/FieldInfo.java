@@ -23,7 +23,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -115,7 +115,7 @@ public class FieldInfo<T extends Serializable> implements RequestObject<FieldInf
         private String id;
         private FieldType type = FieldType.STRING;
         private boolean advanced;
-        private Set<FieldPath> names = new HashSet<>();
+        private Set<FieldPath> names = new LinkedHashSet<>();
         private String displayName;
         private List<FieldValue<T>> values = new ArrayList<>();
         private List<String> editable = new ArrayList<>();
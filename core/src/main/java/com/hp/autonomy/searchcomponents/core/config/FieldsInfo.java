@@ -22,8 +22,6 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 import com.hp.autonomy.frontend.configuration.SimpleComponent;
 import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
-import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -37,10 +35,8 @@ import java.util.LinkedHashMap;
  */
 @SuppressWarnings({"MismatchedQueryAndUpdateOfCollection", "DefaultAnnotationParam", "CollectionDeclaredAsConcreteClass"})
 @Getter
-@Builder
-@AllArgsConstructor(access = AccessLevel.PRIVATE)
 @EqualsAndHashCode(callSuper = false)
-@ToString
+@ToString(exclude = "snapshot")
 @JsonDeserialize(builder = FieldsInfo.FieldsInfoBuilder.class)
 public class FieldsInfo extends SimpleComponent<FieldsInfo> implements Serializable {
     private static final long serialVersionUID = 7627012722603736269L;
@@ -48,12 +44,39 @@ public class FieldsInfo extends SimpleComponent<FieldsInfo> implements Serializa
     private final LinkedHashMap<String, FieldInfo<?>> fieldConfig;
     @JsonIgnore
     private final LinkedHashMap<FieldPath, FieldInfo<?>> fieldConfigByName;
+    private transient volatile FieldsInfoSnapshot snapshot;
+
+    @Builder
+    private FieldsInfo(final LinkedHashMap<String, FieldInfo<?>> fieldConfig, final LinkedHashMap<FieldPath, FieldInfo<?>> fieldConfigByName) {
+        this.fieldConfig = fieldConfig;
+        this.fieldConfigByName = fieldConfigByName;
+    }
 
     @JsonAnyGetter
     public LinkedHashMap<String, FieldInfo<?>> getFieldConfig() {
         return new LinkedHashMap<>(fieldConfig);
     }
 
+    /**
+     * @return An indexed, read-only view of this field config, built on first use; prefer this to
+     * {@link #getFieldConfig()}, which copies
+     */
+    @JsonIgnore
+    public final FieldsInfoSnapshot getSnapshot() {
+        FieldsInfoSnapshot result = snapshot;
+        if (result == null) {
+            synchronized (this) {
+                result = snapshot;
+                if (result == null) {
+                    result = new FieldsInfoSnapshot(this);
+                    snapshot = result;
+                }
+            }
+        }
+
+        return result;
+    }
+
     @SuppressWarnings({"WeakerAccess", "FieldMayBeFinal", "TypeMayBeWeakened", "CollectionDeclaredAsConcreteClass"})
     @JsonPOJOBuilder(withPrefix = "")
     public static class FieldsInfoBuilder {
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.config;
+
+import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Immutable, indexed view of a {@link FieldsInfo}, built once per field config by {@link FieldsInfo#getSnapshot()}.
+ * <p>
+ * Lookups by field id and field name read directly from prebuilt tables, and the print fields for the configured fields
+ * are precomputed, so none of the accessors copy the field config. Services which derive their own tables from the
+ * field config, such as display names and values, keep them here too, with {@link #getTable(DerivedTable)}, so the
+ * tables are replaced together with the snapshot when the config changes.
+ */
+public final class FieldsInfoSnapshot {
+    private final Map<String, FieldInfo<?>> fieldConfigById;
+    private final Map<FieldPath, FieldInfo<?>> fieldConfigByName;
+    private final Map<String, List<String>> printFieldsById = new HashMap<>();
+    private final List<String> printFields;
+    private final ConcurrentMap<DerivedTable<?>, Object> derivedTables = new ConcurrentHashMap<>();
+
+    FieldsInfoSnapshot(final FieldsInfo fieldsInfo) {
+        // getFieldConfig already returns a copy
+        fieldConfigById = Collections.unmodifiableMap(fieldsInfo.getFieldConfig());
+        fieldConfigByName = fieldsInfo.getFieldConfigByName() == null
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(fieldsInfo.getFieldConfigByName()));
+
+        final List<String> allPrintFields = new ArrayList<>();
+        for (final Map.Entry<String, FieldInfo<?>> entry : fieldConfigById.entrySet()) {
+            final List<String> fieldPrintFields = printFieldNames(entry.getValue());
+            printFieldsById.put(entry.getKey(), fieldPrintFields);
+            allPrintFields.addAll(fieldPrintFields);
+        }
+        printFields = Collections.unmodifiableList(allPrintFields);
+    }
+
+    /**
+     * The field names to print for a single field
+     *
+     * @param fieldInfo The field
+     * @return The normalised field paths, including the wildcard paths needed to print map fields
+     */
+    public static List<String> printFieldNames(final FieldInfo<?> fieldInfo) {
+        final MapType childMapping = fieldInfo.getChildMapping();
+        final List<String> names = new ArrayList<>(fieldInfo.getNames().size() * (childMapping == MapType.ATTRIBUTE ? 2 : 1));
+
+        for (final FieldPath name : fieldInfo.getNames()) {
+            if (childMapping == MapType.ATTRIBUTE) {
+                //  We need both the field name and '/_ATTR_*' to print all attributes.
+                names.add(name.getNormalisedPath());
+                names.add(name.getNormalisedPath() + "/_ATTR_*");
+            } else if (childMapping == MapType.ELEMENTNAME) {
+                names.add(name.getNormalisedPath() + "/*");
+            } else {
+                names.add(name.getNormalisedPath());
+            }
+        }
+
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * @return The configured fields, keyed by id, in config order
+     */
+    public Map<String, FieldInfo<?>> getFieldConfigById() {
+        return fieldConfigById;
+    }
+
+    /**
+     * @return The configured fields, keyed by each of their names
+     */
+    public Map<FieldPath, FieldInfo<?>> getFieldConfigByName() {
+        return fieldConfigByName;
+    }
+
+    /**
+     * @param id A field id
+     * @return The configured field, or null if there is none
+     */
+    public FieldInfo<?> getFieldInfoById(final String id) {
+        return fieldConfigById.get(id);
+    }
+
+    /**
+     * @param name A normalised field path
+     * @return The configured field, or null if there is none
+     */
+    public FieldInfo<?> getFieldInfoByName(final FieldPath name) {
+        return fieldConfigByName.get(name);
+    }
+
+    /**
+     * @return The field names to print for all of the configured fields, in config order
+     */
+    public List<String> getPrintFields() {
+        return printFields;
+    }
+
+    /**
+     * @param id A field id
+     * @return The field names to print for the configured field, or an empty list if there is no such field
+     */
+    public List<String> getPrintFields(final String id) {
+        return printFieldsById.getOrDefault(id, Collections.emptyList());
+    }
+
+    /**
+     * Returns a table derived from this field config, building it on first use. Every caller gets the same table.
+     *
+     * @param table Identifies the table and builds it from a snapshot
+     * @param <T>   The table type
+     * @return The table built from this snapshot
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getTable(final DerivedTable<T> table) {
+        // only tables built by their own DerivedTable are stored, so the cast is safe
+        final Object existing = derivedTables.get(table);
+        if (existing != null) {
+            return (T) existing;
+        }
+
+        final T built = table.factory.apply(this);
+        final Object raced = derivedTables.putIfAbsent(table, built);
+        return raced != null ? (T) raced : built;
+    }
+
+    /**
+     * Identifies a table derived from the field config, such as a lookup a service builds from the configured fields.
+     * Each service holds its own instance.
+     *
+     * @param <T> The table type
+     */
+    public static final class DerivedTable<T> {
+        private final Function<? super FieldsInfoSnapshot, ? extends T> factory;
+
+        /**
+         * @param factory Builds the table from a snapshot
+         */
+        public DerivedTable(final Function<? super FieldsInfoSnapshot, ? extends T> factory) {
+            this.factory = factory;
+        }
+    }
+}
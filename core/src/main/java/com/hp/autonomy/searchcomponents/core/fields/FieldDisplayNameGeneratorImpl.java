@@ -14,10 +14,13 @@
 
 package com.hp.autonomy.searchcomponents.core.fields;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.hp.autonomy.frontend.configuration.ConfigService;
 import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
 import com.hp.autonomy.searchcomponents.core.config.FieldType;
 import com.hp.autonomy.searchcomponents.core.config.FieldValue;
+import com.hp.autonomy.searchcomponents.core.config.FieldsInfoSnapshot;
 import com.hp.autonomy.searchcomponents.core.config.HavenSearchCapable;
 import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
 import org.apache.commons.lang3.StringUtils;
@@ -27,6 +30,10 @@ import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -36,54 +43,66 @@ import static com.hp.autonomy.searchcomponents.core.fields.FieldDisplayNameGener
 /**
  * Default implementation of {@link FieldDisplayNameGenerator}.
  * Replaces underscores with spaces and capitalises the first letter of each word.
+ * <p>
+ * Display names and display values are looked up in tables built once per field config snapshot; values are compared
+ * ignoring case.
  */
 @SuppressWarnings("unused")
 @Component(FIELD_DISPLAY_NAME_GENERATOR_BEAN_NAME)
 class FieldDisplayNameGeneratorImpl implements FieldDisplayNameGenerator {
+    private static final int MAX_PRETTIFIED_NAMES = 10000;
+
     private final ConfigService<? extends HavenSearchCapable> configService;
+    private final FieldsInfoSnapshot.DerivedTable<DisplayLookups> displayLookups;
+    private final Cache<String, String> prettifiedNames = CacheBuilder.newBuilder()
+        .maximumSize(MAX_PRETTIFIED_NAMES)
+        .build();
 
     @Autowired
     public FieldDisplayNameGeneratorImpl(final ConfigService<? extends HavenSearchCapable> configService) {
         this.configService = configService;
+        displayLookups = new FieldsInfoSnapshot.DerivedTable<>(DisplayLookups::new);
     }
 
     @Override
     public String generateDisplayName(final FieldPath path) {
-        final Optional<FieldInfo<? extends Serializable>> maybeFieldInfo = getFieldInfoFromConfigByName(path);
-        return maybeFieldInfo
-                .map(fieldInfo -> Optional.ofNullable(fieldInfo.getDisplayName())
-                        .orElseGet(() -> defaultGenerateDisplayNameFromId(fieldInfo.getId())))
-                .orElseGet(() -> defaultGenerateDisplayName(path));
+        final DisplayLookups lookups = getDisplayLookups();
+        final String displayName = lookups.displayNamesByPath.get(path);
+        return displayName != null ? displayName : prettify(path.getNormalisedPath());
     }
 
     @Override
     public String generateDisplayNameFromId(final String id) {
-        final Optional<FieldInfo<? extends Serializable>> maybeFieldInfo = getFieldInfoFromConfigById(id);
-        return maybeFieldInfo
-                .flatMap(fieldInfo -> Optional.ofNullable(fieldInfo.getDisplayName()))
-                .orElseGet(() -> defaultGenerateDisplayNameFromId(id));
+        final DisplayLookups lookups = getDisplayLookups();
+        final String displayName = lookups.displayNamesById.get(id);
+        return displayName != null ? displayName : prettify(id);
     }
 
     @Override
     public <T extends Serializable> String generateDisplayValue(final FieldPath path, final T maybeValue, final FieldType fieldType) {
-        return parseDisplayValue(() -> getFieldInfoFromConfigByName(path), maybeValue);
+        if (maybeValue == null) {
+            return null;
+        }
 
+        final String value = defaultGenerateDisplayValue(maybeValue);
+        return lookupDisplayValue(getDisplayLookups().displayValuesByPath.get(path), value);
     }
 
     @Override
     public <T extends Serializable> String generateDisplayValueFromId(final String id, final T maybeValue, final FieldType fieldType) {
-        return parseDisplayValue(() -> getFieldInfoFromConfigById(id), maybeValue);
+        if (maybeValue == null) {
+            return null;
+        }
+
+        final String value = defaultGenerateDisplayValue(maybeValue);
+        return lookupDisplayValue(getDisplayLookups().displayValuesById.get(id), value);
     }
 
     @Override
     public <T extends Serializable> String parseDisplayValue(final Supplier<Optional<FieldInfo<? extends Serializable>>> getFieldInfo, final T maybeValue) {
         return Optional.ofNullable(maybeValue)
                 .map(value -> getFieldInfo.get()
-                        .flatMap(fieldInfo -> fieldInfo.getValues()
-                                .stream()
-                                .filter(fieldValue -> compareValues(value, fieldValue))
-                                .findFirst()
-                                .map(FieldValue::getDisplayValue))
+                        .map(fieldInfo -> findDisplayValue(fieldInfo, defaultGenerateDisplayValue(value)))
                         .orElseGet(() -> defaultGenerateDisplayValue(value)))
                 .orElse(null);
     }
@@ -97,28 +116,123 @@ class FieldDisplayNameGeneratorImpl implements FieldDisplayNameGenerator {
                 .collect(Collectors.toList()));
     }
 
-    private <T extends Serializable> boolean compareValues(final T value, final FieldValue<?> fieldValue) {
-        return String.valueOf(value).equalsIgnoreCase(String.valueOf(fieldValue.getValue()));
+    private String findDisplayValue(final FieldInfo<?> fieldInfo, final String value) {
+        final Map<String, String> displayValues = getDisplayLookups().displayValuesByFieldInfo.get(fieldInfo);
+        if (displayValues != null) {
+            return lookupDisplayValue(displayValues, value);
+        }
+
+        // field info which is not from the field config, so has no table
+        return fieldInfo.getValues()
+                .stream()
+                .filter(fieldValue -> value.equalsIgnoreCase(String.valueOf(fieldValue.getValue())))
+                .findFirst()
+                .map(FieldValue::getDisplayValue)
+                .orElse(value);
     }
 
-    private Optional<FieldInfo<? extends Serializable>> getFieldInfoFromConfigById(final String id) {
-        return Optional.ofNullable(configService.getConfig().getFieldsInfo().getFieldConfig().get(id));
+    /**
+     * @return The display value configured for the value, or the value itself if there is none
+     */
+    private String lookupDisplayValue(final Map<String, String> displayValues, final String value) {
+        final String displayValue = displayValues == null ? null : displayValues.get(foldCase(value));
+        return displayValue != null ? displayValue : value;
     }
 
-    private Optional<FieldInfo<? extends Serializable>> getFieldInfoFromConfigByName(final FieldPath path) {
-        return Optional.ofNullable(configService.getConfig().getFieldsInfo().getFieldConfigByName().get(path));
+    private DisplayLookups getDisplayLookups() {
+        return configService.getConfig().getFieldsInfo().getSnapshot().getTable(displayLookups);
     }
 
-    private String defaultGenerateDisplayName(final FieldPath fieldPath) {
-        final String normalisedFieldName = fieldPath.getNormalisedPath();
-        return prettifyFieldName(normalisedFieldName);
-    }
-
-    private String defaultGenerateDisplayNameFromId(final String id) {
-        return prettifyFieldName(id);
+    /**
+     * Prettifies names which are not configured, keeping the most recently used results
+     */
+    private String prettify(final String fieldPath) {
+        final String prettified = prettifiedNames.getIfPresent(fieldPath);
+        if (prettified != null) {
+            return prettified;
+        }
+
+        final String name = prettifyFieldName(fieldPath);
+        prettifiedNames.put(fieldPath, name);
+        return name;
     }
 
     private <T extends Serializable> String defaultGenerateDisplayValue(final T value) {
         return String.valueOf(value);
     }
+
+    /**
+     * Folds a string so that two strings are equal after folding exactly when they are equal ignoring case, in the
+     * sense of {@link String#equalsIgnoreCase(String)}. Returns the string itself if folding would not change it.
+     */
+    private static String foldCase(final String value) {
+        final int length = value.length();
+        int i = 0;
+        while (i < length && foldCase(value.charAt(i)) == value.charAt(i)) {
+            i++;
+        }
+
+        if (i == length) {
+            return value;
+        }
+
+        final char[] folded = value.toCharArray();
+        for (; i < length; i++) {
+            folded[i] = foldCase(folded[i]);
+        }
+
+        return new String(folded);
+    }
+
+    private static char foldCase(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Display names and display values for one version of the field config
+     */
+    private class DisplayLookups {
+        private final Map<String, String> displayNamesById = new HashMap<>();
+        private final Map<FieldPath, String> displayNamesByPath = new HashMap<>();
+        private final Map<String, Map<String, String>> displayValuesById = new HashMap<>();
+        private final Map<FieldPath, Map<String, String>> displayValuesByPath = new HashMap<>();
+        // keyed by identity, so only the configured field info objects themselves are found
+        private final Map<FieldInfo<?>, Map<String, String>> displayValuesByFieldInfo = new IdentityHashMap<>();
+
+        private DisplayLookups(final FieldsInfoSnapshot snapshot) {
+            addAll(snapshot.getFieldConfigById(), displayNamesById, displayValuesById);
+            addAll(snapshot.getFieldConfigByName(), displayNamesByPath, displayValuesByPath);
+        }
+
+        private <K> void addAll(final Map<K, FieldInfo<?>> fieldConfig, final Map<K, String> displayNames, final Map<K, Map<String, String>> displayValues) {
+            for (final Map.Entry<K, FieldInfo<?>> entry : fieldConfig.entrySet()) {
+                final FieldInfo<?> fieldInfo = entry.getValue();
+                if (fieldInfo.getDisplayName() != null) {
+                    displayNames.put(entry.getKey(), fieldInfo.getDisplayName());
+                } else if (fieldInfo.getId() != null) {
+                    displayNames.put(entry.getKey(), prettify(fieldInfo.getId()));
+                }
+
+                displayValues.put(entry.getKey(), displayValuesByFieldInfo.computeIfAbsent(fieldInfo, this::buildDisplayValues));
+            }
+        }
+
+        private Map<String, String> buildDisplayValues(final FieldInfo<?> fieldInfo) {
+            if (fieldInfo.getValues().isEmpty()) {
+                return Collections.emptyMap();
+            }
+
+            final Map<String, String> valueMap = new HashMap<>();
+            for (final FieldValue<?> fieldValue : fieldInfo.getValues()) {
+                final String value = foldCase(String.valueOf(fieldValue.getValue()));
+
+                // the first configured value wins, as with a linear scan
+                if (!valueMap.containsKey(value)) {
+                    valueMap.put(value, fieldValue.getDisplayValue());
+                }
+            }
+
+            return valueMap;
+        }
+    }
 }
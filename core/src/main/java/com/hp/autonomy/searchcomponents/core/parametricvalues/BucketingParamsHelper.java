@@ -51,6 +51,14 @@ public interface BucketingParamsHelper {
      */
     List<Double> calculateNumericBoundaries(BucketingParams<Double> bucketingParams);
 
+    /**
+     * Calculate the boundary values (including both the min and the max) of the buckets specified in the BucketingParams.
+     *
+     * @param bucketingParams The min, max and target number of buckets
+     * @return Array of boundary values, including the min and the max value
+     */
+    double[] calculateNumericBoundaryValues(BucketingParams<Double> bucketingParams);
+
     /**
      * Calculate the boundary values (including both the min and the max) of the buckets specified in the BucketingParams.
      *
@@ -59,6 +67,15 @@ public interface BucketingParamsHelper {
      */
     List<ZonedDateTime> calculateDateBoundaries(BucketingParams<ZonedDateTime> bucketingParams);
 
+    /**
+     * Calculate the boundary values (including both the min and the max) of the buckets specified in the BucketingParams,
+     * as seconds since the epoch.
+     *
+     * @param bucketingParams The min, max and target number of buckets
+     * @return Array of boundary epoch seconds, including the min and the max value
+     */
+    long[] calculateDateBoundaryEpochSeconds(BucketingParams<ZonedDateTime> bucketingParams);
+
     /**
      * Generate empty buckets for the given boundaries. This is useful because GetQueryTagValues returns no buckets if
      * no documents matched the query restrictions.
@@ -14,17 +14,22 @@
 
 package com.hp.autonomy.searchcomponents.core.parametricvalues;
 
+import com.google.common.primitives.Doubles;
 import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
 import com.hp.autonomy.types.requests.idol.actions.tags.RangeInfoValue;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
-import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import static com.hp.autonomy.searchcomponents.core.parametricvalues.BucketingParamsHelper.BUCKETING_PARAMS_HELPER_BEAN_NAME;
 
@@ -57,12 +62,19 @@ class BucketingParamsHelperImpl implements BucketingParamsHelper {
 
     @Override
     public List<Double> calculateNumericBoundaries(final BucketingParams<Double> bucketingParams) {
-        final List<Double> boundaries = new LinkedList<>();
-        final double bucketSize = (bucketingParams.getMax() - bucketingParams.getMin()) / bucketingParams.getTargetNumberOfBuckets();
+        return Doubles.asList(calculateNumericBoundaryValues(bucketingParams));
+    }
+
+    @Override
+    public double[] calculateNumericBoundaryValues(final BucketingParams<Double> bucketingParams) {
+        final int targetNumberOfBuckets = bucketingParams.getTargetNumberOfBuckets();
+        final double min = bucketingParams.getMin();
+        final double bucketSize = (bucketingParams.getMax() - min) / targetNumberOfBuckets;
+
         // Generate boundaries, including both the bucket min and max (hence <=)
-        for(int i = 0; i <= bucketingParams.getTargetNumberOfBuckets(); i++) {
-            final double boundary = bucketingParams.getMin() + bucketSize * i;
-            boundaries.add(boundary);
+        final double[] boundaries = new double[targetNumberOfBuckets + 1];
+        for(int i = 0; i <= targetNumberOfBuckets; i++) {
+            boundaries[i] = min + bucketSize * i;
         }
 
         return boundaries;
@@ -70,35 +82,39 @@ class BucketingParamsHelperImpl implements BucketingParamsHelper {
 
     @Override
     public List<ZonedDateTime> calculateDateBoundaries(final BucketingParams<ZonedDateTime> bucketingParams) {
-        final ZonedDateTime min = bucketingParams.getMin().truncatedTo(ChronoUnit.SECONDS);
-        final ZonedDateTime max = bucketingParams.getMax().plusSeconds(1).minusNanos(1).truncatedTo(ChronoUnit.SECONDS);
+        return new DateBoundaries(calculateDateBoundaryEpochSeconds(bucketingParams), bucketingParams.getMin().getZone());
+    }
+
+    @Override
+    public long[] calculateDateBoundaryEpochSeconds(final BucketingParams<ZonedDateTime> bucketingParams) {
+        // min is rounded down and max rounded up to the nearest second
+        final long min = bucketingParams.getMin().truncatedTo(ChronoUnit.SECONDS).toEpochSecond();
+        final long max = bucketingParams.getMax().plusSeconds(1).minusNanos(1).truncatedTo(ChronoUnit.SECONDS).toEpochSecond();
 
         int targetNumberOfBuckets = bucketingParams.getTargetNumberOfBuckets();
-        double bucketSize = (double)(max.toEpochSecond() - min.toEpochSecond()) / targetNumberOfBuckets;
+        double bucketSize = (double)(max - min) / targetNumberOfBuckets;
         if((long)bucketSize == 0) {
             bucketSize = 1;
-            targetNumberOfBuckets = (int)(max.toEpochSecond() - min.toEpochSecond());
+            targetNumberOfBuckets = (int)(max - min);
         }
 
-        final Duration bucketDuration = Duration.ofSeconds((long)Math.ceil(bucketSize));
-        final Duration totalBucketedDuration = bucketDuration.multipliedBy(targetNumberOfBuckets);
-        final Duration totalDesiredDuration = Duration.between(min, max);
-        final Duration padding = totalBucketedDuration.minus(totalDesiredDuration).dividedBy(2);
+        if(targetNumberOfBuckets == 0) {
+            // IDOL uses ranges which are lower bound inclusive and upper bound exclusive; so if there's one data point
+            //   it throws an 'Invalid parametric range specification.' error.
+            // Workaround by creating a 1-second range, since 1 second is the minimum time that IDOL will resolve.
+            return new long[]{min, min + 1};
+        }
+
+        final long bucketDuration = (long)Math.ceil(bucketSize);
+        final long totalBucketedDuration = bucketDuration * targetNumberOfBuckets;
 
-        final List<ZonedDateTime> boundaries = new LinkedList<>();
         // If bucket size rounding causes total bucketing range to exceed specified range, spread difference between min
         // and max (adding excess to max where exact distribution not possible)
-        ZonedDateTime boundary = min.minus(padding).plusSeconds(1).minusNanos(1).truncatedTo(ChronoUnit.SECONDS);
-        do {
-            boundaries.add(boundary);
-            boundary = boundary.plus(bucketDuration);
-        } while(boundaries.size() <= targetNumberOfBuckets);
+        final long padding = (totalBucketedDuration - (max - min)) / 2;
 
-        if(boundaries.size() == 1) {
-            // IDOL uses ranges which are lower bound inclusive and upper bound exclusive; so if there's one data point
-            //   it throws an 'Invalid parametric range specification.' error.
-            // Workaround by creating a 1-second range, since 1 second is the minimum time that IDOL will resolve.
-            boundaries.add(boundaries.get(0).plusSeconds(1));
+        final long[] boundaries = new long[targetNumberOfBuckets + 1];
+        for(int i = 0; i <= targetNumberOfBuckets; i++) {
+            boundaries[i] = min - padding + bucketDuration * i;
         }
 
         return boundaries;
@@ -107,12 +123,42 @@ class BucketingParamsHelperImpl implements BucketingParamsHelper {
     @Override
     public <T extends Comparable<? super T> & Serializable, D extends Comparable<D> & Serializable, V extends RangeInfoValue<T, D>> List<V>
     emptyBuckets(final List<T> boundaries, final RangeInfoValue.Constructor<T, D, V> constructor) {
-        final List<V> values = new LinkedList<>();
-
-        for(int i = 0; i < boundaries.size() - 1; i++) {
-            values.add(constructor.apply(boundaries.get(i), boundaries.get(i + 1), 0));
+        final List<V> values = new ArrayList<>(Math.max(boundaries.size() - 1, 0));
+
+        // avoid indexed access, which may be linear in the size of the boundaries
+        final Iterator<T> iterator = boundaries.iterator();
+        if(iterator.hasNext()) {
+            T lower = iterator.next();
+            while(iterator.hasNext()) {
+                final T upper = iterator.next();
+                values.add(constructor.apply(lower, upper, 0));
+                lower = upper;
+            }
         }
 
         return values;
     }
+
+    /**
+     * Random access view of date boundaries stored as epoch seconds
+     */
+    private static class DateBoundaries extends AbstractList<ZonedDateTime> implements RandomAccess {
+        private final long[] epochSeconds;
+        private final ZoneId zone;
+
+        private DateBoundaries(final long[] epochSeconds, final ZoneId zone) {
+            this.epochSeconds = epochSeconds;
+            this.zone = zone;
+        }
+
+        @Override
+        public ZonedDateTime get(final int index) {
+            return Instant.ofEpochSecond(epochSeconds[index]).atZone(zone);
+        }
+
+        @Override
+        public int size() {
+            return epochSeconds.length;
+        }
+    }
 }
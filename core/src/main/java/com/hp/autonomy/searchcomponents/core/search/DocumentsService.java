@@ -18,6 +18,7 @@ import com.hp.autonomy.types.requests.Documents;
 import org.springframework.beans.factory.annotation.Qualifier;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Service for performing queries against Idol documents
@@ -73,6 +74,39 @@ public interface DocumentsService<RQ extends QueryRequest<Q>, RS extends Suggest
      */
     Documents<D> queryTextIndex(RQ queryRequest) throws E;
 
+    /**
+     * Streams the results of a query, fetching them a page at a time, so memory use does not grow with the number of
+     * results.
+     * <p>
+     * The request's start and max results bound the streamed results. Close the stream if it is abandoned early, to
+     * cancel any outstanding page request. Failures fetching later pages are thrown from the stream as
+     * {@link PagedResultsException}.
+     * <p>
+     * The default implementation fetches each page through {@link #queryTextIndex(QueryRequest)} when it is needed;
+     * implementations may prefetch pages or pin the result set between pages.
+     *
+     * @param queryRequest Query restrictions and output modifiers
+     * @param pageSize     The number of results to fetch per request
+     * @return The search results
+     * @throws E The error thrown in the event of the platform returning an error response while preparing the query
+     */
+    default Stream<D> streamQueryResults(final RQ queryRequest, final int pageSize) throws E {
+        return PagedResultsSpliterator.stream(
+            (start, maxResults) -> {
+                // toBuilder() is declared in terms of QueryRequest, but implementations build requests of their own type
+                @SuppressWarnings("unchecked")
+                final RQ pageRequest = (RQ) queryRequest.toBuilder()
+                    .start(start)
+                    .maxResults(maxResults)
+                    .build();
+                return queryTextIndex(pageRequest).getDocuments();
+            },
+            queryRequest.getStart(),
+            queryRequest.getMaxResults(),
+            pageSize
+        );
+    }
+
     /**
      * Idol suggest request
      *
@@ -0,0 +1,18 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.search;
+
+/**
+ * Thrown from a stream returned by {@link DocumentsService#streamQueryResults(QueryRequest, int)} when a page of
+ * results could not be fetched
+ */
+public class PagedResultsException extends RuntimeException {
+    private static final long serialVersionUID = -3106658254315894275L;
+
+    public PagedResultsException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.search;
+
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestExecutor;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sequential {@link Spliterator} over query results which are fetched a page at a time.
+ * <p>
+ * As soon as a page arrives, the next one is requested through the {@link ParallelRequestExecutor}, so it is usually
+ * ready by the time the current page has been consumed. At most two pages are held at once, however many results are
+ * streamed. Results end with the first page which is shorter than requested, or at the last result requested.
+ * <p>
+ * Without an executor, each page is fetched on the consuming thread once the previous page has been consumed.
+ *
+ * @param <D> The type of the search results
+ */
+public class PagedResultsSpliterator<D> implements Spliterator<D>, AutoCloseable {
+    private final PageFetcher<D, ?> pageFetcher;
+    private final ParallelRequestExecutor parallelRequestExecutor;
+    private final int lastResult;
+    private final int pageSize;
+
+    private long nextStart;
+    private boolean exhausted;
+    private Iterator<D> currentPage = Collections.emptyIterator();
+    private CompletableFuture<List<D>> nextPage;
+    private int nextPageSize;
+
+    /**
+     * @param pageFetcher             Fetches a page of results
+     * @param start                   The (1-based) index of the first result to stream
+     * @param lastResult              The (1-based) index of the last result to stream
+     * @param pageSize                The number of results to fetch per request
+     * @param parallelRequestExecutor Executor for prefetching the next page, or null to fetch pages when they are needed
+     */
+    public PagedResultsSpliterator(final PageFetcher<D, ?> pageFetcher, final int start, final int lastResult, final int pageSize, final ParallelRequestExecutor parallelRequestExecutor) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+
+        this.pageFetcher = pageFetcher;
+        this.parallelRequestExecutor = parallelRequestExecutor;
+        this.lastResult = lastResult;
+        this.pageSize = pageSize;
+
+        nextStart = start;
+        exhausted = start > lastResult;
+    }
+
+    /**
+     * Creates a sequential stream over paged results. Closing the stream cancels any outstanding page request.
+     *
+     * @param pageFetcher             Fetches a page of results
+     * @param start                   The (1-based) index of the first result to stream
+     * @param lastResult              The (1-based) index of the last result to stream
+     * @param pageSize                The number of results to fetch per request
+     * @param parallelRequestExecutor Executor for prefetching the next page
+     * @param <D>                     The type of the search results
+     * @return The stream of results
+     */
+    public static <D> Stream<D> stream(final PageFetcher<D, ?> pageFetcher, final int start, final int lastResult, final int pageSize, final ParallelRequestExecutor parallelRequestExecutor) {
+        final PagedResultsSpliterator<D> spliterator = new PagedResultsSpliterator<>(pageFetcher, start, lastResult, pageSize, parallelRequestExecutor);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    /**
+     * Creates a sequential stream over paged results, fetching each page on the consuming thread when it is needed
+     *
+     * @param pageFetcher Fetches a page of results
+     * @param start       The (1-based) index of the first result to stream
+     * @param lastResult  The (1-based) index of the last result to stream
+     * @param pageSize    The number of results to fetch per request
+     * @param <D>         The type of the search results
+     * @return The stream of results
+     */
+    public static <D> Stream<D> stream(final PageFetcher<D, ?> pageFetcher, final int start, final int lastResult, final int pageSize) {
+        return stream(pageFetcher, start, lastResult, pageSize, null);
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super D> action) {
+        while (!currentPage.hasNext()) {
+            if (nextPage == null) {
+                if (exhausted) {
+                    return false;
+                }
+
+                requestNextPage();
+            }
+
+            final int requestedPageSize = nextPageSize;
+            final List<D> page = parallelRequestExecutor != null ? parallelRequestExecutor.await(nextPage) : nextPage.join();
+            nextPage = null;
+
+            if (page.size() < requestedPageSize || nextStart > lastResult) {
+                exhausted = true;
+            } else if (parallelRequestExecutor != null) {
+                requestNextPage();
+            }
+
+            currentPage = page.iterator();
+        }
+
+        action.accept(currentPage.next());
+        return true;
+    }
+
+    @Override
+    public Spliterator<D> trySplit() {
+        // pages are fetched in order, one ahead of the consumer
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Cancels the outstanding page request, if there is one
+     */
+    @Override
+    public void close() {
+        exhausted = true;
+        currentPage = Collections.emptyIterator();
+
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+    }
+
+    private void requestNextPage() {
+        final int pageStart = (int) nextStart;
+        final int pageEnd = (int) Math.min(nextStart + pageSize - 1, lastResult);
+
+        nextStart = pageEnd + 1L;
+        nextPageSize = pageEnd - pageStart + 1;
+        nextPage = parallelRequestExecutor != null
+            ? parallelRequestExecutor.submit(() -> fetchPage(pageStart, pageEnd))
+            : CompletableFuture.completedFuture(fetchPage(pageStart, pageEnd));
+    }
+
+    private List<D> fetchPage(final int pageStart, final int pageEnd) {
+        try {
+            return pageFetcher.fetchPage(pageStart, pageEnd);
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new PagedResultsException("Failed to fetch results " + pageStart + " to " + pageEnd, e);
+        }
+    }
+
+    /**
+     * Fetches a single page of results
+     *
+     * @param <D> The type of the search results
+     * @param <E> The checked exception thrown in the event of an error
+     */
+    @FunctionalInterface
+    public interface PageFetcher<D, E extends Exception> {
+        /**
+         * @param start      The (1-based) index of the first result in the page
+         * @param maxResults The (1-based) index of the last result in the page
+         * @return The results in the page; fewer than requested if there are no more results
+         * @throws E The error thrown in the event of the platform returning an error response
+         */
+        List<D> fetchPage(int start, int maxResults) throws E;
+    }
+}
@@ -14,62 +14,64 @@
 
 package com.hp.autonomy.searchcomponents.core.search.fields;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.hp.autonomy.frontend.configuration.ConfigService;
 import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
-import com.hp.autonomy.searchcomponents.core.config.FieldsInfo;
+import com.hp.autonomy.searchcomponents.core.config.FieldsInfoSnapshot;
 import com.hp.autonomy.searchcomponents.core.config.HavenSearchCapable;
-import com.hp.autonomy.searchcomponents.core.config.MapType;
 import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Skeletal implementation of {@link DocumentFieldsService} containing a default implementation of {@link DocumentFieldsService#getPrintFields(Collection)}
  */
 public abstract class AbstractDocumentFieldsService implements DocumentFieldsService {
+    private static final int MAX_CACHED_SELECTIONS = 1000;
+
     private final ConfigService<? extends HavenSearchCapable> configService;
+    private final FieldsInfoSnapshot.DerivedTable<PrintFieldsCache> printFieldsCaches;
 
     protected AbstractDocumentFieldsService(final ConfigService<? extends HavenSearchCapable> configService) {
         this.configService = configService;
+        printFieldsCaches = new FieldsInfoSnapshot.DerivedTable<>(PrintFieldsCache::new);
     }
 
+    /**
+     * Print fields are cached per field config snapshot and for the most recently used selections of fields; hard-coded
+     * fields are assumed not to change. The same unmodifiable list is returned for a selection while it remains cached,
+     * so callers may cache request parameters built from it by identity.
+     */
     @Override
     public List<String> getPrintFields(final Collection<String> selectedFields) {
-        final FieldsInfo fieldsInfo = configService.getConfig().getFieldsInfo();
-
-        final Collection<FieldInfo<?>> fieldConfig = fieldsInfo.getFieldConfig().values();
-        return Stream.concat(getHardCodedFields().stream(), fieldConfig.stream())
-                .filter(field -> selectedFields.isEmpty() || selectedFields.contains(field.getId()))
-                .flatMap(field -> {
-                    final MapType childMapping = field.getChildMapping();
-
-                    if (childMapping != null) {
-                        switch(childMapping) {
-                            case ATTRIBUTE:
-                                //  We need both the field name and '/_ATTR_*' to print all attributes.
-                                return field.getNames().stream().flatMap(name -> Stream.of(
-                                        name.getNormalisedPath(),
-                                        name.getNormalisedPath() + "/_ATTR_*"));
-                            case ELEMENTNAME:
-                                return field.getNames().stream().map(name -> name.getNormalisedPath() + "/*");
-                        }
-                    }
-
-                    return field.getNames().stream().map(FieldPath::getNormalisedPath);
-                })
-                .collect(Collectors.toList());
+        final PrintFieldsCache cache = getPrintFieldsCache();
+        if (selectedFields.isEmpty()) {
+            return cache.allFields;
+        }
+
+        @SuppressWarnings("unchecked")
+        final Set<String> selection = selectedFields instanceof Set ? (Set<String>) selectedFields : new HashSet<>(selectedFields);
+        final List<String> cached = cache.selections.getIfPresent(selection);
+        if (cached != null) {
+            return cached;
+        }
+
+        final List<String> resolved = cache.resolve(selection);
+        final List<String> existing = cache.selections.asMap().putIfAbsent(Collections.unmodifiableSet(new HashSet<>(selection)), resolved);
+        return existing != null ? existing : resolved;
     }
 
     @Override
     public Set<String> getEditableIdolFields(final String field) {
-        final FieldsInfo fieldsInfo = configService.getConfig().getFieldsInfo();
-
-        final FieldInfo<?> fieldInfo = fieldsInfo.getFieldConfig().get(field);
+        final FieldInfo<?> fieldInfo = configService.getConfig().getFieldsInfo().getSnapshot().getFieldInfoById(field);
 
         final Set<String> fieldNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
 
@@ -81,4 +83,47 @@ public abstract class AbstractDocumentFieldsService implements DocumentFieldsSer
 
         return fieldNames;
     }
+
+    private PrintFieldsCache getPrintFieldsCache() {
+        return configService.getConfig().getFieldsInfo().getSnapshot().getTable(printFieldsCaches);
+    }
+
+    /**
+     * Resolved print fields for one field config snapshot
+     */
+    private class PrintFieldsCache {
+        private final FieldsInfoSnapshot snapshot;
+        private final List<String> allFields;
+        private final Cache<Set<String>, List<String>> selections = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_SELECTIONS)
+            .build();
+
+        private PrintFieldsCache(final FieldsInfoSnapshot snapshot) {
+            this.snapshot = snapshot;
+
+            final List<String> printFields = new ArrayList<>();
+            for (final FieldInfo<?> field : getHardCodedFields()) {
+                printFields.addAll(FieldsInfoSnapshot.printFieldNames(field));
+            }
+            printFields.addAll(snapshot.getPrintFields());
+            allFields = Collections.unmodifiableList(printFields);
+        }
+
+        private List<String> resolve(final Collection<String> selectedFields) {
+            final List<String> printFields = new ArrayList<>();
+            for (final FieldInfo<?> field : getHardCodedFields()) {
+                if (selectedFields.contains(field.getId())) {
+                    printFields.addAll(FieldsInfoSnapshot.printFieldNames(field));
+                }
+            }
+
+            for (final String id : snapshot.getFieldConfigById().keySet()) {
+                if (selectedFields.contains(id)) {
+                    printFields.addAll(snapshot.getPrintFields(id));
+                }
+            }
+
+            return Collections.unmodifiableList(printFields);
+        }
+    }
 }
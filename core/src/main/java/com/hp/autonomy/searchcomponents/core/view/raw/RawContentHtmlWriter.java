@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.view.raw;
+
+import org.apache.commons.lang.Entities;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static com.hp.autonomy.searchcomponents.core.view.ViewServerService.HIGHLIGHT_END_TAG;
+import static com.hp.autonomy.searchcomponents.core.view.ViewServerService.HIGHLIGHT_START_TAG;
+
+/**
+ * Writes raw document text to a stream as UTF-8 HTML through a fixed-size buffer, without copying the text.
+ * <p>
+ * Text is HTML escaped and line feeds are converted to line breaks, except that highlighting tags enclosing text on a
+ * single line are written as they are. Escaping matches {@link org.apache.commons.lang.StringEscapeUtils#escapeHtml(String)}.
+ */
+class RawContentHtmlWriter {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Writer writer;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+
+    RawContentHtmlWriter(final OutputStream outputStream) {
+        writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write markup without escaping
+     *
+     * @param markup The HTML to write
+     * @throws IOException If writing to the stream fails
+     */
+    void writeMarkup(final String markup) throws IOException {
+        for (int i = 0; i < markup.length(); i++) {
+            write(markup.charAt(i));
+        }
+    }
+
+    /**
+     * Write text, escaping everything except highlighting
+     *
+     * @param input The text to write; null is treated as empty
+     * @throws IOException If writing to the stream fails
+     */
+    void writeText(final String input) throws IOException {
+        if (input == null) {
+            return;
+        }
+
+        final int length = input.length();
+        int written = 0;
+        int highlightStart = input.indexOf(HIGHLIGHT_START_TAG);
+
+        // positions of the next end tag and line terminator, reused while they are still ahead of the search
+        int highlightEnd = -1;
+        int lineTerminator = -1;
+
+        while (highlightStart >= 0) {
+            final int contentStart = highlightStart + HIGHLIGHT_START_TAG.length();
+
+            if (highlightEnd < contentStart) {
+                highlightEnd = input.indexOf(HIGHLIGHT_END_TAG, contentStart);
+
+                if (highlightEnd < 0) {
+                    break;
+                }
+            }
+
+            if (lineTerminator < contentStart) {
+                lineTerminator = indexOfLineTerminator(input, contentStart);
+            }
+
+            if (lineTerminator < highlightEnd) {
+                // highlighting does not span lines, so this start tag is escaped along with the surrounding text
+                highlightStart = input.indexOf(HIGHLIGHT_START_TAG, highlightStart + 1);
+            } else {
+                writeEscaped(input, written, highlightStart);
+                writeMarkup(HIGHLIGHT_START_TAG);
+                writeEscaped(input, contentStart, highlightEnd);
+                writeMarkup(HIGHLIGHT_END_TAG);
+
+                written = highlightEnd + HIGHLIGHT_END_TAG.length();
+                highlightStart = input.indexOf(HIGHLIGHT_START_TAG, written);
+            }
+        }
+
+        writeEscaped(input, written, length);
+    }
+
+    /**
+     * Write out any buffered output and flush the underlying stream, which is not closed
+     *
+     * @throws IOException If writing to the stream fails
+     */
+    void flush() throws IOException {
+        writer.write(buffer, 0, position);
+        position = 0;
+        writer.flush();
+    }
+
+    private void writeEscaped(final String input, final int start, final int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            final char c = input.charAt(i);
+
+            if (c == '\n') {
+                writeMarkup("<br>");
+            } else if (c < 0x7F && c != '&' && c != '<' && c != '>' && c != '"') {
+                write(c);
+            } else {
+                final String entityName = Entities.HTML40.entityName(c);
+
+                if (entityName != null) {
+                    write('&');
+                    writeMarkup(entityName);
+                    write(';');
+                } else if (c > 0x7F) {
+                    write('&');
+                    write('#');
+                    writeMarkup(Integer.toString(c));
+                    write(';');
+                } else {
+                    write(c);
+                }
+            }
+        }
+    }
+
+    private void write(final char c) throws IOException {
+        if (position == BUFFER_SIZE) {
+            writer.write(buffer, 0, position);
+            position = 0;
+        }
+
+        buffer[position++] = c;
+    }
+
+    // matches the line terminators excluded by . in a regular expression
+    private static int indexOfLineTerminator(final String input, final int start) {
+        for (int i = start; i < input.length(); i++) {
+            final char c = input.charAt(i);
+
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return i;
+            }
+        }
+
+        return input.length();
+    }
+}
@@ -1,6 +1,10 @@
 package com.hp.autonomy.searchcomponents.core.view.raw;
 
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Component for rendering a document for viewing if it does not satisfy the requirements for viewing via View Server (or
@@ -18,4 +22,17 @@ public interface RawContentViewer {
      */
     InputStream formatRawContent(RawDocument rawDocument);
 
+    /**
+     * Write the document's fields to the given stream. Implementations should write incrementally rather than holding
+     * the whole output in memory.
+     * @param rawDocument The document's fields
+     * @param outputStream The stream to write to; this is flushed but not closed
+     * @throws IOException If writing to the stream fails
+     */
+    default void formatRawContent(final RawDocument rawDocument, final OutputStream outputStream) throws IOException {
+        try (final InputStream inputStream = formatRawContent(rawDocument)) {
+            IOUtils.copy(inputStream, outputStream);
+        }
+    }
+
 }
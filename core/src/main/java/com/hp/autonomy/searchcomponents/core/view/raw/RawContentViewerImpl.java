@@ -1,60 +1,41 @@
 package com.hp.autonomy.searchcomponents.core.view.raw;
 
 import com.hp.autonomy.searchcomponents.core.search.DocumentTitleResolver;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringEscapeUtils;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import static com.hp.autonomy.searchcomponents.core.view.ViewServerService.HIGHLIGHT_END_TAG;
-import static com.hp.autonomy.searchcomponents.core.view.ViewServerService.HIGHLIGHT_START_TAG;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 
 @Component(RawContentViewer.RAW_CONTENT_VIEWER_BEAN_NAME)
 class RawContentViewerImpl implements RawContentViewer {
-    private static final Pattern NEWLINE_PATTERN = Pattern.compile("\n", Pattern.LITERAL);
-    private static final Pattern HIGHLIGHT_PATTERN = Pattern.compile(Pattern.quote(HIGHLIGHT_START_TAG) + "(.*?)" + Pattern.quote(HIGHLIGHT_END_TAG));
-
-    private String escapeHtmlExceptHighlighting(final String input) {
-        final Matcher matcher = HIGHLIGHT_PATTERN.matcher(input);
-
-        int prev = 0;
-        final StringBuilder sb = new StringBuilder();
-
-        while(matcher.find()) {
-            final int start = matcher.start();
-            if (prev < start) {
-                sb.append(StringEscapeUtils.escapeHtml(input.substring(prev, start)));
-            }
-
-            prev = matcher.end();
-
-            sb.append(HIGHLIGHT_START_TAG)
-              .append(StringEscapeUtils.escapeHtml(matcher.group(1)))
-              .append(HIGHLIGHT_END_TAG);
-        }
+    @Override
+    public InputStream formatRawContent(final RawDocument rawDocument) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        if (prev < input.length()) {
-            sb.append(StringEscapeUtils.escapeHtml(input.substring(prev)));
+        try {
+            formatRawContent(rawDocument, outputStream);
+        } catch (final IOException e) {
+            // not thrown by ByteArrayOutputStream
+            throw new UncheckedIOException(e);
         }
 
-        return sb.toString();
-    }
-
-    private String escapeAndAddLineBreaks(final String input) {
-        return input == null ? "" : NEWLINE_PATTERN.matcher(escapeHtmlExceptHighlighting(input)).replaceAll(Matcher.quoteReplacement("<br>"));
+        return new ByteArrayInputStream(outputStream.toByteArray());
     }
 
     @Override
-    public InputStream formatRawContent(final RawDocument rawDocument) {
+    public void formatRawContent(final RawDocument rawDocument, final OutputStream outputStream) throws IOException {
         final String title = DocumentTitleResolver.resolveTitle(rawDocument.getTitle(), rawDocument.getReference());
 
-        final String body = "<h1>" + escapeAndAddLineBreaks(title) + "</h1>"
-                + "<p>" + escapeAndAddLineBreaks(rawDocument.getContent()) + "</p>";
-
-        return IOUtils.toInputStream(body, StandardCharsets.UTF_8);
+        final RawContentHtmlWriter writer = new RawContentHtmlWriter(outputStream);
+        writer.writeMarkup("<h1>");
+        writer.writeText(title);
+        writer.writeMarkup("</h1><p>");
+        writer.writeText(rawDocument.getContent());
+        writer.writeMarkup("</p>");
+        writer.flush();
     }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.caching;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PrincipalHasherTest {
+    private PrincipalHasher principalHasher;
+
+    @Before
+    public void setUp() {
+        principalHasher = new PrincipalHasher();
+    }
+
+    @Test
+    public void hashSameDetailsOfDifferentPrincipalsEqually() {
+        assertThat(principalHasher.hash(new Object(), "alice", "security-info"), is(principalHasher.hash(new Object(), "alice", "security-info")));
+    }
+
+    @Test
+    public void hashDifferentDetailsDifferently() {
+        assertThat(principalHasher.hash(new Object(), "alice", "security-info"), is(not(principalHasher.hash(new Object(), "bob", "security-info"))));
+    }
+
+    @Test
+    public void separateAdjacentDetails() {
+        assertThat(principalHasher.hash(new Object(), "ab", "c"), is(not(principalHasher.hash(new Object(), "a", "bc"))));
+    }
+
+    @Test
+    public void rehashChangedDetails() {
+        final Object principal = new Object();
+        final String hash = principalHasher.hash(principal, "alice", "security-info");
+
+        assertThat(principalHasher.hash(principal, "alice", "other-security-info"), is(not(hash)));
+        assertThat(principalHasher.hash(principal, "alice", "security-info"), is(hash));
+    }
+
+    @Test
+    public void doNotHashMissingPrincipal() {
+        assertThat(principalHasher.hash(null, "alice", "security-info"), is(nullValue()));
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.concurrent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class ParallelRequestExecutorTest {
+    private ParallelRequestExecutorImpl parallelRequestExecutor;
+
+    @After
+    public void tearDown() {
+        parallelRequestExecutor.destroy();
+    }
+
+    @Test
+    public void executeAllPreservesInputOrder() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(4, 10000);
+
+        final List<Integer> results = parallelRequestExecutor.executeAll(Arrays.asList(40, 30, 20, 10), delay -> {
+            sleep(delay);
+            return delay;
+        });
+
+        assertThat(results, contains(40, 30, 20, 10));
+    }
+
+    @Test
+    public void executeAllRunsConcurrently() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(3, 10000);
+        final CountDownLatch latch = new CountDownLatch(3);
+
+        // would time out if the tasks ran one after another
+        final List<Boolean> results = parallelRequestExecutor.executeAll(Arrays.asList(1, 2, 3), input -> {
+            latch.countDown();
+            try {
+                return latch.await(5, TimeUnit.SECONDS);
+            } catch(final InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(results, contains(true, true, true));
+    }
+
+    @Test
+    public void executeAllSerialWhenDisabled() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(1, 10000);
+        final Thread caller = Thread.currentThread();
+
+        final List<Boolean> results = parallelRequestExecutor.executeAll(Arrays.asList(1, 2), input -> Thread.currentThread() == caller);
+        assertThat(results, contains(true, true));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void executeAllRethrowsTaskException() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(2, 10000);
+
+        parallelRequestExecutor.executeAll(Arrays.asList(1, 2), input -> {
+            if(input == 2) {
+                throw new UnsupportedOperationException();
+            }
+
+            return input;
+        });
+    }
+
+    @Test
+    public void executeAllTimesOutAndCancels() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(2, 50);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final CountDownLatch finished = new CountDownLatch(2);
+
+        try {
+            parallelRequestExecutor.executeAll(Arrays.asList(1, 2), input -> {
+                try {
+                    Thread.sleep(5000);
+                } catch(final InterruptedException e) {
+                    interrupted.set(true);
+                } finally {
+                    finished.countDown();
+                }
+
+                return input;
+            });
+        } catch(final ParallelRequestTimeoutException ignored) {
+            await(finished);
+            assertThat(interrupted.get(), is(true));
+            return;
+        }
+
+        throw new AssertionError("Expected timeout");
+    }
+
+    @Test
+    public void nestedExecuteAllRunsInline() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(2, 10000);
+
+        final List<List<Integer>> results = parallelRequestExecutor.executeAll(Arrays.asList(1, 2), outer ->
+            parallelRequestExecutor.executeAll(Arrays.asList(outer, outer * 10), inner -> inner)
+        );
+
+        assertThat(results, contains(Arrays.asList(1, 10), Arrays.asList(2, 20)));
+    }
+
+    @Test
+    public void executeAllPartialPreservesInputOrder() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(4, 10000);
+
+        final PartialResults<Integer, Integer> results = parallelRequestExecutor.executeAllPartial(Arrays.asList(40, 30, 20, 10), delay -> {
+            sleep(delay);
+            return delay * 2;
+        }, 4, 10000);
+
+        assertThat(results.getResults().keySet(), contains(40, 30, 20, 10));
+        assertThat(results.getResults().values(), contains(80, 60, 40, 20));
+        assertThat(results.getFailures().isEmpty(), is(true));
+    }
+
+    @Test
+    public void executeAllPartialCollectsFailures() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(2, 10000);
+
+        final PartialResults<Integer, Integer> results = parallelRequestExecutor.executeAllPartial(Arrays.asList(1, 2, 3), input -> {
+            if(input != 2) {
+                throw new UnsupportedOperationException(String.valueOf(input));
+            }
+
+            return input;
+        }, 2, 10000);
+
+        assertThat(results.getResults().keySet(), contains(2));
+        assertThat(results.getFailures().keySet(), contains(1, 3));
+        assertThat(results.getFirstFailure(), instanceOf(UnsupportedOperationException.class));
+        assertThat(results.getFirstFailure().getMessage(), is("1"));
+    }
+
+    @Test
+    public void executeAllPartialTimesOutAndCancelsSlowTasks() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(2, 10000);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final CountDownLatch finished = new CountDownLatch(1);
+
+        final PartialResults<Integer, Integer> results = parallelRequestExecutor.executeAllPartial(Arrays.asList(1, 2), input -> {
+            if(input == 1) {
+                try {
+                    Thread.sleep(5000);
+                } catch(final InterruptedException e) {
+                    interrupted.set(true);
+                } finally {
+                    finished.countDown();
+                }
+            }
+
+            return input;
+        }, 2, 50);
+
+        assertThat(results.getResults().keySet(), contains(2));
+        assertThat(results.getFailures().get(1), instanceOf(ParallelRequestTimeoutException.class));
+        await(finished);
+        assertThat(interrupted.get(), is(true));
+    }
+
+    @Test
+    public void executeAllPartialLimitsParallelism() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(4, 10000);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        parallelRequestExecutor.executeAllPartial(Arrays.asList(1, 2, 3, 4, 5, 6), input -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20);
+            running.decrementAndGet();
+            return input;
+        }, 2, 10000);
+
+        assertThat(maxRunning.get(), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void submitAndAwait() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(2, 10000);
+
+        final CompletableFuture<String> future = parallelRequestExecutor.submit(() -> "result");
+        assertThat(parallelRequestExecutor.await(future), is("result"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void awaitRethrowsTaskException() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(2, 10000);
+
+        final CompletableFuture<Object> future = parallelRequestExecutor.submit(() -> {
+            throw new IllegalArgumentException();
+        });
+        parallelRequestExecutor.await(future);
+    }
+
+    @Test(expected = ParallelRequestTimeoutException.class)
+    public void awaitTimesOut() {
+        parallelRequestExecutor = new ParallelRequestExecutorImpl(2, 50);
+
+        parallelRequestExecutor.await(parallelRequestExecutor.submit(() -> {
+            sleep(5000);
+            return Collections.emptyList();
+        }));
+    }
+
+    private void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch(final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch(final InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
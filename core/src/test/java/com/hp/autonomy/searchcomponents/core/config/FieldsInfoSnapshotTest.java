@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.config;
+
+import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FieldsInfoSnapshotTest {
+    private FieldPath titlePath;
+    private FieldPath placePath;
+    private FieldPath authorPath;
+    private FieldsInfo fieldsInfo;
+
+    @Before
+    public void setUp() {
+        titlePath = fieldPath("DOCUMENT/TITLE");
+        placePath = fieldPath("DOCUMENT/PLACE");
+        authorPath = fieldPath("DOCUMENT/AUTHOR");
+
+        fieldsInfo = FieldsInfo.builder()
+                .populateResponseMap("title", FieldInfo.<String>builder()
+                        .name(titlePath)
+                        .value(new FieldValue<>("foo", "Foo"))
+                        .value(new FieldValue<>("FOO", "Ignored"))
+                        .build())
+                .populateResponseMap("place", FieldInfo.<String>builder()
+                        .name(placePath)
+                        .childMapping(MapType.ATTRIBUTE)
+                        .build())
+                .populateResponseMap("author", FieldInfo.<String>builder()
+                        .name(authorPath)
+                        .childMapping(MapType.ELEMENTNAME)
+                        .build())
+                .build();
+    }
+
+    @Test
+    public void lookUpFieldInfo() {
+        final FieldsInfoSnapshot snapshot = fieldsInfo.getSnapshot();
+
+        assertThat(snapshot.getFieldInfoById("title").getNames(), contains(titlePath));
+        assertThat(snapshot.getFieldInfoByName(placePath).getId(), is("place"));
+        assertThat(snapshot.getFieldInfoById("missing"), is(nullValue()));
+    }
+
+    @Test
+    public void precomputePrintFields() {
+        final FieldsInfoSnapshot snapshot = fieldsInfo.getSnapshot();
+
+        assertThat(snapshot.getPrintFields(), contains(
+                "DOCUMENT/TITLE",
+                "DOCUMENT/PLACE",
+                "DOCUMENT/PLACE/_ATTR_*",
+                "DOCUMENT/AUTHOR/*"));
+        assertThat(snapshot.getPrintFields("author"), contains("DOCUMENT/AUTHOR/*"));
+        assertThat(snapshot.getPrintFields("missing"), is(empty()));
+    }
+
+    @Test
+    public void reuseSnapshotForSameConfig() {
+        assertThat(fieldsInfo.getSnapshot(), is(sameInstance(fieldsInfo.getSnapshot())));
+    }
+
+    @Test
+    public void rebuildSnapshotForChangedConfig() {
+        final FieldsInfoSnapshot snapshot = fieldsInfo.getSnapshot();
+        final FieldsInfo newFieldsInfo = FieldsInfo.builder()
+                .populateResponseMap("title", FieldInfo.<String>builder().name(titlePath).build())
+                .build();
+
+        assertThat(newFieldsInfo.getSnapshot(), is(not(sameInstance(snapshot))));
+        assertThat(newFieldsInfo.getSnapshot().getFieldInfoById("title").getValues(), is(empty()));
+    }
+
+    @Test
+    public void keepSnapshotOfEachConfig() {
+        final FieldsInfoSnapshot snapshot = fieldsInfo.getSnapshot();
+        final FieldsInfo otherFieldsInfo = FieldsInfo.builder()
+                .populateResponseMap("title", FieldInfo.<String>builder().name(titlePath).build())
+                .build();
+        final FieldsInfoSnapshot otherSnapshot = otherFieldsInfo.getSnapshot();
+
+        assertThat(fieldsInfo.getSnapshot(), is(sameInstance(snapshot)));
+        assertThat(otherFieldsInfo.getSnapshot(), is(sameInstance(otherSnapshot)));
+    }
+
+    @Test
+    public void buildDerivedTableOncePerSnapshot() {
+        final AtomicInteger builds = new AtomicInteger();
+        final FieldsInfoSnapshot.DerivedTable<Integer> table = new FieldsInfoSnapshot.DerivedTable<>(snapshot -> {
+            builds.incrementAndGet();
+            return snapshot.getFieldConfigById().size();
+        });
+
+        assertThat(fieldsInfo.getSnapshot().getTable(table), is(3));
+        assertThat(fieldsInfo.getSnapshot().getTable(table), is(3));
+        assertThat(builds.get(), is(1));
+
+        final FieldsInfo newFieldsInfo = FieldsInfo.builder()
+                .populateResponseMap("title", FieldInfo.<String>builder().name(titlePath).build())
+                .build();
+        assertThat(newFieldsInfo.getSnapshot().getTable(table), is(1));
+        assertThat(builds.get(), is(2));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotIsReadOnly() {
+        fieldsInfo.getSnapshot().getFieldConfigById().remove("title");
+    }
+
+    private FieldPath fieldPath(final String normalisedPath) {
+        final FieldPath fieldPath = mock(FieldPath.class);
+        when(fieldPath.getNormalisedPath()).thenReturn(normalisedPath);
+        return fieldPath;
+    }
+}
@@ -211,6 +211,57 @@ public class FieldDisplayNameGeneratorTest {
         assertEquals(displayValue, fieldDisplayNameGenerator.generateDisplayValueFromId(id, value, FieldType.STRING));
     }
 
+    @Test
+    public void generateDisplayValueFromConfigIgnoresCase() {
+        final String id = "foo_bar";
+        when(fieldsInfo.getFieldConfig()).thenReturn(new LinkedHashMap<>(ImmutableMap.of(id, FieldInfo.builder()
+                .id(id)
+                .value(new FieldValue<>("FOO", "Bar"))
+                .value(new FieldValue<>("foo", "Baz"))
+                .build())));
+        assertEquals("Bar", fieldDisplayNameGenerator.generateDisplayValueFromId(id, "fOo", FieldType.STRING));
+    }
+
+    @Test
+    public void generateDisplayValueFromConfigByPathIgnoresCase() {
+        final FieldPath path = fieldPathNormaliser.normaliseFieldPath("/DOCUMENT/FOO");
+        when(fieldsInfo.getFieldConfigByName()).thenReturn(new LinkedHashMap<>(ImmutableMap.of(path, FieldInfo.builder()
+                .name(path)
+                .value(new FieldValue<>("foo", "Bar"))
+                .build())));
+        assertEquals("Bar", fieldDisplayNameGenerator.generateDisplayValue(path, "FOO", FieldType.STRING));
+        assertEquals("baz", fieldDisplayNameGenerator.generateDisplayValue(path, "baz", FieldType.STRING));
+    }
+
+    @Test
+    public void generateDisplayValueFromConfigWithoutDisplayValue() {
+        final String id = "foo_bar";
+        when(fieldsInfo.getFieldConfig()).thenReturn(new LinkedHashMap<>(ImmutableMap.of(id, FieldInfo.builder()
+                .id(id)
+                .value(new FieldValue<>("Foo", null))
+                .build())));
+        assertEquals("FOO", fieldDisplayNameGenerator.generateDisplayValueFromId(id, "FOO", FieldType.STRING));
+    }
+
+    @Test
+    public void generateDisplayNameAfterConfigChange() {
+        final String id = "foo_bar";
+        when(fieldsInfo.getFieldConfig()).thenReturn(new LinkedHashMap<>(ImmutableMap.of(id, FieldInfo.builder()
+                .id(id)
+                .displayName("Bar")
+                .build())));
+        assertEquals("Bar", fieldDisplayNameGenerator.generateDisplayNameFromId(id));
+
+        final FieldsInfo newFieldsInfo = FieldsInfo.builder()
+                .populateResponseMap(id, FieldInfo.builder()
+                        .id(id)
+                        .displayName("Baz")
+                        .build())
+                .build();
+        when(config.getFieldsInfo()).thenReturn(newFieldsInfo);
+        assertEquals("Baz", fieldDisplayNameGenerator.generateDisplayNameFromId(id));
+    }
+
     @Test
     public void generateDefaultDisplayValueFromConfigById() {
         final String id = "foo_bar";
@@ -255,4 +306,23 @@ public class FieldDisplayNameGeneratorTest {
                 .build();
         assertEquals(displayValue, fieldDisplayNameGenerator.parseDisplayValue(() -> Optional.of(fieldInfo), value));
     }
+
+    @Test
+    public void parseDisplayValueFromConfiguredField() {
+        final String id = "foo_bar";
+        final FieldInfo<Serializable> fieldInfo = FieldInfo.builder()
+                .id(id)
+                .value(new FieldValue<>("FOO", "Bar"))
+                .value(new FieldValue<>("foo", "Baz"))
+                .build();
+        when(fieldsInfo.getFieldConfig()).thenReturn(new LinkedHashMap<>(ImmutableMap.of(id, fieldInfo)));
+        assertEquals("Bar", fieldDisplayNameGenerator.parseDisplayValue(() -> Optional.of(fieldInfo), "fOo"));
+        assertEquals("qux", fieldDisplayNameGenerator.parseDisplayValue(() -> Optional.of(fieldInfo), "qux"));
+    }
+
+    @Test
+    public void parseDisplayValueWithoutFieldInfo() {
+        when(fieldsInfo.getFieldConfig()).thenReturn(new LinkedHashMap<>());
+        assertEquals("Foo", fieldDisplayNameGenerator.parseDisplayValue(Optional::empty, "Foo"));
+    }
 }
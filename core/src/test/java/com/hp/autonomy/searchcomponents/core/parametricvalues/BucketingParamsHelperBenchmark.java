@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.parametricvalues;
+
+import com.hp.autonomy.types.requests.idol.actions.tags.DateRangeInfo;
+import com.hp.autonomy.types.requests.idol.actions.tags.NumericRangeInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculates boundaries and empty buckets for 10 fields of 1000 buckets each, reading the boundaries by index as the
+ * parametric values services do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BucketingParamsHelperBenchmark {
+    private static final int FIELDS = 10;
+    private static final int BUCKETS = 1000;
+
+    private BucketingParamsHelper bucketingParamsHelper;
+    private List<BucketingParams<Double>> numericParams;
+    private List<BucketingParams<ZonedDateTime>> dateParams;
+
+    @Setup
+    public void setUp() {
+        bucketingParamsHelper = new BucketingParamsHelperImpl();
+
+        final ZonedDateTime now = ZonedDateTime.of(2018, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        numericParams = new ArrayList<>(FIELDS);
+        dateParams = new ArrayList<>(FIELDS);
+        for(int i = 0; i < FIELDS; i++) {
+            numericParams.add(new BucketingParams<>(BUCKETS, -1000.0 * i, 1000.0 * (i + 1)));
+            dateParams.add(new BucketingParams<>(BUCKETS, now.minusDays(365 * (i + 1)), now));
+        }
+    }
+
+    @Benchmark
+    public void numericBoundaries(final Blackhole blackhole) {
+        for(final BucketingParams<Double> params : numericParams) {
+            final List<Double> boundaries = bucketingParamsHelper.calculateNumericBoundaries(params);
+            double total = 0;
+            for(int i = 0; i < boundaries.size(); i++) {
+                total += boundaries.get(i);
+            }
+            blackhole.consume(total);
+            blackhole.consume(bucketingParamsHelper.<Double, Double, NumericRangeInfo.Value>emptyBuckets(boundaries, NumericRangeInfo.Value::new));
+        }
+    }
+
+    @Benchmark
+    public void numericBoundaryValues(final Blackhole blackhole) {
+        for(final BucketingParams<Double> params : numericParams) {
+            blackhole.consume(bucketingParamsHelper.calculateNumericBoundaryValues(params));
+        }
+    }
+
+    @Benchmark
+    public void dateBoundaries(final Blackhole blackhole) {
+        for(final BucketingParams<ZonedDateTime> params : dateParams) {
+            final List<ZonedDateTime> boundaries = bucketingParamsHelper.calculateDateBoundaries(params);
+            blackhole.consume(boundaries.get(0));
+            blackhole.consume(boundaries.get(boundaries.size() - 1));
+            blackhole.consume(bucketingParamsHelper.<ZonedDateTime, Duration, DateRangeInfo.Value>emptyBuckets(boundaries, DateRangeInfo.Value::new));
+        }
+    }
+
+    @Benchmark
+    public void dateBoundaryEpochSeconds(final Blackhole blackhole) {
+        for(final BucketingParams<ZonedDateTime> params : dateParams) {
+            blackhole.consume(bucketingParamsHelper.calculateDateBoundaryEpochSeconds(params));
+        }
+    }
+
+    public static void main(final String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BucketingParamsHelperBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -23,16 +23,20 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.when;
@@ -104,6 +108,16 @@ public class BucketingParamsHelperTest {
         assertThat(boundaries.get(targetNumberOfBuckets), is(max));
     }
 
+    @Test
+    public void calculateNumericBoundaryValues() {
+        assertArrayEquals(new double[]{0d, 1d, 2d, 3d, 4d}, bucketingParamsHelper.calculateNumericBoundaryValues(new BucketingParams<>(4, 0D, 4D)), 0);
+    }
+
+    @Test
+    public void numericBoundariesAreRandomAccess() {
+        assertThat(bucketingParamsHelper.calculateNumericBoundaries(new BucketingParams<>(4, 0D, 4D)), is(instanceOf(RandomAccess.class)));
+    }
+
     @Test
     public void calculateSimpleDateBoundaries() {
         final ZonedDateTime max = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
@@ -166,6 +180,32 @@ public class BucketingParamsHelperTest {
         assertThat(boundaries.get(targetNumberOfBuckets), greaterThanOrEqualTo(max));
     }
 
+    @Test
+    public void calculateDateBoundaryEpochSeconds() {
+        final ZonedDateTime max = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        final ZonedDateTime min = max.minusSeconds(7);
+        final long[] boundaries = bucketingParamsHelper.calculateDateBoundaryEpochSeconds(new BucketingParams<>(3, min, max));
+        final long minSeconds = min.toEpochSecond();
+        assertArrayEquals(new long[]{minSeconds - 1, minSeconds + 2, minSeconds + 5, minSeconds + 8}, boundaries);
+    }
+
+    @Test
+    public void calculateSingleTimePointDateBoundaryEpochSeconds() {
+        final ZonedDateTime time = ZonedDateTime.now(ZoneOffset.UTC);
+        final long seconds = time.toEpochSecond();
+        assertArrayEquals(new long[]{seconds, seconds + 1}, bucketingParamsHelper.calculateDateBoundaryEpochSeconds(new BucketingParams<>(2, time, time.truncatedTo(ChronoUnit.SECONDS))));
+    }
+
+    @Test
+    public void dateBoundariesKeepZone() {
+        final ZoneId zone = ZoneId.of("Europe/London");
+        final ZonedDateTime max = ZonedDateTime.now(zone).truncatedTo(ChronoUnit.SECONDS);
+        final ZonedDateTime min = max.minusMinutes(3);
+        final List<ZonedDateTime> boundaries = bucketingParamsHelper.calculateDateBoundaries(new BucketingParams<>(3, min, max));
+        assertThat(boundaries, is(instanceOf(RandomAccess.class)));
+        assertEquals(Arrays.asList(min, max.minusMinutes(2), max.minusMinutes(1), max), boundaries);
+    }
+
     @Test
     public void emptyBuckets() {
         @SuppressWarnings("RedundantTypeArguments") // presumably Java bug
@@ -25,6 +25,8 @@ import org.springframework.boot.test.autoconfigure.json.JsonTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -59,6 +61,22 @@ public abstract class AbstractDocumentServiceIT<RQ extends QueryRequest<Q>, RS e
         assertThat(documents.getDocuments(), is(not(empty())));
     }
 
+    @Test
+    public void streamQueryResults() throws E {
+        final RQ queryRequest = queryRequestBuilderFactory.getObject()
+                .queryRestrictions(integrationTestUtils.buildQueryRestrictions())
+                .queryType(QueryRequest.QueryType.RAW)
+                .maxResults(10)
+                .build();
+        final List<String> expectedReferences = documentsService.queryTextIndex(queryRequest).getDocuments().stream()
+                .map(SearchResult::getReference)
+                .collect(Collectors.toList());
+
+        try(final Stream<D> results = documentsService.streamQueryResults(queryRequest, 3)) {
+            assertThat(results.map(SearchResult::getReference).collect(Collectors.toList()), is(expectedReferences));
+        }
+    }
+
     @Test
     public void queryForPromotions() throws E {
         final RQ queryRequest = queryRequestBuilderFactory.getObject()
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.search;
+
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestExecutor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PagedResultsSpliteratorTest {
+    @Mock
+    private ParallelRequestExecutor parallelRequestExecutor;
+
+    private List<String> requestedPages;
+    private List<CompletableFuture<?>> submitted;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() {
+        requestedPages = new ArrayList<>();
+        submitted = new ArrayList<>();
+
+        // run each page request lazily, when it is awaited, so prefetching is observable
+        when(parallelRequestExecutor.submit(any())).thenAnswer(invocation -> {
+            final CompletableFuture<Object> future = new LazyFuture<>((Supplier<Object>) invocation.getArguments()[0]);
+            submitted.add(future);
+            return future;
+        });
+        when(parallelRequestExecutor.await(any())).thenAnswer(invocation -> {
+            try {
+                return ((CompletableFuture<Object>) invocation.getArguments()[0]).join();
+            } catch(final CompletionException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @Test
+    public void streamsAllPages() {
+        final List<Integer> results = stream(23, 1, 100, 10).collect(Collectors.toList());
+
+        assertThat(results, is(IntStream.rangeClosed(1, 23).boxed().collect(Collectors.toList())));
+        assertThat(requestedPages, contains("1-10", "11-20", "21-30"));
+    }
+
+    @Test
+    public void stopsAtLastResult() {
+        final List<Integer> results = stream(100, 5, 24, 10).collect(Collectors.toList());
+
+        assertThat(results, is(IntStream.rangeClosed(5, 24).boxed().collect(Collectors.toList())));
+        assertThat(requestedPages, contains("5-14", "15-24"));
+    }
+
+    @Test
+    public void prefetchesNextPage() {
+        final Iterator<Integer> iterator = stream(100, 1, 100, 10).iterator();
+
+        assertThat(iterator.next(), is(1));
+        assertThat(submitted, hasSize(2));
+    }
+
+    @Test
+    public void fetchesPagesWhenNeededWithoutExecutor() {
+        final Iterator<Integer> iterator = PagedResultsSpliterator.stream((pageStart, pageEnd) -> {
+            requestedPages.add(pageStart + "-" + pageEnd);
+            return IntStream.rangeClosed(pageStart, pageEnd).boxed().collect(Collectors.toList());
+        }, 1, 20, 10).iterator();
+
+        assertThat(iterator.next(), is(1));
+        assertThat(requestedPages, contains("1-10"));
+
+        for(int i = 2; i <= 11; i++) {
+            assertThat(iterator.next(), is(i));
+        }
+        assertThat(requestedPages, contains("1-10", "11-20"));
+        assertThat(submitted, is(empty()));
+    }
+
+    @Test
+    public void noResults() {
+        assertThat(stream(0, 1, 100, 10).collect(Collectors.toList()), is(empty()));
+        assertThat(requestedPages, contains("1-10"));
+    }
+
+    @Test
+    public void wrapsCheckedExceptions() {
+        final Stream<Integer> stream = PagedResultsSpliterator.<Integer>stream((start, maxResults) -> {
+            throw new Exception("Failed");
+        }, 1, 100, 10, parallelRequestExecutor);
+
+        try {
+            stream.findFirst();
+            fail("Expected PagedResultsException");
+        } catch(final PagedResultsException e) {
+            assertThat(e.getCause(), is(instanceOf(Exception.class)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPageSize() {
+        stream(100, 1, 100, 0);
+    }
+
+    private Stream<Integer> stream(final int available, final int start, final int lastResult, final int pageSize) {
+        return PagedResultsSpliterator.stream((pageStart, pageEnd) -> {
+            requestedPages.add(pageStart + "-" + pageEnd);
+            return IntStream.rangeClosed(pageStart, Math.min(pageEnd, available)).boxed().collect(Collectors.toList());
+        }, start, lastResult, pageSize, parallelRequestExecutor);
+    }
+
+    private static class LazyFuture<T> extends CompletableFuture<T> {
+        private final Supplier<T> task;
+
+        private LazyFuture(final Supplier<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public T join() {
+            if(!isDone()) {
+                try {
+                    complete(task.get());
+                } catch(final RuntimeException e) {
+                    completeExceptionally(e);
+                }
+            }
+
+            return super.join();
+        }
+    }
+}
@@ -26,10 +26,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
@@ -83,4 +88,37 @@ public abstract class AbstractDocumentFieldsServiceTest {
         assertThat(documentFieldsService.getPrintFields(Collections.singleton("Some Id")), hasSize(1));
     }
 
+    @Test
+    public void reusePrintFieldsForSameSelection() {
+        fieldsInfo = FieldsInfo.builder()
+                .populateResponseMap("Some Id", FieldInfo.<String>builder()
+                        .name(fieldPathNormaliser.normaliseFieldPath("SomeField"))
+                        .build())
+                .populateResponseMap("Some other Id", FieldInfo.<String>builder()
+                        .name(fieldPathNormaliser.normaliseFieldPath("SomeOtherField"))
+                        .build())
+                .build();
+        when(config.getFieldsInfo()).thenReturn(fieldsInfo);
+        when(configService.getConfig()).thenReturn(config);
+
+        final List<String> printFields = documentFieldsService.getPrintFields(Arrays.asList("Some Id", "Some other Id"));
+        assertThat(printFields, hasSize(2));
+        assertThat(documentFieldsService.getPrintFields(Arrays.asList("Some other Id", "Some Id")), is(sameInstance(printFields)));
+        assertThat(documentFieldsService.getPrintFields(Collections.emptyList()), is(sameInstance(documentFieldsService.getPrintFields(Collections.emptySet()))));
+    }
+
+    @Test
+    public void resolvePrintFieldsAfterConfigChange() {
+        fieldsInfo = FieldsInfo.builder()
+                .populateResponseMap("Some Id", FieldInfo.<String>builder()
+                        .name(fieldPathNormaliser.normaliseFieldPath("SomeField"))
+                        .build())
+                .build();
+        when(config.getFieldsInfo()).thenReturn(fieldsInfo);
+        when(configService.getConfig()).thenReturn(config);
+        assertThat(documentFieldsService.getPrintFields(Collections.singleton("Some Id")), hasSize(1));
+
+        when(config.getFieldsInfo()).thenReturn(FieldsInfo.builder().build());
+        assertThat(documentFieldsService.getPrintFields(Collections.singleton("Some Id")), is(empty()));
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.core.view.raw;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static com.hp.autonomy.searchcomponents.core.view.ViewServerService.HIGHLIGHT_END_TAG;
+import static com.hp.autonomy.searchcomponents.core.view.ViewServerService.HIGHLIGHT_START_TAG;
+
+/**
+ * Formats a 50 MB document with regular highlighting, markup characters and line breaks, either buffered into an
+ * InputStream or streamed to an OutputStream. Run with the GC profiler (as main does) to compare allocation per
+ * operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class RawContentViewerBenchmark {
+    private static final int DOCUMENT_SIZE = 50 * 1024 * 1024;
+    private static final String LINE = "The <quick> brown fox & the \"lazy\" dog " + HIGHLIGHT_START_TAG + "jumps" + HIGHLIGHT_END_TAG + " over\n";
+
+    private RawContentViewer rawContentViewer;
+    private RawDocument rawDocument;
+
+    @Setup
+    public void setUp() {
+        rawContentViewer = new RawContentViewerImpl();
+
+        final StringBuilder content = new StringBuilder(DOCUMENT_SIZE + LINE.length());
+        while (content.length() < DOCUMENT_SIZE) {
+            content.append(LINE);
+        }
+
+        rawDocument = RawDocument.builder()
+                .reference("reference")
+                .title("Large Document")
+                .content(content.toString())
+                .build();
+    }
+
+    @Benchmark
+    public long buffered() throws IOException {
+        try (final InputStream inputStream = rawContentViewer.formatRawContent(rawDocument)) {
+            return IOUtils.copyLarge(inputStream, new NullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public void streamed() throws IOException {
+        rawContentViewer.formatRawContent(rawDocument, new NullOutputStream());
+    }
+
+    public static void main(final String... args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RawContentViewerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
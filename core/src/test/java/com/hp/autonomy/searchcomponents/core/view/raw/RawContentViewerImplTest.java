@@ -4,8 +4,14 @@ import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.hp.autonomy.searchcomponents.core.view.ViewServerService.HIGHLIGHT_END_TAG;
+import static com.hp.autonomy.searchcomponents.core.view.ViewServerService.HIGHLIGHT_START_TAG;
+import static org.hamcrest.Matchers.endsWith;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
@@ -30,4 +36,46 @@ public class RawContentViewerImplTest {
         final String output = IOUtils.toString(inputStream);
         assertThat(output, is("<h1>The Title</h1><p>Line 1<br>&amp;Line 2</p>"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void keepsHighlightingAndEscapesHighlightedText() throws IOException {
+        final RawDocument rawDocument = RawDocument.builder()
+                .reference("the_reference")
+                .content("a < " + HIGHLIGHT_START_TAG + "b & c" + HIGHLIGHT_END_TAG + " \u00e9")
+                .build();
+
+        final String output = IOUtils.toString(rawContentViewer.formatRawContent(rawDocument), StandardCharsets.UTF_8);
+        assertThat(output, is("<h1>the_reference</h1><p>a &lt; " + HIGHLIGHT_START_TAG + "b &amp; c" + HIGHLIGHT_END_TAG + " &eacute;</p>"));
+    }
+
+    @Test
+    public void escapesHighlightingAcrossLines() throws IOException {
+        final RawDocument rawDocument = RawDocument.builder()
+                .title("The Title")
+                .content(HIGHLIGHT_START_TAG + "a\nb" + HIGHLIGHT_END_TAG)
+                .build();
+
+        final String output = IOUtils.toString(rawContentViewer.formatRawContent(rawDocument), StandardCharsets.UTF_8);
+        assertThat(output, is("<h1>The Title</h1><p>&lt;span class='haven-search-view-document-highlighting'&gt;a<br>b&lt;/span&gt;</p>"));
+    }
+
+    @Test
+    public void writesToOutputStream() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            content.append("Line ").append(i).append(" & more\n");
+        }
+
+        final RawDocument rawDocument = RawDocument.builder()
+                .title("The Title")
+                .content(content.toString())
+                .build();
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        rawContentViewer.formatRawContent(rawDocument, outputStream);
+
+        final String expected = IOUtils.toString(rawContentViewer.formatRawContent(rawDocument), StandardCharsets.UTF_8);
+        assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8), is(expected));
+        assertThat(expected, endsWith("Line 9999 &amp; more<br></p>"));
+    }
+}
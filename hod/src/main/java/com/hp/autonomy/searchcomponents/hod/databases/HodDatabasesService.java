@@ -34,4 +34,15 @@ public interface HodDatabasesService extends DatabasesService<Database, HodDatab
             IndexFlavor.CUSTOM_FIELDS,
             IndexFlavor.JUMBO
     );
+
+    /**
+     * Property key for the maximum number of index flavour lookups which may be in flight for a single request
+     */
+    String FLAVOUR_PARALLELISM_PROPERTY_KEY = "haven.search.hod.databases.flavour.parallelism";
+
+    /**
+     * Property key for the maximum time in milliseconds to wait for the flavour of a single index.
+     * Indexes whose flavour is not retrieved in time are left out of the list of databases.
+     */
+    String FLAVOUR_TIMEOUT_PROPERTY_KEY = "haven.search.hod.databases.flavour.timeout";
 }
@@ -17,8 +17,14 @@ package com.hp.autonomy.searchcomponents.hod.databases;
 import com.hp.autonomy.hod.client.api.resource.*;
 import com.hp.autonomy.hod.client.api.textindex.IndexFlavor;
 import com.hp.autonomy.hod.client.error.HodErrorException;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestExecutor;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestTimeoutException;
+import com.hp.autonomy.searchcomponents.core.concurrent.PartialResults;
 import com.hp.autonomy.searchcomponents.core.databases.DatabasesService;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -29,18 +35,36 @@ import java.util.stream.Stream;
 
 /**
  * HoD databases service implementation: retrieves private and public index information by querying HoD for content resources
+ * <p>
+ * Index flavours are looked up concurrently, with at most a configured number of lookups in flight. An index whose
+ * flavour cannot be retrieved in time is left out of the list rather than failing it, unless no flavour could be
+ * retrieved at all.
  */
+@Slf4j
 @Service(DatabasesService.DATABASES_SERVICE_BEAN_NAME)
 class HodDatabasesServiceImpl implements HodDatabasesService {
     private final ResourcesService resourcesService;
     private final IndexFlavourService indexFlavourService;
+    private final ParallelRequestExecutor parallelRequestExecutor;
+    private final IndexFlavourCacheRefresher indexFlavourCacheRefresher;
+    private final int flavourParallelism;
+    private final long flavourTimeoutMillis;
 
+    @Autowired
     HodDatabasesServiceImpl(
             final ResourcesService resourcesService,
-            final IndexFlavourService indexFlavourService
+            final IndexFlavourService indexFlavourService,
+            final ParallelRequestExecutor parallelRequestExecutor,
+            final IndexFlavourCacheRefresher indexFlavourCacheRefresher,
+            @Value("${" + FLAVOUR_PARALLELISM_PROPERTY_KEY + ":8}") final int flavourParallelism,
+            @Value("${" + FLAVOUR_TIMEOUT_PROPERTY_KEY + ":10000}") final long flavourTimeoutMillis
     ) {
         this.resourcesService = resourcesService;
         this.indexFlavourService = indexFlavourService;
+        this.parallelRequestExecutor = parallelRequestExecutor;
+        this.indexFlavourCacheRefresher = indexFlavourCacheRefresher;
+        this.flavourParallelism = Math.max(1, flavourParallelism);
+        this.flavourTimeoutMillis = flavourTimeoutMillis;
     }
 
     @Override
@@ -64,15 +88,48 @@ class HodDatabasesServiceImpl implements HodDatabasesService {
                 .collect(Collectors.toCollection(TreeSet::new));
     }
 
-    private Collection<FlavouredResource> fetchFlavours(final Iterable<ResourceDetails> detailsList) throws HodErrorException {
-        final Collection<FlavouredResource> flavouredResources = new LinkedList<>();
+    private Collection<FlavouredResource> fetchFlavours(final Collection<ResourceDetails> detailsList) throws HodErrorException {
+        final PartialResults<ResourceDetails, IndexFlavor> flavours = parallelRequestExecutor.executeAllPartial(
+                detailsList,
+                details -> getIndexFlavour(details.getResource().getResourceUuid()),
+                flavourParallelism,
+                flavourTimeoutMillis
+        );
+
+        HodErrorException firstFailure = null;
+        for (final Map.Entry<ResourceDetails, RuntimeException> failure : flavours.getFailures().entrySet()) {
+            final String name = failure.getKey().getResource().getName();
+            final RuntimeException cause = failure.getValue();
+
+            if (cause instanceof FlavourLookupException) {
+                log.warn("Skipping index {}: failed to retrieve flavour", name, cause.getCause());
+                firstFailure = firstFailure == null ? ((FlavourLookupException) cause).getCause() : firstFailure;
+            } else if (cause instanceof ParallelRequestTimeoutException) {
+                log.warn("Skipping index {}: timed out retrieving flavour", name);
+            } else {
+                throw cause;
+            }
+        }
 
-        for (final ResourceDetails details : detailsList) {
-            final IndexFlavor indexFlavour = indexFlavourService.getIndexFlavour(details.getResource().getResourceUuid());
-            flavouredResources.add(new FlavouredResource(details, indexFlavour));
+        // a failure affecting every index (e.g. an expired token) is not specific to any one of them
+        if (flavours.getResults().isEmpty() && firstFailure != null) {
+            throw firstFailure;
         }
 
-        return flavouredResources;
+        return flavours.getResults().entrySet().stream()
+                .map(entry -> {
+                    indexFlavourCacheRefresher.register(entry.getKey().getResource().getResourceUuid());
+                    return new FlavouredResource(entry.getKey(), entry.getValue());
+                })
+                .collect(Collectors.toList());
+    }
+
+    private IndexFlavor getIndexFlavour(final ResourceUuid resourceUuid) {
+        try {
+            return indexFlavourService.getIndexFlavour(resourceUuid);
+        } catch (final HodErrorException e) {
+            throw new FlavourLookupException(e);
+        }
     }
 
     @Data
@@ -81,6 +138,19 @@ class HodDatabasesServiceImpl implements HodDatabasesService {
         private final IndexFlavor flavour;
     }
 
+    private static class FlavourLookupException extends RuntimeException {
+        private static final long serialVersionUID = 4711962440578117362L;
+
+        private FlavourLookupException(final HodErrorException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized HodErrorException getCause() {
+            return (HodErrorException) super.getCause();
+        }
+    }
+
     private static final Predicate<FlavouredResource> isContentFlavour = flavouredResource -> CONTENT_FLAVOURS.contains(flavouredResource.getFlavour());
     private static final Predicate<ResourceDetails> isPublicIndex = details -> ResourceName.PUBLIC_INDEXES_DOMAIN.equals(details.getResource().getDomain());
 
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.hod.databases;
+
+import com.hp.autonomy.hod.client.api.resource.ResourceUuid;
+import org.springframework.beans.factory.annotation.Qualifier;
+
+/**
+ * Keeps the {@link com.hp.autonomy.searchcomponents.hod.caching.HodCacheNames#INDEX_FLAVOUR} cache warm by periodically
+ * re-fetching the flavours of recently listed indexes in the background.
+ * <p>
+ * Each index is refreshed with the security context of the user who last listed it, until that registration expires, so
+ * user credentials are not kept or used beyond the length of a session. Expired indexes, and indexes which cannot be
+ * refreshed (for example because that user's token has expired), are dropped until they are listed again.
+ */
+@FunctionalInterface
+public interface IndexFlavourCacheRefresher {
+    /**
+     * The bean name of the default implementation.
+     * Use this in an {@link Qualifier} tag to access this implementation via autowiring.
+     */
+    String INDEX_FLAVOUR_CACHE_REFRESHER_BEAN_NAME = "indexFlavourCacheRefresher";
+
+    /**
+     * Property key for the interval in milliseconds between refreshes.
+     * A value of 0 or less (the default) disables background refreshing.
+     */
+    String REFRESH_INTERVAL_PROPERTY_KEY = "haven.search.hod.databases.flavour.refreshInterval";
+
+    /**
+     * Property key for the time in milliseconds for which an index is refreshed after it was last listed. This should
+     * not exceed the session timeout; the default is 30 minutes.
+     */
+    String REGISTRATION_TIME_TO_LIVE_PROPERTY_KEY = "haven.search.hod.databases.flavour.registrationTimeToLive";
+
+    /**
+     * Records that the flavour of an index has been used, so that it is kept up to date.
+     * Does nothing if background refreshing is disabled.
+     *
+     * @param resourceUuid The index
+     */
+    void register(ResourceUuid resourceUuid);
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.hod.databases;
+
+import com.hp.autonomy.hod.client.api.resource.ResourceUuid;
+import com.hp.autonomy.hod.client.error.HodErrorException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static com.hp.autonomy.searchcomponents.hod.databases.IndexFlavourCacheRefresher.INDEX_FLAVOUR_CACHE_REFRESHER_BEAN_NAME;
+
+/**
+ * Default implementation of {@link IndexFlavourCacheRefresher}. Indexes are refreshed one at a time on a single
+ * daemon thread, so the refresher never competes with user requests for more than one connection.
+ */
+@Slf4j
+@Component(INDEX_FLAVOUR_CACHE_REFRESHER_BEAN_NAME)
+class IndexFlavourCacheRefresherImpl implements IndexFlavourCacheRefresher, DisposableBean {
+    private static final String THREAD_NAME = "haven-search-index-flavour-refresher";
+    private static final int MAX_INDEXES = 10000;
+
+    private final IndexFlavourService indexFlavourService;
+    private final long registrationTimeToLiveNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<ResourceUuid, Registration> indexes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    @Autowired
+    IndexFlavourCacheRefresherImpl(
+            final IndexFlavourService indexFlavourService,
+            @Value("${" + REFRESH_INTERVAL_PROPERTY_KEY + ":0}") final long refreshIntervalMillis,
+            @Value("${" + REGISTRATION_TIME_TO_LIVE_PROPERTY_KEY + ":1800000}") final long registrationTimeToLiveMillis
+    ) {
+        this(indexFlavourService, refreshIntervalMillis, registrationTimeToLiveMillis, System::nanoTime);
+    }
+
+    IndexFlavourCacheRefresherImpl(
+            final IndexFlavourService indexFlavourService,
+            final long refreshIntervalMillis,
+            final long registrationTimeToLiveMillis,
+            final LongSupplier nanoClock
+    ) {
+        this.indexFlavourService = indexFlavourService;
+        this.nanoClock = nanoClock;
+        registrationTimeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(registrationTimeToLiveMillis);
+
+        if (refreshIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public void register(final ResourceUuid resourceUuid) {
+        if (scheduler != null && (indexes.size() < MAX_INDEXES || indexes.containsKey(resourceUuid))) {
+            // copy the context: the request thread's context may be cleared once the request completes
+            final SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+            securityContext.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+            indexes.put(resourceUuid, new Registration(securityContext, nanoClock.getAsLong() + registrationTimeToLiveNanos));
+        }
+    }
+
+    /**
+     * Re-fetches the flavour of every registered index, dropping expired registrations
+     */
+    void refresh() {
+        for (final Map.Entry<ResourceUuid, Registration> entry : new ArrayList<>(indexes.entrySet())) {
+            if (nanoClock.getAsLong() - entry.getValue().expiry >= 0) {
+                indexes.remove(entry.getKey(), entry.getValue());
+                continue;
+            }
+
+            SecurityContextHolder.setContext(entry.getValue().securityContext);
+
+            try {
+                indexFlavourService.refreshIndexFlavour(entry.getKey());
+            } catch (final HodErrorException | RuntimeException e) {
+                // only drop the entry if it has not been registered again in the meantime
+                indexes.remove(entry.getKey(), entry.getValue());
+                log.debug("Failed to refresh flavour of index {}", entry.getKey(), e);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static class Registration {
+        private final SecurityContext securityContext;
+        private final long expiry;
+
+        private Registration(final SecurityContext securityContext, final long expiry) {
+            this.securityContext = securityContext;
+            this.expiry = expiry;
+        }
+    }
+}
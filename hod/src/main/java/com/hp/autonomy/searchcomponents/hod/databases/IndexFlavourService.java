@@ -11,4 +11,15 @@ public interface IndexFlavourService {
 
     IndexFlavor getIndexFlavour(ResourceUuid resourceUuid) throws HodErrorException;
 
+    /**
+     * Retrieves the flavour of an index from HoD, replacing any cached value
+     *
+     * @param resourceUuid The index
+     * @return The current flavour of the index
+     * @throws HodErrorException If the index status could not be retrieved
+     */
+    default IndexFlavor refreshIndexFlavour(final ResourceUuid resourceUuid) throws HodErrorException {
+        return getIndexFlavour(resourceUuid);
+    }
+
 }
@@ -7,6 +7,7 @@ import com.hp.autonomy.hod.client.api.textindex.status.TextIndexStatusService;
 import com.hp.autonomy.hod.client.error.HodErrorException;
 import com.hp.autonomy.searchcomponents.hod.caching.HodCacheNames;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
@@ -25,4 +26,11 @@ class IndexFlavourServiceImpl implements IndexFlavourService {
         final TextIndexStatus indexStatus = textIndexStatusService.getIndexStatus(resourceUuid);
         return indexStatus.getFlavor();
     }
+
+    @Override
+    @CachePut(HodCacheNames.INDEX_FLAVOUR)
+    public IndexFlavor refreshIndexFlavour(final ResourceUuid resourceUuid) throws HodErrorException {
+        final TextIndexStatus indexStatus = textIndexStatusService.getIndexStatus(resourceUuid);
+        return indexStatus.getFlavor();
+    }
 }
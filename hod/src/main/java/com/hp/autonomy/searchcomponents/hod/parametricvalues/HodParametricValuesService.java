@@ -22,4 +22,14 @@ import com.hp.autonomy.searchcomponents.hod.search.HodQueryRestrictions;
  * HoD extension to {@link ParametricValuesService}
  */
 public interface HodParametricValuesService extends ParametricValuesService<HodParametricRequest, HodQueryRestrictions, HodErrorException> {
+    /**
+     * Property key for the maximum number of parametric values held for paging, across all users and fields. A value
+     * of 0 or less fetches the values for every page from HoD.
+     */
+    String VALUE_WINDOW_MAX_CACHED_VALUES_PROPERTY_KEY = "haven.search.hod.parametric.valueWindow.maxCachedValues";
+
+    /**
+     * Property key for the time in milliseconds for which fetched parametric values are used to serve later pages
+     */
+    String VALUE_WINDOW_TIME_TO_LIVE_PROPERTY_KEY = "haven.search.hod.parametric.valueWindow.timeToLive";
 }
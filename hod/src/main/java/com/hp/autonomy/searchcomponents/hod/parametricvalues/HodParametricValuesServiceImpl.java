@@ -14,6 +14,7 @@
 
 package com.hp.autonomy.searchcomponents.hod.parametricvalues;
 
+import com.google.common.primitives.Doubles;
 import com.hp.autonomy.aci.content.ranges.NumericRange;
 import com.hp.autonomy.aci.content.ranges.ParametricFieldRange;
 import com.hp.autonomy.aci.content.ranges.ParametricFieldRanges;
@@ -30,6 +31,7 @@ import com.hp.autonomy.hod.client.api.textindex.query.parametric.ParametricSort;
 import com.hp.autonomy.hod.client.error.HodErrorException;
 import com.hp.autonomy.hod.sso.HodAuthenticationPrincipal;
 import com.hp.autonomy.searchcomponents.core.caching.CacheNames;
+import com.hp.autonomy.searchcomponents.core.caching.PrincipalHasher;
 import com.hp.autonomy.searchcomponents.core.fields.TagNameFactory;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.BucketingParams;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.BucketingParamsHelper;
@@ -54,6 +56,7 @@ import java.util.Optional;
 import org.apache.commons.lang3.NotImplementedException;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
@@ -62,26 +65,32 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricValuesService.PARAMETRIC_VALUES_SERVICE_BEAN_NAME;
 
 /**
  * Default HoD implementation of {@link ParametricValuesService}
+ * <p>
+ * HoD GetParametricValues has no start parameter, so each page of values is cut from the leading values of the field.
+ * The leading values are held per user, field, query and sort in a {@link ParametricValueWindowCache}: when a page
+ * needs more values than are held, at least twice as many are fetched, so paging through a field takes a logarithmic
+ * number of requests rather than one per page.
  */
 @Service(PARAMETRIC_VALUES_SERVICE_BEAN_NAME)
 class HodParametricValuesServiceImpl implements HodParametricValuesService {
     private static final int HOD_MAX_VALUES = 10000;
-    private static final Pattern WILDCARD_PATTERN = Pattern.compile("\\*");
 
     private final HodFieldsService fieldsService;
     private final ObjectFactory<HodFieldsRequestBuilder> fieldsRequestBuilderFactory;
@@ -91,6 +100,8 @@ class HodParametricValuesServiceImpl implements HodParametricValuesService {
     private final TagNameFactory tagNameFactory;
     private final ConfigService<? extends HodSearchCapable> configService;
     private final AuthenticationInformationRetriever<?, HodAuthenticationPrincipal> authenticationInformationRetriever;
+    private final ParametricValueWindowCache valueWindowCache;
+    private final PrincipalHasher principalHasher = new PrincipalHasher();
 
     @SuppressWarnings("ConstructorWithTooManyParameters")
     @Autowired
@@ -102,7 +113,34 @@ class HodParametricValuesServiceImpl implements HodParametricValuesService {
         final BucketingParamsHelper bucketingParamsHelper,
         final TagNameFactory tagNameFactory,
         final ConfigService<? extends HodSearchCapable> configService,
-        final AuthenticationInformationRetriever<?, HodAuthenticationPrincipal> authenticationInformationRetriever
+        final AuthenticationInformationRetriever<?, HodAuthenticationPrincipal> authenticationInformationRetriever,
+        @Value("${" + VALUE_WINDOW_MAX_CACHED_VALUES_PROPERTY_KEY + ":100000}") final int valueWindowMaxCachedValues,
+        @Value("${" + VALUE_WINDOW_TIME_TO_LIVE_PROPERTY_KEY + ":60000}") final long valueWindowTimeToLiveMillis
+    ) {
+        this(
+            fieldsService,
+            fieldsRequestBuilderFactory,
+            getParametricValuesService,
+            getParametricRangesService,
+            bucketingParamsHelper,
+            tagNameFactory,
+            configService,
+            authenticationInformationRetriever,
+            new ParametricValueWindowCache(valueWindowMaxCachedValues, valueWindowTimeToLiveMillis, System::nanoTime)
+        );
+    }
+
+    @SuppressWarnings("ConstructorWithTooManyParameters")
+    HodParametricValuesServiceImpl(
+        final HodFieldsService fieldsService,
+        final ObjectFactory<HodFieldsRequestBuilder> fieldsRequestBuilderFactory,
+        final GetParametricValuesService getParametricValuesService,
+        final GetParametricRangesService getParametricRangesService,
+        final BucketingParamsHelper bucketingParamsHelper,
+        final TagNameFactory tagNameFactory,
+        final ConfigService<? extends HodSearchCapable> configService,
+        final AuthenticationInformationRetriever<?, HodAuthenticationPrincipal> authenticationInformationRetriever,
+        final ParametricValueWindowCache valueWindowCache
     ) {
         this.fieldsService = fieldsService;
         this.fieldsRequestBuilderFactory = fieldsRequestBuilderFactory;
@@ -112,6 +150,7 @@ class HodParametricValuesServiceImpl implements HodParametricValuesService {
         this.tagNameFactory = tagNameFactory;
         this.configService = configService;
         this.authenticationInformationRetriever = authenticationInformationRetriever;
+        this.valueWindowCache = valueWindowCache;
     }
 
     @SuppressWarnings("SpringCacheableComponentsInspection")
@@ -129,7 +168,11 @@ class HodParametricValuesServiceImpl implements HodParametricValuesService {
             return Collections.emptySet();
         } else {
             final int start = parametricRequest.getStart();
-            final Iterable<FieldValues> response = fetchParametricValues(parametricRequest, fieldNames);
+            // value restrictions are applied after fetching, so windows only hold unrestricted values
+            final Integer maxValues = parametricRequest.getMaxValues();
+            final Iterable<FieldValues> response = valueWindowCache.isEnabled() && parametricRequest.getValueRestrictions().isEmpty() && maxValues != null && maxValues > 0
+                ? fetchParametricValueWindows(parametricRequest, fieldNames, Math.min(maxValues, HOD_MAX_VALUES))
+                : fetchParametricValues(parametricRequest, fieldNames);
 
             final Set<QueryTagInfo> output = new HashSet<>();
 
@@ -163,25 +206,24 @@ class HodParametricValuesServiceImpl implements HodParametricValuesService {
     @Override
     @Cacheable(value = CacheNames.NUMERIC_PARAMETRIC_VALUES_IN_BUCKETS, cacheResolver = CachingConfiguration.PER_USER_CACHE_RESOLVER_NAME)
     public List<NumericRangeInfo> getNumericParametricValuesInBuckets(final HodParametricRequest parametricRequest, final Map<FieldPath, BucketingParams<Double>> bucketingParamsPerField) throws HodErrorException {
-        return getParametricValuesInBuckets(parametricRequest, bucketingParamsPerField, bucketingParamsHelper::calculateNumericBoundaries, Function.identity());
+        return getParametricValuesInBuckets(parametricRequest, bucketingParamsPerField, bucketingParamsHelper::calculateNumericBoundaryValues);
     }
 
     private <T extends Comparable<? super T> & Serializable> List<NumericRangeInfo> getParametricValuesInBuckets(
         final ParametricRequest<HodQueryRestrictions> parametricRequest,
         final Map<FieldPath, BucketingParams<T>> bucketingParamsPerField,
-        final Function<BucketingParams<T>, List<T>> calculateBoundaries,
-        final Function<List<T>, List<Double>> convertBoundaries
+        final Function<BucketingParams<T>, double[]> calculateBoundaries
     ) throws HodErrorException {
         if(parametricRequest.getFieldNames().isEmpty()) {
             return Collections.emptyList();
         } else {
             bucketingParamsHelper.validateBucketingParams(parametricRequest, bucketingParamsPerField);
 
-            final Map<FieldPath, List<Double>> boundariesPerField = bucketingParamsPerField.entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> convertBoundaries.apply(calculateBoundaries.apply(entry.getValue()))));
+            final Map<FieldPath, double[]> boundariesPerField = bucketingParamsPerField.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> calculateBoundaries.apply(entry.getValue())));
 
             final List<ParametricFieldRange> ranges = boundariesPerField.entrySet().stream()
-                .map(entry -> new NumericRange(entry.getKey().getNormalisedPath(), entry.getValue()))
+                .map(entry -> new NumericRange(entry.getKey().getNormalisedPath(), Doubles.asList(entry.getValue())))
                 .collect(Collectors.toList());
 
             final List<FieldRanges> response = fetchParametricRanges(parametricRequest, null, new ParametricFieldRanges(ranges).toString());
@@ -190,13 +232,13 @@ class HodParametricValuesServiceImpl implements HodParametricValuesService {
                 .map(fieldRanges -> {
                     final TagName tagName = tagNameFactory.buildTagName(fieldRanges.getName());
 
-                    final List<Double> boundaries = boundariesPerField.get(tagName.getId());
+                    final double[] boundaries = boundariesPerField.get(tagName.getId());
                     // All buckets have the same size, so just use the value from the first one
-                    final double bucketSize = boundaries.get(1) - boundaries.get(0);
+                    final double bucketSize = boundaries[1] - boundaries[0];
 
                     @SuppressWarnings("RedundantTypeArguments") // presumably Java bug
                     final List<NumericRangeInfo.Value> values = fieldRanges.getValueRanges().isEmpty()
-                        ? bucketingParamsHelper.<Double, Double, NumericRangeInfo.Value>emptyBuckets(boundaries, NumericRangeInfo.Value::new)
+                        ? bucketingParamsHelper.<Double, Double, NumericRangeInfo.Value>emptyBuckets(Doubles.asList(boundaries), NumericRangeInfo.Value::new)
                         : fieldRanges.getValueRanges().stream()
                         .map(fieldValues -> new NumericRangeInfo.Value(fieldValues.getLowerBound(), fieldValues.getUpperBound(), fieldValues.getCount()))
                         .collect(Collectors.toList());
@@ -205,8 +247,8 @@ class HodParametricValuesServiceImpl implements HodParametricValuesService {
                         .id(tagName.getId().getNormalisedPath())
                         .displayName(tagName.getDisplayName())
                         .count(fieldRanges.getValueDetails().getCount())
-                        .min(boundaries.get(0))
-                        .max(boundaries.get(boundaries.size() - 1))
+                        .min(boundaries[0])
+                        .max(boundaries[boundaries.length - 1])
                         .bucketSize(bucketSize)
                         .values(values)
                         .build();
@@ -219,10 +261,10 @@ class HodParametricValuesServiceImpl implements HodParametricValuesService {
     @Override
     @Cacheable(value = CacheNames.NUMERIC_PARAMETRIC_VALUES_IN_BUCKETS, cacheResolver = CachingConfiguration.PER_USER_CACHE_RESOLVER_NAME)
     public List<DateRangeInfo> getDateParametricValuesInBuckets(final HodParametricRequest parametricRequest, final Map<FieldPath, BucketingParams<ZonedDateTime>> bucketingParamsPerField) throws HodErrorException {
-        final Function<List<ZonedDateTime>, List<Double>> convertBoundaries = dateBoundaries -> dateBoundaries.stream()
-            .map(boundary -> (double)boundary.toEpochSecond())
-            .collect(Collectors.toList());
-        return getParametricValuesInBuckets(parametricRequest, bucketingParamsPerField, bucketingParamsHelper::calculateDateBoundaries, convertBoundaries).stream()
+        final Function<BucketingParams<ZonedDateTime>, double[]> calculateBoundaries = bucketingParams -> Arrays.stream(bucketingParamsHelper.calculateDateBoundaryEpochSeconds(bucketingParams))
+            .asDoubleStream()
+            .toArray();
+        return getParametricValuesInBuckets(parametricRequest, bucketingParamsPerField, calculateBoundaries).stream()
             .map(r -> DateRangeInfo.builder()
                 .id(r.getId())
                 .displayName(r.getDisplayName())
@@ -318,7 +360,87 @@ class HodParametricValuesServiceImpl implements HodParametricValuesService {
         );
     }
 
+    /**
+     * Fetches the values up to the given position for each field, serving fields from their windows where possible
+     */
+    private List<FieldValues> fetchParametricValueWindows(
+        final ParametricRequest<HodQueryRestrictions> parametricRequest,
+        final Collection<FieldPath> fieldPaths,
+        final int end
+    ) throws HodErrorException {
+        final String principalHash = principalHash();
+        final ParametricSort sort = ParametricSort.fromParam(parametricRequest.getSort());
+
+        final List<FieldValues> output = new ArrayList<>();
+        final Map<FieldPath, ParametricValueWindowCache.WindowKey> uncoveredKeys = new LinkedHashMap<>();
+        int fetchSize = end;
+
+        for(final FieldPath fieldPath : fieldPaths) {
+            final ParametricValueWindowCache.WindowKey key = new ParametricValueWindowCache.WindowKey(principalHash, fieldPath, parametricRequest.getQueryRestrictions(), parametricRequest.isModified(), sort);
+            final ParametricValueWindowCache.ValueWindow window = valueWindowCache.get(key);
+
+            if(window != null && window.covers(end)) {
+                output.add(window.head(end));
+            } else {
+                uncoveredKeys.put(fieldPath, key);
+                if(window != null) {
+                    // grow geometrically, so paging through n values takes O(log n) requests
+                    fetchSize = Math.max(fetchSize, window.getFieldValues().getValues().size() * 2);
+                }
+            }
+        }
+
+        if(!uncoveredKeys.isEmpty()) {
+            final int maxValues = Math.min(fetchSize, HOD_MAX_VALUES);
+            for(final FieldValues fieldValues : fetchParametricValues(parametricRequest, uncoveredKeys.keySet(), maxValues)) {
+                final ParametricValueWindowCache.ValueWindow window = new ParametricValueWindowCache.ValueWindow(
+                    fieldValues,
+                    fieldValues.getValues().size() < maxValues || maxValues >= HOD_MAX_VALUES
+                );
+
+                final ParametricValueWindowCache.WindowKey key = uncoveredKeys.get(tagNameFactory.getFieldPath(fieldValues.getName()));
+                if(key != null) {
+                    valueWindowCache.put(key, window);
+                }
+
+                output.add(window.head(end));
+            }
+        }
+
+        return output;
+    }
+
+    private String principalHash() {
+        final HodAuthenticationPrincipal principal = authenticationInformationRetriever.getPrincipal();
+        return principalHasher.hash(principal, principal.getApplication(), principal.getSecurityInfo());
+    }
+
     private Iterable<FieldValues> fetchParametricValues(final ParametricRequest<HodQueryRestrictions> parametricRequest, final Collection<FieldPath> fieldPaths) throws HodErrorException {
+        final int maxValues = parametricRequest.getValueRestrictions().isEmpty() ? Math.min(parametricRequest.getMaxValues(), HOD_MAX_VALUES) : HOD_MAX_VALUES;
+        final List<FieldValues> parametricValues = fetchParametricValues(parametricRequest, fieldPaths, maxValues);
+        if(parametricRequest.getValueRestrictions().isEmpty()) {
+            return parametricValues;
+        }
+
+        // HOD cannot restrict values itself, so filter here; the restrictions are compiled once for all fields
+        final WildcardMatcher valueMatcher = WildcardMatcher.compile(parametricRequest.getValueRestrictions());
+        return parametricValues.stream()
+            .map(fieldValues -> {
+                final List<FieldValues.ValueAndCount> values = fieldValues.getValues();
+                return fieldValues.toBuilder()
+                    .clearValues()
+                    .values(values
+                                .stream()
+                                .filter(valueAndCount -> valueMatcher.matches(valueAndCount.getValue()))
+                                .limit(parametricRequest.getMaxValues())
+                                .collect(Collectors.toList()))
+                    .build();
+            })
+            .filter(fieldValues -> !fieldValues.getValues().isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    private List<FieldValues> fetchParametricValues(final ParametricRequest<HodQueryRestrictions> parametricRequest, final Collection<FieldPath> fieldPaths, final int maxValues) throws HodErrorException {
         final ResourceName queryProfile = getQueryProfile(parametricRequest);
 
         final GetParametricValuesRequestBuilder parametricParams = new GetParametricValuesRequestBuilder()
@@ -326,7 +448,7 @@ class HodParametricValuesServiceImpl implements HodParametricValuesService {
             .setSort(ParametricSort.fromParam(parametricRequest.getSort()))
             .setText(parametricRequest.getQueryRestrictions().getQueryText())
             .setFieldText(parametricRequest.getQueryRestrictions().getFieldText())
-            .setMaxValues(parametricRequest.getValueRestrictions().isEmpty() ? Math.min(parametricRequest.getMaxValues(), HOD_MAX_VALUES) : HOD_MAX_VALUES)
+            .setMaxValues(maxValues)
             .setMinScore(parametricRequest.getQueryRestrictions().getMinScore())
             .setTotalValues(true)
             .setSecurityInfo(authenticationInformationRetriever.getPrincipal().getSecurityInfo());
@@ -336,22 +458,7 @@ class HodParametricValuesServiceImpl implements HodParametricValuesService {
             .collect(Collectors.toList());
 
         final Collection<ResourceName> indexes = parametricRequest.getQueryRestrictions().getDatabases();
-        final List<FieldValues> parametricValues = getParametricValuesService.getParametricValues(fieldNames, indexes, parametricParams);
-        return parametricRequest.getValueRestrictions().isEmpty() ? parametricValues : parametricValues.stream()
-            .map(fieldValues -> {
-                final List<FieldValues.ValueAndCount> values = fieldValues.getValues();
-                return fieldValues.toBuilder()
-                    .clearValues()
-                    .values(values
-                                .stream()
-                                .filter(valueAndCount -> parametricRequest.getValueRestrictions().stream()
-                                    .anyMatch(restriction -> valueAndCount.getValue().toLowerCase().matches(WILDCARD_PATTERN.matcher(restriction.toLowerCase()).replaceAll(".*"))))
-                                .limit(parametricRequest.getMaxValues())
-                                .collect(Collectors.toList()))
-                    .build();
-            })
-            .filter(fieldValues -> !fieldValues.getValues().isEmpty())
-            .collect(Collectors.toList());
+        return getParametricValuesService.getParametricValues(fieldNames, indexes, parametricParams);
     }
 
     private ResourceName getQueryProfile(final ParametricRequest<HodQueryRestrictions> parametricRequest) {
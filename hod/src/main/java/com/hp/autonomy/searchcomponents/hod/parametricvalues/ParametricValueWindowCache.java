@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.hod.parametricvalues;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.hp.autonomy.hod.client.api.textindex.query.parametric.FieldValues;
+import com.hp.autonomy.hod.client.api.textindex.query.parametric.ParametricSort;
+import com.hp.autonomy.searchcomponents.hod.search.HodQueryRestrictions;
+import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
+import lombok.Data;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The leading parametric values already fetched from HoD for each user, field, query and sort. HoD GetParametricValues
+ * has no start parameter, so later pages of a field's values are served from the window rather than fetching the same
+ * leading values again.
+ * <p>
+ * The cache is bounded by the total number of values held, evicting the least recently used windows first.
+ */
+class ParametricValueWindowCache {
+    private final int maxCachedValues;
+    private final Cache<WindowKey, ValueWindow> windows;
+
+    /**
+     * @param maxCachedValues  The maximum number of values held across all windows; 0 or less disables the cache
+     * @param timeToLiveMillis How long a window is used for after it is fetched
+     * @param nanoClock        The source of the current time, in nanoseconds
+     */
+    ParametricValueWindowCache(final int maxCachedValues, final long timeToLiveMillis, final LongSupplier nanoClock) {
+        this.maxCachedValues = maxCachedValues;
+
+        windows = CacheBuilder.newBuilder()
+            .maximumWeight(Math.max(maxCachedValues, 0))
+            .weigher((WindowKey key, ValueWindow window) -> size(window))
+            .expireAfterWrite(Math.max(timeToLiveMillis, 0), TimeUnit.MILLISECONDS)
+            .ticker(new Ticker() {
+                @Override
+                public long read() {
+                    return nanoClock.getAsLong();
+                }
+            })
+            .build();
+    }
+
+    boolean isEnabled() {
+        return maxCachedValues > 0;
+    }
+
+    /**
+     * @param key The user, field, query and sort
+     * @return The window, or null if none has been fetched or it has expired
+     */
+    ValueWindow get(final WindowKey key) {
+        return windows.getIfPresent(key);
+    }
+
+    /**
+     * Stores a window, replacing any previous window for the key. Windows holding more values than the whole cache are
+     * not stored.
+     */
+    void put(final WindowKey key, final ValueWindow window) {
+        if(!isEnabled() || size(window) > maxCachedValues) {
+            windows.invalidate(key);
+            return;
+        }
+
+        windows.put(key, window);
+    }
+
+    int getCachedValues() {
+        return windows.asMap().values().stream().mapToInt(ParametricValueWindowCache::size).sum();
+    }
+
+    private static int size(final ValueWindow window) {
+        return window.getFieldValues().getValues().size();
+    }
+
+    /**
+     * Identifies a window: the values of one field for one user's query, in one sort order
+     */
+    @Data
+    static class WindowKey {
+        private final String principalHash;
+        private final FieldPath fieldPath;
+        private final HodQueryRestrictions queryRestrictions;
+        private final boolean modified;
+        private final ParametricSort sort;
+    }
+
+    /**
+     * The leading values of a field, in sort order
+     */
+    @Data
+    static class ValueWindow {
+        private final FieldValues fieldValues;
+
+        /**
+         * True if the window holds every value of the field, so any page can be served from it
+         */
+        private final boolean complete;
+
+        /**
+         * @param end The position of the last value needed, counting from 1
+         * @return True if every value up to end is in the window
+         */
+        boolean covers(final int end) {
+            return complete || fieldValues.getValues().size() >= end;
+        }
+
+        /**
+         * @param end The position of the last value needed, counting from 1
+         * @return The field's values up to end
+         */
+        FieldValues head(final int end) {
+            final List<FieldValues.ValueAndCount> values = fieldValues.getValues();
+            return values.size() <= end
+                ? fieldValues
+                : fieldValues.toBuilder()
+                .clearValues()
+                .values(values.subList(0, end))
+                .build();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.hod.parametricvalues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Case-insensitive matcher for parametric value restrictions, where {@code *} matches any sequence of characters and
+ * every other character matches itself.
+ * <p>
+ * Restrictions are compiled once into literal segments; matching a value performs no allocation.
+ */
+class WildcardMatcher {
+    private static final char WILDCARD = '*';
+
+    private final Pattern[] patterns;
+    private final boolean matchesEverything;
+
+    private WildcardMatcher(final Pattern[] patterns, final boolean matchesEverything) {
+        this.patterns = patterns;
+        this.matchesEverything = matchesEverything;
+    }
+
+    /**
+     * Compiles the given restrictions into a matcher which accepts a value if any one of them matches
+     *
+     * @param restrictions The value restrictions
+     * @return The compiled matcher
+     */
+    static WildcardMatcher compile(final Collection<String> restrictions) {
+        // duplicate restrictions are common when the same restriction is applied to several fields
+        final Set<String> distinctRestrictions = new LinkedHashSet<>(restrictions);
+        final List<Pattern> patterns = new ArrayList<>(distinctRestrictions.size());
+        boolean matchesEverything = false;
+
+        for(final String restriction : distinctRestrictions) {
+            final Pattern pattern = Pattern.compile(restriction);
+            matchesEverything |= pattern.matchesEverything();
+            patterns.add(pattern);
+        }
+
+        return new WildcardMatcher(patterns.toArray(new Pattern[0]), matchesEverything);
+    }
+
+    /**
+     * @param value The value to test
+     * @return True if any of the restrictions matches the whole value
+     */
+    boolean matches(final String value) {
+        if(matchesEverything) {
+            return true;
+        }
+
+        for(final Pattern pattern : patterns) {
+            if(pattern.matches(value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * A single restriction, split on wildcards into the literal segments which must appear in order
+     */
+    private static final class Pattern {
+        private final String[] segments;
+        private final boolean anchoredStart;
+        private final boolean anchoredEnd;
+        private final int minimumLength;
+
+        private Pattern(final String[] segments, final boolean anchoredStart, final boolean anchoredEnd) {
+            this.segments = segments;
+            this.anchoredStart = anchoredStart;
+            this.anchoredEnd = anchoredEnd;
+
+            int length = 0;
+            for(final String segment : segments) {
+                length += segment.length();
+            }
+            minimumLength = length;
+        }
+
+        private static Pattern compile(final String restriction) {
+            final List<String> segments = new ArrayList<>();
+            int segmentStart = 0;
+
+            for(int i = 0; i <= restriction.length(); i++) {
+                if(i == restriction.length() || restriction.charAt(i) == WILDCARD) {
+                    if(i > segmentStart) {
+                        segments.add(restriction.substring(segmentStart, i));
+                    }
+
+                    segmentStart = i + 1;
+                }
+            }
+
+            final boolean anchoredStart = restriction.isEmpty() || restriction.charAt(0) != WILDCARD;
+            final boolean anchoredEnd = restriction.isEmpty() || restriction.charAt(restriction.length() - 1) != WILDCARD;
+            return new Pattern(segments.toArray(new String[0]), anchoredStart, anchoredEnd);
+        }
+
+        private boolean matchesEverything() {
+            return segments.length == 0 && !(anchoredStart && anchoredEnd);
+        }
+
+        private boolean matches(final String value) {
+            final int valueLength = value.length();
+            if(valueLength < minimumLength) {
+                return false;
+            }
+
+            if(segments.length == 0) {
+                // either the empty restriction, which only matches the empty value, or only wildcards
+                return !(anchoredStart && anchoredEnd) || valueLength == 0;
+            }
+
+            int firstSegment = 0;
+            int lastSegment = segments.length - 1;
+            int position = 0;
+            int end = valueLength;
+
+            if(anchoredStart) {
+                final String segment = segments[0];
+                if(!value.regionMatches(true, 0, segment, 0, segment.length())) {
+                    return false;
+                }
+
+                position = segment.length();
+                firstSegment = 1;
+
+                if(segments.length == 1 && anchoredEnd) {
+                    return position == valueLength;
+                }
+            }
+
+            if(anchoredEnd) {
+                final String segment = segments[lastSegment];
+                final int segmentStart = valueLength - segment.length();
+                if(segmentStart < position || !value.regionMatches(true, segmentStart, segment, 0, segment.length())) {
+                    return false;
+                }
+
+                end = segmentStart;
+                lastSegment--;
+            }
+
+            // leftmost matching of the floating segments is sufficient, since wildcards can absorb anything in between
+            for(int i = firstSegment; i <= lastSegment; i++) {
+                position = indexOfIgnoreCase(value, segments[i], position, end);
+                if(position < 0) {
+                    return false;
+                }
+
+                position += segments[i].length();
+            }
+
+            return true;
+        }
+
+        private static int indexOfIgnoreCase(final String value, final String segment, final int from, final int end) {
+            final int segmentLength = segment.length();
+            final int lastStart = end - segmentLength;
+
+            for(int start = from; start <= lastStart; start++) {
+                if(value.regionMatches(true, start, segment, 0, segmentLength)) {
+                    return start;
+                }
+            }
+
+            return -1;
+        }
+    }
+}
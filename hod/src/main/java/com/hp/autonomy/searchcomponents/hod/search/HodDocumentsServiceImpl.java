@@ -33,8 +33,10 @@ import com.hp.autonomy.hod.client.error.HodErrorException;
 import com.hp.autonomy.hod.client.warning.HodWarning;
 import com.hp.autonomy.hod.sso.HodAuthenticationPrincipal;
 import com.hp.autonomy.searchcomponents.core.caching.CacheNames;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestExecutor;
 import com.hp.autonomy.searchcomponents.core.search.DocumentsService;
 import com.hp.autonomy.searchcomponents.core.search.GetContentRequestIndex;
+import com.hp.autonomy.searchcomponents.core.search.PagedResultsSpliterator;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
 import com.hp.autonomy.searchcomponents.core.search.StateTokenAndResultCount;
 import com.hp.autonomy.searchcomponents.core.search.fields.DocumentFieldsService;
@@ -56,6 +58,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.hp.autonomy.searchcomponents.core.search.DocumentsService.DOCUMENTS_SERVICE_BEAN_NAME;
 
@@ -87,6 +90,7 @@ class HodDocumentsServiceImpl implements HodDocumentsService {
     private final GetContentService<HodSearchResult> getContentService;
     private final AuthenticationInformationRetriever<?, HodAuthenticationPrincipal> authenticationRetriever;
     private final DocumentFieldsService documentFieldsService;
+    private final ParallelRequestExecutor parallelRequestExecutor;
 
     @SuppressWarnings("ConstructorWithTooManyParameters")
     @Autowired
@@ -96,7 +100,8 @@ class HodDocumentsServiceImpl implements HodDocumentsService {
         final QueryTextIndexService<HodSearchResult> queryTextIndexService,
         final GetContentService<HodSearchResult> getContentService,
         final AuthenticationInformationRetriever<?, HodAuthenticationPrincipal> authenticationRetriever,
-        final DocumentFieldsService documentFieldsService
+        final DocumentFieldsService documentFieldsService,
+        final ParallelRequestExecutor parallelRequestExecutor
     ) {
         this.findSimilarService = findSimilarService;
         this.configService = configService;
@@ -104,6 +109,7 @@ class HodDocumentsServiceImpl implements HodDocumentsService {
         this.getContentService = getContentService;
         this.authenticationRetriever = authenticationRetriever;
         this.documentFieldsService = documentFieldsService;
+        this.parallelRequestExecutor = parallelRequestExecutor;
     }
 
     @Override
@@ -131,6 +137,22 @@ class HodDocumentsServiceImpl implements HodDocumentsService {
         return new Documents<>(documentList, totalResults, hodDocuments.getExpandedQuery(), null, hodDocuments.getAutoCorrection(), null);
     }
 
+    @Override
+    public Stream<HodSearchResult> streamQueryResults(final HodQueryRequest queryRequest, final int pageSize) {
+        // Haven OnDemand has no state tokens, so pages are fetched from the live index by position
+        return PagedResultsSpliterator.stream(
+            (start, maxResults) -> queryTextIndex(queryRequest.toBuilder()
+                .start(start)
+                .maxResults(maxResults)
+                .build())
+                .getDocuments(),
+            queryRequest.getStart(),
+            Math.min(queryRequest.getMaxResults(), HOD_MAX_RESULTS),
+            pageSize,
+            parallelRequestExecutor
+        );
+    }
+
     @Override
     public Documents<HodSearchResult> findSimilar(final HodSuggestRequest suggestRequest) throws HodErrorException {
         final QueryRequestBuilder requestBuilder = setQueryParams(suggestRequest, false);
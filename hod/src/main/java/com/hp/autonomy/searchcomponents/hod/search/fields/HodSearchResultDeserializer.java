@@ -15,44 +15,39 @@
 package com.hp.autonomy.searchcomponents.hod.search.fields;
 
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeType;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
 import com.hp.autonomy.frontend.configuration.ConfigService;
 import com.hp.autonomy.hod.client.api.textindex.query.search.PromotionType;
 import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
 import com.hp.autonomy.searchcomponents.core.config.FieldType;
 import com.hp.autonomy.searchcomponents.core.config.FieldValue;
+import com.hp.autonomy.searchcomponents.core.config.FieldsInfoSnapshot;
 import com.hp.autonomy.searchcomponents.core.fields.FieldDisplayNameGenerator;
 import com.hp.autonomy.searchcomponents.core.fields.FieldPathNormaliser;
 import com.hp.autonomy.searchcomponents.core.search.PromotionCategory;
 import com.hp.autonomy.searchcomponents.hod.configuration.HodSearchCapable;
 import com.hp.autonomy.searchcomponents.hod.search.HodSearchResult;
 import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
-import org.apache.commons.lang.ArrayUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jackson.JsonComponent;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.time.ZonedDateTime;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
+/**
+ * Reads HOD documents token by token, collecting array properties into the field map in a single pass without building
+ * a JSON tree.
+ */
 @JsonComponent
 public class HodSearchResultDeserializer extends JsonDeserializer<HodSearchResult> {
     /**
@@ -63,10 +58,14 @@ public class HodSearchResultDeserializer extends JsonDeserializer<HodSearchResul
         .add("links")
         .build();
 
+    private static final int MAX_RESOLVED_FIELDS = 10000;
+
     private final ConfigService<? extends HodSearchCapable> configService;
     private final FieldDisplayNameGenerator fieldDisplayNameGenerator;
     private final FieldPathNormaliser fieldPathNormaliser;
 
+    private final FieldsInfoSnapshot.DerivedTable<FieldResolver> fieldResolvers;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Autowired
@@ -78,157 +77,97 @@ public class HodSearchResultDeserializer extends JsonDeserializer<HodSearchResul
         this.configService = configService;
         this.fieldDisplayNameGenerator = fieldDisplayNameGenerator;
         this.fieldPathNormaliser = fieldPathNormaliser;
+        fieldResolvers = new FieldsInfoSnapshot.DerivedTable<>(FieldResolver::new);
     }
 
     @Override
     public HodSearchResult deserialize(final JsonParser jsonParser, final DeserializationContext deserializationContext) throws IOException {
-        final Map<FieldPath, FieldInfo<?>> fieldConfigByName = configService.getConfig().getFieldsInfo().getFieldConfigByName();
-
-        final JsonNode node = jsonParser.getCodec().readTree(jsonParser);
-        final Iterator<Map.Entry<String, JsonNode>> fieldsIterator = node.fields();
-        final Iterable<Map.Entry<String, JsonNode>> entryIterable = () -> fieldsIterator;
-        final Stream<Map.Entry<String, JsonNode>> entryStream = StreamSupport.stream(entryIterable.spliterator(), false);
-
-        final Map<String, FieldInfo<?>> fieldMap = entryStream
-            .filter(entry -> entry.getValue().getNodeType() == JsonNodeType.ARRAY && !IGNORED_PROPERTIES.contains(entry.getKey()))
-            .reduce(
-                ImmutableMap.of(),
-                (map, entry) -> {
-                    final FieldPath fieldPath = fieldPathNormaliser.normaliseFieldPath(entry.getKey());
-                    final List<String> stringValues = parseNodeAsStringList(entry.getValue());
-
-                    // Config field info may or may not have a display name and it may contain friendly value names
-                    final Optional<FieldInfo<?>> maybeConfigFieldInfo = Optional.ofNullable(fieldConfigByName.get(fieldPath));
-
-                    // If there is a config entry for this field, we may have seen one with the same ID already
-                    final Optional<FieldInfo<?>> maybeExistingFieldInfo = maybeConfigFieldInfo.flatMap(configFieldInfo -> Optional.ofNullable(map.get(configFieldInfo.getId())));
-
-                    final FieldInfo<?> newFieldInfo = reduceFieldInfo(fieldPath, stringValues, maybeConfigFieldInfo, maybeExistingFieldInfo);
-                    final String id = newFieldInfo.getId();
-
-                    final ImmutableMap.Builder<String, FieldInfo<?>> builder = ImmutableMap.builder();
-                    builder.put(id, newFieldInfo);
-
-                    map.entrySet().stream()
-                        .filter(existingEntry -> !existingEntry.getKey().equals(id))
-                        .forEach(builder::put);
-
-                    return builder.build();
-                },
-                this::mergeMaps
-            );
-
-        return HodSearchResult.builder()
-            .reference(parseAsString(node, "reference"))
-            .index(parseAsString(node, "index"))
-            .title(parseAsString(node, "title"))
-            .summary(parseAsString(node, "summary"))
-            .weight(parseAsDouble(node, "weight"))
-            .fieldMap(fieldMap)
-            .date(parseAsDateFromArray(node, "date"))
-            .promotionCategory(parsePromotionCategory(node, "promotion"))
-            .build();
-    }
+        final FieldResolver resolver = getFieldResolver();
+        final HodSearchResult.HodSearchResultBuilder builder = HodSearchResult.builder();
 
-    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
-    private FieldInfo<?> reduceFieldInfo(
-        final FieldPath fieldPath,
-        final Collection<String> stringValues,
-        final Optional<FieldInfo<?>> maybeConfigFieldInfo,
-        final Optional<FieldInfo<?>> maybeExistingFieldInfo
-    ) {
-        if(maybeExistingFieldInfo.isPresent()) {
-            final FieldInfo<?> existingFieldInfo = maybeExistingFieldInfo.get();
-            final String id = existingFieldInfo.getId();
-            final FieldType fieldType = existingFieldInfo.getType();
-
-            return existingFieldInfo.toBuilder()
-                .name(fieldPath)
-                .values(parseValues(fieldType, id, stringValues))
-                .build();
-        } else {
-            final String id;
-            final FieldType fieldType;
-            final boolean advanced;
+        // Fields are keyed by id, since several configured names may share an id
+        final Map<String, FieldInfo.FieldInfoBuilder<Serializable>> fieldBuilders = new LinkedHashMap<>();
 
-            if(maybeConfigFieldInfo.isPresent()) {
-                final FieldInfo<?> configFieldInfo = maybeConfigFieldInfo.get();
-                id = configFieldInfo.getId();
-                advanced = configFieldInfo.isAdvanced();
-                fieldType = configFieldInfo.getType();
+        JsonToken token = jsonParser.getCurrentToken();
+        if(token == JsonToken.START_OBJECT) {
+            token = jsonParser.nextToken();
+        }
+
+        for(; token == JsonToken.FIELD_NAME; token = jsonParser.nextToken()) {
+            final String propertyName = jsonParser.getCurrentName();
+
+            if(jsonParser.nextToken() == JsonToken.START_ARRAY) {
+                final String[] values = objectMapper.readValue(jsonParser, String[].class);
+
+                if("date".equals(propertyName) && values.length > 0 && values[0] != null) {
+                    builder.date(FieldType.DATE.parseValue(ZonedDateTime.class, values[0]));
+                }
+
+                if(!IGNORED_PROPERTIES.contains(propertyName)) {
+                    addField(fieldBuilders, resolver.resolve(propertyName), values);
+                }
             } else {
-                id = fieldPath.getNormalisedPath();
-                advanced = true;
-                fieldType = FieldType.STRING;
+                switch(propertyName) {
+                    case "reference":
+                        builder.reference(readString(jsonParser));
+                        break;
+                    case "index":
+                        builder.index(readString(jsonParser));
+                        break;
+                    case "title":
+                        builder.title(readString(jsonParser));
+                        break;
+                    case "summary":
+                        builder.summary(readString(jsonParser));
+                        break;
+                    case "weight":
+                        final String weight = readString(jsonParser);
+                        builder.weight(weight != null ? Double.parseDouble(weight) : null);
+                        break;
+                    case "promotion":
+                        builder.promotionCategory(parsePromotionCategory(readString(jsonParser)));
+                        break;
+                    default:
+                        jsonParser.skipChildren();
+                }
             }
+        }
 
-            return FieldInfo.builder()
-                .id(id)
-                .name(fieldPath)
-                .displayName(fieldDisplayNameGenerator.generateDisplayNameFromId(id))
-                .type(fieldType)
-                .values(parseValues(fieldType, id, stringValues))
-                .advanced(advanced)
-                .build();
+        final Map<String, FieldInfo<?>> fieldMap = new LinkedHashMap<>(fieldBuilders.size());
+        for(final Map.Entry<String, FieldInfo.FieldInfoBuilder<Serializable>> entry : fieldBuilders.entrySet()) {
+            fieldMap.put(entry.getKey(), entry.getValue().build());
         }
-    }
 
-    private <K, V> ImmutableMap<K, V> mergeMaps(final Map<K, V> map1, final Map<K, V> map2) {
-        return ImmutableMap.<K, V>builder()
-            .putAll(map1)
-            .putAll(map2)
+        return builder
+            .fieldMap(fieldMap)
             .build();
     }
 
-    private <T extends Serializable> Collection<FieldValue<T>> parseValues(final FieldType fieldType, final String fieldId, final Collection<String> stringValues) {
-        return stringValues.stream()
-            .map(stringValue -> {
-                @SuppressWarnings("unchecked") final T value = (T)fieldType.parseValue(fieldType.getType(), stringValue);
-                final String displayValue = fieldDisplayNameGenerator.generateDisplayValueFromId(fieldId, value, fieldType);
-                return new FieldValue<>(value, displayValue);
-            })
-            .collect(Collectors.toList());
+    private FieldResolver getFieldResolver() {
+        return configService.getConfig().getFieldsInfo().getSnapshot().getTable(fieldResolvers);
     }
 
-    private String parseAsString(@SuppressWarnings("TypeMayBeWeakened") final JsonNode node, final String fieldName) throws JsonProcessingException {
-        final JsonNode jsonNode = node.get(fieldName);
-        return jsonNode != null ? objectMapper.treeToValue(jsonNode, String.class) : null;
-    }
-
-    private String[] parseAsStringArray(@SuppressWarnings("TypeMayBeWeakened") final JsonNode node, final String fieldName) throws JsonProcessingException {
-        final JsonNode jsonNode = node.get(fieldName);
-        return jsonNode != null ? objectMapper.treeToValue(jsonNode, String[].class) : null;
-    }
-
-    private String parseAsStringFromArray(@SuppressWarnings("TypeMayBeWeakened") final JsonNode node, final String fieldName) throws JsonProcessingException {
-        final String[] values = parseAsStringArray(node, fieldName);
-        return ArrayUtils.isNotEmpty(values) ? values[0] : null;
-    }
-
-    @SuppressWarnings("SameParameterValue")
-    private Double parseAsDouble(@SuppressWarnings("TypeMayBeWeakened") final JsonNode node, final String fieldName) throws JsonProcessingException {
-        final String value = parseAsString(node, fieldName);
-        return value != null ? Double.parseDouble(value) : null;
-    }
+    private void addField(final Map<String, FieldInfo.FieldInfoBuilder<Serializable>> fieldBuilders, final ResolvedField field, final String[] stringValues) {
+        final FieldInfo.FieldInfoBuilder<Serializable> fieldBuilder = fieldBuilders.computeIfAbsent(field.id, id -> FieldInfo.<Serializable>builder()
+            .id(id)
+            .displayName(field.displayName)
+            .type(field.type)
+            .advanced(field.advanced));
 
-    @SuppressWarnings("SameParameterValue")
-    private ZonedDateTime parseAsDateFromArray(@SuppressWarnings("TypeMayBeWeakened") final JsonNode node, final String fieldName) throws JsonProcessingException {
-        final String value = parseAsStringFromArray(node, fieldName);
-        return value != null ? FieldType.DATE.parseValue(ZonedDateTime.class, value) : null;
-    }
+        fieldBuilder.name(field.fieldPath);
 
-    private List<String> parseNodeAsStringList(final TreeNode node) {
-        try {
-            return Arrays.asList(objectMapper.treeToValue(node, String[].class));
-        } catch(final JsonProcessingException e) {
-            throw new IllegalStateException("Failed to parse JSON array", e);
+        for(final String stringValue : stringValues) {
+            final Serializable value = (Serializable)field.type.parseValue(field.type.getType(), stringValue);
+            final String displayValue = fieldDisplayNameGenerator.generateDisplayValueFromId(field.id, value, field.type);
+            fieldBuilder.value(new FieldValue<>(value, displayValue));
         }
     }
 
-    @SuppressWarnings("SameParameterValue")
-    private PromotionCategory parsePromotionCategory(@SuppressWarnings("TypeMayBeWeakened") final JsonNode node, final String fieldName) throws JsonProcessingException {
-        final String value = parseAsString(node, fieldName);
+    private String readString(final JsonParser jsonParser) throws IOException {
+        return objectMapper.readValue(jsonParser, String.class);
+    }
 
+    private PromotionCategory parsePromotionCategory(final String value) {
         PromotionCategory promotionCategory = null;
         if(value != null) {
             final PromotionType promotionType = PromotionType.valueOf(value);
@@ -251,4 +190,68 @@ public class HodSearchResultDeserializer extends JsonDeserializer<HodSearchResul
 
         return promotionCategory;
     }
+
+    /**
+     * Resolved field config for the most recently seen JSON property names, discarded with the field config snapshot
+     */
+    private class FieldResolver {
+        private final Map<FieldPath, FieldInfo<?>> fieldConfigByName;
+        private final Cache<String, ResolvedField> resolvedFields = CacheBuilder.newBuilder()
+            .maximumSize(MAX_RESOLVED_FIELDS)
+            .build();
+
+        private FieldResolver(final FieldsInfoSnapshot snapshot) {
+            fieldConfigByName = snapshot.getFieldConfigByName();
+        }
+
+        private ResolvedField resolve(final String propertyName) {
+            final ResolvedField resolvedField = resolvedFields.getIfPresent(propertyName);
+            if(resolvedField != null) {
+                return resolvedField;
+            }
+
+            final ResolvedField newResolvedField = resolveFromConfig(propertyName);
+            resolvedFields.put(propertyName, newResolvedField);
+            return newResolvedField;
+        }
+
+        private ResolvedField resolveFromConfig(final String propertyName) {
+            final FieldPath fieldPath = fieldPathNormaliser.normaliseFieldPath(propertyName);
+
+            // Config field info may or may not have a display name and it may contain friendly value names
+            final FieldInfo<?> configFieldInfo = fieldConfigByName.get(fieldPath);
+
+            final String id;
+            final FieldType fieldType;
+            final boolean advanced;
+
+            if(configFieldInfo != null) {
+                id = configFieldInfo.getId();
+                advanced = configFieldInfo.isAdvanced();
+                fieldType = configFieldInfo.getType();
+            } else {
+                id = fieldPath.getNormalisedPath();
+                advanced = true;
+                fieldType = FieldType.STRING;
+            }
+
+            return new ResolvedField(fieldPath, id, fieldDisplayNameGenerator.generateDisplayNameFromId(id), fieldType, advanced);
+        }
+    }
+
+    private static class ResolvedField {
+        private final FieldPath fieldPath;
+        private final String id;
+        private final String displayName;
+        private final FieldType type;
+        private final boolean advanced;
+
+        private ResolvedField(final FieldPath fieldPath, final String id, final String displayName, final FieldType type, final boolean advanced) {
+            this.fieldPath = fieldPath;
+            this.id = id;
+            this.displayName = displayName;
+            this.type = type;
+            this.advanced = advanced;
+        }
+    }
 }
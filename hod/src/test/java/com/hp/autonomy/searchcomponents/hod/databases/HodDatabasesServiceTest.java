@@ -17,22 +17,36 @@ package com.hp.autonomy.searchcomponents.hod.databases;
 import com.hp.autonomy.hod.client.api.resource.*;
 import com.hp.autonomy.hod.client.api.textindex.IndexFlavor;
 import com.hp.autonomy.hod.client.error.HodErrorException;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestExecutor;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestTimeoutException;
+import com.hp.autonomy.searchcomponents.core.concurrent.PartialResults;
 import com.hp.autonomy.searchcomponents.core.databases.DatabasesService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -43,12 +57,21 @@ public class HodDatabasesServiceTest {
     @Mock
     private IndexFlavourService indexFlavourService;
 
+    @Mock
+    private ParallelRequestExecutor parallelRequestExecutor;
+
+    @Mock
+    private IndexFlavourCacheRefresher indexFlavourCacheRefresher;
+
+    private ResourceDetails resource1;
+    private ResourceDetails resource2;
     private DatabasesService<Database, HodDatabasesRequest, HodErrorException> databasesService;
 
+    @SuppressWarnings("unchecked")
     @Before
     public void setUp() throws HodErrorException {
-        final ResourceDetails resource1 = mockResource("PrivateResource1", "PrivateDomain");
-        final ResourceDetails resource2 = mockResource("PrivateResource2", "PrivateDomain");
+        resource1 = mockResource("PrivateResource1", "PrivateDomain");
+        resource2 = mockResource("PrivateResource2", "PrivateDomain");
         final ResourceDetails publicIndex = mockResource("PublicResource1", ResourceName.PUBLIC_INDEXES_DOMAIN);
 
         when(resourcesService.list(any(ListResourcesRequestBuilder.class))).thenReturn(Arrays.asList(resource1, resource2, publicIndex));
@@ -58,7 +81,9 @@ public class HodDatabasesServiceTest {
         when(indexFlavourService.getIndexFlavour(eq(new ResourceUuid(resource2.getResource().getUuid())))).thenReturn(IndexFlavor.QUERY_MANIPULATION);
         when(indexFlavourService.getIndexFlavour(eq(new ResourceUuid(publicIndex.getResource().getUuid())))).thenReturn(IndexFlavor.STANDARD);
 
-        databasesService = new HodDatabasesServiceImpl(resourcesService, indexFlavourService);
+        when(parallelRequestExecutor.executeAllPartial(any(), any(), anyInt(), anyLong())).thenAnswer(this::executeInline);
+
+        databasesService = new HodDatabasesServiceImpl(resourcesService, indexFlavourService, parallelRequestExecutor, indexFlavourCacheRefresher, 2, 10000L);
     }
 
     @Test
@@ -78,6 +103,69 @@ public class HodDatabasesServiceTest {
         assertThat(results, hasSize(1));
     }
 
+    @Test
+    public void skipsIndexWithFailedFlavourLookup() throws HodErrorException {
+        final ResourceDetails resource3 = mockResource("PrivateResource3", "PrivateDomain");
+        when(resourcesService.list(any(ListResourcesRequestBuilder.class))).thenReturn(Arrays.asList(resource1, resource2, resource3));
+        when(indexFlavourService.getIndexFlavour(eq(new ResourceUuid(resource1.getResource().getUuid())))).thenThrow(flavourError());
+        when(indexFlavourService.getIndexFlavour(eq(new ResourceUuid(resource3.getResource().getUuid())))).thenReturn(IndexFlavor.STANDARD);
+
+        final Set<Database> results = databasesService.getDatabases(mock(HodDatabasesRequest.class));
+        assertThat(results.stream().map(Database::getName).collect(Collectors.toList()), contains("PrivateResource3"));
+    }
+
+    @Test
+    public void skipsIndexWithTimedOutFlavourLookup() throws HodErrorException {
+        when(parallelRequestExecutor.executeAllPartial(any(), any(), anyInt(), anyLong())).thenAnswer(invocation -> {
+            final PartialResults<Object, Object> results = executeInline(invocation);
+            results.getResults().remove(resource2);
+            results.getFailures().put(resource2, new ParallelRequestTimeoutException("Timed out", null));
+            return results;
+        });
+
+        final Set<Database> results = databasesService.getDatabases(mock(HodDatabasesRequest.class));
+
+        assertThat(results.stream().map(Database::getName).collect(Collectors.toList()), contains("PrivateResource1"));
+        verify(parallelRequestExecutor).executeAllPartial(any(), any(), eq(2), eq(10000L));
+        verify(indexFlavourCacheRefresher, never()).register(new ResourceUuid(resource2.getResource().getUuid()));
+    }
+
+    @Test(expected = HodErrorException.class)
+    public void failsIfNoFlavourLookupSucceeds() throws HodErrorException {
+        when(indexFlavourService.getIndexFlavour(any())).thenThrow(flavourError());
+
+        databasesService.getDatabases(mock(HodDatabasesRequest.class));
+    }
+
+    @Test
+    public void registersIndexesWithRefresher() throws HodErrorException {
+        when(indexFlavourService.getIndexFlavour(eq(new ResourceUuid(resource2.getResource().getUuid())))).thenThrow(flavourError());
+
+        databasesService.getDatabases(mock(HodDatabasesRequest.class));
+        verify(indexFlavourCacheRefresher).register(new ResourceUuid(resource1.getResource().getUuid()));
+        verify(indexFlavourCacheRefresher, never()).register(new ResourceUuid(resource2.getResource().getUuid()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private PartialResults<Object, Object> executeInline(final InvocationOnMock invocation) {
+        final Map<Object, Object> results = new LinkedHashMap<>();
+        final Map<Object, RuntimeException> failures = new LinkedHashMap<>();
+
+        for(final Object input : (Collection<Object>) invocation.getArguments()[0]) {
+            try {
+                results.put(input, ((Function<Object, Object>) invocation.getArguments()[1]).apply(input));
+            } catch(final RuntimeException e) {
+                failures.put(input, e);
+            }
+        }
+
+        return new PartialResults<>(results, failures);
+    }
+
+    private HodErrorException flavourError() {
+        return mock(HodErrorException.class);
+    }
+
     private ResourceDetails mockResource(final String name, final String domain) {
         final Resource resource = Resource.builder()
                 .uuid(UUID.randomUUID())
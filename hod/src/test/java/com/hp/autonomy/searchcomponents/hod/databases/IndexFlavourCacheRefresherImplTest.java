@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.hod.databases;
+
+import com.hp.autonomy.hod.client.api.resource.ResourceUuid;
+import com.hp.autonomy.hod.client.error.HodErrorException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IndexFlavourCacheRefresherImplTest {
+    @Mock
+    private IndexFlavourService indexFlavourService;
+
+    private AtomicLong clock;
+    private IndexFlavourCacheRefresherImpl indexFlavourCacheRefresher;
+
+    @Before
+    public void setUp() {
+        clock = new AtomicLong();
+        // long enough that the scheduled refresh never runs during a test
+        indexFlavourCacheRefresher = new IndexFlavourCacheRefresherImpl(indexFlavourService, TimeUnit.HOURS.toMillis(1), TimeUnit.MINUTES.toMillis(30), clock::get);
+    }
+
+    @After
+    public void tearDown() {
+        indexFlavourCacheRefresher.destroy();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void refreshesRegisteredIndexesAsRegisteringUser() throws HodErrorException {
+        final Authentication authentication = mock(Authentication.class);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        final ResourceUuid resourceUuid = new ResourceUuid(UUID.randomUUID());
+        indexFlavourCacheRefresher.register(resourceUuid);
+        SecurityContextHolder.clearContext();
+
+        doAnswer(invocation -> {
+            assertThat(SecurityContextHolder.getContext().getAuthentication(), is(authentication));
+            return null;
+        }).when(indexFlavourService).refreshIndexFlavour(resourceUuid);
+
+        indexFlavourCacheRefresher.refresh();
+        verify(indexFlavourService).refreshIndexFlavour(resourceUuid);
+    }
+
+    @Test
+    public void dropsIndexesWhichFailToRefresh() throws HodErrorException {
+        final ResourceUuid resourceUuid = new ResourceUuid(UUID.randomUUID());
+        indexFlavourCacheRefresher.register(resourceUuid);
+        when(indexFlavourService.refreshIndexFlavour(resourceUuid)).thenThrow(mock(HodErrorException.class));
+
+        indexFlavourCacheRefresher.refresh();
+        indexFlavourCacheRefresher.refresh();
+        verify(indexFlavourService, times(1)).refreshIndexFlavour(resourceUuid);
+    }
+
+    @Test
+    public void dropsExpiredRegistrations() throws HodErrorException {
+        final ResourceUuid resourceUuid = new ResourceUuid(UUID.randomUUID());
+        indexFlavourCacheRefresher.register(resourceUuid);
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(29));
+        indexFlavourCacheRefresher.refresh();
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        indexFlavourCacheRefresher.refresh();
+        indexFlavourCacheRefresher.refresh();
+
+        verify(indexFlavourService, times(1)).refreshIndexFlavour(resourceUuid);
+    }
+
+    @Test
+    public void renewsRegistrationWhenListedAgain() throws HodErrorException {
+        final ResourceUuid resourceUuid = new ResourceUuid(UUID.randomUUID());
+        indexFlavourCacheRefresher.register(resourceUuid);
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(20));
+        indexFlavourCacheRefresher.register(resourceUuid);
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(20));
+        indexFlavourCacheRefresher.refresh();
+
+        verify(indexFlavourService).refreshIndexFlavour(resourceUuid);
+    }
+
+    @Test
+    public void disabledByDefault() throws HodErrorException {
+        final IndexFlavourCacheRefresherImpl disabledRefresher = new IndexFlavourCacheRefresherImpl(indexFlavourService, 0L, TimeUnit.MINUTES.toMillis(30), clock::get);
+        disabledRefresher.register(new ResourceUuid(UUID.randomUUID()));
+
+        disabledRefresher.refresh();
+        verify(indexFlavourService, never()).refreshIndexFlavour(any());
+    }
+}
@@ -38,4 +38,14 @@ public class IndexFlavourServiceImplTest {
         final IndexFlavor output = indexFlavourService.getIndexFlavour(resourceUuid);
         assertThat(output, is(IndexFlavor.CUSTOM_FIELDS));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void refreshIndexFlavour() throws HodErrorException {
+        final ResourceUuid resourceUuid = new ResourceUuid(UUID.randomUUID());
+        final TextIndexStatus indexStatus = TextIndexStatus.builder().flavor(IndexFlavor.JUMBO).build();
+        when(textIndexStatusService.getIndexStatus(resourceUuid)).thenReturn(indexStatus);
+
+        final IndexFlavor output = indexFlavourService.refreshIndexFlavour(resourceUuid);
+        assertThat(output, is(IndexFlavor.JUMBO));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.hod.fields;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.hp.autonomy.frontend.configuration.ConfigService;
+import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
+import com.hp.autonomy.searchcomponents.core.config.FieldValue;
+import com.hp.autonomy.searchcomponents.core.config.FieldsInfo;
+import com.hp.autonomy.searchcomponents.core.fields.FieldDisplayNameGenerator;
+import com.hp.autonomy.searchcomponents.core.fields.FieldPathNormaliser;
+import com.hp.autonomy.searchcomponents.hod.configuration.HodSearchCapable;
+import com.hp.autonomy.searchcomponents.hod.search.HodSearchResult;
+import com.hp.autonomy.searchcomponents.hod.search.fields.HodSearchResultDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Deserializes 100 HOD documents with 100 array fields each, of which a tenth are configured and some share a
+ * configured id, using the real HOD field path normaliser and display name generator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HodSearchResultDeserializerBenchmark {
+    private static final int HITS = 100;
+    private static final int FIELDS = 100;
+
+    private ObjectMapper objectMapper;
+    private String json;
+
+    @SuppressWarnings("unchecked")
+    @Setup
+    public void setUp() {
+        final FieldPathNormaliser fieldPathNormaliser = new HodFieldPathNormaliserImpl();
+
+        final FieldsInfo.FieldsInfoBuilder fieldsInfoBuilder = FieldsInfo.builder();
+        for(int i = 0; i < FIELDS; i += 20) {
+            // each configured id has two names
+            fieldsInfoBuilder.populateResponseMap("configured" + i, FieldInfo.<String>builder()
+                .id("configured" + i)
+                .name(fieldPathNormaliser.normaliseFieldPath("field_" + i))
+                .name(fieldPathNormaliser.normaliseFieldPath("field_" + (i + 10)))
+                .value(new FieldValue<>("value 1", "Value One"))
+                .build());
+        }
+
+        final HodSearchCapable config = mock(HodSearchCapable.class);
+        when(config.getFieldsInfo()).thenReturn(fieldsInfoBuilder.build());
+        final ConfigService<HodSearchCapable> configService = mock(ConfigService.class);
+        when(configService.getConfig()).thenReturn(config);
+
+        final FieldDisplayNameGenerator fieldDisplayNameGenerator;
+        try(final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.getBeanFactory().registerSingleton("configService", configService);
+            context.register(DisplayNameGeneratorConfiguration.class);
+            context.refresh();
+            fieldDisplayNameGenerator = context.getBean(FieldDisplayNameGenerator.class);
+        }
+
+        final HodSearchResultDeserializer deserializer = new HodSearchResultDeserializer(configService, fieldDisplayNameGenerator, fieldPathNormaliser);
+        objectMapper = new ObjectMapper().registerModule(new SimpleModule().addDeserializer(HodSearchResult.class, deserializer));
+
+        final StringBuilder builder = new StringBuilder("[");
+        for(int i = 0; i < HITS; i++) {
+            if(i > 0) {
+                builder.append(',');
+            }
+
+            builder.append("{\"reference\":\"reference").append(i)
+                .append("\",\"weight\":").append(100 - i)
+                .append(",\"index\":\"wiki_eng\",\"title\":\"Title ").append(i)
+                .append("\",\"summary\":\"Summary of document ").append(i)
+                .append("\",\"links\":[\"FIJ\"],\"promotion\":\"NONE\"");
+
+            for(int j = 0; j < FIELDS; j++) {
+                builder.append(",\"field_").append(j).append("\":[\"value ").append(i % 3).append("\",\"value ").append(j).append("\"]");
+            }
+
+            builder.append('}');
+        }
+        json = builder.append(']').toString();
+    }
+
+    @Benchmark
+    public HodSearchResult[] deserialize() throws IOException {
+        return objectMapper.readValue(json, HodSearchResult[].class);
+    }
+
+    /**
+     * Creates the default display name generator as the application would, without depending on the implementation class
+     */
+    @Configuration
+    @ComponentScan(
+        basePackageClasses = FieldDisplayNameGenerator.class,
+        useDefaultFilters = false,
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = FieldDisplayNameGenerator.class)
+    )
+    static class DisplayNameGeneratorConfiguration {
+    }
+
+    public static void main(final String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HodSearchResultDeserializerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -83,6 +83,8 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SuppressWarnings("SpringJavaAutowiredMembersInspection")
@@ -137,7 +139,8 @@ public class HodParametricValuesServiceTest {
             bucketingParamsHelper,
             tagNameFactory,
             configService,
-            authenticationInformationRetriever
+            authenticationInformationRetriever,
+            new ParametricValueWindowCache(0, 0, System::nanoTime)
         );
     }
 
@@ -219,6 +222,59 @@ public class HodParametricValuesServiceTest {
         assertThat(fieldNamesSet.iterator().next().getValues(), hasSize(1));
     }
 
+    @Test
+    public void serveLaterPagesFromValueWindow() throws HodErrorException {
+        parametricValuesService = createServiceWithValueWindows(100);
+        final HodParametricRequest request = generateRequest(Collections.singletonList(ResourceName.WIKI_ENG), Collections.singletonList("football field"));
+        mockFootballFieldValues("worms", "slugs");
+
+        when(request.getMaxValues()).thenReturn(1);
+        assertThat(valueNames(parametricValuesService.getParametricValues(request)), is(Collections.singletonList("worms")));
+
+        when(request.getStart()).thenReturn(2);
+        when(request.getMaxValues()).thenReturn(2);
+        assertThat(valueNames(parametricValuesService.getParametricValues(request)), is(Collections.singletonList("slugs")));
+        verify(getParametricValuesService, times(1)).getParametricValues(anyCollectionOf(String.class), anyCollectionOf(ResourceName.class), any(GetParametricValuesRequestBuilder.class));
+
+        // fewer values are returned than requested, so every value is then held
+        when(request.getStart()).thenReturn(3);
+        when(request.getMaxValues()).thenReturn(10);
+        assertThat(parametricValuesService.getParametricValues(request), is(empty()));
+        when(request.getMaxValues()).thenReturn(20);
+        assertThat(parametricValuesService.getParametricValues(request), is(empty()));
+        verify(getParametricValuesService, times(2)).getParametricValues(anyCollectionOf(String.class), anyCollectionOf(ResourceName.class), any(GetParametricValuesRequestBuilder.class));
+    }
+
+    @Test
+    public void fetchMoreValuesWhenWindowIsExceeded() throws HodErrorException {
+        parametricValuesService = createServiceWithValueWindows(100);
+        final HodParametricRequest request = generateRequest(Collections.singletonList(ResourceName.WIKI_ENG), Collections.singletonList("football field"));
+        mockFootballFieldValues("worms");
+
+        when(request.getMaxValues()).thenReturn(1);
+        parametricValuesService.getParametricValues(request);
+
+        // one value was requested and one returned, so there may be more
+        when(request.getStart()).thenReturn(2);
+        when(request.getMaxValues()).thenReturn(2);
+        parametricValuesService.getParametricValues(request);
+
+        verify(getParametricValuesService, times(2)).getParametricValues(anyCollectionOf(String.class), anyCollectionOf(ResourceName.class), any(GetParametricValuesRequestBuilder.class));
+    }
+
+    @Test
+    public void separateValueWindowsBySecurityInfo() throws HodErrorException {
+        parametricValuesService = createServiceWithValueWindows(100);
+        final HodParametricRequest request = generateRequest(Collections.singletonList(ResourceName.WIKI_ENG), Collections.singletonList("football field"));
+        when(request.getMaxValues()).thenReturn(1);
+
+        parametricValuesService.getParametricValues(request);
+        when(hodAuthenticationPrincipal.getSecurityInfo()).thenReturn("other-security-info");
+        parametricValuesService.getParametricValues(request);
+
+        verify(getParametricValuesService, times(2)).getParametricValues(anyCollectionOf(String.class), anyCollectionOf(ResourceName.class), any(GetParametricValuesRequestBuilder.class));
+    }
+
     @Test
     public void emptyFieldNamesReturnEmptyParametricValues() throws HodErrorException {
         final Map<FieldTypeParam, Set<TagName>> response = ImmutableMap.of(FieldTypeParam.Parametric, Collections.emptySet());
@@ -354,6 +410,35 @@ public class HodParametricValuesServiceTest {
         parametricValuesService.getDependentParametricValues(mock(HodParametricRequest.class));
     }
 
+    private HodParametricValuesService createServiceWithValueWindows(final int maxCachedValues) {
+        return new HodParametricValuesServiceImpl(
+            fieldsService,
+            fieldsRequestBuilderFactory,
+            getParametricValuesService,
+            getParametricRangesService,
+            bucketingParamsHelper,
+            tagNameFactory,
+            configService,
+            authenticationInformationRetriever,
+            new ParametricValueWindowCache(maxCachedValues, 60000, System::nanoTime)
+        );
+    }
+
+    private void mockFootballFieldValues(final String... values) throws HodErrorException {
+        final List<FieldValues.ValueAndCount> valueAndCounts = Arrays.stream(values)
+            .map(value -> FieldValues.ValueAndCount.builder().value(value).count(10).build())
+            .collect(Collectors.toList());
+
+        when(getParametricValuesService.getParametricValues(anyCollectionOf(String.class), anyCollectionOf(ResourceName.class), any(GetParametricValuesRequestBuilder.class)))
+            .thenReturn(Collections.singletonList(FieldValues.builder().name("football field").values(valueAndCounts).totalValues(values.length).build()));
+    }
+
+    private List<String> valueNames(final Set<QueryTagInfo> queryTagInfos) {
+        return queryTagInfos.iterator().next().getValues().stream()
+            .map(QueryTagCountInfo::getValue)
+            .collect(Collectors.toList());
+    }
+
     private HodParametricRequest generateRequest(final List<ResourceName> indexes, final Collection<String> fieldNames) {
         final HodQueryRestrictions queryRestrictions = mock(HodQueryRestrictions.class);
         when(queryRestrictions.getDatabases()).thenReturn(indexes);
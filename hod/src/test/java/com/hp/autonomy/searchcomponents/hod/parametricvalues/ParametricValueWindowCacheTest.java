@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.hod.parametricvalues;
+
+import com.hp.autonomy.hod.client.api.textindex.query.parametric.FieldValues;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ParametricValueWindowCacheTest {
+    private AtomicLong clock;
+    private ParametricValueWindowCache cache;
+
+    @Before
+    public void setUp() {
+        clock = new AtomicLong();
+        cache = new ParametricValueWindowCache(10, 1000, clock::get);
+    }
+
+    @Test
+    public void getStoredWindow() {
+        final ParametricValueWindowCache.ValueWindow window = window(3, false);
+        cache.put(key("a"), window);
+
+        assertThat(cache.get(key("a")), is(window));
+        assertThat(cache.get(key("b")), is(nullValue()));
+        assertThat(cache.getCachedValues(), is(3));
+    }
+
+    @Test
+    public void replaceWindow() {
+        cache.put(key("a"), window(3, false));
+        cache.put(key("a"), window(6, false));
+
+        assertThat(cache.get(key("a")).getFieldValues().getValues().size(), is(6));
+        assertThat(cache.getCachedValues(), is(6));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedWindowsWhenTooManyValuesAreHeld() {
+        cache.put(key("a"), window(4, false));
+        cache.put(key("b"), window(4, false));
+        cache.get(key("a"));
+        cache.put(key("c"), window(4, false));
+
+        assertThat(cache.get(key("a")), is(notNullValue()));
+        assertThat(cache.get(key("b")), is(nullValue()));
+        assertThat(cache.get(key("c")), is(notNullValue()));
+        assertThat(cache.getCachedValues(), is(8));
+    }
+
+    @Test
+    public void doNotStoreWindowLargerThanCache() {
+        cache.put(key("a"), window(11, false));
+
+        assertThat(cache.get(key("a")), is(nullValue()));
+        assertThat(cache.getCachedValues(), is(0));
+    }
+
+    @Test
+    public void expireWindow() {
+        cache.put(key("a"), window(3, false));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThat(cache.get(key("a")), is(notNullValue()));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(cache.get(key("a")), is(nullValue()));
+        assertThat(cache.getCachedValues(), is(0));
+    }
+
+    @Test
+    public void disabledCache() {
+        cache = new ParametricValueWindowCache(0, 1000, clock::get);
+        cache.put(key("a"), window(1, false));
+
+        assertThat(cache.isEnabled(), is(false));
+        assertThat(cache.get(key("a")), is(nullValue()));
+    }
+
+    @Test
+    public void coverValuesInWindow() {
+        assertThat(window(3, false).covers(3), is(true));
+        assertThat(window(3, false).covers(4), is(false));
+        assertThat(window(3, true).covers(100), is(true));
+    }
+
+    @Test
+    public void cutHeadOfWindow() {
+        assertThat(window(5, false).head(2).getValues().size(), is(2));
+        assertThat(window(5, false).head(10).getValues().size(), is(5));
+    }
+
+    private ParametricValueWindowCache.WindowKey key(final String principalHash) {
+        return new ParametricValueWindowCache.WindowKey(principalHash, null, null, false, null);
+    }
+
+    private ParametricValueWindowCache.ValueWindow window(final int size, final boolean complete) {
+        final FieldValues fieldValues = FieldValues.builder()
+            .name("field")
+            .values(IntStream.range(0, size)
+                        .mapToObj(i -> FieldValues.ValueAndCount.builder().value("value" + i).count(size - i).build())
+                        .collect(Collectors.toList()))
+            .totalValues(size)
+            .build();
+        return new ParametricValueWindowCache.ValueWindow(fieldValues, complete);
+    }
+}
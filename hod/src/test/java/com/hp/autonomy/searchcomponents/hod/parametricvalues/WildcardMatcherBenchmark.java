@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.hod.parametricvalues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Filters 10,000 parametric values against 50 value restrictions, as {@link HodParametricValuesServiceImpl} does when
+ * value restrictions are supplied, comparing the compiled {@link WildcardMatcher} with per-value regex matching.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WildcardMatcherBenchmark {
+    private static final int VALUES = 10000;
+    private static final int RESTRICTIONS = 50;
+    private static final Pattern WILDCARD_PATTERN = Pattern.compile("\\*");
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ ";
+
+    private List<String> values;
+    private List<String> restrictions;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+
+        values = new ArrayList<>(VALUES);
+        for(int i = 0; i < VALUES; i++) {
+            values.add(randomString(random, 8 + random.nextInt(24)));
+        }
+
+        restrictions = new ArrayList<>(RESTRICTIONS);
+        for(int i = 0; i < RESTRICTIONS; i++) {
+            final String literal = randomString(random, 2 + random.nextInt(3));
+            switch(i % 4) {
+                case 0:
+                    restrictions.add('*' + literal + '*');
+                    break;
+                case 1:
+                    restrictions.add(literal + '*');
+                    break;
+                case 2:
+                    restrictions.add('*' + literal);
+                    break;
+                default:
+                    restrictions.add(literal + '*' + randomString(random, 2) + '*');
+            }
+        }
+    }
+
+    @Benchmark
+    public void regex(final Blackhole blackhole) {
+        for(final String value : values) {
+            blackhole.consume(restrictions.stream()
+                                  .anyMatch(restriction -> value.toLowerCase().matches(WILDCARD_PATTERN.matcher(restriction.toLowerCase()).replaceAll(".*"))));
+        }
+    }
+
+    @Benchmark
+    public void wildcardMatcher(final Blackhole blackhole) {
+        final WildcardMatcher matcher = WildcardMatcher.compile(restrictions);
+        for(final String value : values) {
+            blackhole.consume(matcher.matches(value));
+        }
+    }
+
+    private String randomString(final Random random, final int length) {
+        final StringBuilder builder = new StringBuilder(length);
+        for(int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    public static void main(final String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WildcardMatcherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
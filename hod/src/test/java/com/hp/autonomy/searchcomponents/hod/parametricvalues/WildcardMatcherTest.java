@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.hod.parametricvalues;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WildcardMatcherTest {
+    @Test
+    public void literalIsCaseInsensitiveWholeMatch() {
+        final WildcardMatcher matcher = WildcardMatcher.compile(Collections.singletonList("Cheese"));
+        assertTrue(matcher.matches("cheese"));
+        assertTrue(matcher.matches("CHEESE"));
+        assertFalse(matcher.matches("cheeses"));
+        assertFalse(matcher.matches("cheddar cheese"));
+    }
+
+    @Test
+    public void prefixSuffixAndContains() {
+        assertTrue(WildcardMatcher.compile(Collections.singletonList("ch*")).matches("Cheddar"));
+        assertFalse(WildcardMatcher.compile(Collections.singletonList("ch*")).matches("brie"));
+        assertTrue(WildcardMatcher.compile(Collections.singletonList("*ar")).matches("CHEDDAR"));
+        assertFalse(WildcardMatcher.compile(Collections.singletonList("*ar")).matches("cheddars"));
+        assertTrue(WildcardMatcher.compile(Collections.singletonList("*LUG*")).matches("plugins"));
+        assertFalse(WildcardMatcher.compile(Collections.singletonList("*LUG*")).matches("plus"));
+    }
+
+    @Test
+    public void multipleWildcards() {
+        final WildcardMatcher matcher = WildcardMatcher.compile(Collections.singletonList("a*b*a"));
+        assertTrue(matcher.matches("aba"));
+        assertTrue(matcher.matches("axxbyya"));
+        assertFalse(matcher.matches("ab"));
+        assertFalse(matcher.matches("aab"));
+    }
+
+    @Test
+    public void overlappingAnchors() {
+        assertFalse(WildcardMatcher.compile(Collections.singletonList("ab*ba")).matches("aba"));
+        assertTrue(WildcardMatcher.compile(Collections.singletonList("ab*ba")).matches("abba"));
+    }
+
+    @Test
+    public void wildcardOnlyMatchesEverything() {
+        assertTrue(WildcardMatcher.compile(Collections.singletonList("*")).matches(""));
+        assertTrue(WildcardMatcher.compile(Arrays.asList("x", "**")).matches("anything"));
+    }
+
+    @Test
+    public void otherCharactersAreLiteral() {
+        final WildcardMatcher matcher = WildcardMatcher.compile(Collections.singletonList("a.c*"));
+        assertTrue(matcher.matches("a.cd"));
+        assertFalse(matcher.matches("abcd"));
+    }
+
+    @Test
+    public void anyRestrictionMatches() {
+        final WildcardMatcher matcher = WildcardMatcher.compile(Arrays.asList("brie", "*dar"));
+        assertTrue(matcher.matches("Brie"));
+        assertTrue(matcher.matches("cheddar"));
+        assertFalse(matcher.matches("stilton"));
+    }
+}
@@ -25,6 +25,7 @@ import com.hp.autonomy.hod.client.api.textindex.query.search.QueryTextIndexServi
 import com.hp.autonomy.hod.client.error.HodErrorException;
 import com.hp.autonomy.hod.client.warning.HodWarning;
 import com.hp.autonomy.hod.sso.HodAuthenticationPrincipal;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestExecutor;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
 import com.hp.autonomy.searchcomponents.core.search.fields.DocumentFieldsService;
 import com.hp.autonomy.searchcomponents.hod.configuration.HodSearchCapable;
@@ -82,6 +83,9 @@ public class HodDocumentServiceTest {
     @Mock
     private HodAuthenticationPrincipal hodAuthenticationPrincipal;
 
+    @Mock
+    private ParallelRequestExecutor parallelRequestExecutor;
+
     @Mock
     private HodQueryRequest queryRequest;
 
@@ -98,7 +102,7 @@ public class HodDocumentServiceTest {
 
     @Before
     public void setUp() {
-        documentsService = new HodDocumentsServiceImpl(findSimilarService, configService, queryTextIndexService, getContentService, authenticationInformationRetriever, documentFieldsService);
+        documentsService = new HodDocumentsServiceImpl(findSimilarService, configService, queryTextIndexService, getContentService, authenticationInformationRetriever, documentFieldsService, parallelRequestExecutor);
 
         when(config.getQueryManipulation()).thenReturn(QueryManipulationConfig.builder().profile("SomeProfile").index("SomeIndex").build());
         when(configService.getConfig()).thenReturn(config);
@@ -48,6 +48,8 @@ import java.util.Map;
 
 import static com.hp.autonomy.searchcomponents.core.test.CoreTestContext.CORE_CLASSES_PROPERTY;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
@@ -149,6 +151,39 @@ public class HodSearchResultDeserializerTest {
         assertThat(contentType.getValues(), hasSize(1));
     }
 
+    @Test
+    public void deserializeScalarsAndSkipNestedObjects() throws IOException {
+        final String json = "{\"reference\": \"ref\", \"weight\": 12.5, \"nested\": {\"authors\": [\"Ignored\"]}, "
+            + "\"date\": [\"2014-03-01T00:20:56Z\"], \"counts\": [1, 2.5, null], \"promotion\": \"CARDINAL_PLACEMENT\", \"links\": [\"FIJ\"]}";
+
+        final HodSearchResult result = objectMapper.readValue(json, HodSearchResult.class);
+        assertThat(result.getReference(), is("ref"));
+        assertThat(result.getWeight(), is(12.5));
+        assertThat(result.getDate(), is(ZonedDateTime.parse("2014-03-01T00:20:56Z")));
+        assertThat(result.getPromotionCategory(), is(PromotionCategory.CARDINAL_PLACEMENT));
+
+        final Map<String, FieldInfo<?>> fieldMap = result.getFieldMap();
+        assertThat(fieldMap.keySet(), containsInAnyOrder("date", "counts"));
+        assertThat(fieldMap.get("counts").getValues(), hasSize(3));
+        assertThat(fieldMap.get("counts").getValues().get(1).getValue(), is("2.5"));
+    }
+
+    @Test
+    public void deserializeAfterConfigChange() throws IOException {
+        final String json = "{\"reference\": \"ref\", \"editors\": [\"Nixon\"]}";
+        assertThat(objectMapper.readValue(json, HodSearchResult.class).getFieldMap().keySet(), contains("editors"));
+
+        when(config.getFieldsInfo()).thenReturn(FieldsInfo.builder()
+            .populateResponseMap("collaborators", FieldInfo.<String>builder()
+                .id("collaborators")
+                .name(fieldPathNormaliser.normaliseFieldPath("editors"))
+                .advanced(true)
+                .build())
+            .build());
+
+        assertThat(objectMapper.readValue(json, HodSearchResult.class).getFieldMap().keySet(), contains("collaborators"));
+    }
+
     private List<HodSearchResult> deserialize() throws IOException {
         final JavaType javaType = objectMapper.getTypeFactory().constructParametrizedType(Documents.class, Documents.class, HodSearchResult.class);
         @SuppressWarnings("unchecked") final Documents<HodSearchResult> results = objectMapper.readValue(sampleJson, javaType);
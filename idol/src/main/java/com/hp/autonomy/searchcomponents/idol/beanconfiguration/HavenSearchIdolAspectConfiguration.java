@@ -6,8 +6,12 @@
 package com.hp.autonomy.searchcomponents.idol.beanconfiguration;
 
 import com.hp.autonomy.searchcomponents.idol.configuration.IdolComponentLabelLookup;
+import com.hp.autonomy.searchcomponents.idol.logging.AsyncIdolRequestLog;
 import com.hp.autonomy.searchcomponents.idol.logging.IdolActionIdAspect;
 import com.hp.autonomy.searchcomponents.idol.logging.IdolLoggingAspect;
+import com.hp.autonomy.searchcomponents.idol.metrics.IdolMetricsAspect;
+import com.hp.autonomy.searchcomponents.idol.metrics.IdolRequestMetrics;
+import com.hp.autonomy.searchcomponents.idol.metrics.IdolRequestMetricsRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -24,12 +28,20 @@ public class HavenSearchIdolAspectConfiguration {
     public static final String IDOL_LOG_PROPERTY_KEY = "idol.log.enabled";
     public static final String IDOL_LOG_TIMING_PROPERTY_KEY = "idol.log.timing.enabled";
     public static final String IDOL_LOG_TIMING_PROPERTY = "${" + IDOL_LOG_TIMING_PROPERTY_KEY + ":true}";
+    public static final String IDOL_LOG_ASYNC_PROPERTY_KEY = "idol.log.async.enabled";
+    public static final String IDOL_LOG_ASYNC_PROPERTY = "${" + IDOL_LOG_ASYNC_PROPERTY_KEY + ":false}";
+    public static final String IDOL_LOG_ASYNC_BUFFER_SIZE_PROPERTY_KEY = "idol.log.async.bufferSize";
+    public static final String IDOL_LOG_ASYNC_BUFFER_SIZE_PROPERTY = "${" + IDOL_LOG_ASYNC_BUFFER_SIZE_PROPERTY_KEY + ":8192}";
 
     public static final String IDOL_ACTION_ID_ASPECT_BEAN_NAME = "idolActionIdAspect";
     public static final String IDOL_ACTION_ID_PROPERTY_KEY = "idol.log.actionid.enabled";
     public static final String IDOL_ACTION_ID_PREFIX_PROPERTY_KEY = "idol.log.actionid.prefix";
     public static final String IDOL_ACTION_ID_PREFIX_PROPERTY = "${" + IDOL_ACTION_ID_PREFIX_PROPERTY_KEY + ":}";
 
+    public static final String IDOL_METRICS_ASPECT_BEAN_NAME = "idolMetricsAspect";
+    public static final String IDOL_REQUEST_METRICS_BEAN_NAME = "idolRequestMetrics";
+    public static final String IDOL_METRICS_PROPERTY_KEY = "idol.metrics.enabled";
+
     @Bean(name = IDOL_ACTION_ID_ASPECT_BEAN_NAME)
     @ConditionalOnProperty(IDOL_ACTION_ID_PROPERTY_KEY)
     public IdolActionIdAspect createIdolActionIdAspect(
@@ -41,7 +53,25 @@ public class HavenSearchIdolAspectConfiguration {
     @ConditionalOnProperty(IDOL_LOG_PROPERTY_KEY)
     @ConditionalOnMissingBean(name = IDOL_LOGGING_ASPECT_BEAN_NAME)
     public IdolLoggingAspect IdolLoggingAspect(final IdolComponentLabelLookup lookup,
-                                               @Value(IDOL_LOG_TIMING_PROPERTY) final boolean timingEnabled) {
-        return new IdolLoggingAspect(lookup, timingEnabled);
+                                               @Value(IDOL_LOG_TIMING_PROPERTY) final boolean timingEnabled,
+                                               @Value(IDOL_LOG_ASYNC_PROPERTY) final boolean asyncEnabled,
+                                               @Value(IDOL_LOG_ASYNC_BUFFER_SIZE_PROPERTY) final int asyncBufferSize) {
+        return asyncEnabled
+                ? new IdolLoggingAspect(lookup, timingEnabled, new AsyncIdolRequestLog(asyncBufferSize, IdolLoggingAspect::writeEvent))
+                : new IdolLoggingAspect(lookup, timingEnabled);
+    }
+
+    @Bean(name = IDOL_REQUEST_METRICS_BEAN_NAME)
+    @ConditionalOnProperty(IDOL_METRICS_PROPERTY_KEY)
+    @ConditionalOnMissingBean(IdolRequestMetrics.class)
+    public IdolRequestMetrics idolRequestMetrics() {
+        return new IdolRequestMetricsRegistry();
+    }
+
+    @Bean(name = IDOL_METRICS_ASPECT_BEAN_NAME)
+    @ConditionalOnProperty(IDOL_METRICS_PROPERTY_KEY)
+    @ConditionalOnMissingBean(name = IDOL_METRICS_ASPECT_BEAN_NAME)
+    public IdolMetricsAspect idolMetricsAspect(final IdolComponentLabelLookup lookup, final IdolRequestMetrics metrics) {
+        return new IdolMetricsAspect(lookup, metrics);
     }
 }
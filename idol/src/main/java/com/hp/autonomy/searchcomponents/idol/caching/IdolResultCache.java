@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.caching;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, expiring cache of Idol results, kept separately for each user.
+ * <p>
+ * Entries are keyed on the request and a hash of the current principal's name and security info, so results are never
+ * shared between users who may see different documents or whose queries are profiled differently.
+ * <p>
+ * A cached result is returned to every caller making the same request, so loaders should return results which cannot
+ * be modified.
+ */
+public interface IdolResultCache {
+    /**
+     * The bean name of the default implementation.
+     * Use this in an {@link Qualifier} tag to access this implementation via autowiring.
+     */
+    String IDOL_RESULT_CACHE_BEAN_NAME = "idolResultCache";
+
+    /**
+     * The maximum number of results held, across all caches and users. A value of 0 or less, the default, disables
+     * caching.
+     */
+    String MAX_SIZE_PROPERTY_KEY = "idol.cache.results.maxSize";
+
+    /**
+     * The time in milliseconds for which a result is held
+     */
+    String TIME_TO_LIVE_PROPERTY_KEY = "idol.cache.results.timeToLive";
+
+    /**
+     * Returns the cached result for the request, or loads and caches it. Exceptions thrown by the loader are
+     * propagated and nothing is cached.
+     *
+     * @param cacheName The cache to use, one of the {@link com.hp.autonomy.searchcomponents.core.caching.CacheNames}
+     * @param request   The request, which must implement equals and hashCode
+     * @param loader    Fetches the result from Idol
+     * @param <T>       The type of the result
+     * @return The cached or loaded result
+     */
+    <T> T get(String cacheName, Object request, Supplier<T> loader);
+
+    /**
+     * As {@link #get(String, Object, Supplier)}, but a loaded result is only cached if it satisfies the predicate, for
+     * example because it is complete
+     *
+     * @param cacheName The cache to use, one of the {@link com.hp.autonomy.searchcomponents.core.caching.CacheNames}
+     * @param request   The request, which must implement equals and hashCode
+     * @param loader    Fetches the result from Idol
+     * @param cacheable Whether a loaded result may be cached
+     * @param <T>       The type of the result
+     * @return The cached or loaded result
+     */
+    <T> T get(String cacheName, Object request, Supplier<T> loader, Predicate<? super T> cacheable);
+
+    /**
+     * @return Whether results are cached at all; when false, every lookup calls its loader
+     */
+    boolean isEnabled();
+
+    /**
+     * @return How long a result is held once cached
+     */
+    Duration getTimeToLive();
+
+    /**
+     * Removes all cached results
+     */
+    void clear();
+
+    /**
+     * @return The number of results currently held
+     */
+    int size();
+
+    /**
+     * @return The number of lookups answered from the cache
+     */
+    long getHits();
+
+    /**
+     * @return The number of lookups which had to fetch the result from Idol
+     */
+    long getMisses();
+
+    /**
+     * @return The fraction of lookups answered from the cache, or 0 if there have been no lookups
+     */
+    default double getHitRate() {
+        final long hits = getHits();
+        final long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
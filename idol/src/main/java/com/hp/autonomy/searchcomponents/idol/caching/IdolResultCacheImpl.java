@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.caching;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.hp.autonomy.frontend.configuration.authentication.CommunityPrincipal;
+import com.hp.autonomy.searchcomponents.core.caching.PrincipalHasher;
+import com.hpe.bigdata.frontend.spring.authentication.AuthenticationInformationRetriever;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static com.hp.autonomy.searchcomponents.idol.caching.IdolResultCache.IDOL_RESULT_CACHE_BEAN_NAME;
+
+/**
+ * Default implementation of {@link IdolResultCache}, evicting the least recently used results once full.
+ * <p>
+ * Entries are held in a concurrent, segmented cache, so lookups do not contend on a single lock. Results are loaded
+ * outside the cache, so a slow Idol request never blocks lookups of other results.
+ */
+@Component(IDOL_RESULT_CACHE_BEAN_NAME)
+class IdolResultCacheImpl implements IdolResultCache {
+    private final AuthenticationInformationRetriever<?, CommunityPrincipal> authenticationInformationRetriever;
+    private final PrincipalHasher principalHasher = new PrincipalHasher();
+    private final int maxSize;
+    private final Duration timeToLive;
+    private final Cache<CacheKey, Object> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    IdolResultCacheImpl(
+        final AuthenticationInformationRetriever<?, CommunityPrincipal> authenticationInformationRetriever,
+        @Value("${" + MAX_SIZE_PROPERTY_KEY + ":0}") final int maxSize,
+        @Value("${" + TIME_TO_LIVE_PROPERTY_KEY + ":60000}") final long timeToLiveMillis
+    ) {
+        this(authenticationInformationRetriever, maxSize, timeToLiveMillis, System::nanoTime);
+    }
+
+    IdolResultCacheImpl(
+        final AuthenticationInformationRetriever<?, CommunityPrincipal> authenticationInformationRetriever,
+        final int maxSize,
+        final long timeToLiveMillis,
+        final LongSupplier nanoClock
+    ) {
+        this.authenticationInformationRetriever = authenticationInformationRetriever;
+        this.maxSize = maxSize;
+        timeToLive = Duration.ofMillis(Math.max(timeToLiveMillis, 0));
+
+        entries = CacheBuilder.newBuilder()
+            .maximumSize(Math.max(maxSize, 0))
+            .expireAfterWrite(timeToLive.toMillis(), TimeUnit.MILLISECONDS)
+            .ticker(new Ticker() {
+                @Override
+                public long read() {
+                    return nanoClock.getAsLong();
+                }
+            })
+            .build();
+    }
+
+    @Override
+    public <T> T get(final String cacheName, final Object request, final Supplier<T> loader) {
+        return get(cacheName, request, loader, value -> true);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(final String cacheName, final Object request, final Supplier<T> loader, final Predicate<? super T> cacheable) {
+        if (!isEnabled()) {
+            misses.increment();
+            return loader.get();
+        }
+
+        final CacheKey key = new CacheKey(cacheName, request, principalHash());
+
+        final T cached = (T) entries.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        final T value = loader.get();
+
+        if (value != null && cacheable.test(value)) {
+            entries.put(key, value);
+        }
+
+        return value;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    @Override
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    @Override
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    @Override
+    public int size() {
+        entries.cleanUp();
+        return (int) entries.size();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private String principalHash() {
+        final CommunityPrincipal principal = authenticationInformationRetriever.getPrincipal();
+        return principal == null ? null : principalHasher.hash(principal, principal.getName(), principal.getSecurityInfo());
+    }
+
+    @EqualsAndHashCode
+    private static class CacheKey {
+        private final String cacheName;
+        private final Object request;
+        private final String principalHash;
+
+        private CacheKey(final String cacheName, final Object request, final String principalHash) {
+            this.cacheName = cacheName;
+            this.request = request;
+            this.principalHash = principalHash;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.databases;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.hp.autonomy.types.idol.responses.Database;
+import org.springframework.beans.factory.annotation.Qualifier;
+
+import java.util.Set;
+
+/**
+ * Shared, periodically refreshed list of the public databases in Content, read by {@link IdolDatabasesService} and
+ * when handling missing database warnings
+ */
+public interface IdolDatabaseCatalogue {
+    /**
+     * The bean name of the default implementation.
+     * Use this in an {@link Qualifier} tag to access this implementation via autowiring.
+     */
+    String IDOL_DATABASE_CATALOGUE_BEAN_NAME = "idolDatabaseCatalogue";
+
+    /**
+     * The time in milliseconds between refreshes of the database list. A value of 0 or less disables periodic
+     * refreshing, so the list only changes when it is invalidated.
+     */
+    String REFRESH_INTERVAL_PROPERTY_KEY = "idol.databases.refreshInterval";
+
+    /**
+     * Returns the database list, fetching it from Content if it has not been fetched yet
+     *
+     * @return The public databases, which must not be modified
+     * @throws AciErrorException If the list has to be fetched and Content returns an error
+     */
+    Set<Database> getDatabases() throws AciErrorException;
+
+    /**
+     * Re-fetches the database list because it is known to be out of date, unless it has already been re-fetched since
+     * the given list was read. Concurrent callers holding the same out of date list cause only one request to Content.
+     *
+     * @param staleDatabases The list, as returned by {@link #getDatabases()}, which is out of date
+     * @return The current database list
+     * @throws AciErrorException If Content returns an error
+     */
+    Set<Database> invalidate(Set<Database> staleDatabases) throws AciErrorException;
+}
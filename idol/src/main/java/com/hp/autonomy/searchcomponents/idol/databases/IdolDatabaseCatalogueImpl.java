@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.databases;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import com.hp.autonomy.types.idol.responses.Database;
+import com.hp.autonomy.types.idol.responses.GetStatusResponseData;
+import com.hp.autonomy.types.requests.idol.actions.status.StatusActions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.hp.autonomy.searchcomponents.idol.databases.IdolDatabaseCatalogue.IDOL_DATABASE_CATALOGUE_BEAN_NAME;
+
+/**
+ * Default implementation of {@link IdolDatabaseCatalogue}. The list is fetched when first read and then refreshed on a
+ * single daemon thread; if a refresh fails, the previous list is kept.
+ */
+@Slf4j
+@Component(IDOL_DATABASE_CATALOGUE_BEAN_NAME)
+class IdolDatabaseCatalogueImpl implements IdolDatabaseCatalogue, DisposableBean {
+    private static final String THREAD_NAME = "haven-search-idol-database-refresher";
+
+    private final AciService contentAciService;
+    private final Processor<GetStatusResponseData> responseProcessor;
+    private final ScheduledExecutorService scheduler;
+    private final Object fetchLock = new Object();
+    private volatile Set<Database> databases;
+
+    @Autowired
+    IdolDatabaseCatalogueImpl(
+        final AciService contentAciService,
+        final ProcessorFactory processorFactory,
+        @Value("${" + REFRESH_INTERVAL_PROPERTY_KEY + ":60000}") final long refreshIntervalMillis
+    ) {
+        this.contentAciService = contentAciService;
+
+        responseProcessor = processorFactory.getResponseDataProcessor(GetStatusResponseData.class);
+
+        if (refreshIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public Set<Database> getDatabases() {
+        final Set<Database> currentDatabases = databases;
+        if (currentDatabases != null) {
+            return currentDatabases;
+        }
+
+        synchronized (fetchLock) {
+            return databases == null ? fetch() : databases;
+        }
+    }
+
+    @Override
+    public Set<Database> invalidate(final Set<Database> staleDatabases) {
+        synchronized (fetchLock) {
+            final Set<Database> currentDatabases = databases;
+            return currentDatabases != null && currentDatabases != staleDatabases ? currentDatabases : fetch();
+        }
+    }
+
+    /**
+     * Re-fetches the database list, if it has been read since startup
+     */
+    void refresh() {
+        if (databases == null) {
+            return;
+        }
+
+        try {
+            synchronized (fetchLock) {
+                fetch();
+            }
+        } catch (final RuntimeException e) {
+            log.debug("Failed to refresh database list", e);
+        }
+    }
+
+    private Set<Database> fetch() {
+        final GetStatusResponseData responseData = contentAciService.executeAction(new AciParameters(StatusActions.GetStatus.name()), responseProcessor);
+
+        final Set<Database> fetchedDatabases = Collections.unmodifiableSet(responseData.getDatabases().getDatabase().stream()
+            .filter(database -> !database.isInternal())
+            .collect(Collectors.toCollection(LinkedHashSet::new)));
+
+        databases = fetchedDatabases;
+        return fetchedDatabases;
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -14,13 +14,14 @@
 
 package com.hp.autonomy.searchcomponents.idol.fields;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.hp.autonomy.searchcomponents.core.fields.AbstractFieldPathNormaliser;
 import com.hp.autonomy.searchcomponents.core.fields.FieldPathNormaliser;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricValuesService;
 import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
@@ -30,43 +31,176 @@ import static com.hp.autonomy.searchcomponents.core.fields.FieldPathNormaliser.F
 
 /**
  * Default Idol implementation of {@link FieldPathNormaliser}
+ * <p>
+ * Paths are normalised in a single pass without regular expressions, and the results for the most recently used raw
+ * paths are cached. The XML prefixes and the cache are published together, so a call to
+ * {@link #updatePattern(Collection)} is seen atomically by all threads and discards results normalised with the old
+ * prefixes.
  */
 @Component(FIELD_PATH_NORMALISER_BEAN_NAME)
 public class IdolFieldPathNormaliserImpl extends AbstractFieldPathNormaliser {
     private static final String IDX_PREFIX = "DOCUMENT/";
-    private static final Pattern FIELD_NAME_PATTERN = Pattern.compile("(/?[^/]+)+");
-    private static final Pattern IDX_PATH_PATTERN = Pattern.compile("^/?(?:" + IDX_PREFIX + ")?(?<fieldPath>[^/]+)$");
-    private Pattern XML_PATH_PATTERN = updatePattern(Collections.singletonList("DOCUMENTS"));
+    private static final int MAX_CACHED_PATHS = 10000;
 
-    // We have to do it this way to break the circular dependency between the FieldsInfo deserializer and this.
+    private volatile NormaliserState state;
+
+    public IdolFieldPathNormaliserImpl() {
+        updatePattern(Collections.singletonList("DOCUMENTS"));
+    }
+
+    /**
+     * Sets the XML prefixes which may precede {@code DOCUMENT/} in a field path.
+     * We have to do it this way to break the circular dependency between the FieldsInfo deserializer and this.
+     *
+     * @param prefixes The prefixes, in order of preference
+     * @return A pattern equivalent to the prefix handling, for callers which match paths themselves
+     */
     public Pattern updatePattern(final Collection<String> prefixes) {
+        state = new NormaliserState(prefixes.stream()
+                .map(prefix -> prefix + '/')
+                .toArray(String[]::new));
+
         final String XML_PREFIX = prefixes.stream()
                 .map(s -> Pattern.quote(s + "/"))
                 .collect(Collectors.joining("|"));
 
-        return XML_PATH_PATTERN = Pattern.compile("^/?(?:" + XML_PREFIX + ")?(?:" + IDX_PREFIX + ")?(?<fieldPath>[^/]+(?:/[^/]+)*)$");
+        return Pattern.compile("^/?(?:" + XML_PREFIX + ")?(?:" + IDX_PREFIX + ")?(?<fieldPath>[^/]+(?:/[^/]+)*)$");
     }
 
     @Override
     public FieldPath normaliseFieldPath(final String fieldPath) {
-        if (StringUtils.isBlank(fieldPath) || !FIELD_NAME_PATTERN.matcher(fieldPath.trim()).matches()) {
+        final NormaliserState currentState = state;
+
+        final FieldPath cached = fieldPath == null ? null : currentState.cache.getIfPresent(fieldPath);
+        if (cached != null) {
+            return cached;
+        }
+
+        final FieldPath normalised = normalise(fieldPath, currentState.xmlPrefixes);
+        currentState.cache.put(fieldPath, normalised);
+        return normalised;
+    }
+
+    private FieldPath normalise(final String fieldPath, final String[] xmlPrefixes) {
+        if (StringUtils.isBlank(fieldPath) || !isValidFieldPath(fieldPath.trim())) {
             throw new IllegalArgumentException("Field names may not be blank or contain only forward slashes");
         }
 
         String normalisedFieldName = fieldPath.toUpperCase();
         if (!ParametricValuesService.AUTN_DATE_FIELD.equals(normalisedFieldName)) {
-            final Matcher idxMatcher = IDX_PATH_PATTERN.matcher(normalisedFieldName);
-            if (idxMatcher.find()) {
-                normalisedFieldName = idxMatcher.group("fieldPath");
-            } else {
-                final Matcher xmlMatcher = XML_PATH_PATTERN.matcher(normalisedFieldName);
-                if (xmlMatcher.find()) {
-                    normalisedFieldName = xmlMatcher.group("fieldPath");
+            final String idxFieldPath = stripIdxPrefix(normalisedFieldName);
+            normalisedFieldName = idxFieldPath != null ? idxFieldPath : stripXmlPrefix(normalisedFieldName, xmlPrefixes);
+        }
+
+        final int lastSlash = normalisedFieldName.lastIndexOf('/');
+        final String fieldName = lastSlash >= 0 ? normalisedFieldName.substring(lastSlash + 1) : normalisedFieldName;
+        return newFieldPath(normalisedFieldName, fieldName);
+    }
+
+    /**
+     * Non-empty path segments, optionally preceded by a slash and separated by single slashes
+     */
+    private static boolean isValidFieldPath(final String fieldPath) {
+        final int length = fieldPath.length();
+        if (length == 0 || fieldPath.charAt(length - 1) == '/') {
+            return false;
+        }
+
+        for (int i = 1; i < length; i++) {
+            if (fieldPath.charAt(i) == '/' && fieldPath.charAt(i - 1) == '/') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * A single field name, optionally preceded by a slash and DOCUMENT/
+     *
+     * @return The field name, or null if the path is not of this form
+     */
+    private static String stripIdxPrefix(final String path) {
+        for (int start = leadingSlash(path); start >= 0; start--) {
+            if (path.startsWith(IDX_PREFIX, start) && isFieldName(path, start + IDX_PREFIX.length())) {
+                return path.substring(start + IDX_PREFIX.length());
+            }
+
+            if (isFieldName(path, start)) {
+                return path.substring(start);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * A field path, optionally preceded by a slash, the first matching XML prefix and DOCUMENT/
+     *
+     * @return The field path without prefixes, or the path itself if it is not of this form
+     */
+    private static String stripXmlPrefix(final String path, final String[] xmlPrefixes) {
+        for (int start = leadingSlash(path); start >= 0; start--) {
+            for (final String xmlPrefix : xmlPrefixes) {
+                if (path.startsWith(xmlPrefix, start)) {
+                    final String stripped = stripOptionalIdxPrefix(path, start + xmlPrefix.length());
+                    if (stripped != null) {
+                        return stripped;
+                    }
                 }
             }
+
+            final String stripped = stripOptionalIdxPrefix(path, start);
+            if (stripped != null) {
+                return stripped;
+            }
         }
 
-        final String fieldName = normalisedFieldName.contains("/") ? normalisedFieldName.substring(normalisedFieldName.lastIndexOf('/') + 1) : normalisedFieldName;
-        return newFieldPath(normalisedFieldName, fieldName);
+        return path;
+    }
+
+    private static String stripOptionalIdxPrefix(final String path, final int start) {
+        if (path.startsWith(IDX_PREFIX, start) && isFieldPath(path, start + IDX_PREFIX.length())) {
+            return path.substring(start + IDX_PREFIX.length());
+        }
+
+        return isFieldPath(path, start) ? path.substring(start) : null;
+    }
+
+    private static int leadingSlash(final String path) {
+        return !path.isEmpty() && path.charAt(0) == '/' ? 1 : 0;
+    }
+
+    private static boolean isFieldName(final String path, final int start) {
+        return start < path.length() && path.indexOf('/', start) < 0;
+    }
+
+    private static boolean isFieldPath(final String path, final int start) {
+        final int length = path.length();
+        if (start >= length || path.charAt(start) == '/' || path.charAt(length - 1) == '/') {
+            return false;
+        }
+
+        for (int i = start + 1; i < length; i++) {
+            if (path.charAt(i) == '/' && path.charAt(i - 1) == '/') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * XML prefixes and the paths normalised with them
+     */
+    private static class NormaliserState {
+        private final String[] xmlPrefixes;
+        private final Cache<String, FieldPath> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_PATHS)
+            .build();
+
+        private NormaliserState(final String[] xmlPrefixes) {
+            this.xmlPrefixes = xmlPrefixes;
+        }
     }
 }
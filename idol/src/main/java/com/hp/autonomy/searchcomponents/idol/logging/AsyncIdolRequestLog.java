@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.logging;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hands {@link IdolRequestEvent}s from request threads to a background thread which formats and writes them.
+ * Recording an event never blocks; if the writer falls behind and the buffer fills up, events are dropped and counted.
+ * The background thread logs a warning with the number of events dropped, at most once a minute.
+ */
+@Slf4j
+public class AsyncIdolRequestLog implements AutoCloseable {
+    private static final String THREAD_NAME = "haven-search-idol-request-log";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final IdolRequestEventRingBuffer buffer;
+    private final Consumer<IdolRequestEvent> writer;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread drainThread;
+    private volatile boolean running = true;
+
+    // only used by the background thread
+    private long reportedDropped;
+    private long lastDropReportNanos = System.nanoTime();
+
+    /**
+     * @param capacity The number of events which may be waiting to be written
+     * @param writer   Writes an event; called only from the background thread
+     */
+    public AsyncIdolRequestLog(final int capacity, final Consumer<IdolRequestEvent> writer) {
+        buffer = new IdolRequestEventRingBuffer(capacity);
+        this.writer = writer;
+
+        drainThread = new Thread(this::drain, THREAD_NAME);
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+    /**
+     * Queues an event to be written
+     *
+     * @param event The event
+     */
+    public void record(final IdolRequestEvent event) {
+        // the background thread polls, so the request thread never pays for waking it
+        if (!buffer.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * @return The number of events dropped because the buffer was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops the background thread once the events already recorded have been written
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainThread);
+        drainThread.join();
+    }
+
+    private void drain() {
+        while (running) {
+            if (!writeAvailable()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+
+            if (System.nanoTime() - lastDropReportNanos >= DROP_REPORT_INTERVAL_NANOS) {
+                reportDropped();
+            }
+        }
+
+        writeAvailable();
+        reportDropped();
+    }
+
+    private void reportDropped() {
+        lastDropReportNanos = System.nanoTime();
+
+        final long totalDropped = getDropped();
+        if (totalDropped > reportedDropped) {
+            log.warn("Dropped {} Idol request log events because the buffer was full ({} in total)", totalDropped - reportedDropped, totalDropped);
+            reportedDropped = totalDropped;
+        }
+    }
+
+    private boolean writeAvailable() {
+        boolean written = false;
+
+        for (IdolRequestEvent event = buffer.poll(); event != null; event = buffer.poll()) {
+            written = true;
+
+            try {
+                writer.accept(event);
+            } catch (final RuntimeException ignored) {
+                // a failure to write one event must not stop the writer thread
+            }
+        }
+
+        return written;
+    }
+}
@@ -4,62 +4,66 @@ import com.autonomy.aci.client.transport.AciResponseInputStream;
 import com.autonomy.aci.client.transport.AciServerDetails;
 import com.autonomy.aci.client.transport.ActionParameter;
 import com.hp.autonomy.searchcomponents.idol.configuration.IdolComponentLabelLookup;
-import com.hp.autonomy.types.requests.idol.actions.query.params.QueryParams;
-import com.hp.autonomy.types.requests.idol.actions.user.params.SecurityParams;
-import java.text.DecimalFormat;
 import java.util.Collection;
-import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.annotation.Order;
-import org.springframework.util.StopWatch;
 
 import static com.hp.autonomy.searchcomponents.idol.logging.IdolLoggingAspect.LOGGING_PRECEDENCE;
 import static org.springframework.core.Ordered.LOWEST_PRECEDENCE;
 
 /**
  * Intercepts and logs all calls to Idol.
+ * <p>
+ * By default each call is formatted and logged on the request thread. When constructed with an
+ * {@link AsyncIdolRequestLog}, the request thread only records an {@link IdolRequestEvent}, and the parameters are
+ * formatted and logged, in the same format, on a background thread.
  */
 @SuppressWarnings("ProhibitedExceptionDeclared")
 @Slf4j
 @Aspect
 // We need this to be lower-priority than the ActionId generation, so that the generated ActionId gets logged.
 @Order(LOGGING_PRECEDENCE)
-public class IdolLoggingAspect {
+public class IdolLoggingAspect implements DisposableBean {
     public static final int LOGGING_PRECEDENCE = LOWEST_PRECEDENCE;
 
     private static final Marker IDOL = MarkerFactory.getMarker("IDOL");
 
-    private static final String PARAMETER_SEPARATOR = "&";
-    private static final char NAME_VALUE_SEPARATOR = '=';
-    private static final String HIDDEN_VALUE = "*******";
-    private static final String SERVER_UNREACHABLE = "(server unreachable)";
-
     private final IdolComponentLabelLookup lookup;
     private final boolean timingEnabled;
+    private final AsyncIdolRequestLog asyncLog;
 
     public IdolLoggingAspect(final IdolComponentLabelLookup lookup,
                              final boolean timingEnabled) {
+        this(lookup, timingEnabled, null);
+    }
+
+    /**
+     * @param lookup        Looks up component names
+     * @param timingEnabled Whether to log the duration of each call
+     * @param asyncLog      Writes events on a background thread, or null to log on the request thread
+     */
+    public IdolLoggingAspect(final IdolComponentLabelLookup lookup,
+                             final boolean timingEnabled,
+                             final AsyncIdolRequestLog asyncLog) {
         this.lookup = lookup;
         this.timingEnabled = timingEnabled;
+        this.asyncLog = asyncLog;
     }
 
-    private Object timeIdolRequests(final ProceedingJoinPoint joinPoint, final StringBuilder messageBuilder) throws Throwable {
-        if (timingEnabled) {
-            final StopWatch stopWatch = new StopWatch();
-            stopWatch.start();
-            try {
-                return joinPoint.proceed();
-            } finally {
-                stopWatch.stop();
-                messageBuilder.append(new DecimalFormat("#,###").format(stopWatch.getTotalTimeMillis())).append("ms").append('\t');
-            }
-        } else {
-            return joinPoint.proceed();
+    /**
+     * Writes an event to the log in the standard format
+     *
+     * @param event The event
+     */
+    public static void writeEvent(final IdolRequestEvent event) {
+        if (log.isInfoEnabled(IDOL)) {
+            log.info(IDOL, event.toLogMessage());
         }
     }
 
@@ -69,29 +73,39 @@ public class IdolLoggingAspect {
             final ProceedingJoinPoint joinPoint,
             final AciServerDetails serverDetails,
             final Collection<? extends ActionParameter> parameters) throws Throwable {
+        return logIdolRequest(serverDetails, parameters, joinPoint::proceed);
+    }
 
-        final String host = serverDetails.getHost();
-        final int port = serverDetails.getPort();
-
-        final String query = parameters.stream()
-                .map(parameter -> parameter.getName() + NAME_VALUE_SEPARATOR + getParameterValue(parameter))
-                .sorted()
-                .collect(Collectors.joining(PARAMETER_SEPARATOR));
-
-        final StringBuilder messageBuilder = new StringBuilder()
-                .append(lookup.lookupComponentNameByHostAndPort(host, port)).append('\t')
-                .append(host).append('\t')
-                .append(port).append('\t')
-                .append(query).append('\t');
+    Object logIdolRequest(
+            final AciServerDetails serverDetails,
+            final Collection<? extends ActionParameter> parameters,
+            final IdolCall idolCall) throws Throwable {
+        final long start = timingEnabled ? System.nanoTime() : 0;
 
         AciResponseInputStream aciResponseInputStream = null;
         try {
-            aciResponseInputStream = (AciResponseInputStream) timeIdolRequests(joinPoint, messageBuilder);
+            aciResponseInputStream = (AciResponseInputStream) idolCall.proceed();
             return aciResponseInputStream;
         } finally {
-            messageBuilder.append(aciResponseInputStream == null ? SERVER_UNREACHABLE : aciResponseInputStream.getStatusCode()).append('\t');
-            messageBuilder.append(generateMessage(serverDetails, parameters));
-            log.info(IDOL, messageBuilder.toString());
+            final long durationNanos = timingEnabled ? System.nanoTime() - start : -1;
+            final String host = serverDetails.getHost();
+            final int port = serverDetails.getPort();
+
+            final IdolRequestEvent event = new IdolRequestEvent(
+                    lookup.lookupComponentNameByHostAndPort(host, port),
+                    host,
+                    port,
+                    parameters,
+                    durationNanos,
+                    aciResponseInputStream == null ? null : aciResponseInputStream.getStatusCode(),
+                    generateMessage(serverDetails, parameters)
+            );
+
+            if (asyncLog == null) {
+                writeEvent(event);
+            } else {
+                asyncLog.record(event);
+            }
         }
     }
 
@@ -105,10 +119,23 @@ public class IdolLoggingAspect {
         return "";
     }
 
-    private String getParameterValue(final ActionParameter parameter) {
-        return parameter.getName().equalsIgnoreCase(QueryParams.SecurityInfo.name()) || parameter.getName().equalsIgnoreCase(SecurityParams.Password.name())
-                ? HIDDEN_VALUE
-                : parameter.getValue() == null ? null
-                : parameter.getValue().toString();
+    /**
+     * @return The number of events dropped because the background writer fell behind, or 0 if events are logged on the
+     * request thread
+     */
+    public long getDroppedEvents() {
+        return asyncLog == null ? 0 : asyncLog.getDropped();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (asyncLog != null) {
+            asyncLog.close();
+        }
+    }
+
+    @FunctionalInterface
+    interface IdolCall {
+        Object proceed() throws Throwable;
     }
 }
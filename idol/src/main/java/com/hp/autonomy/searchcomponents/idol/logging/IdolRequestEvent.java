@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.logging;
+
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.hp.autonomy.types.requests.idol.actions.query.params.QueryParams;
+import com.hp.autonomy.types.requests.idol.actions.user.params.SecurityParams;
+
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A single call to Idol, as recorded by {@link IdolLoggingAspect}. The parameters are only formatted when the event is
+ * logged, so an event can be recorded cheaply on the request thread and formatted later.
+ */
+public final class IdolRequestEvent {
+    private static final String PARAMETER_SEPARATOR = "&";
+    private static final char NAME_VALUE_SEPARATOR = '=';
+    private static final String HIDDEN_VALUE = "*******";
+    private static final String SERVER_UNREACHABLE = "(server unreachable)";
+
+    private static final String ACTION_PARAMETER = "Action";
+    private static final ThreadLocal<DecimalFormat> DURATION_FORMAT = ThreadLocal.withInitial(() -> new DecimalFormat("#,###"));
+
+    private final String component;
+    private final String host;
+    private final int port;
+    private final ActionParameter<?>[] parameters;
+    private final long durationNanos;
+    private final Integer statusCode;
+    private final String customMessage;
+
+    /**
+     * @param component     The friendly name of the Idol component
+     * @param host          The component host name
+     * @param port          The component port
+     * @param parameters    The parameters sent in the request
+     * @param durationNanos The duration of the request in nanoseconds, or a negative value if it was not timed
+     * @param statusCode    The HTTP status code of the response, or null if the server was unreachable
+     * @param customMessage Additional text to append to the log message
+     */
+    @SuppressWarnings("rawtypes")
+    public IdolRequestEvent(
+            final String component,
+            final String host,
+            final int port,
+            final Collection<? extends ActionParameter> parameters,
+            final long durationNanos,
+            final Integer statusCode,
+            final String customMessage
+    ) {
+        this.component = component;
+        this.host = host;
+        this.port = port;
+        // copy the references only; the values are read when the event is formatted
+        this.parameters = parameters.toArray(new ActionParameter<?>[0]);
+        this.durationNanos = durationNanos;
+        this.statusCode = statusCode;
+        this.customMessage = customMessage;
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return The value of the Action parameter, or null if there is none
+     */
+    public String getAction() {
+        for (final ActionParameter<?> parameter : parameters) {
+            if (ACTION_PARAMETER.equalsIgnoreCase(parameter.getName())) {
+                return parameter.getValue() == null ? null : parameter.getValue().toString();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The duration of the request in nanoseconds, or a negative value if it was not timed
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return The HTTP status code of the response, or null if the server was unreachable
+     */
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return The parameters in name order, joined as a query string, with security info and passwords hidden
+     */
+    public String formatParameters() {
+        return Arrays.stream(parameters)
+                .map(parameter -> parameter.getName() + NAME_VALUE_SEPARATOR + getParameterValue(parameter))
+                .sorted()
+                .collect(Collectors.joining(PARAMETER_SEPARATOR));
+    }
+
+    /**
+     * @return The tab-separated log message: component, host, port, parameters, duration (if timed), status and
+     * custom message
+     */
+    public String toLogMessage() {
+        final StringBuilder messageBuilder = new StringBuilder()
+                .append(component).append('\t')
+                .append(host).append('\t')
+                .append(port).append('\t')
+                .append(formatParameters()).append('\t');
+
+        if (durationNanos >= 0) {
+            messageBuilder.append(DURATION_FORMAT.get().format(TimeUnit.NANOSECONDS.toMillis(durationNanos))).append("ms").append('\t');
+        }
+
+        return messageBuilder
+                .append(statusCode == null ? SERVER_UNREACHABLE : statusCode).append('\t')
+                .append(customMessage)
+                .toString();
+    }
+
+    @Override
+    public String toString() {
+        return toLogMessage();
+    }
+
+    private static String getParameterValue(final ActionParameter<?> parameter) {
+        return parameter.getName().equalsIgnoreCase(QueryParams.SecurityInfo.name()) || parameter.getName().equalsIgnoreCase(SecurityParams.Password.name())
+                ? HIDDEN_VALUE
+                : parameter.getValue() == null ? null
+                : parameter.getValue().toString();
+    }
+}
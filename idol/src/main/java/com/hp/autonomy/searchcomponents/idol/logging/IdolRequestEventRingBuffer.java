@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free queue of events with many producers and a single consumer. Each slot carries a sequence number
+ * which tells producers when the slot is free and the consumer when it has been filled, so neither side ever blocks.
+ * When the buffer is full, new events are dropped rather than slowing down the request thread.
+ */
+final class IdolRequestEventRingBuffer {
+    private final int mask;
+    private final AtomicReferenceArray<IdolRequestEvent> events;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    /**
+     * @param capacity The number of events held; rounded up to a power of two
+     */
+    IdolRequestEventRingBuffer(final int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+
+        final int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        mask = size - 1;
+        events = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an event; may be called from any thread
+     *
+     * @param event The event
+     * @return False if the buffer was full and the event was dropped
+     */
+    boolean offer(final IdolRequestEvent event) {
+        while (true) {
+            final long position = tail.get();
+            final int index = (int) position & mask;
+            final long available = sequences.get(index) - position;
+
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events.lazySet(index, event);
+                    // publishes the event to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+            // otherwise another producer claimed the slot first, so retry with the new tail
+        }
+    }
+
+    /**
+     * Removes the oldest event; must only be called from the single consumer thread
+     *
+     * @return The event, or null if the buffer is empty
+     */
+    IdolRequestEvent poll() {
+        final int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+
+        final IdolRequestEvent event = events.get(index);
+        events.lazySet(index, null);
+        // frees the slot for the producer which will write it on the next lap
+        sequences.set(index, head + mask + 1);
+        head++;
+        return event;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.metrics;
+
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.hp.autonomy.searchcomponents.idol.configuration.IdolComponentLabelLookup;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+
+import java.util.Collection;
+
+import static com.hp.autonomy.searchcomponents.idol.logging.IdolLoggingAspect.LOGGING_PRECEDENCE;
+import static com.hp.autonomy.searchcomponents.idol.metrics.IdolMetricsAspect.METRICS_PRECEDENCE;
+
+/**
+ * Times all calls to Idol, reporting them to {@link IdolRequestMetrics} by component and action.
+ */
+@SuppressWarnings("ProhibitedExceptionDeclared")
+@Aspect
+// This runs outside the ActionId generation and the logging, so the logging aspects keep their existing order; with
+// asynchronous request logging, little of the time spent logging is measured.
+@Order(METRICS_PRECEDENCE)
+public class IdolMetricsAspect {
+    public static final int METRICS_PRECEDENCE = LOGGING_PRECEDENCE - 2;
+
+    static final String UNKNOWN_ACTION = "Unknown";
+
+    private static final String ACTION_PARAMETER = "Action";
+    private static final int HTTP_ERROR_STATUS = 400;
+
+    private final IdolComponentLabelLookup lookup;
+    private final IdolRequestMetrics metrics;
+
+    public IdolMetricsAspect(final IdolComponentLabelLookup lookup, final IdolRequestMetrics metrics) {
+        this.lookup = lookup;
+        this.metrics = metrics;
+    }
+
+    @Around(value = "execution(* com.autonomy.aci.client.transport.AciHttpClient.executeAction(..)) && args(serverDetails, parameters)",
+            argNames = "joinPoint,serverDetails,parameters")
+    public Object recordIdolRequests(
+            final ProceedingJoinPoint joinPoint,
+            final AciServerDetails serverDetails,
+            final Collection<? extends ActionParameter<?>> parameters) throws Throwable {
+        return recordIdolRequest(serverDetails, parameters, joinPoint::proceed);
+    }
+
+    Object recordIdolRequest(
+            final AciServerDetails serverDetails,
+            final Collection<? extends ActionParameter<?>> parameters,
+            final IdolCall idolCall) throws Throwable {
+        final String component = lookup.lookupComponentNameByHostAndPort(serverDetails.getHost(), serverDetails.getPort());
+        final String action = getAction(parameters);
+
+        metrics.requestStarted(component, action);
+        final long start = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            final Object response = idolCall.proceed();
+            failed = response instanceof AciResponseInputStream && ((AciResponseInputStream) response).getStatusCode() >= HTTP_ERROR_STATUS;
+            return response;
+        } finally {
+            metrics.requestFinished(component, action, System.nanoTime() - start, failed);
+        }
+    }
+
+    private static String getAction(final Collection<? extends ActionParameter<?>> parameters) {
+        for (final ActionParameter<?> parameter : parameters) {
+            if (ACTION_PARAMETER.equalsIgnoreCase(parameter.getName()) && parameter.getValue() != null) {
+                return parameter.getValue().toString();
+            }
+        }
+
+        return UNKNOWN_ACTION;
+    }
+
+    @FunctionalInterface
+    interface IdolCall {
+        Object proceed() throws Throwable;
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.metrics;
+
+/**
+ * Receives the timing of every call to Idol made through the ACI client. Applications may register their own bean to
+ * forward these measurements to an external metrics system; otherwise {@link IdolRequestMetricsRegistry} is used.
+ */
+public interface IdolRequestMetrics {
+    /**
+     * Called before a request is sent
+     *
+     * @param component The friendly name of the Idol component
+     * @param action    The ACI action
+     */
+    void requestStarted(String component, String action);
+
+    /**
+     * Called once a response has been received, or the request has failed
+     *
+     * @param component     The friendly name of the Idol component
+     * @param action        The ACI action
+     * @param durationNanos The time taken to receive the response, in nanoseconds
+     * @param failed        Whether the request failed, either with an exception or an HTTP error status
+     */
+    void requestFinished(String component, String action, long durationNanos, boolean failed);
+}
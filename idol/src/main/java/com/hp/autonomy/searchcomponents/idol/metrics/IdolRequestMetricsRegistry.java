@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.metrics;
+
+import lombok.EqualsAndHashCode;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Default {@link IdolRequestMetrics}, keeping a latency histogram, an error count and an in-flight count in memory for
+ * each combination of Idol component and action.
+ */
+public class IdolRequestMetricsRegistry implements IdolRequestMetrics {
+    private final ConcurrentMap<SeriesKey, Series> series = new ConcurrentHashMap<>();
+
+    @Override
+    public void requestStarted(final String component, final String action) {
+        getSeries(component, action).inFlight.increment();
+    }
+
+    @Override
+    public void requestFinished(final String component, final String action, final long durationNanos, final boolean failed) {
+        final Series actionSeries = getSeries(component, action);
+        actionSeries.inFlight.decrement();
+        actionSeries.latency.record(durationNanos);
+
+        if (failed) {
+            actionSeries.errors.increment();
+        }
+    }
+
+    /**
+     * @return Statistics for every component and action which has been called, ordered by component and then action
+     */
+    public List<IdolRequestStatistics> getStatistics() {
+        return series.entrySet().stream()
+                .map(entry -> entry.getValue().toStatistics(entry.getKey()))
+                .sorted(Comparator.comparing(IdolRequestStatistics::getComponent).thenComparing(IdolRequestStatistics::getAction))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param component The friendly name of the Idol component
+     * @param action    The ACI action
+     * @return Statistics for the action, if it has been called
+     */
+    public Optional<IdolRequestStatistics> getStatistics(final String component, final String action) {
+        final SeriesKey key = new SeriesKey(component, action);
+        return Optional.ofNullable(series.get(key)).map(actionSeries -> actionSeries.toStatistics(key));
+    }
+
+    private Series getSeries(final String component, final String action) {
+        // get first, as computeIfAbsent locks the bin even when the series exists
+        final SeriesKey key = new SeriesKey(component, action);
+        final Series existing = series.get(key);
+        return existing != null ? existing : series.computeIfAbsent(key, k -> new Series());
+    }
+
+    @EqualsAndHashCode
+    private static class SeriesKey {
+        private final String component;
+        private final String action;
+
+        private SeriesKey(final String component, final String action) {
+            this.component = String.valueOf(component);
+            this.action = String.valueOf(action);
+        }
+    }
+
+    private static class Series {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+
+        private IdolRequestStatistics toStatistics(final SeriesKey key) {
+            return IdolRequestStatistics.builder()
+                    .component(key.component)
+                    .action(key.action)
+                    .count(latency.getCount())
+                    .errors(errors.sum())
+                    .inFlight(inFlight.sum())
+                    .meanNanos(latency.getMean())
+                    .maxNanos(latency.getMax())
+                    .p50Nanos(latency.getValueAtQuantile(0.5))
+                    .p99Nanos(latency.getValueAtQuantile(0.99))
+                    .p999Nanos(latency.getValueAtQuantile(0.999))
+                    .build();
+        }
+    }
+}
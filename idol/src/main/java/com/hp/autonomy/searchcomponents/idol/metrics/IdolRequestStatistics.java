@@ -0,0 +1,28 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.metrics;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A snapshot of the requests made to one action of one Idol component. Latencies are in nanoseconds, and percentiles are
+ * accurate to within about 3%.
+ */
+@Data
+@Builder
+public class IdolRequestStatistics {
+    private final String component;
+    private final String action;
+    private final long count;
+    private final long errors;
+    private final long inFlight;
+    private final double meanNanos;
+    private final long maxNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+}
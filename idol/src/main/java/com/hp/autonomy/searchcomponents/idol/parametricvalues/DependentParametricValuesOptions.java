@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.parametricvalues;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Singular;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Selects the part of a dependent parametric values tree to retrieve with
+ * {@link IdolParametricValuesService#getDependentParametricValues(IdolParametricRequest, DependentParametricValuesOptions)}.
+ * The tree is retrieved a few levels at a time: the first request fetches the top levels, and a node is expanded by
+ * requesting the subtree below its values.
+ */
+@Data
+@Builder(toBuilder = true)
+@JsonDeserialize(builder = DependentParametricValuesOptions.DependentParametricValuesOptionsBuilder.class)
+public class DependentParametricValuesOptions implements Serializable {
+    private static final long serialVersionUID = -2519040725404924015L;
+
+    private static final int DEPTH_DEFAULT = 2;
+    private static final int MAX_VALUES_DEFAULT = 10;
+
+    /**
+     * The values of the leading fields which identify the node to expand, in field order. Empty for the top of the tree.
+     */
+    @Singular
+    private final List<String> parentValues;
+
+    /**
+     * The number of levels to return below the expanded node
+     */
+    private final int depth;
+
+    /**
+     * The number of values to skip at the first returned level, for paging through the children of the expanded node
+     */
+    private final int start;
+
+    /**
+     * The maximum number of values returned below each node, at every level
+     */
+    private final int maxValues;
+
+    /**
+     * Values with a lower count, and the branches below them, are left out of the tree
+     */
+    private final int minCount;
+
+    @SuppressWarnings({"FieldMayBeFinal", "unused"})
+    @JsonPOJOBuilder(withPrefix = "")
+    public static class DependentParametricValuesOptionsBuilder {
+        private int depth = DEPTH_DEFAULT;
+        private int maxValues = MAX_VALUES_DEFAULT;
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.parametricvalues;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts for one field and query, held in fine buckets on one or more aligned grids. A request for equal-width buckets
+ * whose width is a whole number of fine buckets, and whose boundaries lie on the grid, is answered by summing fine
+ * buckets; only the fine buckets not already held need to be fetched from Idol.
+ * <p>
+ * Boundaries are doubles: dates are represented as epoch seconds, which doubles hold exactly. Grids for integral axes
+ * (dates) have whole-number bucket widths, matching the one second resolution of Idol dates.
+ */
+class FieldHistogram {
+    // tolerance, in units of one fine bucket, when matching boundaries to the grid
+    private static final double TOLERANCE = 1e-6;
+    private static final int MAX_GRIDS = 4;
+    private static final int MAX_SUBDIVISION = 4;
+
+    private final boolean integral;
+    private final int maxFineBuckets;
+    private final List<Grid> grids = new ArrayList<>(MAX_GRIDS);
+
+    /**
+     * @param integral       Whether fine bucket widths must be whole numbers
+     * @param maxFineBuckets The maximum number of fine buckets fetched or summed for one request
+     */
+    FieldHistogram(final boolean integral, final int maxFineBuckets) {
+        this.integral = integral;
+        this.maxFineBuckets = maxFineBuckets;
+    }
+
+    /**
+     * Works out which fine buckets answer a request and which of them must be fetched
+     *
+     * @param boundaries The requested bucket boundaries, in increasing order
+     * @return The plan, or null if the boundaries are not equally spaced or would need too many fine buckets
+     */
+    synchronized Plan plan(final double[] boundaries) {
+        final int buckets = boundaries.length - 1;
+        if(buckets < 1) {
+            return null;
+        }
+
+        final double bucketWidth = boundaries[1] - boundaries[0];
+        if(!(bucketWidth > 0) || !equallySpaced(boundaries, bucketWidth)) {
+            return null;
+        }
+
+        Plan plan = null;
+        for(final Grid grid : grids) {
+            final Plan candidate = grid.plan(boundaries[0], bucketWidth, buckets);
+            if(candidate != null && (plan == null || candidate.getUncoveredCount() < plan.getUncoveredCount())) {
+                plan = candidate;
+            }
+        }
+
+        if(plan == null) {
+            final Grid grid = createGrid(boundaries[0], bucketWidth, buckets);
+            if(grid == null) {
+                return null;
+            }
+
+            if(grids.size() >= MAX_GRIDS) {
+                grids.remove(0);
+            }
+            grids.add(grid);
+            plan = grid.plan(boundaries[0], bucketWidth, buckets);
+        }
+
+        return plan;
+    }
+
+    /**
+     * @param plan A plan whose buckets are all held
+     * @return The count for each requested bucket, or null if the plan's fine buckets are no longer all held
+     */
+    synchronized long[] counts(final Plan plan) {
+        return plan.getGrid().counts(plan);
+    }
+
+    /**
+     * Stores fetched fine buckets, then sums the requested buckets
+     *
+     * @param plan    The plan whose uncovered fine buckets were fetched
+     * @param fetched The counts of the fetched fine buckets, indexed from the start of the first uncovered interval
+     * @return The count for each requested bucket, or null if a concurrent request changed the held fine buckets since
+     * the plan was made, so the fetched buckets may no longer fill the gaps in them
+     */
+    synchronized long[] storeAndCount(final Plan plan, final long[] fetched) {
+        final Grid grid = plan.getGrid();
+        if(plan.getVersion() != grid.version) {
+            return null;
+        }
+
+        grid.store(plan, fetched);
+        return grid.counts(plan);
+    }
+
+    private boolean equallySpaced(final double[] boundaries, final double bucketWidth) {
+        for(int i = 2; i < boundaries.length; i++) {
+            if(Math.abs(boundaries[i] - boundaries[0] - bucketWidth * i) > bucketWidth * TOLERANCE) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private Grid createGrid(final double start, final double bucketWidth, final int buckets) {
+        // split each requested bucket, so that later requests for narrower buckets can also be answered
+        for(int subdivision = Math.min(MAX_SUBDIVISION, maxFineBuckets / buckets); subdivision >= 1; subdivision--) {
+            if(!integral || Math.round(bucketWidth) % subdivision == 0) {
+                final double width = bucketWidth / subdivision;
+                final double origin = start - width * Math.floor(start / width);
+                return new Grid(origin, width);
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isWhole(final double value) {
+        return Math.abs(value - Math.rint(value)) <= TOLERANCE;
+    }
+
+    /**
+     * Fine buckets of one width, starting from one origin. Fine bucket i covers [origin + width * i, origin + width * (i + 1)).
+     * Only one contiguous run of fine buckets is held.
+     */
+    class Grid {
+        private final double origin;
+        private final double width;
+        private long coveredStart;
+        private long[] covered = new long[0];
+        // incremented whenever the held fine buckets change, so stale plans can be detected
+        private long version;
+
+        private Grid(final double origin, final double width) {
+            this.origin = origin;
+            this.width = width;
+        }
+
+        double getOrigin() {
+            return origin;
+        }
+
+        double getWidth() {
+            return width;
+        }
+
+        /**
+         * @param fineIndex The index of a fine bucket
+         * @return The lower boundary of the fine bucket
+         */
+        double boundary(final long fineIndex) {
+            return origin + width * fineIndex;
+        }
+
+        /**
+         * @param lowerBoundary The lower boundary of a returned bucket
+         * @param upperBoundary The upper boundary of a returned bucket
+         * @return The index of the fine bucket with these boundaries, or null if they are not those of a fine bucket
+         */
+        Long fineIndex(final double lowerBoundary, final double upperBoundary) {
+            final double index = (lowerBoundary - origin) / width;
+            return isWhole(index) && isWhole((upperBoundary - lowerBoundary) / width) && Math.rint((upperBoundary - lowerBoundary) / width) == 1
+                ? (long) Math.rint(index)
+                : null;
+        }
+
+        private Plan plan(final double start, final double bucketWidth, final int buckets) {
+            final double perBucket = bucketWidth / width;
+            final double startIndex = (start - origin) / width;
+            if(!isWhole(perBucket) || !isWhole(startIndex) || Math.rint(perBucket) * buckets > maxFineBuckets) {
+                return null;
+            }
+
+            final int finePerBucket = (int) Math.rint(perBucket);
+            final long fineStart = (long) Math.rint(startIndex);
+            final long fineEnd = fineStart + (long) finePerBucket * buckets;
+            return new Plan(this, version, fineStart, finePerBucket, buckets, uncovered(fineStart, fineEnd));
+        }
+
+        private List<Interval> uncovered(final long start, final long end) {
+            final long coveredEnd = coveredStart + covered.length;
+            if(covered.length == 0 || end < coveredStart || start > coveredEnd) {
+                return Collections.singletonList(new Interval(start, end));
+            }
+
+            final List<Interval> uncovered = new ArrayList<>(2);
+            if(start < coveredStart) {
+                uncovered.add(new Interval(start, coveredStart));
+            }
+            if(end > coveredEnd) {
+                uncovered.add(new Interval(coveredEnd, end));
+            }
+            return uncovered;
+        }
+
+        private void store(final Plan plan, final long[] fetched) {
+            final List<Interval> uncovered = plan.getUncovered();
+            if(uncovered.isEmpty()) {
+                return;
+            }
+
+            final long fetchedStart = uncovered.get(0).getStart();
+            final long fetchedEnd = uncovered.get(uncovered.size() - 1).getEnd();
+            final long coveredEnd = coveredStart + covered.length;
+
+            final long[] merged;
+            final long mergedStart;
+            if(covered.length == 0 || fetchedEnd < coveredStart || fetchedStart > coveredEnd) {
+                mergedStart = fetchedStart;
+                merged = new long[(int) (fetchedEnd - fetchedStart)];
+            } else {
+                mergedStart = Math.min(fetchedStart, coveredStart);
+                merged = new long[(int) (Math.max(fetchedEnd, coveredEnd) - mergedStart)];
+                System.arraycopy(covered, 0, merged, (int) (coveredStart - mergedStart), covered.length);
+            }
+
+            for(final Interval interval : uncovered) {
+                final int from = (int) (interval.getStart() - fetchedStart);
+                System.arraycopy(fetched, from, merged, (int) (interval.getStart() - mergedStart), (int) (interval.getEnd() - interval.getStart()));
+            }
+
+            coveredStart = mergedStart;
+            covered = merged;
+            version++;
+
+            // keep memory bounded as the user pans: hold only the latest request once too much is held
+            if(covered.length > maxFineBuckets * 2) {
+                final long planEnd = plan.getFineStart() + plan.getFineBucketCount();
+                final long[] trimmed = new long[(int) (planEnd - plan.getFineStart())];
+                System.arraycopy(covered, (int) (plan.getFineStart() - coveredStart), trimmed, 0, trimmed.length);
+                coveredStart = plan.getFineStart();
+                covered = trimmed;
+            }
+        }
+
+        private long[] counts(final Plan plan) {
+            if(plan.getFineStart() < coveredStart || plan.getFineStart() + plan.getFineBucketCount() > coveredStart + covered.length) {
+                return null;
+            }
+
+            final long[] counts = new long[plan.getBuckets()];
+            int fine = (int) (plan.getFineStart() - coveredStart);
+            for(int bucket = 0; bucket < counts.length; bucket++) {
+                for(int i = 0; i < plan.getFinePerBucket(); i++) {
+                    counts[bucket] += covered[fine++];
+                }
+            }
+
+            return counts;
+        }
+    }
+
+    /**
+     * How a request is answered from a grid: the requested buckets, and the fine buckets which must be fetched first
+     */
+    static class Plan {
+        private final Grid grid;
+        private final long version;
+        private final long fineStart;
+        private final int finePerBucket;
+        private final int buckets;
+        private final List<Interval> uncovered;
+
+        private Plan(final Grid grid, final long version, final long fineStart, final int finePerBucket, final int buckets, final List<Interval> uncovered) {
+            this.grid = grid;
+            this.version = version;
+            this.fineStart = fineStart;
+            this.finePerBucket = finePerBucket;
+            this.buckets = buckets;
+            this.uncovered = uncovered;
+        }
+
+        Grid getGrid() {
+            return grid;
+        }
+
+        /**
+         * @return The version of the grid's held fine buckets which the plan was made against
+         */
+        long getVersion() {
+            return version;
+        }
+
+        long getFineStart() {
+            return fineStart;
+        }
+
+        int getFinePerBucket() {
+            return finePerBucket;
+        }
+
+        int getBuckets() {
+            return buckets;
+        }
+
+        long getFineBucketCount() {
+            return (long) finePerBucket * buckets;
+        }
+
+        /**
+         * @return The runs of fine buckets which must be fetched, in increasing order; at most two
+         */
+        List<Interval> getUncovered() {
+            return uncovered;
+        }
+
+        boolean isCovered() {
+            return uncovered.isEmpty();
+        }
+
+        /**
+         * @return Whether any of the fine buckets are already held
+         */
+        boolean isPartlyHeld() {
+            long uncoveredBuckets = 0;
+            for(final Interval interval : uncovered) {
+                uncoveredBuckets += interval.getEnd() - interval.getStart();
+            }
+
+            return uncoveredBuckets < getFineBucketCount();
+        }
+
+        /**
+         * @return The number of fine buckets which must be fetched
+         */
+        int getUncoveredCount() {
+            return uncovered.isEmpty() ? 0 : (int) (uncovered.get(uncovered.size() - 1).getEnd() - uncovered.get(0).getStart());
+        }
+    }
+
+    /**
+     * A run of fine bucket indexes, from start inclusive to end exclusive
+     */
+    static class Interval {
+        private final long start;
+        private final long end;
+
+        Interval(final long start, final long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        long getStart() {
+            return start;
+        }
+
+        long getEnd() {
+            return end;
+        }
+    }
+}
@@ -15,11 +15,14 @@
 package com.hp.autonomy.searchcomponents.idol.parametricvalues;
 
 import com.autonomy.aci.client.services.AciErrorException;
+import com.hp.autonomy.searchcomponents.core.parametricvalues.DependentParametricField;
+import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricRequest;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricValuesService;
 import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRestrictions;
 
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -28,4 +31,27 @@ import java.util.Locale;
 public interface IdolParametricValuesService extends ParametricValuesService<IdolParametricRequest, IdolQueryRestrictions, AciErrorException> {
     DateTimeFormatter DATE_FORMAT = DateTimeFormatter
         .ofPattern("HH:mm:ss dd/MM/y[ G]", Locale.ENGLISH).withZone(ZoneOffset.UTC);
+
+    /**
+     * As {@link #getParametricValues}, but also reports the fields whose values could not be retrieved. Fields are only
+     * reported missing when they are fetched in shards and some, but not all, of the shards fail or time out.
+     *
+     * @param parametricRequest The parametric request
+     * @return The values retrieved, in the order of the requested fields, and the fields which are missing
+     * @throws AciErrorException If no values could be retrieved
+     */
+    PartialParametricValues getPartialParametricValues(IdolParametricRequest parametricRequest) throws AciErrorException;
+
+    /**
+     * As {@link #getDependentParametricValues(ParametricRequest)}, but returns only part of the tree: the levels below
+     * the node identified by the options' parent values, limited in depth, values per node and minimum count. Nodes at
+     * the last returned level have no sub fields; they are expanded by a further request with their values appended to
+     * the parent values.
+     *
+     * @param parametricRequest The parametric request, whose field names give the levels of the tree
+     * @param options           The part of the tree to return
+     * @return The values below the requested node, in a hierarchy
+     * @throws AciErrorException The error thrown in the event of the platform returning an error response
+     */
+    List<DependentParametricField> getDependentParametricValues(IdolParametricRequest parametricRequest, DependentParametricValuesOptions options) throws AciErrorException;
 }
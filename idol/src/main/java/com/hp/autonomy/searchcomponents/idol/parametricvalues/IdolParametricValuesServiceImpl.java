@@ -7,11 +7,16 @@ package com.hp.autonomy.searchcomponents.idol.parametricvalues;
 
 import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.aci.content.fieldtext.FieldText;
+import com.hp.autonomy.aci.content.fieldtext.MATCH;
 import com.hp.autonomy.aci.content.ranges.DateRange;
 import com.hp.autonomy.aci.content.ranges.NumericRange;
 import com.hp.autonomy.aci.content.ranges.ParametricFieldRange;
 import com.hp.autonomy.aci.content.ranges.ParametricFieldRanges;
 import com.hp.autonomy.searchcomponents.core.caching.CacheNames;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestExecutor;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestTimeoutException;
+import com.hp.autonomy.searchcomponents.core.concurrent.PartialResults;
 import com.hp.autonomy.searchcomponents.core.fields.TagNameFactory;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.BucketingParams;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.BucketingParamsHelper;
@@ -19,10 +24,13 @@ import com.hp.autonomy.searchcomponents.core.parametricvalues.DependentParametri
 import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricRequest;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricValuesService;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
+import com.hp.autonomy.searchcomponents.core.search.StateTokenAndResultCount;
 import com.hp.autonomy.searchcomponents.idol.annotations.IdolService;
+import com.hp.autonomy.searchcomponents.idol.caching.IdolResultCache;
 import com.hp.autonomy.searchcomponents.idol.fields.IdolFieldsRequestBuilder;
 import com.hp.autonomy.searchcomponents.idol.fields.IdolFieldsService;
 import com.hp.autonomy.searchcomponents.idol.search.HavenSearchAciParameterHandler;
+import com.hp.autonomy.searchcomponents.idol.search.IdolDocumentsService;
 import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRestrictions;
 import com.hp.autonomy.searchcomponents.idol.search.QueryExecutor;
 import com.hp.autonomy.types.idol.responses.DateOrNumber;
@@ -47,36 +55,60 @@ import com.hp.autonomy.types.requests.idol.actions.tags.ValueDetailsBuilder;
 import com.hp.autonomy.types.requests.idol.actions.tags.params.FieldTypeParam;
 import com.hp.autonomy.types.requests.idol.actions.tags.params.GetQueryTagValuesParams;
 import com.hp.autonomy.types.requests.idol.actions.tags.params.SortParam;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import javax.xml.bind.JAXBElement;
 import java.io.Serializable;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.DoubleFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 import static com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricValuesService.PARAMETRIC_VALUES_SERVICE_BEAN_NAME;
 
 /**
  * Default Idol implementation of {@link ParametricValuesService}
+ * <p>
+ * When a field shard size is configured, parametric values for more fields than that are fetched in concurrent
+ * GetQueryTagValues requests of at most that many fields each, so one slow field only delays its own shard. A shard
+ * which fails or times out is left out of the response and its fields are reported missing, unless every shard fails.
+ * <p>
+ * When a state token size is configured, facets for unmodified requests are evaluated against a state token holding
+ * the results of the query, rather than by sending the query restrictions again, so Idol evaluates the query once for
+ * all the facets of a search.
+ * <p>
+ * When a number of fine buckets is configured, numeric and date buckets are computed from fine bucket counts held per
+ * user, query and field. A later request for buckets lying on the same grid (zoomed out, or panned by whole fine
+ * buckets) is answered by summing the held counts, and only the fine buckets not yet held are fetched from Idol.
+ * Requests whose boundaries do not lie on any grid, or would need too many fine buckets, are sent to Idol as before.
  */
+@Slf4j
 @Service(PARAMETRIC_VALUES_SERVICE_BEAN_NAME)
 @IdolService
 class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
@@ -90,12 +122,76 @@ class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
     static final String AFTER_END_OF_RANGE = "after upper end of range";
     static final String BEFORE_END_OF_RANGE = "before lower end of range";
 
+    /**
+     * The maximum number of fields requested in one GetQueryTagValues call for parametric values. A value of 0 or less
+     * requests all the fields in one call.
+     */
+    static final String FIELD_SHARD_SIZE_PROPERTY_KEY = "idol.parametric.fieldShardSize";
+
+    /**
+     * The maximum time in milliseconds to wait for the field shards of one parametric values request
+     */
+    static final String FIELD_SHARD_TIMEOUT_PROPERTY_KEY = "idol.parametric.fieldShardTimeout";
+
+    /**
+     * The maximum number of results stored in the state token used to evaluate facets. Searches with more results than
+     * this send the query restrictions as before. A value of 0 or less disables state tokens for facets. Tokens are held
+     * in the {@link IdolResultCache}, so they are only reused while it is enabled.
+     */
+    static final String STATE_TOKEN_MAX_RESULTS_PROPERTY_KEY = "idol.parametric.stateToken.maxResults";
+
+    /**
+     * The maximum number of fine buckets summed to answer one bucketing request. A value of 0 or less disables the
+     * histogram cache. Fine bucket counts are held in the {@link IdolResultCache}, so histograms are only used while it
+     * is enabled.
+     */
+    static final String HISTOGRAM_MAX_FINE_BUCKETS_PROPERTY_KEY = "idol.parametric.histogram.maxFineBuckets";
+
+    private static final String ALL_DOCUMENTS_QUERY_TEXT = "*";
+
+    // Idol keeps a facet state token this long after the result cache lets go of it, for requests still using it
+    private static final Duration STATE_TOKEN_LIFETIME_MARGIN = Duration.ofMinutes(5);
+
+    private static final DependentParametricValuesOptions WHOLE_DEPENDENT_TREE = DependentParametricValuesOptions.builder()
+        .depth(Integer.MAX_VALUE)
+        .maxValues(Integer.MAX_VALUE)
+        .build();
+
+    private static final RangeAxis<Double, Double, NumericRangeInfo.Value, NumericRangeInfo, NumericRangeInfo.NumericRangeInfoBuilder> NUMERIC_AXIS = new RangeAxis<>(
+        false,
+        Double::doubleValue,
+        Double::valueOf,
+        NumericRange::new,
+        SortParam.NumberIncreasing,
+        IdolParametricValuesServiceImpl::parseNumericRange,
+        NumericRangeInfo::builder,
+        NumericRangeInfo.Value::new
+    );
+
+    private static final RangeAxis<ZonedDateTime, Duration, DateRangeInfo.Value, DateRangeInfo, DateRangeInfo.DateRangeInfoBuilder> DATE_AXIS = new RangeAxis<>(
+        true,
+        ZonedDateTime::toEpochSecond,
+        epochSeconds -> ZonedDateTime.ofInstant(Instant.ofEpochSecond((long) Math.rint(epochSeconds)), ZoneOffset.UTC),
+        DateRange::new,
+        SortParam.ReverseDate,
+        IdolParametricValuesServiceImpl::parseDateRange,
+        DateRangeInfo::builder,
+        DateRangeInfo.Value::new
+    );
+
     private final HavenSearchAciParameterHandler parameterHandler;
     private final IdolFieldsService fieldsService;
     private final ObjectFactory<IdolFieldsRequestBuilder> fieldsRequestBuilderFactory;
     private final BucketingParamsHelper bucketingParamsHelper;
     private final TagNameFactory tagNameFactory;
     private final QueryExecutor queryExecutor;
+    private final IdolResultCache resultCache;
+    private final ParallelRequestExecutor parallelRequestExecutor;
+    private final int fieldShardSize;
+    private final long fieldShardTimeoutMillis;
+    private final IdolDocumentsService documentsService;
+    private final int stateTokenMaxResults;
+    private final int histogramMaxFineBuckets;
 
     @SuppressWarnings("ConstructorWithTooManyParameters")
     @Autowired
@@ -105,7 +201,14 @@ class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
         final ObjectFactory<IdolFieldsRequestBuilder> fieldsRequestBuilderFactory,
         final BucketingParamsHelper bucketingParamsHelper,
         final TagNameFactory tagNameFactory,
-        final QueryExecutor queryExecutor
+        final QueryExecutor queryExecutor,
+        final IdolResultCache resultCache,
+        final ParallelRequestExecutor parallelRequestExecutor,
+        @Value("${" + FIELD_SHARD_SIZE_PROPERTY_KEY + ":0}") final int fieldShardSize,
+        @Value("${" + FIELD_SHARD_TIMEOUT_PROPERTY_KEY + ":30000}") final long fieldShardTimeoutMillis,
+        final IdolDocumentsService documentsService,
+        @Value("${" + STATE_TOKEN_MAX_RESULTS_PROPERTY_KEY + ":0}") final int stateTokenMaxResults,
+        @Value("${" + HISTOGRAM_MAX_FINE_BUCKETS_PROPERTY_KEY + ":0}") final int histogramMaxFineBuckets
     ) {
         this.parameterHandler = parameterHandler;
         this.fieldsService = fieldsService;
@@ -113,24 +216,90 @@ class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
         this.bucketingParamsHelper = bucketingParamsHelper;
         this.tagNameFactory = tagNameFactory;
         this.queryExecutor = queryExecutor;
+        this.resultCache = resultCache;
+        this.parallelRequestExecutor = parallelRequestExecutor;
+        this.fieldShardSize = fieldShardSize;
+        this.fieldShardTimeoutMillis = fieldShardTimeoutMillis;
+        this.documentsService = documentsService;
+        this.stateTokenMaxResults = stateTokenMaxResults;
+        this.histogramMaxFineBuckets = histogramMaxFineBuckets;
     }
 
     @Override
     public Set<QueryTagInfo> getParametricValues(final IdolParametricRequest parametricRequest) throws AciErrorException {
-        final Collection<FieldPath> fieldNames = new HashSet<>();
+        return getPartialParametricValues(parametricRequest).getValues();
+    }
+
+    @Override
+    public PartialParametricValues getPartialParametricValues(final IdolParametricRequest parametricRequest) throws AciErrorException {
+        // partial results are not cached, so missing fields are retried on the next request
+        return resultCache.get(CacheNames.PARAMETRIC_VALUES, parametricRequest, () -> fetchParametricValues(parametricRequest), PartialParametricValues::isComplete);
+    }
+
+    private PartialParametricValues fetchParametricValues(final IdolParametricRequest parametricRequest) {
+        // preserve the requested order, which is the order of the returned values
+        final Collection<FieldPath> fieldNames = new LinkedHashSet<>();
         fieldNames.addAll(parametricRequest.getFieldNames());
 
         if(fieldNames.isEmpty()) {
             fieldNames.addAll(lookupFields());
         }
 
-        return fieldNames.isEmpty()
-            ? Collections.emptySet()
-            : getFlatFields(parametricRequest, fieldNames, false)
+        if(fieldNames.isEmpty()) {
+            return new PartialParametricValues(Collections.emptySet(), Collections.emptySet());
+        }
+
+        final IdolParametricRequest facetRequest = withStateToken(parametricRequest);
+        final ShardedFlatFields flatFields = fieldShardSize > 0 && fieldNames.size() > fieldShardSize
+            ? getShardedFlatFields(facetRequest, new ArrayList<>(fieldNames))
+            : new ShardedFlatFields(getFlatFields(facetRequest, fieldNames, false), Collections.emptySet());
+
+        final Set<QueryTagInfo> values = flatFields.getFields()
             .stream()
             .map(this::flatFieldToTagInfo)
             .filter(queryTagInfo -> !queryTagInfo.getValues().isEmpty())
             .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        return new PartialParametricValues(Collections.unmodifiableSet(values), Collections.unmodifiableSet(flatFields.getMissingFields()));
+    }
+
+    private ShardedFlatFields getShardedFlatFields(final IdolParametricRequest parametricRequest, final List<FieldPath> fieldNames) {
+        final List<List<FieldPath>> shards = new ArrayList<>();
+        for(int start = 0; start < fieldNames.size(); start += fieldShardSize) {
+            shards.add(fieldNames.subList(start, Math.min(start + fieldShardSize, fieldNames.size())));
+        }
+
+        final PartialResults<List<FieldPath>, Collection<FlatField>> shardResults = parallelRequestExecutor.executeAllPartial(
+            shards,
+            shard -> getFlatFields(parametricRequest, shard, false),
+            shards.size(),
+            fieldShardTimeoutMillis
+        );
+
+        if(shardResults.getResults().isEmpty()) {
+            throw shardResults.getFirstFailure();
+        }
+
+        final Set<FieldPath> missingFields = new LinkedHashSet<>();
+        shardResults.getFailures().forEach((shard, failure) -> {
+            if(failure instanceof ParallelRequestTimeoutException) {
+                log.warn("Skipping parametric fields {}: timed out", shard);
+            } else {
+                log.warn("Skipping parametric fields {}: request failed", shard, failure);
+            }
+
+            missingFields.addAll(shard);
+        });
+
+        // as in a single request, fields which a shard's response leaves out have no values rather than being missing
+        final Map<FieldPath, Integer> requestOrder = new HashMap<>();
+        fieldNames.forEach(fieldPath -> requestOrder.putIfAbsent(fieldPath, requestOrder.size()));
+        final List<FlatField> fields = shardResults.getResults().values().stream()
+            .flatMap(Collection::stream)
+            .sorted(Comparator.comparingInt(flatField -> requestOrder.getOrDefault(tagNameFactory.getFieldPath(flatField.getName().get(0)), Integer.MAX_VALUE)))
+            .collect(Collectors.toList());
+
+        return new ShardedFlatFields(fields, missingFields);
     }
 
     @Override
@@ -146,22 +315,27 @@ class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
                 .stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, entry -> bucketingParamsHelper.calculateNumericBoundaries(entry.getValue())));
 
+            final List<NumericRangeInfo> histogramResults = getRangeInfosFromHistograms(parametricRequest, boundariesPerField, NUMERIC_AXIS);
+
+            if(histogramResults != null) {
+                return histogramResults;
+            }
+
             final List<ParametricFieldRange> ranges = boundariesPerField
                 .entrySet()
                 .stream()
                 .map(entry -> new NumericRange(entry.getKey().getNormalisedPath(), entry.getValue()))
                 .collect(Collectors.toList());
 
-            final IdolParametricRequest bucketingRequest = parametricRequest.toBuilder()
+            final IdolParametricRequest bucketingRequest = withStateToken(parametricRequest).toBuilder()
                 .maxValues(null)
                 .start(1)
                 .ranges(ranges)
                 .sort(SortParam.NumberIncreasing)
                 .build();
 
-            @SuppressWarnings("RedundantTypeArguments") // presumably Java bug
             final List<NumericRangeInfo> results = getFlatFields(bucketingRequest, parametricRequest.getFieldNames(), true).stream()
-                .map(this.<Double, Double, NumericRangeInfo.Value, NumericRangeInfo, NumericRangeInfo.NumericRangeInfoBuilder>flatFieldToRangeInfo(boundariesPerField, this::parseNumericRange, NumericRangeInfo::builder, NumericRangeInfo.Value::new))
+                .map(flatFieldToRangeInfo(boundariesPerField, NUMERIC_AXIS))
                 .collect(Collectors.toList());
             return results;
         }
@@ -180,23 +354,28 @@ class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
                 .stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, entry -> bucketingParamsHelper.calculateDateBoundaries(entry.getValue())));
 
+            final List<DateRangeInfo> histogramResults = getRangeInfosFromHistograms(parametricRequest, boundariesPerField, DATE_AXIS);
+
+            if(histogramResults != null) {
+                return histogramResults;
+            }
+
             final List<ParametricFieldRange> ranges = boundariesPerField
                 .entrySet()
                 .stream()
                 .map(entry -> new DateRange(entry.getKey().getNormalisedPath(), entry.getValue()))
                 .collect(Collectors.toList());
 
-            final IdolParametricRequest bucketingRequest = parametricRequest.toBuilder()
+            final IdolParametricRequest bucketingRequest = withStateToken(parametricRequest).toBuilder()
                 .maxValues(null)
                 .start(1)
                 .ranges(ranges)
                 .sort(SortParam.ReverseDate)
                 .build();
 
-            @SuppressWarnings("RedundantTypeArguments") // presumably Java bug
             final List<DateRangeInfo> results = getFlatFields(bucketingRequest, parametricRequest.getFieldNames(), true)
                 .stream()
-                .map(this.<ZonedDateTime, Duration, DateRangeInfo.Value, DateRangeInfo, DateRangeInfo.DateRangeInfoBuilder>flatFieldToRangeInfo(boundariesPerField, this::parseDateRange, DateRangeInfo::builder, DateRangeInfo.Value::new))
+                .map(flatFieldToRangeInfo(boundariesPerField, DATE_AXIS))
                 .collect(Collectors.toList());
             return results;
         }
@@ -204,25 +383,40 @@ class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
 
     @Override
     public List<DependentParametricField> getDependentParametricValues(final IdolParametricRequest parametricRequest) throws AciErrorException {
-        final Collection<FieldPath> fieldNames = new ArrayList<>();
+        return getDependentParametricValues(parametricRequest, WHOLE_DEPENDENT_TREE);
+    }
+
+    @Override
+    public List<DependentParametricField> getDependentParametricValues(final IdolParametricRequest parametricRequest, final DependentParametricValuesOptions options) throws AciErrorException {
+        final List<FieldPath> fieldNames = new ArrayList<>();
         fieldNames.addAll(parametricRequest.getFieldNames());
         if(fieldNames.isEmpty()) {
             fieldNames.addAll(lookupFields());
         }
 
+        final List<String> parentValues = options.getParentValues();
+        if(parentValues.size() > fieldNames.size()) {
+            throw new IllegalArgumentException("More parent values than dependent fields: " + parentValues + " for " + fieldNames);
+        }
+
+        // only the fields of the requested levels are sent, so Idol does not compute the rest of the tree
+        final int firstLevel = parentValues.size();
+        final int levels = Math.min(fieldNames.size() - firstLevel, options.getDepth());
+
         final List<DependentParametricField> results;
-        if(fieldNames.isEmpty()) {
+        if(levels <= 0) {
             results = Collections.emptyList();
         } else {
-            final AciParameters aciParameters = createAciParameters(parametricRequest, fieldNames);
+            final IdolParametricRequest facetRequest = restrictToParentValues(withStateToken(parametricRequest), fieldNames, parentValues);
+            final AciParameters aciParameters = createAciParameters(facetRequest, fieldNames.subList(firstLevel, firstLevel + levels));
             aciParameters.add(GetQueryTagValuesParams.FieldDependence.name(), true);
             aciParameters.add(GetQueryTagValuesParams.FieldDependenceMultiLevel.name(), true);
 
-            final GetQueryTagValuesResponseData responseData = executeAction(parametricRequest, aciParameters);
+            final GetQueryTagValuesResponseData responseData = executeAction(facetRequest, aciParameters);
 
             results = responseData.getField().isEmpty() || responseData.getValues() == null
                 ? Collections.emptyList()
-                : addDisplayNamesToRecursiveFields(responseData.getValues().getField(), responseData.getField().get(0).getName());
+                : toDependentParametricFields(responseData.getValues().getField(), responseData.getField().get(0).getName(), options);
         }
 
         return results;
@@ -246,12 +440,13 @@ class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
         if(parametricRequest.getFieldNames().isEmpty()) {
             return Collections.emptyMap();
         } else {
-            final AciParameters aciParameters = createAciParameters(parametricRequest, parametricRequest.getFieldNames());
+            final IdolParametricRequest facetRequest = withStateToken(parametricRequest);
+            final AciParameters aciParameters = createAciParameters(facetRequest, parametricRequest.getFieldNames());
 
             aciParameters.add(GetQueryTagValuesParams.MaxValues.name(), 1);
             aciParameters.add(GetQueryTagValuesParams.ValueDetails.name(), true);
 
-            final GetQueryTagValuesResponseData responseData = executeAction(parametricRequest, aciParameters);
+            final GetQueryTagValuesResponseData responseData = executeAction(facetRequest, aciParameters);
             final Collection<FlatField> fields = responseData.getField();
 
             final Map<FieldPath, V> output = new LinkedHashMap<>();
@@ -287,6 +482,72 @@ class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
         }
     }
 
+    /**
+     * Replaces the query restrictions of an unmodified request with a state token holding the query's results, if the
+     * token can hold all of them
+     */
+    private IdolParametricRequest withStateToken(final IdolParametricRequest parametricRequest) {
+        // without the cache every request would store a new token, costing an extra query instead of saving one;
+        // the state token is generated without QMS, so it cannot stand in for a modified query
+        if(stateTokenMaxResults <= 0 || !resultCache.isEnabled() || parametricRequest.isModified()) {
+            return parametricRequest;
+        }
+
+        // the token only has to outlive its cache entry, so Idol can discard the stored state soon after
+        final Duration lifetime = resultCache.getTimeToLive().plus(STATE_TOKEN_LIFETIME_MARGIN);
+        final IdolQueryRestrictions queryRestrictions = parametricRequest.getQueryRestrictions();
+        final StateTokenAndResultCount stateToken = resultCache.get(
+            CacheNames.STATE_TOKEN_AND_RESULT_COUNT,
+            queryRestrictions,
+            () -> documentsService.getExpiringStateToken(queryRestrictions, stateTokenMaxResults, false, lifetime)
+        );
+
+        // facet counts from a truncated result set would be wrong; the count is of the stored query's own results
+        if(stateToken.getResultCount() > stateTokenMaxResults) {
+            return parametricRequest;
+        }
+
+        // the stored results already satisfy the text, field text, date and score restrictions
+        return parametricRequest.toBuilder()
+            .queryRestrictions(queryRestrictions.toBuilder()
+                .queryText(ALL_DOCUMENTS_QUERY_TEXT)
+                .fieldText(null)
+                .minDate(null)
+                .maxDate(null)
+                .minScore(null)
+                .clearStateMatchIds()
+                .clearStateDontMatchIds()
+                .stateMatchId(stateToken.getTypedStateToken().getStateToken())
+                .build())
+            .build();
+    }
+
+    /**
+     * Restricts a request to the documents below a node of the dependent values tree
+     */
+    private IdolParametricRequest restrictToParentValues(final IdolParametricRequest parametricRequest, final List<FieldPath> fieldNames, final List<String> parentValues) {
+        if(parentValues.isEmpty()) {
+            return parametricRequest;
+        }
+
+        FieldText parentFieldText = null;
+        for(int i = 0; i < parentValues.size(); i++) {
+            final FieldText match = new MATCH(fieldNames.get(i).getNormalisedPath(), parentValues.get(i));
+            parentFieldText = parentFieldText == null ? match : parentFieldText.AND(match);
+        }
+
+        final IdolQueryRestrictions queryRestrictions = parametricRequest.getQueryRestrictions();
+        final String fieldText = StringUtils.isBlank(queryRestrictions.getFieldText())
+            ? parentFieldText.toString()
+            : '(' + queryRestrictions.getFieldText() + ") AND " + parentFieldText;
+
+        return parametricRequest.toBuilder()
+            .queryRestrictions(queryRestrictions.toBuilder()
+                .fieldText(fieldText)
+                .build())
+            .build();
+    }
+
     private AciParameters createAciParameters(final IdolParametricRequest parametricRequest, final Collection<FieldPath> fieldNames) {
         final AciParameters aciParameters = new AciParameters(TagActions.GetQueryTagValues.name());
         parameterHandler.addSearchRestrictions(aciParameters, parametricRequest.getQueryRestrictions());
@@ -311,62 +572,187 @@ class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Answers a bucketing request from the fine bucket counts held for each field, fetching the fine buckets which are
+     * not held in one request. As when the buckets are fetched directly, fields which Idol leaves out of the response
+     * are left out of the results, unless some of their fine buckets are already held.
+     *
+     * @return The range info for each field, or null if the request cannot be answered from fine buckets
+     */
     private <T extends Comparable<? super T> & Serializable, D extends Comparable<D> & Serializable, V extends RangeInfoValue<T, D>, R extends RangeInfo<T, D, V, R, B>, B extends RangeInfoBuilder<T, D, V, R, B>>
-    Function<FlatField, R> flatFieldToRangeInfo(
-        final Map<FieldPath, List<T>> boundariesPerField,
-        final Function<TagValue, T[]> parseValue,
-        final Supplier<B> builderConstructor,
-        final RangeInfoValue.Constructor<T, D, V> valueConstructor
-    ) {
+    List<R> getRangeInfosFromHistograms(final IdolParametricRequest parametricRequest, final Map<FieldPath, List<T>> boundariesPerField, final RangeAxis<T, D, V, R, B> axis) {
+        // without the cache each histogram would only be used once, fetching finer buckets than requested for nothing
+        if(histogramMaxFineBuckets <= 0 || !resultCache.isEnabled()) {
+            return null;
+        }
+
+        final Map<FieldPath, FieldHistogram> histograms = new LinkedHashMap<>();
+        final Map<FieldPath, FieldHistogram.Plan> plans = new LinkedHashMap<>();
+        for(final FieldPath fieldPath : parametricRequest.getFieldNames()) {
+            final double[] boundaries = boundariesPerField.get(fieldPath).stream().mapToDouble(axis.getToAxis()).toArray();
+            final FieldHistogram histogram = resultCache.get(
+                CacheNames.PARAMETRIC_HISTOGRAMS,
+                new HistogramKey(parametricRequest.getQueryRestrictions(), parametricRequest.getValueRestrictions(), parametricRequest.isModified(), fieldPath, axis.isIntegral()),
+                () -> new FieldHistogram(axis.isIntegral(), histogramMaxFineBuckets)
+            );
+
+            final FieldHistogram.Plan plan = histogram.plan(boundaries);
+            if(plan == null) {
+                return null;
+            }
+
+            histograms.put(fieldPath, histogram);
+            plans.put(fieldPath, plan);
+        }
+
+        final Map<FieldPath, long[]> countsPerField = new HashMap<>();
+        final List<FieldPath> uncoveredFields = new ArrayList<>();
+        final List<ParametricFieldRange> ranges = new ArrayList<>();
+        for(final Map.Entry<FieldPath, FieldHistogram.Plan> entry : plans.entrySet()) {
+            final FieldHistogram.Plan plan = entry.getValue();
+            if(plan.isCovered()) {
+                final long[] counts = histograms.get(entry.getKey()).counts(plan);
+                if(counts == null) {
+                    // the held buckets were replaced by a concurrent request
+                    return null;
+                }
+                countsPerField.put(entry.getKey(), counts);
+            } else {
+                // Idol also counts the bucket spanning the held fine buckets, which is ignored when parsing
+                final List<T> fineBoundaries = new ArrayList<>();
+                for(final FieldHistogram.Interval interval : plan.getUncovered()) {
+                    for(long index = interval.getStart(); index <= interval.getEnd(); index++) {
+                        fineBoundaries.add(axis.getFromAxis().apply(plan.getGrid().boundary(index)));
+                    }
+                }
+
+                uncoveredFields.add(entry.getKey());
+                ranges.add(axis.getRangeConstructor().apply(entry.getKey().getNormalisedPath(), fineBoundaries));
+            }
+        }
+
+        if(!uncoveredFields.isEmpty()) {
+            final IdolParametricRequest bucketingRequest = withStateToken(parametricRequest).toBuilder()
+                .maxValues(null)
+                .start(1)
+                .ranges(ranges)
+                .sort(axis.getSort())
+                .build();
+
+            final Map<FieldPath, FlatField> flatFields = getFlatFields(bucketingRequest, uncoveredFields, true)
+                .stream()
+                .collect(Collectors.toMap(flatField -> tagNameFactory.getFieldPath(flatField.getName().get(0)), Function.identity(), (first, second) -> first));
+
+            for(final FieldPath fieldPath : uncoveredFields) {
+                final FieldHistogram.Plan plan = plans.get(fieldPath);
+                final FlatField flatField = flatFields.get(fieldPath);
+                if(flatField != null || plan.isPartlyHeld()) {
+                    final long[] fetched = parseFineBuckets(flatField, plan, axis);
+                    final long[] counts = histograms.get(fieldPath).storeAndCount(plan, fetched);
+                    if(counts == null) {
+                        // the held buckets were changed by a concurrent request while these were fetched
+                        return null;
+                    }
+                    countsPerField.put(fieldPath, counts);
+                }
+            }
+        }
+
+        return parametricRequest.getFieldNames()
+            .stream()
+            .filter(countsPerField::containsKey)
+            .map(fieldPath -> {
+                final List<T> boundaries = boundariesPerField.get(fieldPath);
+                final long[] counts = countsPerField.get(fieldPath);
+                final List<V> values = new ArrayList<>(counts.length);
+                int count = 0;
+                for(int i = 0; i < counts.length; i++) {
+                    values.add(axis.getValueConstructor().apply(boundaries.get(i), boundaries.get(i + 1), (int) counts[i]));
+                    count += counts[i];
+                }
+
+                return buildRangeInfo(tagNameFactory.buildTagName(fieldPath.getNormalisedPath()), count, boundaries, values, axis.getBuilderConstructor());
+            })
+            .collect(Collectors.toList());
+    }
+
+    private <T extends Comparable<? super T> & Serializable> long[] parseFineBuckets(final FlatField flatField, final FieldHistogram.Plan plan, final RangeAxis<T, ?, ?, ?, ?> axis) {
+        final long[] fetched = new long[plan.getUncoveredCount()];
+
+        // If no documents match the query parameters, GetQueryTagValues does not return the field
+        if(flatField != null) {
+            final long start = plan.getUncovered().get(0).getStart();
+            for(final JAXBElement<?> element : flatField.getValueAndSubvalueOrValues()) {
+                if(VALUE_NODE_NAME.equals(element.getName().getLocalPart())) {
+                    final TagValue tagValue = (TagValue)element.getValue();
+                    final T[] minAndMax = axis.getParseValue().apply(tagValue);
+                    final Long index = plan.getGrid().fineIndex(axis.getToAxis().applyAsDouble(minAndMax[0]), axis.getToAxis().applyAsDouble(minAndMax[1]));
+                    if(index != null && index >= start && index < start + fetched.length) {
+                        fetched[(int) (index - start)] = tagValue.getCount();
+                    }
+                }
+            }
+        }
+
+        return fetched;
+    }
+
+    private <T extends Comparable<? super T> & Serializable, D extends Comparable<D> & Serializable, V extends RangeInfoValue<T, D>, R extends RangeInfo<T, D, V, R, B>, B extends RangeInfoBuilder<T, D, V, R, B>>
+    R buildRangeInfo(final TagName tagName, final int count, final List<T> boundaries, final List<V> values, final Supplier<B> builderConstructor) {
+        // All buckets have the same size, so just use the value from the first one
+        final D bucketSize = values.get(0).getBucketSize();
+        return builderConstructor.get()
+            .id(tagName.getId().getNormalisedPath())
+            .displayName(tagName.getDisplayName())
+            .count(count)
+            .min(boundaries.get(0))
+            .max(boundaries.get(boundaries.size() - 1))
+            .bucketSize(bucketSize)
+            .values(values)
+            .build();
+    }
+
+    private <T extends Comparable<? super T> & Serializable, D extends Comparable<D> & Serializable, V extends RangeInfoValue<T, D>, R extends RangeInfo<T, D, V, R, B>, B extends RangeInfoBuilder<T, D, V, R, B>>
+    Function<FlatField, R> flatFieldToRangeInfo(final Map<FieldPath, List<T>> boundariesPerField, final RangeAxis<T, D, V, R, B> axis) {
         return flatField -> {
             final TagName tagName = tagNameFactory.buildTagName(flatField.getName().get(0));
 
             final List<JAXBElement<? extends Serializable>> valueElements = flatField.getValueAndSubvalueOrValues();
             int count = 0;
 
-            final List<V> values = new LinkedList<>();
+            // boundaries are random access, and there is one fewer bucket than boundaries
+            final List<T> boundaries = boundariesPerField.get(tagName.getId());
+            final List<V> values = new ArrayList<>(boundaries.size());
 
             for(final JAXBElement<?> element : valueElements) {
                 final String elementLocalName = element.getName().getLocalPart();
 
                 if(VALUE_NODE_NAME.equals(elementLocalName)) {
                     final TagValue tagValue = (TagValue)element.getValue();
-                    final T[] minAndMax = parseValue.apply(tagValue);
-                    values.add(valueConstructor.apply(minAndMax[0], minAndMax[1], tagValue.getCount()));
+                    final T[] minAndMax = axis.getParseValue().apply(tagValue);
+                    values.add(axis.getValueConstructor().apply(minAndMax[0], minAndMax[1], tagValue.getCount()));
                 } else if(VALUES_NODE_NAME.equals(elementLocalName)) {
                     count = (Integer)element.getValue();
                 }
             }
 
-            final List<T> boundaries = boundariesPerField.get(tagName.getId());
-
             // If no documents match the query parameters, GetQueryTagValues does not return any buckets
             if(values.isEmpty()) {
-                values.addAll(bucketingParamsHelper.emptyBuckets(boundaries, valueConstructor));
+                values.addAll(bucketingParamsHelper.emptyBuckets(boundaries, axis.getValueConstructor()));
             }
 
-            // All buckets have the same size, so just use the value from the first one
-            final D bucketSize = values.get(0).getBucketSize();
-            return builderConstructor.get()
-                .id(tagName.getId().getNormalisedPath())
-                .displayName(tagName.getDisplayName())
-                .count(count)
-                .min(boundaries.get(0))
-                .max(boundaries.get(boundaries.size() - 1))
-                .bucketSize(bucketSize)
-                .values(values)
-                .build();
+            return buildRangeInfo(tagName, count, boundaries, values, axis.getBuilderConstructor());
         };
     }
 
-    private Double[] parseNumericRange(final TagValue tagValue) {
+    private static Double[] parseNumericRange(final TagValue tagValue) {
         final String[] rangeValues = tagValue.getValue().split(",");
         final Double min = Double.valueOf(rangeValues[0]);
         final Double max = Double.valueOf(rangeValues[1]);
         return new Double[]{min, max};
     }
 
-    private ZonedDateTime[] parseDateRange(final TagValue tagValue) {
+    private static ZonedDateTime[] parseDateRange(final TagValue tagValue) {
         final ZonedDateTime min = ZonedDateTime.parse(tagValue.getDate(), DATE_FORMAT);
         final ZonedDateTime max = ZonedDateTime.parse(tagValue.getEndDate(), DATE_FORMAT);
         return new ZonedDateTime[]{min, max};
@@ -430,24 +816,59 @@ class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
         );
     }
 
-    private List<DependentParametricField> addDisplayNamesToRecursiveFields(final Collection<RecursiveField> recursiveFields, final List<String> fieldNames) {
-        return fieldNames.isEmpty()
-            ? Collections.emptyList()
-            : recursiveFields.stream()
-            // We want to ignore fields where the count is missing, e.g. https://jira.autonomy.com/browse/FIND-1496
-            .filter(a -> a.getCount() != null)
-            .map(recursiveField -> DependentParametricField.builder()
-                .value(recursiveField.getValue())
-                .displayValue(tagNameFactory.getTagDisplayValue(fieldNames.get(0), recursiveField.getValue()))
-                .count(recursiveField.getCount())
-                .subFields(
-                    addDisplayNamesToRecursiveFields(
-                        recursiveField.getField(),
-                        fieldNames.subList(1, fieldNames.size())
-                    )
-                )
-                .build())
-            .collect(Collectors.toList());
+    /**
+     * Converts the tree breadth first with an explicit queue, so deep or wide trees do not need deep recursion. Each
+     * node's sub fields list is created with the node and filled when its level is reached.
+     */
+    private List<DependentParametricField> toDependentParametricFields(final Collection<RecursiveField> recursiveFields, final List<String> fieldNames, final DependentParametricValuesOptions options) {
+        final List<DependentParametricField> results = new ArrayList<>();
+        final Queue<PendingLevel> pendingLevels = new ArrayDeque<>();
+        pendingLevels.add(new PendingLevel(recursiveFields, 0, options.getStart(), results));
+
+        while(!pendingLevels.isEmpty()) {
+            final PendingLevel pendingLevel = pendingLevels.remove();
+            if(pendingLevel.getLevel() >= fieldNames.size()) {
+                continue;
+            }
+
+            final String fieldName = fieldNames.get(pendingLevel.getLevel());
+            final boolean lastLevel = pendingLevel.getLevel() + 1 >= fieldNames.size();
+            int skipped = 0;
+
+            for(final RecursiveField recursiveField : pendingLevel.getFields()) {
+                if(pendingLevel.getOutput().size() >= options.getMaxValues()) {
+                    break;
+                }
+
+                // We want to ignore fields where the count is missing, e.g. https://jira.autonomy.com/browse/FIND-1496
+                // Idol returns values in descending count order by default, but the sort is configurable, so check every value
+                if(recursiveField.getCount() == null || recursiveField.getCount() < options.getMinCount()) {
+                    continue;
+                }
+
+                if(skipped < pendingLevel.getStart()) {
+                    skipped++;
+                    continue;
+                }
+
+                final List<DependentParametricField> subFields;
+                if(lastLevel || recursiveField.getField().isEmpty()) {
+                    subFields = Collections.emptyList();
+                } else {
+                    subFields = new ArrayList<>();
+                    pendingLevels.add(new PendingLevel(recursiveField.getField(), pendingLevel.getLevel() + 1, 0, subFields));
+                }
+
+                pendingLevel.getOutput().add(DependentParametricField.builder()
+                    .value(recursiveField.getValue())
+                    .displayValue(tagNameFactory.getTagDisplayValue(fieldName, recursiveField.getValue()))
+                    .count(recursiveField.getCount())
+                    .subFields(subFields)
+                    .build());
+            }
+        }
+
+        return results;
     }
 
     private double numberFromValueDetailsElement(final JAXBElement<?> element) {
@@ -462,4 +883,45 @@ class IdolParametricValuesServiceImpl implements IdolParametricValuesService {
             : BEFORE_END_OF_RANGE.equals(date) ? null
             : ZonedDateTime.parse(date, DATE_FORMAT);
     }
+
+    @Data
+    private static class ShardedFlatFields {
+        private final Collection<FlatField> fields;
+        private final Set<FieldPath> missingFields;
+    }
+
+    @Data
+    private static class PendingLevel {
+        private final Collection<RecursiveField> fields;
+        private final int level;
+        private final int start;
+        private final List<DependentParametricField> output;
+    }
+
+    @Data
+    private static class HistogramKey {
+        private final IdolQueryRestrictions queryRestrictions;
+        private final Collection<String> valueRestrictions;
+        private final boolean modified;
+        private final FieldPath fieldPath;
+        private final boolean integral;
+    }
+
+    /**
+     * How the values of numeric or date fields are bucketed, requested and parsed
+     */
+    @Data
+    private static class RangeAxis<T extends Comparable<? super T> & Serializable, D extends Comparable<D> & Serializable, V extends RangeInfoValue<T, D>, R extends RangeInfo<T, D, V, R, B>, B extends RangeInfoBuilder<T, D, V, R, B>> {
+        /**
+         * Whether fine bucket widths must be whole numbers
+         */
+        private final boolean integral;
+        private final ToDoubleFunction<T> toAxis;
+        private final DoubleFunction<T> fromAxis;
+        private final BiFunction<String, List<T>, ParametricFieldRange> rangeConstructor;
+        private final SortParam sort;
+        private final Function<TagValue, T[]> parseValue;
+        private final Supplier<B> builderConstructor;
+        private final RangeInfoValue.Constructor<T, D, V> valueConstructor;
+    }
 }
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.parametricvalues;
+
+import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
+import com.hp.autonomy.types.requests.idol.actions.tags.QueryTagInfo;
+import lombok.Data;
+
+import java.util.Set;
+
+/**
+ * Parametric values for the fields which could be retrieved, and the fields whose values could not be retrieved
+ * because their request failed or timed out
+ */
+@Data
+public class PartialParametricValues {
+    private final Set<QueryTagInfo> values;
+    private final Set<FieldPath> missingFields;
+
+    /**
+     * @return Whether values were retrieved for every requested field
+     */
+    public boolean isComplete() {
+        return missingFields.isEmpty();
+    }
+}
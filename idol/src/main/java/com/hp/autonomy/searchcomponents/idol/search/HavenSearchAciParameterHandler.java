@@ -19,6 +19,8 @@ import com.hp.autonomy.searchcomponents.idol.view.IdolViewRequest;
 import com.hp.autonomy.types.requests.idol.actions.query.params.PrintParam;
 import org.springframework.beans.factory.annotation.Qualifier;
 
+import java.time.Duration;
+
 /**
  * Common Aci parameter handling for related search queries
  */
@@ -102,6 +104,15 @@ public interface HavenSearchAciParameterHandler {
      */
     void addStoreStateParameters(AciParameters aciParameters);
 
+    /**
+     * Adds parameters used when retrieving state tokens for a query, asking Idol to discard the stored state once the
+     * given lifetime has passed
+     *
+     * @param aciParameters The set of parameters to add to
+     * @param lifetime      How long the stored state should be kept
+     */
+    void addStoreStateParameters(AciParameters aciParameters, Duration lifetime);
+
     /**
      * Adds parameters for performing a view action against ViewServer
      *
@@ -15,6 +15,8 @@
 package com.hp.autonomy.searchcomponents.idol.search;
 
 import com.autonomy.aci.client.util.AciParameters;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.escape.Escaper;
 import com.google.common.net.UrlEscapers;
 import com.hp.autonomy.aci.content.database.Databases;
@@ -45,6 +47,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
@@ -69,6 +72,11 @@ class HavenSearchAciParameterHandlerImpl implements HavenSearchAciParameterHandl
 
     private final Escaper urlFragmentEscaper = UrlEscapers.urlFragmentEscaper();
 
+    // keyed by the identity of the cached print field lists, so entries go when the field config changes
+    private final Cache<List<String>, PrintFields> printFieldsParameters = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
+
     public static final String IDOL_USER_REQUEST_PREFIX_PROPERTY_KEY = "idol.user.request.prefix";
     public static final String IDOL_USER_REQUEST_FIELDS_PROPERTY_KEY = "idol.user.request.fields";
 
@@ -172,8 +180,14 @@ class HavenSearchAciParameterHandlerImpl implements HavenSearchAciParameterHandl
     private void addPrintParameters(final AciParameters aciParameters, final PrintParam print, final Collection<String> printFields) {
         aciParameters.add(QueryParams.Print.name(), print);
         if(print == PrintParam.Fields) {
-            final Collection<String> printFieldsToApply = documentFieldsService.getPrintFields(printFields);
-            aciParameters.add(QueryParams.PrintFields.name(), new PrintFields(printFieldsToApply));
+            final List<String> printFieldNames = documentFieldsService.getPrintFields(printFields);
+            PrintFields printFieldsToApply = printFieldsParameters.getIfPresent(printFieldNames);
+            if(printFieldsToApply == null) {
+                printFieldsToApply = new PrintFields(printFieldNames);
+                printFieldsParameters.put(printFieldNames, printFieldsToApply);
+            }
+
+            aciParameters.add(QueryParams.PrintFields.name(), printFieldsToApply);
         }
     }
 
@@ -267,8 +281,18 @@ class HavenSearchAciParameterHandlerImpl implements HavenSearchAciParameterHandl
 
     @Override
     public void addStoreStateParameters(final AciParameters aciParameters) {
+        addStoreStateParameters(aciParameters, -1);  // negative value means no expiry (DAH)
+    }
+
+    @Override
+    public void addStoreStateParameters(final AciParameters aciParameters, final Duration lifetime) {
+        // Idol takes the lifetime in whole seconds; round up so a short lifetime never becomes "no expiry"
+        addStoreStateParameters(aciParameters, Math.max(1, (lifetime.toMillis() + 999) / 1000));
+    }
+
+    private void addStoreStateParameters(final AciParameters aciParameters, final long lifetimeSeconds) {
         aciParameters.add(QueryParams.StoreState.name(), true);
-        aciParameters.add(QueryParams.StoredStateTokenLifetime.name(), -1);  // negative value means no expiry (DAH)
+        aciParameters.add(QueryParams.StoredStateTokenLifetime.name(), lifetimeSeconds);
         final String storedStateField = configService.getConfig().getStoredStateField();
         if(StringUtils.isNotEmpty(storedStateField)) {
             aciParameters.add(QueryParams.StoredStateField.name(), storedStateField);
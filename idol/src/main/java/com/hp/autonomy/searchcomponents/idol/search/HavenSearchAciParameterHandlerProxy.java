@@ -20,6 +20,8 @@ import com.hp.autonomy.types.requests.idol.actions.query.params.PrintParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
+import java.time.Duration;
+
 /**
  * Provides default methods for any custom implementation of {@link HavenSearchAciParameterHandler}
  */
@@ -79,6 +81,11 @@ public abstract class HavenSearchAciParameterHandlerProxy implements HavenSearch
         parameterHandler.addStoreStateParameters(aciParameters);
     }
 
+    @Override
+    public void addStoreStateParameters(final AciParameters aciParameters, final Duration lifetime) {
+        parameterHandler.addStoreStateParameters(aciParameters, lifetime);
+    }
+
     @Override
     public void addViewParameters(final AciParameters aciParameters, final String reference, final IdolViewRequest viewRequest) {
         parameterHandler.addViewParameters(aciParameters, reference, viewRequest);
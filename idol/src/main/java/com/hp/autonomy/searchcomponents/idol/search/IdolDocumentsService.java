@@ -16,9 +16,39 @@ package com.hp.autonomy.searchcomponents.idol.search;
 
 import com.autonomy.aci.client.services.AciErrorException;
 import com.hp.autonomy.searchcomponents.core.search.DocumentsService;
+import com.hp.autonomy.searchcomponents.core.search.StateTokenAndResultCount;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Idol extension to {@link DocumentsService}
  */
 public interface IdolDocumentsService extends DocumentsService<IdolQueryRequest, IdolSuggestRequest, IdolGetContentRequest, IdolQueryRestrictions, IdolSearchResult, AciErrorException> {
+    /**
+     * Retrieves a state token and result count for a given query without blocking the calling thread.
+     * The state token and result count queries are sent to Idol concurrently.
+     *
+     * @param queryRestrictions The query restrictions
+     * @param maxResults        The number of query results
+     * @param promotions        Whether to query for promotions
+     * @return A future holding the state token and result count; completes exceptionally with {@link AciErrorException}
+     * if Idol returns an error response
+     */
+    CompletableFuture<StateTokenAndResultCount> getStateTokenAndResultCountAsync(IdolQueryRestrictions queryRestrictions, int maxResults, boolean promotions);
+
+    /**
+     * Retrieves a state token which Idol discards once the given lifetime has passed, for results which are only needed
+     * for a while. Unlike {@link #getStateTokenAndResultCount(Object, int, boolean)}, the result count is the total
+     * number of results of the stored query itself, so a count greater than maxResults means the token holds only part
+     * of the result set.
+     *
+     * @param queryRestrictions The query restrictions
+     * @param maxResults        The number of query results
+     * @param promotions        Whether to query for promotions
+     * @param lifetime          How long Idol should keep the stored state
+     * @return The state token and the total number of results of the stored query
+     * @throws AciErrorException If Idol returns an error response
+     */
+    StateTokenAndResultCount getExpiringStateToken(IdolQueryRestrictions queryRestrictions, int maxResults, boolean promotions, Duration lifetime) throws AciErrorException;
 }
@@ -17,11 +17,15 @@ package com.hp.autonomy.searchcomponents.idol.search;
 import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.util.AciParameters;
 import com.hp.autonomy.aci.content.identifier.reference.Reference;
+import com.hp.autonomy.searchcomponents.core.caching.CacheNames;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestExecutor;
 import com.hp.autonomy.searchcomponents.core.search.DocumentsService;
+import com.hp.autonomy.searchcomponents.core.search.PagedResultsSpliterator;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
 import com.hp.autonomy.searchcomponents.core.search.StateTokenAndResultCount;
 import com.hp.autonomy.searchcomponents.core.search.TypedStateToken;
 import com.hp.autonomy.searchcomponents.idol.annotations.IdolService;
+import com.hp.autonomy.searchcomponents.idol.caching.IdolResultCache;
 import com.hp.autonomy.types.idol.responses.Hit;
 import com.hp.autonomy.types.idol.responses.QueryResponseData;
 import com.hp.autonomy.types.idol.responses.SuggestResponseData;
@@ -32,11 +36,16 @@ import com.hp.autonomy.types.requests.idol.actions.query.params.QueryParams;
 import com.hp.autonomy.types.requests.idol.actions.query.params.SuggestParams;
 import com.hp.autonomy.types.requests.qms.actions.query.params.QmsQueryParams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.hp.autonomy.searchcomponents.core.search.DocumentsService.DOCUMENTS_SERVICE_BEAN_NAME;
 
@@ -46,26 +55,69 @@ import static com.hp.autonomy.searchcomponents.core.search.DocumentsService.DOCU
 @Service(DOCUMENTS_SERVICE_BEAN_NAME)
 @IdolService
 class IdolDocumentsServiceImpl implements IdolDocumentsService {
+    /**
+     * When true, auto correct queries first send a cheap probe for a spelling suggestion and only run the full-size
+     * query once, with either the corrected or the original text
+     */
+    public static final String SPECULATIVE_AUTO_CORRECT_PROPERTY_KEY = "idol.autocorrect.speculative";
+
+    /**
+     * When true, query results and document content are read with {@link QueryResponseStreamProcessor}, so only one
+     * hit's content is held as a DOM at a time
+     */
+    public static final String STREAMING_QUERY_RESPONSE_PROPERTY_KEY = "idol.query.streaming";
+
+    /**
+     * The time in milliseconds for which Idol keeps the state token pinning the results of a streamed export; longer
+     * exports fail once the token expires
+     */
+    public static final String EXPORT_STATE_TOKEN_LIFETIME_PROPERTY_KEY = "idol.query.export.stateTokenLifetime";
+
     // fake token in a format that IDOL is happy with
     private static final String EMPTY_RESULT_SET_TOKEN = "NULL-0";
 
     private final HavenSearchAciParameterHandler parameterHandler;
     private final QueryExecutor queryExecutor;
     private final QueryResponseParser queryResponseParser;
+    private final ParallelRequestExecutor parallelRequestExecutor;
+    private final SpellCheckProbeStatistics spellCheckProbeStatistics;
+    private final IdolResultCache resultCache;
+    private final boolean speculativeAutoCorrect;
+    private final boolean streamingQueryResponses;
+    private final Duration exportStateTokenLifetime;
+    private final QueryResponseStreamProcessor queryResponseStreamProcessor;
 
     @Autowired
     IdolDocumentsServiceImpl(
         final HavenSearchAciParameterHandler parameterHandler,
         final QueryExecutor queryExecutor,
-        final QueryResponseParser queryResponseParser
+        final QueryResponseParser queryResponseParser,
+        final ParallelRequestExecutor parallelRequestExecutor,
+        final SpellCheckProbeStatistics spellCheckProbeStatistics,
+        final IdolResultCache resultCache,
+        @Value("${" + SPECULATIVE_AUTO_CORRECT_PROPERTY_KEY + ":false}") final boolean speculativeAutoCorrect,
+        @Value("${" + STREAMING_QUERY_RESPONSE_PROPERTY_KEY + ":false}") final boolean streamingQueryResponses,
+        @Value("${" + EXPORT_STATE_TOKEN_LIFETIME_PROPERTY_KEY + ":3600000}") final long exportStateTokenLifetimeMillis
     ) {
         this.parameterHandler = parameterHandler;
         this.queryExecutor = queryExecutor;
         this.queryResponseParser = queryResponseParser;
+        this.parallelRequestExecutor = parallelRequestExecutor;
+        this.spellCheckProbeStatistics = spellCheckProbeStatistics;
+        this.resultCache = resultCache;
+        this.speculativeAutoCorrect = speculativeAutoCorrect;
+        this.streamingQueryResponses = streamingQueryResponses;
+        exportStateTokenLifetime = Duration.ofMillis(exportStateTokenLifetimeMillis);
+
+        queryResponseStreamProcessor = new QueryResponseStreamProcessor(queryResponseParser::parseQueryHit);
     }
 
     @Override
     public Documents<IdolSearchResult> queryTextIndex(final IdolQueryRequest queryRequest) throws AciErrorException {
+        return resultCache.get(CacheNames.QUERY_TEXT_INDEX, queryRequest, () -> fetchQueryResults(queryRequest));
+    }
+
+    private Documents<IdolSearchResult> fetchQueryResults(final IdolQueryRequest queryRequest) {
         final QueryRequest.QueryType queryType = queryRequest.getQueryType();
         if(!queryExecutor.performQuery(queryType)) {
             return new Documents<>(Collections.emptyList(), 0, null, null, null, null);
@@ -92,6 +144,41 @@ class IdolDocumentsServiceImpl implements IdolDocumentsService {
             aciParameters.add(QmsQueryParams.Promotions.name(), true);
         }
 
+        if(queryRequest.isAutoCorrect() && speculativeAutoCorrect) {
+            final QueryResponseData probeResponseData = queryExecutor.executeQuery(spellingProbeParameters(aciParameters), queryType);
+            final boolean corrected = probeResponseData.getSpellingquery() != null;
+            spellCheckProbeStatistics.recordProbe(corrected);
+
+            if(corrected) {
+                // the parser reruns the full-size query with the corrected text, so the original text is never fetched in full
+                if(streamingQueryResponses) {
+                    return queryResponseParser.parseStreamedQueryResults(
+                        queryRequest,
+                        aciParameters,
+                        new StreamedQueryResponse(probeResponseData, Collections.emptyList()),
+                        parameters -> queryExecutor.executeQuery(parameters, queryType, queryResponseStreamProcessor)
+                    );
+                }
+
+                return queryResponseParser.parseQueryResults(
+                    queryRequest,
+                    aciParameters,
+                    probeResponseData,
+                    parameters -> queryExecutor.executeQuery(parameters, queryType)
+                );
+            }
+        }
+
+        if(streamingQueryResponses) {
+            final StreamedQueryResponse streamedResponse = queryExecutor.executeQuery(aciParameters, queryType, queryResponseStreamProcessor);
+            return queryResponseParser.parseStreamedQueryResults(
+                queryRequest,
+                aciParameters,
+                streamedResponse,
+                parameters -> queryExecutor.executeQuery(parameters, queryType, queryResponseStreamProcessor)
+            );
+        }
+
         final QueryResponseData responseData = queryExecutor.executeQuery(aciParameters, queryType);
         return queryResponseParser.parseQueryResults(
             queryRequest,
@@ -101,6 +188,54 @@ class IdolDocumentsServiceImpl implements IdolDocumentsService {
         );
     }
 
+    @Override
+    public Stream<IdolSearchResult> streamQueryResults(final IdolQueryRequest queryRequest, final int pageSize) throws AciErrorException {
+        if(!queryExecutor.performQuery(queryRequest.getQueryType())) {
+            return Stream.empty();
+        }
+
+        // Pin the result set with a state token, so documents indexed during a long export do not shift later pages;
+        // the token expires, so Idol does not keep the stored results once the export is over
+        final boolean promotions = queryRequest.getQueryType() == QueryRequest.QueryType.PROMOTIONS;
+        final String stateToken = getExpiringStateToken(queryRequest.getQueryRestrictions(), queryRequest.getMaxResults(), promotions, exportStateTokenLifetime)
+            .getTypedStateToken()
+            .getStateToken();
+
+        // Auto correct is not applied to pages, since the state token holds the results for the original query text
+        final IdolQueryRequest pagedRequest = queryRequest.toBuilder()
+            .queryRestrictions(queryRequest.getQueryRestrictions().toBuilder()
+                .stateMatchId(stateToken)
+                .build())
+            .autoCorrect(false)
+            .build();
+
+        // Pages bypass the result cache, so an export neither fills it nor evicts interactive results
+        return PagedResultsSpliterator.stream(
+            (start, maxResults) -> fetchQueryResults(pagedRequest.toBuilder()
+                .start(start)
+                .maxResults(maxResults)
+                .build())
+                .getDocuments(),
+            queryRequest.getStart(),
+            queryRequest.getMaxResults(),
+            pageSize,
+            parallelRequestExecutor
+        );
+    }
+
+    private AciParameters spellingProbeParameters(final AciParameters aciParameters) {
+        final AciParameters probeParameters = new AciParameters();
+        probeParameters.addAll(aciParameters);
+        probeParameters.put(QueryParams.Print.name(), PrintParam.NoResults);
+        probeParameters.put(QueryParams.Start.name(), 1);
+        probeParameters.put(QueryParams.MaxResults.name(), 1);
+        probeParameters.put(QueryParams.TotalResults.name(), false);
+        probeParameters.remove(QueryParams.Summary.name());
+        probeParameters.remove(QueryParams.Highlight.name());
+        probeParameters.remove(QueryParams.Sort.name());
+        return probeParameters;
+    }
+
     @Override
     public Documents<IdolSearchResult> findSimilar(final IdolSuggestRequest suggestRequest) throws AciErrorException {
         final AciParameters aciParameters = new AciParameters(QueryActions.Suggest.name());
@@ -117,31 +252,78 @@ class IdolDocumentsServiceImpl implements IdolDocumentsService {
 
     @Override
     public List<IdolSearchResult> getDocumentContent(final IdolGetContentRequest request) throws AciErrorException {
-        final List<IdolSearchResult> results = new ArrayList<>(request.getIndexesAndReferences().size());
+        // Parameters are built on the calling thread so that security info and user identifiers are resolved for the current user
+        final List<AciParameters> parametersPerIndex = request.getIndexesAndReferences().stream()
+            .map(indexAndReferences -> {
+                // We use Query and not GetContent here so we can use Combine=simple to ensure returned references are unique
+                final AciParameters aciParameters = new AciParameters(QueryActions.Query.name());
+                parameterHandler.addGetDocumentOutputParameters(aciParameters, indexAndReferences, request.getPrint());
+                return aciParameters;
+            })
+            .collect(Collectors.toList());
 
-        for(final IdolGetContentRequestIndex indexAndReferences : request.getIndexesAndReferences()) {
-            // We use Query and not GetContent here so we can use Combine=simple to ensure returned references are unique
-            final AciParameters aciParameters = new AciParameters(QueryActions.Query.name());
-            parameterHandler.addGetDocumentOutputParameters(aciParameters, indexAndReferences, request.getPrint());
+        // One query per index; these are independent, so run them concurrently and merge the hits in request order
+        return parallelRequestExecutor.executeAll(parametersPerIndex, aciParameters -> {
+            if(streamingQueryResponses) {
+                return queryExecutor.executeQuery(aciParameters, QueryRequest.QueryType.RAW, queryResponseStreamProcessor).getResults();
+            }
 
             final QueryResponseData responseData = queryExecutor.executeQuery(aciParameters, QueryRequest.QueryType.RAW);
             final List<Hit> hits = responseData.getHits();
-            results.addAll(queryResponseParser.parseQueryHits(hits));
-        }
-
-        return results;
+            return queryResponseParser.parseQueryHits(hits);
+        })
+            .stream()
+            .flatMap(Collection::stream)
+            .collect(Collectors.toList());
     }
 
     @Override
     public String getStateToken(final IdolQueryRestrictions queryRestrictions, final int maxResults, final boolean promotions) throws AciErrorException {
-        return getStateTokenAndResultCount(queryRestrictions, maxResults, promotions).getTypedStateToken().getStateToken();
+        final QueryResponseData responseData = queryExecutor.executeQuery(stateTokenParameters(queryRestrictions, maxResults, promotions, null), QueryRequest.QueryType.RAW);
+        return parseStateToken(responseData, promotions).getStateToken();
+    }
+
+    @Override
+    public StateTokenAndResultCount getExpiringStateToken(final IdolQueryRestrictions queryRestrictions, final int maxResults, final boolean promotions, final Duration lifetime) throws AciErrorException {
+        final AciParameters aciParameters = stateTokenParameters(queryRestrictions, maxResults, promotions, lifetime);
+        // Count the stored query's own results, without combine=simple, so callers can tell whether the token is truncated
+        aciParameters.add(QueryParams.TotalResults.name(), true);
+
+        final QueryResponseData responseData = queryExecutor.executeQuery(aciParameters, QueryRequest.QueryType.RAW);
+        return new StateTokenAndResultCount(parseStateToken(responseData, promotions), responseData.getTotalhits());
     }
 
     @Override
     public StateTokenAndResultCount getStateTokenAndResultCount(final IdolQueryRestrictions queryRestrictions, final int maxResults, final boolean promotions) throws AciErrorException {
+        return parallelRequestExecutor.await(getStateTokenAndResultCountAsync(queryRestrictions, maxResults, promotions));
+    }
+
+    @Override
+    public CompletableFuture<StateTokenAndResultCount> getStateTokenAndResultCountAsync(final IdolQueryRestrictions queryRestrictions, final int maxResults, final boolean promotions) {
+        // The two queries are independent; build both parameter sets on the calling thread, then run them concurrently
+        final AciParameters stateTokenAciParameters = stateTokenParameters(queryRestrictions, maxResults, promotions, null);
+        final AciParameters resultCountAciParameters = resultCountParameters(queryRestrictions);
+
+        final CompletableFuture<TypedStateToken> stateToken = parallelRequestExecutor.submit(() -> {
+            final QueryResponseData responseData = queryExecutor.executeQuery(stateTokenAciParameters, QueryRequest.QueryType.RAW);
+            return parseStateToken(responseData, promotions);
+        });
+        final CompletableFuture<Integer> resultCount = parallelRequestExecutor.submit(() ->
+            queryExecutor.executeQuery(resultCountAciParameters, QueryRequest.QueryType.RAW).getTotalhits()
+        );
+
+        return stateToken.thenCombine(resultCount, StateTokenAndResultCount::new);
+    }
+
+    // A null lifetime stores the state without expiry
+    private AciParameters stateTokenParameters(final IdolQueryRestrictions queryRestrictions, final int maxResults, final boolean promotions, final Duration lifetime) {
         final AciParameters aciParameters = new AciParameters(QueryActions.Query.name());
         parameterHandler.addSecurityInfo(aciParameters);
-        parameterHandler.addStoreStateParameters(aciParameters);
+        if(lifetime == null) {
+            parameterHandler.addStoreStateParameters(aciParameters);
+        } else {
+            parameterHandler.addStoreStateParameters(aciParameters, lifetime);
+        }
         aciParameters.add(QueryParams.Print.name(), PrintParam.NoResults);
         aciParameters.add(QueryParams.MaxResults.name(), maxResults);
 
@@ -153,27 +335,29 @@ class IdolDocumentsServiceImpl implements IdolDocumentsService {
 
         // Unset combine=simple for state token generation
         aciParameters.remove(QueryParams.Combine.name());
+        return aciParameters;
+    }
 
-        final QueryResponseData responseData = queryExecutor.executeQuery(aciParameters, QueryRequest.QueryType.RAW);
+    private AciParameters resultCountParameters(final IdolQueryRestrictions queryRestrictions) {
+        // Result count is fetched with combine=simple
+        final AciParameters aciParameters = new AciParameters(QueryActions.Query.name());
+        parameterHandler.addSecurityInfo(aciParameters);
+        aciParameters.add(QueryParams.TotalResults.name(), true);
+        aciParameters.add(QueryParams.Print.name(), PrintParam.NoResults);
+        aciParameters.add(QueryParams.Predict.name(), false);
+        parameterHandler.addSearchRestrictions(aciParameters, queryRestrictions);
+        parameterHandler.addUserIdentifiers(aciParameters);
+        return aciParameters;
+    }
+
+    private TypedStateToken parseStateToken(final QueryResponseData responseData, final boolean promotions) {
         final String token = responseData.getState() == null
             ? EMPTY_RESULT_SET_TOKEN
             : responseData.getState();
-        final TypedStateToken tokenData = new TypedStateToken(
+        return new TypedStateToken(
             token,
             promotions
                 ? TypedStateToken.StateTokenType.PROMOTIONS
                 : TypedStateToken.StateTokenType.QUERY);
-
-        // Now fetch result count with combine=simple
-        final AciParameters resultCountAciParameters = new AciParameters(QueryActions.Query.name());
-        parameterHandler.addSecurityInfo(resultCountAciParameters);
-        resultCountAciParameters.add(QueryParams.TotalResults.name(), true);
-        resultCountAciParameters.add(QueryParams.Print.name(), PrintParam.NoResults);
-        resultCountAciParameters.add(QueryParams.Predict.name(), false);
-        parameterHandler.addSearchRestrictions(resultCountAciParameters, queryRestrictions);
-        parameterHandler.addUserIdentifiers(resultCountAciParameters);
-        final QueryResponseData resultCountResponseData = queryExecutor.executeQuery(resultCountAciParameters, QueryRequest.QueryType.RAW);
-
-        return new StateTokenAndResultCount(tokenData, resultCountResponseData.getTotalhits());
     }
 }
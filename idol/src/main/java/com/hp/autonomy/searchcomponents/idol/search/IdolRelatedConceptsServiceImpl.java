@@ -16,9 +16,11 @@ package com.hp.autonomy.searchcomponents.idol.search;
 
 import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.searchcomponents.core.caching.CacheNames;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
 import com.hp.autonomy.searchcomponents.core.search.RelatedConceptsService;
 import com.hp.autonomy.searchcomponents.idol.annotations.IdolService;
+import com.hp.autonomy.searchcomponents.idol.caching.IdolResultCache;
 import com.hp.autonomy.types.idol.responses.QsElement;
 import com.hp.autonomy.types.idol.responses.QueryResponseData;
 import com.hp.autonomy.types.requests.idol.actions.query.QueryActions;
@@ -41,15 +43,21 @@ import static com.hp.autonomy.searchcomponents.core.search.RelatedConceptsServic
 class IdolRelatedConceptsServiceImpl implements IdolRelatedConceptsService {
     private final HavenSearchAciParameterHandler parameterHandler;
     private final QueryExecutor queryExecutor;
+    private final IdolResultCache resultCache;
 
     @Autowired
-    IdolRelatedConceptsServiceImpl(final HavenSearchAciParameterHandler parameterHandler, final QueryExecutor queryExecutor) {
+    IdolRelatedConceptsServiceImpl(final HavenSearchAciParameterHandler parameterHandler, final QueryExecutor queryExecutor, final IdolResultCache resultCache) {
         this.parameterHandler = parameterHandler;
         this.queryExecutor = queryExecutor;
+        this.resultCache = resultCache;
     }
 
     @Override
     public List<QsElement> findRelatedConcepts(final IdolRelatedConceptsRequest relatedConceptsRequest) throws AciErrorException {
+        return resultCache.get(CacheNames.RELATED_CONCEPTS, relatedConceptsRequest, () -> fetchRelatedConcepts(relatedConceptsRequest));
+    }
+
+    private List<QsElement> fetchRelatedConcepts(final IdolRelatedConceptsRequest relatedConceptsRequest) {
         final AciParameters parameters = new AciParameters(QueryActions.Query.name());
         parameterHandler.addSecurityInfo(parameters);
         parameterHandler.addSearchRestrictions(parameters, relatedConceptsRequest.getQueryRestrictions());
@@ -62,6 +70,6 @@ class IdolRelatedConceptsServiceImpl implements IdolRelatedConceptsService {
         final QueryResponseData responseData = queryExecutor.executeQuery(parameters, relatedConceptsRequest.getQueryType());
         return responseData.getQs() == null
             ? Collections.emptyList()
-            : responseData.getQs().getElement();
+            : Collections.unmodifiableList(responseData.getQs().getElement());
     }
 }
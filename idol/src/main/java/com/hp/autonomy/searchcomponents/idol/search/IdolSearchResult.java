@@ -23,6 +23,7 @@ import lombok.Data;
 import lombok.Singular;
 
 import java.time.ZonedDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -61,12 +62,14 @@ public class IdolSearchResult implements SearchResult {
         weight = builder.weight;
 
         date = builder.date;
-        fieldMap = new HashMap<>();
+        final Map<String, FieldInfo<?>> fields = new HashMap<>();
         if(builder.fieldMap$key != null && builder.fieldMap$value != null) {
             for(int i = 0; i < builder.fieldMap$key.size() & i < builder.fieldMap$value.size(); i++) {
-                fieldMap.put(builder.fieldMap$key.get(i), builder.fieldMap$value.get(i));
+                fields.put(builder.fieldMap$key.get(i), builder.fieldMap$value.get(i));
             }
         }
+        // results may be shared between callers by the Idol result cache
+        fieldMap = Collections.unmodifiableMap(fields);
 
         qmsId = builder.qmsId;
         promotionName = builder.promotionName;
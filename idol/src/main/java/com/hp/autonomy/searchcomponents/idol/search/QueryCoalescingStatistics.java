@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the query, suggest and GetQueryTagValues calls made through {@link QueryExecutor}, distinguishing those sent
+ * to Idol from those which shared the response of an identical call already in flight.
+ */
+@Component
+public class QueryCoalescingStatistics {
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    void recordExecuted() {
+        executed.increment();
+    }
+
+    void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    /**
+     * @return The number of calls sent to Idol
+     */
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    /**
+     * @return The number of calls which waited for an identical call already in flight rather than sending their own
+     * request to Idol. A call whose shared request failed sends its own, and is then counted as executed too.
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return The fraction of calls which were coalesced, or 0 if no calls have been made
+     */
+    public double getCoalescedRate() {
+        final long coalescedCount = getCoalesced();
+        final long total = coalescedCount + getExecuted();
+        return total == 0 ? 0 : (double) coalescedCount / total;
+    }
+}
@@ -15,6 +15,7 @@
 package com.hp.autonomy.searchcomponents.idol.search;
 
 import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.Processor;
 import com.autonomy.aci.client.util.AciParameters;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
 import com.hp.autonomy.types.idol.responses.GetQueryTagValuesResponseData;
@@ -53,6 +54,18 @@ public interface QueryExecutor {
      */
     QueryResponseData executeQuery(AciParameters aciParameters, QueryRequest.QueryType queryType) throws AciErrorException;
 
+    /**
+     * Executes a query action, reading the response with the given processor
+     *
+     * @param aciParameters the query parameters to send to IDOL
+     * @param queryType     the type of query being performed
+     * @param processor     the processor used to read the IDOL response
+     * @param <T>           the type returned by the processor
+     * @return The processed IDOL response
+     * @throws AciErrorException The error thrown in the event of the IDOL's returning an error response
+     */
+    <T> T executeQuery(AciParameters aciParameters, QueryRequest.QueryType queryType, Processor<T> processor) throws AciErrorException;
+
     /**
      * Executes a suggest action
      *
@@ -17,6 +17,10 @@ package com.hp.autonomy.searchcomponents.idol.search;
 import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.services.AciService;
 import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.services.ProcessorException;
+import com.autonomy.aci.client.services.impl.AbstractStAXProcessor;
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+import com.autonomy.aci.client.transport.ActionParameter;
 import com.autonomy.aci.client.util.AciParameters;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
 import com.hp.autonomy.searchcomponents.idol.configuration.AciServiceRetriever;
@@ -24,25 +28,70 @@ import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
 import com.hp.autonomy.types.idol.responses.GetQueryTagValuesResponseData;
 import com.hp.autonomy.types.idol.responses.QueryResponseData;
 import com.hp.autonomy.types.idol.responses.SuggestResponseData;
+import lombok.EqualsAndHashCode;
+import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
 import static com.hp.autonomy.searchcomponents.idol.search.QueryExecutor.QUERY_EXECUTOR_BEAN_NAME;
 
 /**
  * Default implementation of {@link QueryExecutor}
+ * <p>
+ * When enabled, concurrent query, suggest and GetQueryTagValues calls with identical parameters share a single request
+ * to Idol: a call made while an identical call is in flight waits for the same response. Only the raw response is
+ * shared; each caller parses its own copy, since parsed responses hold DOM nodes which are not safe to read from several
+ * threads. If the request fails, for example because the thread which sent it was interrupted, the waiting calls send
+ * their own. The parameters, including SecurityInfo, are part of the key, so responses are only shared between callers
+ * with the same security info. Calls with a custom processor are never coalesced, since the processor may be stateful.
  */
 @Component(QUERY_EXECUTOR_BEAN_NAME)
 class QueryExecutorImpl implements QueryExecutor {
+    /**
+     * When true, identical calls made concurrently share a single request to Idol. Defaults to false.
+     */
+    public static final String COALESCE_REQUESTS_PROPERTY_KEY = "idol.query.coalesce";
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private static final Processor<byte[]> RAW_RESPONSE_PROCESSOR = new RawResponseProcessor();
+
     private final AciServiceRetriever aciServiceRetriever;
+    private final QueryCoalescingStatistics coalescingStatistics;
+    private final boolean coalesceRequests;
     private final Processor<QueryResponseData> queryResponseProcessor;
     private final Processor<SuggestResponseData> suggestResponseProcessor;
     private final Processor<GetQueryTagValuesResponseData> queryTagValuesResponseProcessor;
+    private final ConcurrentMap<RequestKey, CompletableFuture<byte[]>> inFlightRequests = new ConcurrentHashMap<>();
 
     @Autowired
     public QueryExecutorImpl(final AciServiceRetriever aciServiceRetriever,
-                             final ProcessorFactory processorFactory) {
+                             final ProcessorFactory processorFactory,
+                             final QueryCoalescingStatistics coalescingStatistics,
+                             @Value("${" + COALESCE_REQUESTS_PROPERTY_KEY + ":false}") final boolean coalesceRequests) {
         this.aciServiceRetriever = aciServiceRetriever;
+        this.coalescingStatistics = coalescingStatistics;
+        this.coalesceRequests = coalesceRequests;
 
         queryResponseProcessor = processorFactory.getResponseDataProcessor(QueryResponseData.class);
         suggestResponseProcessor = processorFactory.getResponseDataProcessor(SuggestResponseData.class);
@@ -56,19 +105,144 @@ class QueryExecutorImpl implements QueryExecutor {
 
     @Override
     public QueryResponseData executeQuery(final AciParameters aciParameters, final QueryRequest.QueryType queryType) {
+        return coalesce(ResponseType.QUERY, aciParameters, queryType, queryResponseProcessor);
+    }
+
+    @Override
+    public <T> T executeQuery(final AciParameters aciParameters, final QueryRequest.QueryType queryType, final Processor<T> processor) {
         final AciService aciService = aciServiceRetriever.getAciService(queryType);
-        return aciService.executeAction(aciParameters, queryResponseProcessor);
+        return aciService.executeAction(aciParameters, processor);
     }
 
     @Override
     public SuggestResponseData executeSuggest(final AciParameters aciParameters, final QueryRequest.QueryType queryType) {
-        final AciService aciService = aciServiceRetriever.getAciService(queryType);
-        return aciService.executeAction(aciParameters, suggestResponseProcessor);
+        return coalesce(ResponseType.SUGGEST, aciParameters, queryType, suggestResponseProcessor);
     }
 
     @Override
     public GetQueryTagValuesResponseData executeGetQueryTagValues(final AciParameters aciParameters, final QueryRequest.QueryType queryType) throws AciErrorException {
-        final AciService aciService = aciServiceRetriever.getAciService(queryType);
-        return aciService.executeAction(aciParameters, queryTagValuesResponseProcessor);
+        return coalesce(ResponseType.QUERY_TAG_VALUES, aciParameters, queryType, queryTagValuesResponseProcessor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(final ResponseType responseType, final AciParameters aciParameters, final QueryRequest.QueryType queryType, final Processor<T> processor) {
+        // the shared raw response can only be parsed again by a processor which reads from a stream reader
+        final RequestKey key = coalesceRequests && processor instanceof AbstractStAXProcessor ? RequestKey.of(responseType, queryType, aciParameters) : null;
+        if (key == null) {
+            coalescingStatistics.recordExecuted();
+            return aciServiceRetriever.getAciService(queryType).executeAction(aciParameters, processor);
+        }
+
+        final AbstractStAXProcessor<T> staxProcessor = (AbstractStAXProcessor<T>) processor;
+        while (true) {
+            final CompletableFuture<byte[]> future = new CompletableFuture<>();
+            final CompletableFuture<byte[]> inFlight = inFlightRequests.putIfAbsent(key, future);
+            if (inFlight != null) {
+                coalescingStatistics.recordCoalesced();
+                final byte[] response = await(inFlight);
+                if (response != null) {
+                    return parse(response, staxProcessor);
+                }
+
+                // the shared request failed, possibly only because its caller was cancelled, so send our own
+                continue;
+            }
+
+            coalescingStatistics.recordExecuted();
+            byte[] response = null;
+            try {
+                response = aciServiceRetriever.getAciService(queryType).executeAction(aciParameters, RAW_RESPONSE_PROCESSOR);
+            } finally {
+                inFlightRequests.remove(key, future);
+                future.complete(response);
+            }
+
+            return parse(response, staxProcessor);
+        }
+    }
+
+    private static byte[] await(final CompletableFuture<byte[]> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for a coalesced Idol request");
+        } catch (final ExecutionException e) {
+            // the future is only ever completed normally
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static <T> T parse(final byte[] response, final AbstractStAXProcessor<T> processor) {
+        try {
+            final XMLStreamReader xmlStreamReader = INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(response));
+            try {
+                return processor.process(xmlStreamReader);
+            } finally {
+                xmlStreamReader.close();
+            }
+        } catch (final XMLStreamException e) {
+            throw new ProcessorException(e);
+        }
+    }
+
+    /**
+     * Reads the response without parsing it, so that each caller can parse its own copy
+     */
+    private static class RawResponseProcessor implements Processor<byte[]> {
+        private static final long serialVersionUID = 7424829133562807711L;
+
+        @Override
+        public byte[] process(final AciResponseInputStream aciResponse) {
+            try {
+                return IOUtils.toByteArray(aciResponse);
+            } catch (final IOException e) {
+                throw new ProcessorException(e);
+            }
+        }
+    }
+
+    private enum ResponseType {
+        QUERY,
+        SUGGEST,
+        QUERY_TAG_VALUES
+    }
+
+    /**
+     * Canonical form of a call: the response type, the query type and the parameters, with parameter names in upper
+     * case and in name order. Parameters with the same name keep their relative order.
+     */
+    @EqualsAndHashCode
+    private static class RequestKey {
+        private final ResponseType responseType;
+        private final QueryRequest.QueryType queryType;
+        private final List<String> parameters;
+
+        private RequestKey(final ResponseType responseType, final QueryRequest.QueryType queryType, final List<String> parameters) {
+            this.responseType = responseType;
+            this.queryType = queryType;
+            this.parameters = parameters;
+        }
+
+        /**
+         * @return The key, or null if a parameter value has no canonical string form (e.g. a file upload)
+         */
+        private static RequestKey of(final ResponseType responseType, final QueryRequest.QueryType queryType, final AciParameters aciParameters) {
+            final List<ActionParameter<?>> sortedParameters = new ArrayList<>(aciParameters);
+            sortedParameters.sort((first, second) -> first.getName().compareToIgnoreCase(second.getName()));
+
+            final List<String> parameters = new ArrayList<>(sortedParameters.size() * 2);
+            for (final ActionParameter<?> parameter : sortedParameters) {
+                final Object value = parameter.getValue();
+                if (value != null && !(value instanceof CharSequence || value instanceof Number || value instanceof Boolean || value instanceof Enum)) {
+                    return null;
+                }
+
+                parameters.add(parameter.getName().toUpperCase(Locale.ENGLISH));
+                parameters.add(value == null ? null : value.toString());
+            }
+
+            return new RequestKey(responseType, queryType, parameters);
+        }
     }
 }
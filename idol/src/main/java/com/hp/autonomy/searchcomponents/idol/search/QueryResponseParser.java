@@ -45,6 +45,17 @@ public interface QueryResponseParser {
      */
     Documents<IdolSearchResult> parseQueryResults(IdolSearchRequest searchRequest, AciParameters aciParameters, QueryResponseData responseData, Function<AciParameters, QueryResponseData> queryExecutor);
 
+    /**
+     * Parse an Idol query response read by {@link QueryResponseStreamProcessor}
+     *
+     * @param searchRequest    The query request options
+     * @param aciParameters    The parameters sent in the Idol request
+     * @param streamedResponse The Idol response, with its hits already parsed
+     * @param queryExecutor    The function used for executing the query (in case it needs to be rerun)
+     * @return The parsed query results
+     */
+    Documents<IdolSearchResult> parseStreamedQueryResults(IdolSearchRequest searchRequest, AciParameters aciParameters, StreamedQueryResponse streamedResponse, Function<AciParameters, StreamedQueryResponse> queryExecutor);
+
     /**
      * Parses the "hits" section of the Idol query response
      *
@@ -52,4 +63,12 @@ public interface QueryResponseParser {
      * @return The parsed query results
      */
     List<IdolSearchResult> parseQueryHits(Collection<Hit> hits);
+
+    /**
+     * Parses a single hit from the Idol query response
+     *
+     * @param hit A hit from the Idol query response
+     * @return The parsed query result
+     */
+    IdolSearchResult parseQueryHit(Hit hit);
 }
@@ -18,8 +18,7 @@ import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.util.AciParameters;
 import com.hp.autonomy.aci.content.database.Databases;
 import com.hp.autonomy.searchcomponents.core.search.AutoCorrectException;
-import com.hp.autonomy.searchcomponents.idol.databases.IdolDatabasesRequestBuilder;
-import com.hp.autonomy.searchcomponents.idol.databases.IdolDatabasesService;
+import com.hp.autonomy.searchcomponents.idol.databases.IdolDatabaseCatalogue;
 import com.hp.autonomy.searchcomponents.idol.search.fields.FieldsParser;
 import com.hp.autonomy.types.idol.responses.Database;
 import com.hp.autonomy.types.idol.responses.Hit;
@@ -32,6 +31,7 @@ import com.hp.autonomy.types.requests.idol.actions.query.params.QueryParams;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -40,7 +40,6 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -55,22 +54,17 @@ class QueryResponseParserImpl implements QueryResponseParser {
     static final String MISSING_DATABASE_WARNING = "At least one of the databases provided in the query does not exist";
     private static final Pattern SPELLING_SEPARATOR_PATTERN = Pattern.compile(", ");
     private final FieldsParser fieldsParser;
-    private final IdolDatabasesService databasesService;
-    private final ObjectFactory<IdolDatabasesRequestBuilder> databasesRequestBuilderFactory;
+    private final IdolDatabaseCatalogue databaseCatalogue;
 
     @Autowired
     QueryResponseParserImpl(final FieldsParser fieldsParser,
-                            final IdolDatabasesService databasesService,
-                            final ObjectFactory<IdolDatabasesRequestBuilder> databasesRequestBuilderFactory) {
+                            final IdolDatabaseCatalogue databaseCatalogue) {
         this.fieldsParser = fieldsParser;
-        this.databasesService = databasesService;
-        this.databasesRequestBuilderFactory = databasesRequestBuilderFactory;
+        this.databaseCatalogue = databaseCatalogue;
     }
 
     @Override
     public Documents<IdolSearchResult> parseQueryResults(final IdolSearchRequest searchRequest, final AciParameters aciParameters, final QueryResponseData responseData, final Function<AciParameters, QueryResponseData> queryExecutor) {
-        final List<Hit> hits = responseData.getHits();
-
         final Warnings warnings = parseWarnings(searchRequest, aciParameters, responseData);
 
         final String spellingQuery = responseData.getSpellingquery();
@@ -80,57 +74,104 @@ class QueryResponseParserImpl implements QueryResponseParser {
         if (spellingQuery != null) {
             documents = rerunQueryWithAdjustedSpelling(aciParameters, responseData, spellingQuery, warnings, queryExecutor);
         } else {
-            final List<IdolSearchResult> results = parseQueryHits(hits);
-
-            final List<ExpansionRule> expansions = Optional.ofNullable(responseData.getExpansionOrder()).map(order ->
-                order.getRule().stream()
-                    .filter(rule -> {
-                        final String ruleType = rule.getRuleType();
-                        return "synonym".equals(ruleType) || "blacklist".equals(ruleType);
-                    })
-                    .map(rule -> new ExpansionRule(rule.getReference(), rule.getRuleType())
-                ).collect(Collectors.toList())
-            ).orElse(null);
-
-            documents = new Documents<>(results, responseData.getTotalhits(), responseData.getExpandedQuery(), null, null, warnings, expansions);
+            final List<IdolSearchResult> results = parseQueryHits(responseData.getHits());
+            documents = new Documents<>(Collections.unmodifiableList(results), responseData.getTotalhits(), responseData.getExpandedQuery(), null, null, warnings, parseExpansions(responseData));
+        }
+
+        return documents;
+    }
+
+    @Override
+    public Documents<IdolSearchResult> parseStreamedQueryResults(final IdolSearchRequest searchRequest, final AciParameters aciParameters, final StreamedQueryResponse streamedResponse, final Function<AciParameters, StreamedQueryResponse> queryExecutor) {
+        final QueryResponseData responseData = streamedResponse.getResponseData();
+        final Warnings warnings = parseWarnings(searchRequest, aciParameters, responseData);
+
+        final String spellingQuery = responseData.getSpellingquery();
+
+        final Documents<IdolSearchResult> documents;
+        if (spellingQuery != null) {
+            documents = rerunQueryWithAdjustedSpelling(aciParameters, responseData, spellingQuery, warnings, parameters -> {
+                final StreamedQueryResponse correctedResponse = queryExecutor.apply(parameters);
+                return new Documents<>(Collections.unmodifiableList(correctedResponse.getResults()), correctedResponse.getResponseData().getTotalhits(), null, null, null, null);
+            });
+        } else {
+            documents = new Documents<>(Collections.unmodifiableList(streamedResponse.getResults()), responseData.getTotalhits(), responseData.getExpandedQuery(), null, null, warnings, parseExpansions(responseData));
         }
 
         return documents;
     }
 
+    private List<ExpansionRule> parseExpansions(final QueryResponseData responseData) {
+        return Optional.ofNullable(responseData.getExpansionOrder()).map(order ->
+            order.getRule().stream()
+                .filter(rule -> {
+                    final String ruleType = rule.getRuleType();
+                    return "synonym".equals(ruleType) || "blacklist".equals(ruleType);
+                })
+                .map(rule -> new ExpansionRule(rule.getReference(), rule.getRuleType())
+            ).collect(Collectors.toList())
+        ).orElse(null);
+    }
+
     protected Warnings parseWarnings(final IdolSearchRequest searchRequest, final AciParameters aciParameters, final QueryResponseData responseData) {
-        Warnings warnings = null;
-        for (final String warning : responseData.getWarning()) {
-            if (MISSING_DATABASE_WARNING.equals(warning.trim())) {
-                final Set<Database> updatedDatabases = databasesService.getDatabases(databasesRequestBuilderFactory.getObject().build());
-                final List<String> oldQueryRestrictionDatabases = searchRequest.getQueryRestrictions().getDatabases();
-                final Set<String> badDatabases = new LinkedHashSet<>(oldQueryRestrictionDatabases);
-                for (final Database database : updatedDatabases) {
-                    final String databaseName = database.getName();
-                    badDatabases.remove(databaseName);
-                }
-
-                warnings = new Warnings(badDatabases);
-
-                final Set<String> newQueryRestrictionDatabases = new LinkedHashSet<>(oldQueryRestrictionDatabases);
-                newQueryRestrictionDatabases.removeAll(badDatabases);
-                aciParameters.add(QueryParams.DatabaseMatch.name(), new Databases(newQueryRestrictionDatabases));
-            }
+        final boolean missingDatabases = responseData.getWarning().stream()
+            .anyMatch(warning -> MISSING_DATABASE_WARNING.equals(warning.trim()));
+        if (!missingDatabases) {
+            return null;
         }
-        return warnings;
+
+        final List<String> oldQueryRestrictionDatabases = searchRequest.getQueryRestrictions().getDatabases();
+        Set<Database> databases = databaseCatalogue.getDatabases();
+        Set<String> badDatabases = findBadDatabases(oldQueryRestrictionDatabases, databases);
+
+        if (badDatabases.isEmpty()) {
+            // the list contradicts the warning, so a database has been removed since it was fetched
+            databases = databaseCatalogue.invalidate(databases);
+            badDatabases = findBadDatabases(oldQueryRestrictionDatabases, databases);
+        }
+
+        final Set<String> newQueryRestrictionDatabases = new LinkedHashSet<>(oldQueryRestrictionDatabases);
+        newQueryRestrictionDatabases.removeAll(badDatabases);
+        aciParameters.add(QueryParams.DatabaseMatch.name(), new Databases(newQueryRestrictionDatabases));
+
+        return new Warnings(badDatabases);
+    }
+
+    private Set<String> findBadDatabases(final Collection<String> queryRestrictionDatabases, final Set<Database> databases) {
+        final Set<String> badDatabases = new LinkedHashSet<>(queryRestrictionDatabases);
+        for (final Database database : databases) {
+            badDatabases.remove(database.getName());
+        }
+        return badDatabases;
     }
 
     protected Documents<IdolSearchResult> rerunQueryWithAdjustedSpelling(final AciParameters aciParameters, final QueryResponseData responseData, final String spellingQuery, final Warnings warnings, final Function<AciParameters, QueryResponseData> queryExecutor) {
+        return rerunQueryWithAdjustedSpelling(aciParameters, responseData, spellingQuery, warnings, parameters -> {
+            final QueryResponseData correctedResponseData = queryExecutor.apply(parameters);
+            final List<IdolSearchResult> correctedResults = parseQueryHits(correctedResponseData.getHits());
+            return new Documents<>(Collections.unmodifiableList(correctedResults), correctedResponseData.getTotalhits(), null, null, null, null);
+        });
+    }
+
+    /**
+     * Rerun the query with IDOL's spelling suggestion
+     *
+     * @param aciParameters The parameters sent in the Idol request; the query text is replaced
+     * @param responseData  The Idol response containing the spelling suggestion
+     * @param spellingQuery The corrected query text
+     * @param warnings      Warnings for the original query
+     * @param queryRunner   Runs the corrected query, returning only its results and total hits
+     * @return The corrected results, with spelling and warnings attached
+     */
+    private Documents<IdolSearchResult> rerunQueryWithAdjustedSpelling(final AciParameters aciParameters, final QueryResponseData responseData, final String spellingQuery, final Warnings warnings, final Function<AciParameters, Documents<IdolSearchResult>> queryRunner) {
         final String originalQuery = aciParameters.get(QueryParams.Text.name());
         aciParameters.put(QueryParams.Text.name(), spellingQuery);
 
         final Spelling spelling = new Spelling(Arrays.asList(SPELLING_SEPARATOR_PATTERN.split(responseData.getSpelling())), spellingQuery, originalQuery);
 
         try {
-            final QueryResponseData correctedResponseData = queryExecutor.apply(aciParameters);
-            final List<IdolSearchResult> correctedResults = parseQueryHits(correctedResponseData.getHits());
-
-            return new Documents<>(correctedResults, correctedResponseData.getTotalhits(), null, null, spelling, warnings);
+            final Documents<IdolSearchResult> correctedDocuments = queryRunner.apply(aciParameters);
+            return new Documents<>(correctedDocuments.getDocuments(), correctedDocuments.getTotalResults(), null, null, spelling, warnings);
         } catch (final AciErrorException e) {
             throw new AutoCorrectException(e.getMessage(), e, spelling);
         }
@@ -140,19 +181,24 @@ class QueryResponseParserImpl implements QueryResponseParser {
     public List<IdolSearchResult> parseQueryHits(final Collection<Hit> hits) {
         final List<IdolSearchResult> results = new ArrayList<>(hits.size());
         for (final Hit hit : hits) {
-            final IdolSearchResult.IdolSearchResultBuilder searchResultBuilder = new IdolSearchResult.IdolSearchResultBuilder()
-                    .reference(hit.getReference())
-                    .index(hit.getDatabase())
-                    .title(hit.getTitle())
-                    .summary(hit.getSummary())
-                    .date(hit.getDatestring())
-                    .weight(hit.getWeight())
-                    .intentRankedHit(hit.getIntentrankedhit())
-                    .promotionName(hit.getPromotionname());
-
-            fieldsParser.parseDocumentFields(hit, searchResultBuilder);
-            results.add(searchResultBuilder.build());
+            results.add(parseQueryHit(hit));
         }
         return results;
     }
+
+    @Override
+    public IdolSearchResult parseQueryHit(final Hit hit) {
+        final IdolSearchResult.IdolSearchResultBuilder searchResultBuilder = new IdolSearchResult.IdolSearchResultBuilder()
+                .reference(hit.getReference())
+                .index(hit.getDatabase())
+                .title(hit.getTitle())
+                .summary(hit.getSummary())
+                .date(hit.getDatestring())
+                .weight(hit.getWeight())
+                .intentRankedHit(hit.getIntentrankedhit())
+                .promotionName(hit.getPromotionname());
+
+        fieldsParser.parseDocumentFields(hit, searchResultBuilder);
+        return searchResultBuilder.build();
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.search;
+
+import com.autonomy.aci.client.services.ProcessorException;
+import com.autonomy.aci.client.services.impl.AbstractStAXProcessor;
+import com.autonomy.aci.client.services.impl.ErrorProcessor;
+import com.hp.autonomy.types.idol.responses.Hit;
+import com.hp.autonomy.types.idol.responses.QueryResponseData;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.XMLEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Implementation of {@link AbstractStAXProcessor} which reads an Idol query response without materialising all of its
+ * hits.
+ * <p>
+ * Each hit is unmarshalled on its own and immediately parsed into an {@link IdolSearchResult}, so at most one hit's
+ * document content is held as a DOM at any time. The rest of the response data is small and is unmarshalled as usual
+ * once the hits have been read.
+ */
+@SuppressWarnings("WeakerAccess")
+public class QueryResponseStreamProcessor extends AbstractStAXProcessor<StreamedQueryResponse> {
+    private static final long serialVersionUID = -2385047126583958137L;
+
+    private static final String RESPONSE_DATA_ELEMENT = "responsedata";
+    private static final String HIT_ELEMENT = "hit";
+    private static final String ENCODING = "UTF-8";
+
+    private static final JAXBContext JAXB_CONTEXT;
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    static {
+        try {
+            JAXB_CONTEXT = JAXBContext.newInstance(QueryResponseData.class);
+        } catch (final JAXBException e) {
+            throw new IllegalStateException("Could not create JAXB context for query responses", e);
+        }
+
+        // the response data is copied without the enclosing autnresponse, which usually declares the autn prefix
+        OUTPUT_FACTORY.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+    }
+
+    private final transient Function<Hit, IdolSearchResult> hitParser;
+
+    /**
+     * @param hitParser Converts each hit into a search result as it is read
+     */
+    public QueryResponseStreamProcessor(final Function<Hit, IdolSearchResult> hitParser) {
+        this.hitParser = hitParser;
+    }
+
+    @Override
+    public StreamedQueryResponse process(final XMLStreamReader xmlStreamReader) {
+        try {
+            if (isErrorResponse(xmlStreamReader)) {
+                setErrorProcessor(new ErrorProcessor());
+                processErrorResponse(xmlStreamReader);
+            }
+
+            while (xmlStreamReader.hasNext()) {
+                if (xmlStreamReader.next() == XMLEvent.START_ELEMENT && RESPONSE_DATA_ELEMENT.equals(xmlStreamReader.getLocalName())) {
+                    return processResponseData(xmlStreamReader);
+                }
+            }
+        } catch (final XMLStreamException | JAXBException e) {
+            throw new ProcessorException(e);
+        }
+
+        throw new ProcessorException("No response data found");
+    }
+
+    private StreamedQueryResponse processResponseData(final XMLStreamReader xmlStreamReader) throws XMLStreamException, JAXBException {
+        // unmarshallers are not thread safe, but are cheap to create from a shared context
+        final Unmarshaller unmarshaller = JAXB_CONTEXT.createUnmarshaller();
+        final List<IdolSearchResult> results = new ArrayList<>();
+
+        final ByteArrayOutputStream responseDataWithoutHits = new ByteArrayOutputStream();
+        final XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(responseDataWithoutHits, ENCODING);
+        writer.writeStartDocument(ENCODING, "1.0");
+        copyStartElement(xmlStreamReader, writer);
+
+        int depth = 1;
+        int event = xmlStreamReader.next();
+
+        while (depth > 0) {
+            if (event == XMLEvent.START_ELEMENT && depth == 1 && HIT_ELEMENT.equals(xmlStreamReader.getLocalName())) {
+                final Hit hit = unmarshaller.unmarshal(xmlStreamReader, Hit.class).getValue();
+                results.add(hitParser.apply(hit));
+
+                // the unmarshaller leaves the reader on the event after the end of the hit
+                event = xmlStreamReader.getEventType();
+                continue;
+            }
+
+            switch (event) {
+                case XMLEvent.START_ELEMENT:
+                    copyStartElement(xmlStreamReader, writer);
+                    depth++;
+                    break;
+                case XMLEvent.END_ELEMENT:
+                    writer.writeEndElement();
+                    depth--;
+                    break;
+                case XMLEvent.CHARACTERS:
+                case XMLEvent.CDATA:
+                case XMLEvent.SPACE:
+                    writer.writeCharacters(xmlStreamReader.getTextCharacters(), xmlStreamReader.getTextStart(), xmlStreamReader.getTextLength());
+                    break;
+                case XMLEvent.END_DOCUMENT:
+                    throw new ProcessorException("No closing tag found for response data");
+                default:
+                    break;
+            }
+
+            if (depth > 0) {
+                event = xmlStreamReader.next();
+            }
+        }
+
+        writer.writeEndDocument();
+        writer.close();
+
+        final XMLStreamReader responseDataReader = INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(responseDataWithoutHits.toByteArray()), ENCODING);
+        try {
+            responseDataReader.nextTag();
+            final QueryResponseData responseData = unmarshaller.unmarshal(responseDataReader, QueryResponseData.class).getValue();
+            return new StreamedQueryResponse(responseData, results);
+        } finally {
+            responseDataReader.close();
+        }
+    }
+
+    private void copyStartElement(final XMLStreamReader xmlStreamReader, final XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(emptyIfNull(xmlStreamReader.getPrefix()), xmlStreamReader.getLocalName(), emptyIfNull(xmlStreamReader.getNamespaceURI()));
+
+        for (int i = 0; i < xmlStreamReader.getNamespaceCount(); i++) {
+            writer.writeNamespace(emptyIfNull(xmlStreamReader.getNamespacePrefix(i)), xmlStreamReader.getNamespaceURI(i));
+        }
+
+        for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
+            final String namespaceUri = xmlStreamReader.getAttributeNamespace(i);
+            if (namespaceUri == null || namespaceUri.isEmpty()) {
+                writer.writeAttribute(xmlStreamReader.getAttributeLocalName(i), xmlStreamReader.getAttributeValue(i));
+            } else {
+                writer.writeAttribute(emptyIfNull(xmlStreamReader.getAttributePrefix(i)), namespaceUri, xmlStreamReader.getAttributeLocalName(i), xmlStreamReader.getAttributeValue(i));
+            }
+        }
+    }
+
+    private static String emptyIfNull(final String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.search;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.hp.autonomy.searchcomponents.idol.search.SpellCheckProbeStatistics.SPELL_CHECK_PROBE_STATISTICS_BEAN_NAME;
+
+/**
+ * Counts the outcomes of the spelling probes sent when speculative auto correct is enabled.
+ * A probe pays off when it reports a correction, since the full-size query with the original text is then skipped.
+ */
+@Component(SPELL_CHECK_PROBE_STATISTICS_BEAN_NAME)
+public class SpellCheckProbeStatistics {
+    /**
+     * The bean name of the default implementation.
+     * Use this in an {@link Qualifier} tag to access this implementation via autowiring.
+     */
+    public static final String SPELL_CHECK_PROBE_STATISTICS_BEAN_NAME = "spellCheckProbeStatistics";
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder corrections = new LongAdder();
+
+    void recordProbe(final boolean corrected) {
+        probes.increment();
+
+        if(corrected) {
+            corrections.increment();
+        }
+    }
+
+    /**
+     * @return The number of spelling probes sent to Idol
+     */
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    /**
+     * @return The number of probes which reported a spelling correction, saving a full-size query
+     */
+    public long getCorrections() {
+        return corrections.sum();
+    }
+
+    /**
+     * @return The number of probes which found no correction, costing an additional round trip
+     */
+    public long getMisses() {
+        return getProbes() - getCorrections();
+    }
+
+    /**
+     * @return The fraction of probes which reported a correction, or 0 if no probes have been sent
+     */
+    public double getCorrectionRate() {
+        final long probeCount = getProbes();
+        return probeCount == 0 ? 0 : (double) getCorrections() / probeCount;
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.search;
+
+import com.hp.autonomy.types.idol.responses.QueryResponseData;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Idol query response read by {@link QueryResponseStreamProcessor}, with the hits already parsed into search results
+ */
+@Data
+public class StreamedQueryResponse {
+    /**
+     * The response metadata (total hits, spelling, warnings etc.); the hits list is always empty
+     */
+    private final QueryResponseData responseData;
+    private final List<IdolSearchResult> results;
+}
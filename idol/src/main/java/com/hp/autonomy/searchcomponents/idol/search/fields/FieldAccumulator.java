@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.search.fields;
+
+import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
+import com.hp.autonomy.searchcomponents.core.config.FieldValue;
+import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Mutable collector for the names and values of one field of a document, frozen into a {@link FieldInfo} once the
+ * whole document has been parsed. Names are kept in the order they first appear in the document.
+ */
+class FieldAccumulator {
+    private final FieldPathTrie.Node node;
+    private final Collection<FieldPath> names = new LinkedHashSet<>();
+    private final List<FieldValue<Serializable>> values = new ArrayList<>();
+
+    FieldAccumulator(final FieldPathTrie.Node node) {
+        this.node = node;
+    }
+
+    void add(final FieldPath fieldPath, final FieldValue<Serializable> value) {
+        names.add(fieldPath);
+        values.add(value);
+    }
+
+    FieldInfo<Serializable> freeze() {
+        final FieldInfo<Serializable> fieldInfo = node.getFieldInfo();
+        return FieldInfo.<Serializable>builder()
+            .id(fieldInfo.getId())
+            .names(names)
+            .displayName(node.getDisplayName())
+            .type(fieldInfo.getType())
+            .advanced(fieldInfo.isAdvanced())
+            .values(values)
+            .build();
+    }
+}
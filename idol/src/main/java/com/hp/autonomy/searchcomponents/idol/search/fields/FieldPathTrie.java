@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.search.fields;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
+import com.hp.autonomy.searchcomponents.core.config.FieldsInfoSnapshot;
+import com.hp.autonomy.searchcomponents.core.config.MapType;
+import com.hp.autonomy.searchcomponents.core.fields.FieldDisplayNameGenerator;
+import com.hp.autonomy.searchcomponents.core.fields.FieldPathNormaliser;
+import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Resolved field information for document element paths, keyed on the raw element names from the document root.
+ * <p>
+ * Each distinct path is normalised and looked up in the field config once per field config snapshot; parsing a
+ * document then only walks the trie. Nodes are kept for the most recently used paths and resolved again when a path
+ * which has been evicted is next seen.
+ */
+class FieldPathTrie {
+    private static final int MAX_NODES = 10000;
+
+    private final Map<FieldPath, FieldInfo<?>> fieldConfig;
+    private final FieldPathNormaliser fieldPathNormaliser;
+    private final FieldDisplayNameGenerator fieldDisplayNameGenerator;
+    private final Cache<NodeKey, Node> nodes = CacheBuilder.newBuilder()
+        .maximumSize(MAX_NODES)
+        .build();
+
+    FieldPathTrie(final FieldsInfoSnapshot snapshot, final FieldPathNormaliser fieldPathNormaliser, final FieldDisplayNameGenerator fieldDisplayNameGenerator) {
+        this.fieldPathNormaliser = fieldPathNormaliser;
+        this.fieldDisplayNameGenerator = fieldDisplayNameGenerator;
+        fieldConfig = snapshot.getFieldConfigByName();
+    }
+
+    /**
+     * @param rootName Element name of the document root
+     * @return Trie node for the document root
+     */
+    Node root(final String rootName) {
+        return getOrCreate(null, rootName);
+    }
+
+    private Node getOrCreate(final Node parent, final String name) {
+        if(name == null) {
+            return new Node(rawPath(parent, null));
+        }
+
+        final NodeKey key = new NodeKey(parent, name);
+        final Node node = nodes.getIfPresent(key);
+        if(node != null) {
+            return node;
+        }
+
+        final Node newNode = new Node(rawPath(parent, name));
+        nodes.put(key, newNode);
+        return newNode;
+    }
+
+    private static String rawPath(final Node parent, final String name) {
+        return parent == null ? name : parent.rawPath + '/' + name;
+    }
+
+    /**
+     * Identifies a node by its parent node (null for a document root) and its element name
+     */
+    @Data
+    private static class NodeKey {
+        private final Node parent;
+        private final String name;
+    }
+
+    /**
+     * Field information for a single element path
+     */
+    class Node {
+        private final String rawPath;
+        private final FieldPath fieldPath;
+        private final FieldInfo<Serializable> fieldInfo;
+        private final MapType childMapping;
+        private final String displayName;
+
+        @SuppressWarnings("unchecked")
+        private Node(final String rawPath) {
+            this.rawPath = rawPath;
+            fieldPath = fieldPathNormaliser.normaliseFieldPath(rawPath);
+
+            final FieldInfo<?> configuredFieldInfo = fieldConfig.get(fieldPath);
+            fieldInfo = configuredFieldInfo != null ? (FieldInfo<Serializable>) configuredFieldInfo : FieldInfo.<Serializable>builder()
+                .id(fieldPath.getNormalisedPath())
+                .name(fieldPath)
+                .advanced(true)
+                .build();
+            childMapping = configuredFieldInfo != null ? configuredFieldInfo.getChildMapping() : null;
+            displayName = fieldDisplayNameGenerator.generateDisplayNameFromId(fieldInfo.getId());
+        }
+
+        Node child(final String name) {
+            return getOrCreate(this, name);
+        }
+
+        FieldPath getFieldPath() {
+            return fieldPath;
+        }
+
+        FieldInfo<Serializable> getFieldInfo() {
+            return fieldInfo;
+        }
+
+        /**
+         * @return The child mapping if this path is configured as a map field, otherwise null
+         */
+        MapType getChildMapping() {
+            return childMapping;
+        }
+
+        String getDisplayName() {
+            return displayName;
+        }
+    }
+}
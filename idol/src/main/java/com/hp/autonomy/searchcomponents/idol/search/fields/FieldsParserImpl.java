@@ -38,6 +38,7 @@ class FieldsParserImpl implements FieldsParser {
     private final FieldPathNormaliser fieldPathNormaliser;
     private final FieldDisplayNameGenerator fieldDisplayNameGenerator;
     private final IdolDocumentFieldsService documentFieldsService;
+    private final FieldsInfoSnapshot.DerivedTable<FieldPathTrie> fieldPathTries;
 
     @Autowired
     FieldsParserImpl(final ConfigService<? extends IdolSearchCapable> configService,
@@ -48,13 +49,11 @@ class FieldsParserImpl implements FieldsParser {
         this.fieldPathNormaliser = fieldPathNormaliser;
         this.fieldDisplayNameGenerator = fieldDisplayNameGenerator;
         this.documentFieldsService = documentFieldsService;
+        fieldPathTries = new FieldsInfoSnapshot.DerivedTable<>(snapshot -> new FieldPathTrie(snapshot, fieldPathNormaliser, fieldDisplayNameGenerator));
     }
 
     @Override
     public void parseDocumentFields(final Hit hit, final IdolSearchResult.IdolSearchResultBuilder searchResultBuilder) {
-        final FieldsInfo fieldsInfo = configService.getConfig().getFieldsInfo();
-        final Map<FieldPath, FieldInfo<?>> fieldConfig = fieldsInfo.getFieldConfigByName();
-
         final DocContent content = hit.getContent();
         Map<String, FieldInfo<?>> fieldMap = Collections.emptyMap();
         String qmsId = null;
@@ -62,8 +61,14 @@ class FieldsParserImpl implements FieldsParser {
         if (content != null) {
             final Element docContent = (Element) content.getContent().get(0);
             if (docContent.hasChildNodes()) {
-                fieldMap = new HashMap<>();
-                parseAllFields(fieldConfig, docContent, fieldMap, docContent.getNodeName());
+                final Map<String, FieldAccumulator> accumulators = new HashMap<>();
+                parseAllFields(getFieldPathTrie().root(docContent.getNodeName()), docContent, accumulators);
+
+                fieldMap = new HashMap<>(accumulators.size());
+                for (final Map.Entry<String, FieldAccumulator> entry : accumulators.entrySet()) {
+                    fieldMap.put(entry.getKey(), entry.getValue().freeze());
+                }
+
                 qmsId = parseField(docContent, documentFieldsService.getQmsIdFieldInfo(), String.class);
                 promotionCategory = determinePromotionCategory(docContent, hit.getPromotionname(), hit.getDatabase());
             }
@@ -75,53 +80,34 @@ class FieldsParserImpl implements FieldsParser {
                 .promotionCategory(promotionCategory);
     }
 
+    private FieldPathTrie getFieldPathTrie() {
+        return configService.getConfig().getFieldsInfo().getSnapshot().getTable(fieldPathTries);
+    }
+
     /**
      * Add a parsed field to the result.
      *
-     * @param fieldMap Result fields
-     * @param fieldInfo Field definition, configured or computed
-     * @param fieldPath Full path to the field from the document root
+     * @param accumulators Result fields, keyed by field id
+     * @param node Field definition, configured or computed
      * @param value Parsed field value
-     * @param <T> Parsed field value type
      */
-    private <T extends Serializable> void addToFieldMap(final Map<String, FieldInfo<?>> fieldMap, final FieldInfo<T> fieldInfo, final FieldPath fieldPath, final FieldValue<T> value) {
-        final String id = fieldInfo.getId();
-        final String displayName = fieldDisplayNameGenerator.generateDisplayNameFromId(id);
-        if (fieldMap.containsKey(id)) {
-            @SuppressWarnings({"unchecked", "CastToConcreteClass"})
-            final FieldInfo<T> updatedFieldInfo = ((FieldInfo<T>) fieldMap.get(id)).toBuilder()
-                .name(fieldPath)
-                .value(value)
-                .build();
-            fieldMap.put(id, updatedFieldInfo);
-        } else {
-            final Collection<FieldPath> names = new ArrayList<>(fieldInfo.getNames().size());
-            names.add(fieldPath);
-            final FieldInfo<T> fieldInfoWithValue = FieldInfo.<T>builder()
-                .id(id)
-                .names(names)
-                .displayName(displayName)
-                .type(fieldInfo.getType())
-                .advanced(fieldInfo.isAdvanced())
-                .value(value)
-                .build();
-            fieldMap.put(id, fieldInfoWithValue);
-        }
+    private void addToFieldMap(final Map<String, FieldAccumulator> accumulators, final FieldPathTrie.Node node, final FieldValue<Serializable> value) {
+        accumulators.computeIfAbsent(node.getFieldInfo().getId(), id -> new FieldAccumulator(node))
+            .add(node.getFieldPath(), value);
     }
 
-    private void parseAllFields(final Map<FieldPath, FieldInfo<?>> fieldConfig, final Node node, final Map<String, FieldInfo<?>> fieldMap, final String name) {
-        final FieldPath fieldPath = fieldPathNormaliser.normaliseFieldPath(name);
-        final FieldInfo<Serializable> fieldInfo = getFieldInfo(fieldConfig, fieldPath);
+    private void parseAllFields(final FieldPathTrie.Node node, final Node domNode, final Map<String, FieldAccumulator> accumulators) {
+        final FieldInfo<Serializable> fieldInfo = node.getFieldInfo();
 
         // fields configured as records have separate handling for nested fields, so don't fall
         // through to the recursive call below
         if (fieldInfo.getType().equals(FieldType.RECORD)) {
-            final Serializable value = RecordType.parseValue(node);
-            addToFieldMap(fieldMap, fieldInfo, fieldPath, new FieldValue<>(value, null));
+            final Serializable value = RecordType.parseValue(domNode);
+            addToFieldMap(accumulators, node, new FieldValue<>(value, null));
             return;
         }
 
-        final NodeList childNodes = node.getChildNodes();
+        final NodeList childNodes = domNode.getChildNodes();
         for (int i = 0; i < childNodes.getLength(); i++) {
             final Node childNode = childNodes.item(i);
             if (childNode instanceof Text) {
@@ -131,38 +117,30 @@ class FieldsParserImpl implements FieldsParser {
                     final FieldType fieldType = fieldInfo.getType();
                     final Serializable value = (Serializable) fieldType.parseValue(fieldType.getType(), stringValue);
                     final String displayValue = fieldDisplayNameGenerator.generateDisplayValueFromId(id, value, fieldType);
-                    addToFieldMap(fieldMap, fieldInfo, fieldPath, new FieldValue<>(value, displayValue));
+                    addToFieldMap(accumulators, node, new FieldValue<>(value, displayValue));
                 }
 
             } else {
-                final FieldPath childPath = fieldPathNormaliser.normaliseFieldPath(name + '/' + childNode.getNodeName());
-                final FieldInfo<Serializable> childFieldInfo = getFieldInfo(fieldConfig, childPath);
+                final FieldPathTrie.Node childTrieNode = node.child(childNode.getNodeName());
+                final MapType childMapping = childTrieNode.getChildMapping();
 
-                if (fieldConfig.containsKey(childPath) && fieldConfig.get(childPath).getChildMapping() != null) {
-                    final String id = childFieldInfo.getId();
-                    final FieldType fieldType = childFieldInfo.getType();
-                    final LinkedHashMap<String, Serializable> value = childFieldInfo.getChildMapping().parseMapType(fieldType, childNode);
+                if (childMapping != null) {
+                    final String id = childTrieNode.getFieldInfo().getId();
+                    final FieldType fieldType = childTrieNode.getFieldInfo().getType();
+                    final LinkedHashMap<String, Serializable> value = childMapping.parseMapType(fieldType, childNode);
                     String displayValue = null;
                     if(!value.isEmpty()) {
                         displayValue = fieldDisplayNameGenerator.generateDisplayValueFromId(id, value.values().iterator().next(), fieldType);
                     }
-                    addToFieldMap(fieldMap, childFieldInfo, childPath, new FieldValue<Serializable>(value, displayValue));
+                    addToFieldMap(accumulators, childTrieNode, new FieldValue<Serializable>(value, displayValue));
                 }
 
                 // We still want to process the children, e.g. LAT is used for both Places and Location
-                parseAllFields(fieldConfig, childNode, fieldMap, name + '/' + childNode.getNodeName());
+                parseAllFields(childTrieNode, childNode, accumulators);
             }
         }
     }
 
-    private <T extends Serializable> FieldInfo<T> getFieldInfo(final Map<FieldPath, FieldInfo<?>> fieldConfig, final FieldPath fieldPath) {
-        return fieldConfig.containsKey(fieldPath) ? (FieldInfo<T>) fieldConfig.get(fieldPath) : FieldInfo.<T>builder()
-                .id(fieldPath.getNormalisedPath())
-                .name(fieldPath)
-                .advanced(true)
-                .build();
-    }
-
     private PromotionCategory determinePromotionCategory(final Element docContent, final CharSequence promotionName, final CharSequence database) {
         final PromotionCategory promotionCategory;
         final Boolean injectedPromotion = parseField(docContent, documentFieldsService.getInjectedPromotionFieldInfo(), Boolean.class);
@@ -39,7 +39,6 @@ import com.hp.autonomy.types.requests.idol.actions.query.params.GetContentParams
 import com.hp.autonomy.types.requests.idol.actions.query.params.HighlightParam;
 import com.hp.autonomy.types.requests.idol.actions.view.ViewActions;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.utils.URIBuilder;
@@ -49,7 +48,6 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -146,9 +144,8 @@ class IdolViewServerServiceImpl implements IdolViewServerService {
                     .content(content)
                     .build();
 
-            try (final InputStream inputStream = rawContentViewer.formatRawContent(rawDocument)) {
-                IOUtils.copy(inputStream, outputStream);
-            }
+            // write straight to the response rather than building the formatted document in memory
+            rawContentViewer.formatRawContent(rawDocument, outputStream);
         }
     }
 
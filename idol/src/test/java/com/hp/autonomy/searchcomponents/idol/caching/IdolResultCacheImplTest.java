@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.caching;
+
+import com.hp.autonomy.frontend.configuration.authentication.CommunityPrincipal;
+import com.hp.autonomy.searchcomponents.core.caching.CacheNames;
+import com.hpe.bigdata.frontend.spring.authentication.AuthenticationInformationRetriever;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IdolResultCacheImplTest {
+    @Mock
+    private AuthenticationInformationRetriever<?, CommunityPrincipal> authenticationInformationRetriever;
+
+    @Mock
+    private CommunityPrincipal alice;
+
+    @Mock
+    private CommunityPrincipal bob;
+
+    private AtomicLong clock;
+    private AtomicInteger loads;
+    private IdolResultCache resultCache;
+
+    @Before
+    public void setUp() {
+        when(alice.getName()).thenReturn("alice");
+        when(alice.getSecurityInfo()).thenReturn("alice-security-info");
+        when(bob.getName()).thenReturn("bob");
+        when(bob.getSecurityInfo()).thenReturn("bob-security-info");
+        when(authenticationInformationRetriever.getPrincipal()).thenReturn(alice);
+
+        clock = new AtomicLong();
+        loads = new AtomicInteger();
+        resultCache = new IdolResultCacheImpl(authenticationInformationRetriever, 2, 1000, clock::get);
+    }
+
+    @Test
+    public void cacheResult() {
+        assertThat(load("cat"), is("cat-1"));
+        assertThat(load("cat"), is("cat-1"));
+
+        assertThat(resultCache.getHits(), is(1L));
+        assertThat(resultCache.getMisses(), is(1L));
+        assertThat(resultCache.getHitRate(), is(0.5));
+    }
+
+    @Test
+    public void separateResultsByUser() {
+        assertThat(load("cat"), is("cat-1"));
+
+        when(authenticationInformationRetriever.getPrincipal()).thenReturn(bob);
+        assertThat(load("cat"), is("cat-2"));
+    }
+
+    @Test
+    public void separateResultsBySecurityInfo() {
+        assertThat(load("cat"), is("cat-1"));
+
+        when(alice.getSecurityInfo()).thenReturn("other-security-info");
+        assertThat(load("cat"), is("cat-2"));
+    }
+
+    @Test
+    public void separateResultsByCacheName() {
+        assertThat(resultCache.get(CacheNames.QUERY_TEXT_INDEX, "cat", () -> "documents"), is("documents"));
+        assertThat(resultCache.get(CacheNames.RELATED_CONCEPTS, "cat", () -> "concepts"), is("concepts"));
+    }
+
+    @Test
+    public void expireResult() {
+        assertThat(load("cat"), is("cat-1"));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThat(load("cat"), is("cat-1"));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(load("cat"), is("cat-2"));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedResult() {
+        load("cat");
+        load("dog");
+        load("cat");
+        load("fish");
+
+        assertThat(resultCache.size(), is(2));
+        assertThat(load("cat"), is("cat-1"));
+        assertThat(load("dog"), is("dog-4"));
+    }
+
+    @Test
+    public void doNotCacheFailure() {
+        try {
+            resultCache.get(CacheNames.QUERY_TEXT_INDEX, "cat", () -> {
+                throw new IllegalStateException("Failed");
+            });
+            fail("Expected IllegalStateException");
+        } catch (final IllegalStateException ignored) {
+        }
+
+        assertThat(load("cat"), is("cat-1"));
+        assertThat(resultCache.size(), is(1));
+    }
+
+    @Test
+    public void doNotCacheRejectedResult() {
+        assertThat(resultCache.get(CacheNames.QUERY_TEXT_INDEX, "cat", () -> "partial", "complete"::equals), is("partial"));
+        assertThat(resultCache.get(CacheNames.QUERY_TEXT_INDEX, "cat", () -> "complete", "complete"::equals), is("complete"));
+        assertThat(resultCache.get(CacheNames.QUERY_TEXT_INDEX, "cat", () -> "reloaded", "complete"::equals), is("complete"));
+        assertThat(resultCache.getMisses(), is(2L));
+        assertThat(resultCache.isEnabled(), is(false));
+    }
+
+    @Test
+    public void enabledCache() {
+        assertThat(resultCache.isEnabled(), is(true));
+        assertThat(resultCache.getTimeToLive(), is(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    public void cacheWithoutPrincipal() {
+        when(authenticationInformationRetriever.getPrincipal()).thenReturn(null);
+
+        assertThat(load("cat"), is("cat-1"));
+        assertThat(load("cat"), is("cat-1"));
+    }
+
+    @Test
+    public void disabledCache() {
+        resultCache = new IdolResultCacheImpl(authenticationInformationRetriever, 0, 1000, clock::get);
+
+        assertThat(load("cat"), is("cat-1"));
+        assertThat(load("cat"), is("cat-2"));
+        assertThat(resultCache.size(), is(0));
+        assertThat(resultCache.getMisses(), is(2L));
+    }
+
+    @Test
+    public void clear() {
+        load("cat");
+        resultCache.clear();
+
+        assertThat(load("cat"), is("cat-2"));
+    }
+
+    private String load(final String request) {
+        return resultCache.get(CacheNames.QUERY_TEXT_INDEX, request, () -> request + '-' + loads.incrementAndGet());
+    }
+}
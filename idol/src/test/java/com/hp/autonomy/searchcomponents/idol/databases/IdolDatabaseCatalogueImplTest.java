@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.databases;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.transport.AciParameter;
+import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import com.hp.autonomy.types.idol.responses.Database;
+import com.hp.autonomy.types.idol.responses.Databases;
+import com.hp.autonomy.types.idol.responses.GetStatusResponseData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IdolDatabaseCatalogueImplTest {
+    @Mock
+    private AciService contentAciService;
+
+    @Mock
+    private ProcessorFactory processorFactory;
+
+    private IdolDatabaseCatalogueImpl databaseCatalogue;
+
+    @Before
+    public void setUp() {
+        when(contentAciService.executeAction(anySetOf(AciParameter.class), any())).thenReturn(statusResponse());
+
+        databaseCatalogue = new IdolDatabaseCatalogueImpl(contentAciService, processorFactory, 0);
+    }
+
+    @After
+    public void tearDown() {
+        databaseCatalogue.destroy();
+    }
+
+    @Test
+    public void getPublicDatabases() {
+        final Set<Database> results = databaseCatalogue.getDatabases();
+        assertThat(results, hasSize(1));
+        assertThat(results.iterator().next().getName(), is("APublicDatabase"));
+    }
+
+    @Test
+    public void fetchDatabasesOnce() {
+        final Set<Database> databases = databaseCatalogue.getDatabases();
+
+        assertThat(databaseCatalogue.getDatabases(), is(sameInstance(databases)));
+        verify(contentAciService, times(1)).executeAction(anySetOf(AciParameter.class), any());
+    }
+
+    @Test
+    public void invalidateStaleDatabases() {
+        final Set<Database> staleDatabases = databaseCatalogue.getDatabases();
+        final Set<Database> databases = databaseCatalogue.invalidate(staleDatabases);
+
+        assertThat(databases, is(not(sameInstance(staleDatabases))));
+        assertThat(databaseCatalogue.getDatabases(), is(sameInstance(databases)));
+        verify(contentAciService, times(2)).executeAction(anySetOf(AciParameter.class), any());
+    }
+
+    @Test
+    public void doNotFetchAgainIfAlreadyInvalidated() {
+        final Set<Database> staleDatabases = databaseCatalogue.getDatabases();
+        final Set<Database> databases = databaseCatalogue.invalidate(staleDatabases);
+
+        assertThat(databaseCatalogue.invalidate(staleDatabases), is(sameInstance(databases)));
+        verify(contentAciService, times(2)).executeAction(anySetOf(AciParameter.class), any());
+    }
+
+    @Test
+    public void refreshDatabases() {
+        final Set<Database> databases = databaseCatalogue.getDatabases();
+        databaseCatalogue.refresh();
+
+        assertThat(databaseCatalogue.getDatabases(), is(not(sameInstance(databases))));
+    }
+
+    @Test
+    public void doNotRefreshUnreadDatabases() {
+        databaseCatalogue.refresh();
+
+        verify(contentAciService, never()).executeAction(anySetOf(AciParameter.class), any());
+    }
+
+    @Test
+    public void keepDatabasesIfRefreshFails() {
+        final Set<Database> databases = databaseCatalogue.getDatabases();
+        when(contentAciService.executeAction(anySetOf(AciParameter.class), any())).thenThrow(new AciErrorException());
+        databaseCatalogue.refresh();
+
+        assertThat(databaseCatalogue.getDatabases(), is(sameInstance(databases)));
+    }
+
+    private GetStatusResponseData statusResponse() {
+        final GetStatusResponseData responseData = new GetStatusResponseData();
+        final Databases databases = new Databases();
+        databases.getDatabase().add(mockDatabaseInfo("APublicDatabase", 123, false));
+        databases.getDatabase().add(mockDatabaseInfo("AnInternalDatabase", 456, true));
+        responseData.setDatabases(databases);
+        return responseData;
+    }
+
+    private Database mockDatabaseInfo(final String name, final long documents, final boolean internal) {
+        final Database database = new Database();
+        database.setName(name);
+        database.setDocuments(documents);
+        database.setInternal(internal);
+        return database;
+    }
+}
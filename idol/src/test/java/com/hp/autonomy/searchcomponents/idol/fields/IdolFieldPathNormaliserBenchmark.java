@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.fields;
+
+import com.hp.autonomy.searchcomponents.core.fields.AbstractFieldPathNormaliser;
+import com.hp.autonomy.searchcomponents.core.fields.FieldPathNormaliser;
+import com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricValuesService;
+import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Normalises 1,000 field paths in the forms seen in documents, parametric responses and field config, comparing
+ * {@link IdolFieldPathNormaliserImpl} with the previous regex-based normaliser. With 100 distinct paths every lookup
+ * is served from the cache; with 50,000 most paths are normalised afresh.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdolFieldPathNormaliserBenchmark {
+    private static final int PATHS_PER_INVOCATION = 1000;
+    private static final String[] PATH_FORMS = {"%s", "/DOCUMENT/%s", "DOCUMENTS/DOCUMENT/%s", "document/%s/child", "/%s"};
+
+    @Param({"100", "50000"})
+    private int distinctPaths;
+
+    private FieldPathNormaliser normaliser;
+    private FieldPathNormaliser regexNormaliser;
+    private List<String> paths;
+    private int offset;
+
+    @Setup
+    public void setUp() {
+        normaliser = new IdolFieldPathNormaliserImpl();
+        regexNormaliser = new RegexFieldPathNormaliser();
+
+        paths = new ArrayList<>(distinctPaths);
+        for(int i = 0; i < distinctPaths; i++) {
+            paths.add(String.format(PATH_FORMS[i % PATH_FORMS.length], "FIELD_" + i));
+        }
+    }
+
+    @Benchmark
+    public void singlePass(final Blackhole blackhole) {
+        normaliseAll(normaliser, blackhole);
+    }
+
+    @Benchmark
+    public void regex(final Blackhole blackhole) {
+        normaliseAll(regexNormaliser, blackhole);
+    }
+
+    private void normaliseAll(final FieldPathNormaliser fieldPathNormaliser, final Blackhole blackhole) {
+        for(int i = 0; i < PATHS_PER_INVOCATION; i++) {
+            blackhole.consume(fieldPathNormaliser.normaliseFieldPath(paths.get(offset)));
+            offset = (offset + 1) % paths.size();
+        }
+    }
+
+    public static void main(final String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IdolFieldPathNormaliserBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * The regex-based normaliser which {@link IdolFieldPathNormaliserImpl} replaced
+     */
+    private static class RegexFieldPathNormaliser extends AbstractFieldPathNormaliser {
+        private static final String IDX_PREFIX = "DOCUMENT/";
+        private static final Pattern FIELD_NAME_PATTERN = Pattern.compile("(/?[^/]+)+");
+        private static final Pattern IDX_PATH_PATTERN = Pattern.compile("^/?(?:" + IDX_PREFIX + ")?(?<fieldPath>[^/]+)$");
+        private static final Pattern XML_PATH_PATTERN = Pattern.compile("^/?(?:" + Pattern.quote("DOCUMENTS/") + ")?(?:" + IDX_PREFIX + ")?(?<fieldPath>[^/]+(?:/[^/]+)*)$");
+
+        @Override
+        public FieldPath normaliseFieldPath(final String fieldPath) {
+            if(StringUtils.isBlank(fieldPath) || !FIELD_NAME_PATTERN.matcher(fieldPath.trim()).matches()) {
+                throw new IllegalArgumentException("Field names may not be blank or contain only forward slashes");
+            }
+
+            String normalisedFieldName = fieldPath.toUpperCase();
+            if(!ParametricValuesService.AUTN_DATE_FIELD.equals(normalisedFieldName)) {
+                final Matcher idxMatcher = IDX_PATH_PATTERN.matcher(normalisedFieldName);
+                if(idxMatcher.find()) {
+                    normalisedFieldName = idxMatcher.group("fieldPath");
+                } else {
+                    final Matcher xmlMatcher = XML_PATH_PATTERN.matcher(normalisedFieldName);
+                    if(xmlMatcher.find()) {
+                        normalisedFieldName = xmlMatcher.group("fieldPath");
+                    }
+                }
+            }
+
+            final String fieldName = normalisedFieldName.contains("/") ? normalisedFieldName.substring(normalisedFieldName.lastIndexOf('/') + 1) : normalisedFieldName;
+            return newFieldPath(normalisedFieldName, fieldName);
+        }
+    }
+}
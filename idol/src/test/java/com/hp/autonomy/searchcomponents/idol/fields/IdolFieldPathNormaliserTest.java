@@ -14,19 +14,23 @@
 
 package com.hp.autonomy.searchcomponents.idol.fields;
 
-import com.hp.autonomy.searchcomponents.core.fields.FieldPathNormaliser;
+import com.hp.autonomy.types.requests.idol.actions.tags.FieldPath;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static com.hp.autonomy.searchcomponents.core.parametricvalues.ParametricValuesService.AUTN_DATE_FIELD;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class IdolFieldPathNormaliserTest {
     private static final String EXPECTED_NORMALISED_FIELD_PATH = "MY_FIELD";
     private static final String AMBIGUOUS_XML_FIELD_PATH = "MY_FIELD";
     private static final String EXPECTED_NORMALISED_XML_FIELD_PATH = "MY_FIELD1/MY_FIELD2";
 
-    private FieldPathNormaliser fieldPathNormaliser;
+    private IdolFieldPathNormaliserImpl fieldPathNormaliser;
 
     @Before
     public void setUp() {
@@ -172,4 +176,49 @@ public class IdolFieldPathNormaliserTest {
     public void nameOnlyXmlLowerCase() {
         assertEquals(EXPECTED_NORMALISED_XML_FIELD_PATH, fieldPathNormaliser.normaliseFieldPath("my_field1/my_field2").getNormalisedPath());
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void slashesOnly() {
+        fieldPathNormaliser.normaliseFieldPath("//");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptySegment() {
+        fieldPathNormaliser.normaliseFieldPath("MY_FIELD1//MY_FIELD2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void trailingSlash() {
+        fieldPathNormaliser.normaliseFieldPath("MY_FIELD1/");
+    }
+
+    @Test
+    public void fieldName() {
+        assertEquals("MY_FIELD2", fieldPathNormaliser.normaliseFieldPath("/DOCUMENTS/DOCUMENT/MY_FIELD1/MY_FIELD2").getFieldName());
+    }
+
+    @Test
+    public void customXmlPrefixes() {
+        fieldPathNormaliser.updatePattern(Arrays.asList("RESULTS", "HITS"));
+
+        assertEquals(EXPECTED_NORMALISED_XML_FIELD_PATH, fieldPathNormaliser.normaliseFieldPath("/HITS/DOCUMENT/MY_FIELD1/MY_FIELD2").getNormalisedPath());
+        assertEquals("DOCUMENTS/" + EXPECTED_NORMALISED_XML_FIELD_PATH, fieldPathNormaliser.normaliseFieldPath("/DOCUMENTS/DOCUMENT/MY_FIELD1/MY_FIELD2").getNormalisedPath());
+    }
+
+    @Test
+    public void reuseNormalisedPath() {
+        final FieldPath fieldPath = fieldPathNormaliser.normaliseFieldPath("/document/my_field");
+
+        assertSame(fieldPath, fieldPathNormaliser.normaliseFieldPath("/document/my_field"));
+    }
+
+    @Test
+    public void discardNormalisedPathsOnPrefixUpdate() {
+        final FieldPath fieldPath = fieldPathNormaliser.normaliseFieldPath("/DOCUMENTS/DOCUMENT/MY_FIELD1/MY_FIELD2");
+        fieldPathNormaliser.updatePattern(Arrays.asList("RESULTS"));
+
+        final FieldPath updatedFieldPath = fieldPathNormaliser.normaliseFieldPath("/DOCUMENTS/DOCUMENT/MY_FIELD1/MY_FIELD2");
+        assertNotSame(fieldPath, updatedFieldPath);
+        assertEquals("DOCUMENTS/" + EXPECTED_NORMALISED_XML_FIELD_PATH, updatedFieldPath.getNormalisedPath());
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.logging;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.searchcomponents.idol.configuration.IdolComponentLabelLookup;
+import com.hp.autonomy.types.requests.idol.actions.query.QueryActions;
+import com.hp.autonomy.types.requests.idol.actions.query.params.QueryParams;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead added to each Idol call by {@link IdolLoggingAspect} on four request threads, for a query with
+ * a 4KB SecurityInfo blob and a long FieldText restriction. The synchronous mode formats and writes the log line on the
+ * request thread, so its cost includes the configured appender; the asynchronous mode only records an event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class IdolLoggingAspectBenchmark {
+    private static final int FIELD_TEXT_TERMS = 100;
+
+    private IdolLoggingAspect synchronousAspect;
+    private IdolLoggingAspect asynchronousAspect;
+    private AciServerDetails serverDetails;
+    private AciParameters parameters;
+
+    @Setup
+    public void setUp() {
+        final IdolComponentLabelLookup lookup = (host, port) -> "Content";
+        synchronousAspect = new IdolLoggingAspect(lookup, true);
+        asynchronousAspect = new IdolLoggingAspect(lookup, true, new AsyncIdolRequestLog(8192, IdolLoggingAspect::writeEvent));
+
+        serverDetails = new AciServerDetails("content.example.com", 9100);
+
+        final StringBuilder fieldText = new StringBuilder();
+        for (int i = 0; i < FIELD_TEXT_TERMS; i++) {
+            fieldText.append(i == 0 ? "" : "+OR+").append("MATCH{value").append(i).append("}:FIELD").append(i % 10);
+        }
+
+        parameters = new AciParameters(QueryActions.Query.name());
+        parameters.add(QueryParams.Text.name(), "climate change");
+        parameters.add(QueryParams.FieldText.name(), fieldText.toString());
+        parameters.add(QueryParams.SecurityInfo.name(), StringUtils.repeat('x', 4096));
+        parameters.add(QueryParams.MaxResults.name(), 30);
+        parameters.add(QueryParams.Summary.name(), "context");
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        asynchronousAspect.destroy();
+    }
+
+    @Benchmark
+    public Object synchronous() throws Throwable {
+        return synchronousAspect.logIdolRequest(serverDetails, parameters, () -> null);
+    }
+
+    @Benchmark
+    public Object asynchronous() throws Throwable {
+        return asynchronousAspect.logIdolRequest(serverDetails, parameters, () -> null);
+    }
+
+    public static void main(final String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IdolLoggingAspectBenchmark.class.getSimpleName()).build()).run();
+    }
+}
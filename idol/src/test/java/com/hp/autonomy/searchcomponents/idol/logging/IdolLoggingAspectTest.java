@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.logging;
+
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.searchcomponents.idol.configuration.IdolComponentLabelLookup;
+import com.hp.autonomy.types.requests.idol.actions.query.QueryActions;
+import com.hp.autonomy.types.requests.idol.actions.query.params.QueryParams;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IdolLoggingAspectTest {
+    @Mock
+    private IdolComponentLabelLookup lookup;
+
+    @Mock
+    private AciResponseInputStream responseInputStream;
+
+    private List<IdolRequestEvent> events;
+    private AciServerDetails serverDetails;
+    private AciParameters parameters;
+    private IdolLoggingAspect aspect;
+
+    @Before
+    public void setUp() {
+        when(lookup.lookupComponentNameByHostAndPort("localhost", 9100)).thenReturn("Content");
+        when(responseInputStream.getStatusCode()).thenReturn(200);
+
+        events = new CopyOnWriteArrayList<>();
+        serverDetails = new AciServerDetails("localhost", 9100);
+
+        parameters = new AciParameters(QueryActions.Query.name());
+        parameters.add(QueryParams.Text.name(), "cat");
+        parameters.add(QueryParams.SecurityInfo.name(), "secret");
+
+        aspect = new IdolLoggingAspect(lookup, true, new AsyncIdolRequestLog(16, events::add));
+    }
+
+    @Test
+    public void recordEvent() throws Throwable {
+        assertThat(aspect.logIdolRequest(serverDetails, parameters, () -> responseInputStream), is(responseInputStream));
+        aspect.destroy();
+
+        assertThat(events, hasSize(1));
+
+        final IdolRequestEvent event = events.get(0);
+        assertThat(event.getComponent(), is("Content"));
+        assertThat(event.getAction(), is(QueryActions.Query.name()));
+        assertThat(event.getStatusCode(), is(200));
+        assertThat(event.getDurationNanos() >= 0, is(true));
+        assertThat(event.toLogMessage(), startsWith("Content\tlocalhost\t9100\t"));
+        assertThat(event.toLogMessage(), containsString("action=Query"));
+        assertThat(event.toLogMessage(), containsString("SecurityInfo=*******"));
+        assertThat(event.toLogMessage(), not(containsString("secret")));
+    }
+
+    @Test
+    public void recordUnreachableServer() throws Throwable {
+        try {
+            aspect.logIdolRequest(serverDetails, parameters, () -> {
+                throw new IOException("Connection refused");
+            });
+            fail("Expected IOException");
+        } catch (final IOException ignored) {
+        }
+
+        aspect.destroy();
+
+        assertThat(events, hasSize(1));
+        assertThat(events.get(0).getStatusCode(), is(nullValue()));
+        assertThat(events.get(0).toLogMessage(), containsString("(server unreachable)"));
+    }
+
+    @Test
+    public void omitDurationWhenTimingDisabled() throws Throwable {
+        aspect = new IdolLoggingAspect(lookup, false, new AsyncIdolRequestLog(16, events::add));
+
+        aspect.logIdolRequest(serverDetails, parameters, () -> responseInputStream);
+        aspect.destroy();
+
+        assertThat(events.get(0).getDurationNanos() < 0, is(true));
+        assertThat(events.get(0).toLogMessage(), not(containsString("ms\t")));
+    }
+}
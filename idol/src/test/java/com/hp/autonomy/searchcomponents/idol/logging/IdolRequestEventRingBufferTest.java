@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.logging;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class IdolRequestEventRingBufferTest {
+    @Test
+    public void roundCapacityUpToPowerOfTwo() {
+        final IdolRequestEventRingBuffer buffer = new IdolRequestEventRingBuffer(3);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(event(i)), is(true));
+        }
+
+        assertThat(buffer.offer(event(4)), is(false));
+    }
+
+    @Test
+    public void pollInOrder() {
+        final IdolRequestEventRingBuffer buffer = new IdolRequestEventRingBuffer(4);
+        final IdolRequestEvent first = event(1);
+        final IdolRequestEvent second = event(2);
+
+        buffer.offer(first);
+        buffer.offer(second);
+
+        assertThat(buffer.poll(), is(sameInstance(first)));
+        assertThat(buffer.poll(), is(sameInstance(second)));
+        assertThat(buffer.poll(), is(nullValue()));
+    }
+
+    @Test
+    public void reuseSlotsOnceConsumed() {
+        final IdolRequestEventRingBuffer buffer = new IdolRequestEventRingBuffer(2);
+
+        for (int i = 0; i < 10; i++) {
+            final IdolRequestEvent event = event(i);
+            assertThat(buffer.offer(event), is(true));
+            assertThat(buffer.poll(), is(sameInstance(event)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectEmptyCapacity() {
+        new IdolRequestEventRingBuffer(0);
+    }
+
+    private IdolRequestEvent event(final int port) {
+        return new IdolRequestEvent("Content", "localhost", port, Collections.emptyList(), 1, 200, "");
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.metrics;
+
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.searchcomponents.idol.configuration.IdolComponentLabelLookup;
+import com.hp.autonomy.types.requests.idol.actions.query.QueryActions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IdolMetricsAspectTest {
+    @Mock
+    private IdolComponentLabelLookup lookup;
+
+    @Mock
+    private IdolRequestMetrics metrics;
+
+    @Mock
+    private AciResponseInputStream responseInputStream;
+
+    private AciServerDetails serverDetails;
+    private IdolMetricsAspect aspect;
+
+    @Before
+    public void setUp() {
+        when(lookup.lookupComponentNameByHostAndPort("localhost", 9100)).thenReturn("Content");
+        serverDetails = new AciServerDetails("localhost", 9100);
+        aspect = new IdolMetricsAspect(lookup, metrics);
+    }
+
+    @Test
+    public void recordSuccess() throws Throwable {
+        when(responseInputStream.getStatusCode()).thenReturn(200);
+
+        aspect.recordIdolRequest(serverDetails, new AciParameters(QueryActions.GetQueryTagValues.name()), () -> responseInputStream);
+
+        verify(metrics).requestStarted("Content", QueryActions.GetQueryTagValues.name());
+        verify(metrics).requestFinished(eq("Content"), eq(QueryActions.GetQueryTagValues.name()), anyLong(), eq(false));
+    }
+
+    @Test
+    public void recordErrorStatus() throws Throwable {
+        when(responseInputStream.getStatusCode()).thenReturn(500);
+
+        aspect.recordIdolRequest(serverDetails, new AciParameters(QueryActions.Query.name()), () -> responseInputStream);
+
+        verify(metrics).requestFinished(eq("Content"), eq(QueryActions.Query.name()), anyLong(), eq(true));
+    }
+
+    @Test
+    public void recordException() throws Throwable {
+        try {
+            aspect.recordIdolRequest(serverDetails, new AciParameters(QueryActions.Query.name()), () -> {
+                throw new IOException("Connection refused");
+            });
+            fail("Expected IOException");
+        } catch (final IOException ignored) {
+        }
+
+        verify(metrics).requestFinished(eq("Content"), eq(QueryActions.Query.name()), anyLong(), eq(true));
+    }
+
+    @Test
+    public void recordMissingAction() throws Throwable {
+        aspect.recordIdolRequest(serverDetails, new AciParameters(), () -> responseInputStream);
+
+        verify(metrics).requestStarted("Content", IdolMetricsAspect.UNKNOWN_ACTION);
+    }
+}
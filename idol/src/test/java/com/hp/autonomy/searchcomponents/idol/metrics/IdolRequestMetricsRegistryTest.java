@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class IdolRequestMetricsRegistryTest {
+    private IdolRequestMetricsRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new IdolRequestMetricsRegistry();
+    }
+
+    @Test
+    public void separateComponentsAndActions() {
+        registry.requestStarted("QMS", "Query");
+        registry.requestFinished("QMS", "Query", 1000, false);
+        registry.requestStarted("Content", "GetQueryTagValues");
+        registry.requestFinished("Content", "GetQueryTagValues", 2000, false);
+        registry.requestStarted("Content", "Query");
+        registry.requestFinished("Content", "Query", 3000, true);
+
+        final List<IdolRequestStatistics> statistics = registry.getStatistics();
+        assertThat(statistics, hasSize(3));
+        assertThat(statistics.get(0).getAction(), is("GetQueryTagValues"));
+        assertThat(statistics.get(1).getComponent(), is("Content"));
+        assertThat(statistics.get(1).getAction(), is("Query"));
+        assertThat(statistics.get(1).getErrors(), is(1L));
+        assertThat(statistics.get(2).getComponent(), is("QMS"));
+        assertThat(statistics.get(2).getErrors(), is(0L));
+    }
+
+    @Test
+    public void countInFlightRequests() {
+        registry.requestStarted("Content", "Query");
+        registry.requestStarted("Content", "Query");
+        registry.requestFinished("Content", "Query", 1000, false);
+
+        final IdolRequestStatistics statistics = registry.getStatistics("Content", "Query").get();
+        assertThat(statistics.getInFlight(), is(1L));
+        assertThat(statistics.getCount(), is(1L));
+    }
+
+    @Test
+    public void summariseLatency() {
+        for (int i = 1; i <= 100; i++) {
+            registry.requestStarted("Content", "Query");
+            registry.requestFinished("Content", "Query", i, false);
+        }
+
+        final IdolRequestStatistics statistics = registry.getStatistics("Content", "Query").get();
+        assertThat(statistics.getCount(), is(100L));
+        assertThat(statistics.getMeanNanos(), is(50.5));
+        assertThat(statistics.getMaxNanos(), is(100L));
+        assertThat(statistics.getP50Nanos(), is(50L));
+        assertThat(statistics.getP999Nanos(), is(100L));
+    }
+
+    @Test
+    public void noStatisticsForUncalledAction() {
+        assertThat(registry.getStatistics("Content", "Query").isPresent(), is(false));
+    }
+}
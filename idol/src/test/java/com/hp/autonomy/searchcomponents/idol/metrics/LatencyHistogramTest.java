@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class LatencyHistogramTest {
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void empty() {
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getMean(), is(0.0));
+        assertThat(histogram.getValueAtQuantile(0.99), is(0L));
+    }
+
+    @Test
+    public void countSmallValuesExactly() {
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+
+        assertThat(histogram.getValueAtQuantile(0.5), is(25L));
+        assertThat(histogram.getValueAtQuantile(1), is(50L));
+        assertThat(histogram.getMean(), is(25.5));
+    }
+
+    @Test
+    public void boundRelativeError() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000_000L);
+        }
+
+        assertThat(histogram.getCount(), is(1000L));
+        assertThat(histogram.getMax(), is(1_000_000_000L));
+        assertWithinError(histogram.getValueAtQuantile(0.5), 500_000_000L);
+        assertWithinError(histogram.getValueAtQuantile(0.99), 990_000_000L);
+        assertWithinError(histogram.getValueAtQuantile(0.999), 999_000_000L);
+        assertThat(histogram.getValueAtQuantile(1), is(1_000_000_000L));
+    }
+
+    @Test
+    public void bucketContainsValue() {
+        for (long value = 1; value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            final int index = LatencyHistogram.bucketIndex(value);
+            assertThat(value, lessThanOrEqualTo(LatencyHistogram.bucketUpperBound(index)));
+            assertThat(value, greaterThanOrEqualTo(index == 0 ? 0 : LatencyHistogram.bucketUpperBound(index - 1) + 1));
+        }
+
+        assertThat(LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void clampNegativeValues() {
+        histogram.record(-1);
+
+        assertThat(histogram.getValueAtQuantile(1), is(0L));
+    }
+
+    private void assertWithinError(final long actual, final long expected) {
+        assertThat(actual, is(allOf(greaterThanOrEqualTo(expected), lessThanOrEqualTo(expected + expected / 32))));
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.parametricvalues;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class FieldHistogramTest {
+    @Test
+    public void fetchEveryFineBucketOfFirstRequest() {
+        final FieldHistogram histogram = new FieldHistogram(false, 100);
+
+        final FieldHistogram.Plan plan = histogram.plan(new double[]{0, 10, 20, 30, 40});
+
+        assertThat(plan.getFinePerBucket(), is(4));
+        assertThat(plan.getGrid().getWidth(), is(2.5));
+        assertThat(plan.getUncovered().size(), is(1));
+        assertThat(plan.getUncovered().get(0).getStart(), is(0L));
+        assertThat(plan.getUncovered().get(0).getEnd(), is(16L));
+        assertThat(histogram.storeAndCount(plan, sequence(16)), is(new long[]{10, 26, 42, 58}));
+    }
+
+    @Test
+    public void sumCoarserRequest() {
+        final FieldHistogram histogram = new FieldHistogram(false, 100);
+        fill(histogram, new double[]{0, 10, 20, 30, 40});
+
+        final FieldHistogram.Plan plan = histogram.plan(new double[]{0, 20, 40});
+
+        assertThat(plan.isCovered(), is(true));
+        assertThat(histogram.counts(plan), is(new long[]{36, 100}));
+    }
+
+    @Test
+    public void sumFinerRequest() {
+        final FieldHistogram histogram = new FieldHistogram(false, 100);
+        fill(histogram, new double[]{0, 10, 20, 30, 40});
+
+        final FieldHistogram.Plan plan = histogram.plan(new double[]{5, 10, 15});
+
+        assertThat(plan.isCovered(), is(true));
+        assertThat(histogram.counts(plan), is(new long[]{3 + 4, 5 + 6}));
+    }
+
+    @Test
+    public void fetchOnlyEdgesOfShiftedRequest() {
+        final FieldHistogram histogram = new FieldHistogram(false, 100);
+        fill(histogram, new double[]{10, 20, 30});
+
+        final FieldHistogram.Plan plan = histogram.plan(new double[]{0, 20, 40});
+
+        assertThat(plan.getUncovered().size(), is(2));
+        assertThat(plan.getUncovered().get(0).getStart(), is(0L));
+        assertThat(plan.getUncovered().get(0).getEnd(), is(4L));
+        assertThat(plan.getUncovered().get(1).getStart(), is(12L));
+        assertThat(plan.getUncovered().get(1).getEnd(), is(16L));
+        assertThat(plan.getUncoveredCount(), is(16));
+
+        // the fetched array spans both edges; the held buckets in between are not overwritten
+        final long[] fetched = new long[16];
+        Arrays.fill(fetched, 100);
+        assertThat(histogram.storeAndCount(plan, fetched), is(new long[]{400 + 10, 26 + 400}));
+    }
+
+    @Test
+    public void rejectStoreAfterConcurrentReplace() {
+        final FieldHistogram histogram = new FieldHistogram(false, 100);
+        fill(histogram, new double[]{10, 20, 30});
+
+        // both plans are made before either fetch returns; the second replaces the held buckets first
+        final FieldHistogram.Plan edges = histogram.plan(new double[]{0, 20, 40});
+        final FieldHistogram.Plan distant = histogram.plan(new double[]{200, 210, 220});
+        assertThat(distant.getGrid(), is(edges.getGrid()));
+        assertThat(histogram.storeAndCount(distant, sequence(distant.getUncoveredCount())), is(notNullValue()));
+
+        // the held middle of the first plan is gone, so its edges alone would undercount
+        assertThat(histogram.storeAndCount(edges, sequence(edges.getUncoveredCount())), is(nullValue()));
+        assertThat(histogram.counts(edges), is(nullValue()));
+    }
+
+    @Test
+    public void rejectStoreAfterConcurrentTrim() {
+        final FieldHistogram histogram = new FieldHistogram(false, 8);
+        fill(histogram, new double[]{0, 10, 20});
+        fill(histogram, new double[]{20, 30, 40});
+
+        // both plans extend the held buckets; the first to store grows them past the limit, trimming the rest away
+        final FieldHistogram.Plan left = histogram.plan(new double[]{-5, 5});
+        final FieldHistogram.Plan right = histogram.plan(new double[]{40, 50, 60});
+        assertThat(left.isPartlyHeld(), is(true));
+        assertThat(histogram.storeAndCount(right, sequence(right.getUncoveredCount())), is(notNullValue()));
+
+        assertThat(histogram.storeAndCount(left, sequence(left.getUncoveredCount())), is(nullValue()));
+    }
+
+    @Test
+    public void createNewGridForUnalignedRequest() {
+        final FieldHistogram histogram = new FieldHistogram(false, 100);
+        fill(histogram, new double[]{0, 10, 20});
+
+        final FieldHistogram.Plan plan = histogram.plan(new double[]{1, 4, 7});
+
+        assertThat(plan, is(notNullValue()));
+        assertThat(plan.getGrid().getWidth(), is(0.75));
+        assertThat(plan.isCovered(), is(false));
+    }
+
+    @Test
+    public void useWholeFineBucketsForIntegralAxis() {
+        final FieldHistogram histogram = new FieldHistogram(true, 100);
+
+        final FieldHistogram.Plan plan = histogram.plan(new double[]{1000, 1010, 1020});
+
+        assertThat(plan.getGrid().getWidth(), is(5.0));
+        assertThat(plan.getFinePerBucket(), is(2));
+    }
+
+    @Test
+    public void rejectUnequalBuckets() {
+        assertThat(new FieldHistogram(false, 100).plan(new double[]{0, 1, 3}), is(nullValue()));
+    }
+
+    @Test
+    public void rejectRequestNeedingTooManyFineBuckets() {
+        assertThat(new FieldHistogram(false, 4).plan(new double[]{0, 1, 2, 3, 4, 5}), is(nullValue()));
+    }
+
+    @Test
+    public void matchReturnedBucketsToFineIndexes() {
+        final FieldHistogram histogram = new FieldHistogram(false, 100);
+        final FieldHistogram.Grid grid = histogram.plan(new double[]{0, 10, 20}).getGrid();
+
+        assertThat(grid.fineIndex(7.5, 10), is(3L));
+        assertThat(grid.fineIndex(7.5, 12.5), is(nullValue()));
+        assertThat(grid.fineIndex(7, 9.5), is(nullValue()));
+    }
+
+    private void fill(final FieldHistogram histogram, final double[] boundaries) {
+        final FieldHistogram.Plan plan = histogram.plan(boundaries);
+        histogram.storeAndCount(plan, sequence(plan.getUncoveredCount()));
+    }
+
+    private long[] sequence(final int length) {
+        final long[] values = new long[length];
+        for(int i = 0; i < length; i++) {
+            values[i] = i + 1;
+        }
+        return values;
+    }
+}
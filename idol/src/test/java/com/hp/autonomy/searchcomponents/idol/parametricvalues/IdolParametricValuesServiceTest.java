@@ -15,15 +15,26 @@
 package com.hp.autonomy.searchcomponents.idol.parametricvalues;
 
 import com.autonomy.aci.client.util.AciParameters;
+import com.autonomy.aci.client.services.AciErrorException;
 import com.google.common.collect.ImmutableMap;
+import com.hp.autonomy.searchcomponents.core.caching.CacheNames;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestExecutor;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestTimeoutException;
+import com.hp.autonomy.searchcomponents.core.concurrent.PartialResults;
 import com.hp.autonomy.searchcomponents.core.fields.TagNameFactory;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.BucketingParams;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.BucketingParamsHelper;
 import com.hp.autonomy.searchcomponents.core.parametricvalues.DependentParametricField;
+import com.hp.autonomy.searchcomponents.core.search.StateTokenAndResultCount;
+import com.hp.autonomy.searchcomponents.core.search.TypedStateToken;
 import com.hp.autonomy.searchcomponents.core.test.CoreTestContext;
+import com.hp.autonomy.searchcomponents.idol.caching.IdolResultCache;
 import com.hp.autonomy.searchcomponents.idol.fields.IdolFieldsRequestBuilder;
 import com.hp.autonomy.searchcomponents.idol.fields.IdolFieldsService;
 import com.hp.autonomy.searchcomponents.idol.search.HavenSearchAciParameterHandler;
+import com.hp.autonomy.searchcomponents.idol.search.IdolDocumentsService;
+import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRestrictions;
+import com.hp.autonomy.searchcomponents.idol.search.IdolQueryRestrictionsBuilder;
 import com.hp.autonomy.searchcomponents.idol.search.QueryExecutor;
 import com.hp.autonomy.types.idol.responses.DateOrNumber;
 import com.hp.autonomy.types.idol.responses.FlatField;
@@ -40,12 +51,15 @@ import com.hp.autonomy.types.requests.idol.actions.tags.QueryTagInfo;
 import com.hp.autonomy.types.requests.idol.actions.tags.TagName;
 import com.hp.autonomy.types.requests.idol.actions.tags.ValueDetails;
 import com.hp.autonomy.types.requests.idol.actions.tags.params.FieldTypeParam;
+import com.hp.autonomy.types.requests.idol.actions.tags.params.GetQueryTagValuesParams;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.mockito.stubbing.OngoingStubbing;
 import org.springframework.beans.factory.ObjectFactory;
@@ -57,24 +71,32 @@ import org.springframework.test.context.junit4.rules.SpringMethodRule;
 import javax.xml.bind.JAXBElement;
 import javax.xml.namespace.QName;
 import java.io.Serializable;
+import java.time.Duration;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.chrono.ChronoZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.hp.autonomy.searchcomponents.core.test.CoreTestContext.CORE_CLASSES_PROPERTY;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
 import static org.hamcrest.collection.IsMapContaining.hasEntry;
@@ -82,7 +104,17 @@ import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNot.not;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SuppressWarnings("SpringJavaAutowiredMembersInspection")
@@ -118,6 +150,15 @@ public class IdolParametricValuesServiceTest {
     @Mock
     private QueryExecutor queryExecutor;
 
+    @Mock
+    private IdolResultCache resultCache;
+
+    @Mock
+    private ParallelRequestExecutor parallelRequestExecutor;
+
+    @Mock
+    private IdolDocumentsService documentsService;
+
     private IdolParametricValuesService parametricValuesService;
 
     @SuppressWarnings("CastToConcreteClass")
@@ -125,14 +166,38 @@ public class IdolParametricValuesServiceTest {
     public void setUp() {
         when(fieldsRequestBuilderFactory.getObject()).thenReturn(fieldsRequestBuilder);
         when(fieldsRequestBuilder.fieldType(any())).thenReturn(fieldsRequestBuilder);
+        when(resultCache.get(any(), any(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArguments()[2]).get());
+        when(resultCache.get(any(), any(), any(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArguments()[2]).get());
+        when(resultCache.isEnabled()).thenReturn(true);
+        when(resultCache.getTimeToLive()).thenReturn(Duration.ofMinutes(1));
+        when(parallelRequestExecutor.executeAllPartial(any(), any(), anyInt(), anyLong())).thenAnswer(invocation -> executeInline(invocation, 0));
+
+        parametricValuesService = createService(0, 0);
+    }
+
+    private IdolParametricValuesService createService(final int fieldShardSize) {
+        return createService(fieldShardSize, 0);
+    }
+
+    private IdolParametricValuesService createService(final int fieldShardSize, final int stateTokenMaxResults) {
+        return createService(fieldShardSize, stateTokenMaxResults, 0);
+    }
 
-        parametricValuesService = new IdolParametricValuesServiceImpl(
+    private IdolParametricValuesService createService(final int fieldShardSize, final int stateTokenMaxResults, final int histogramMaxFineBuckets) {
+        return new IdolParametricValuesServiceImpl(
             parameterHandler,
             fieldsService,
             fieldsRequestBuilderFactory,
             bucketingParamsHelper,
             tagNameFactory,
-            queryExecutor
+            queryExecutor,
+            resultCache,
+            parallelRequestExecutor,
+            fieldShardSize,
+            100,
+            documentsService,
+            stateTokenMaxResults,
+            histogramMaxFineBuckets
         );
     }
 
@@ -171,6 +236,182 @@ public class IdolParametricValuesServiceTest {
         assertThat(results, is(empty()));
     }
 
+    @Test
+    public void requestAllFieldsTogetherByDefault() {
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "B", "C"));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenReturn(mockQueryResponse());
+
+        final PartialParametricValues results = parametricValuesService.getPartialParametricValues(idolParametricRequest);
+
+        assertThat(results.isComplete(), is(true));
+        verify(queryExecutor, times(1)).executeGetQueryTagValues(any(AciParameters.class), any());
+    }
+
+    @Test
+    public void requestFieldsInShards() {
+        parametricValuesService = createService(2);
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "B", "C", "D", "E"));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenAnswer(invocation -> mockQueryResponse(fieldName(invocation.getArguments()[0])));
+
+        final PartialParametricValues results = parametricValuesService.getPartialParametricValues(idolParametricRequest);
+
+        assertThat(results.isComplete(), is(true));
+        assertThat(results.getValues().stream().map(QueryTagInfo::getId).collect(Collectors.toList()), contains("A", "C", "E"));
+
+        final ArgumentCaptor<AciParameters> captor = ArgumentCaptor.forClass(AciParameters.class);
+        verify(queryExecutor, times(3)).executeGetQueryTagValues(captor.capture(), any());
+        assertThat(captor.getAllValues().stream().map(this::fieldName).collect(Collectors.toList()), contains("A,B", "C,D", "E"));
+    }
+
+    @Test
+    public void reportFieldsOfFailedShard() {
+        parametricValuesService = createService(2);
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "B", "C"));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenAnswer(invocation -> {
+            final String fieldName = fieldName(invocation.getArguments()[0]);
+            if("A,B".equals(fieldName)) {
+                throw new AciErrorException("Field too slow");
+            }
+            return mockQueryResponse(fieldName);
+        });
+
+        final PartialParametricValues results = parametricValuesService.getPartialParametricValues(idolParametricRequest);
+
+        assertThat(results.isComplete(), is(false));
+        assertThat(results.getMissingFields(), contains(tagNameFactory.getFieldPath("A"), tagNameFactory.getFieldPath("B")));
+        assertThat(results.getValues().stream().map(QueryTagInfo::getId).collect(Collectors.toList()), contains("C"));
+        verify(resultCache, atLeastOnce()).get(any(), any(), any(), any());
+    }
+
+    @Test
+    public void reportFieldsOfTimedOutShard() {
+        parametricValuesService = createService(2);
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "B", "C"));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenAnswer(invocation -> mockQueryResponse(fieldName(invocation.getArguments()[0])));
+        when(parallelRequestExecutor.executeAllPartial(any(), any(), anyInt(), anyLong())).thenAnswer(invocation -> executeInline(invocation, 1));
+
+        final PartialParametricValues results = parametricValuesService.getPartialParametricValues(idolParametricRequest);
+
+        assertThat(results.getMissingFields(), contains(tagNameFactory.getFieldPath("A"), tagNameFactory.getFieldPath("B")));
+        assertThat(results.getValues().stream().map(QueryTagInfo::getId).collect(Collectors.toList()), contains("C"));
+    }
+
+    @Test
+    public void mergeShardsInRequestedOrder() {
+        parametricValuesService = createService(2);
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "C", "E", "G"));
+        // the later shard completes first, and each shard's response lists its fields in reverse
+        when(parallelRequestExecutor.executeAllPartial(any(), any(), anyInt(), anyLong())).thenAnswer(invocation -> {
+            final PartialResults<Object, Object> results = executeInline(invocation, 0);
+            final Map<Object, Object> reversed = new LinkedHashMap<>();
+            new LinkedList<>(results.getResults().keySet()).descendingIterator().forEachRemaining(shard -> {
+                final List<Object> fields = new ArrayList<>((Collection<?>) results.getResults().get(shard));
+                Collections.reverse(fields);
+                reversed.put(shard, fields);
+            });
+            return new PartialResults<>(reversed, results.getFailures());
+        });
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenAnswer(invocation -> mockQueryResponse(fieldName(invocation.getArguments()[0])));
+
+        final PartialParametricValues results = parametricValuesService.getPartialParametricValues(idolParametricRequest);
+
+        assertThat(results.getValues().stream().map(QueryTagInfo::getId).collect(Collectors.toList()), contains("A", "C", "E", "G"));
+    }
+
+    @Test
+    public void treatFieldsLeftOutOfShardResponseAsUnsharded() {
+        parametricValuesService = createService(2);
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "C", "E"));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenAnswer(invocation -> {
+            final String fieldName = fieldName(invocation.getArguments()[0]);
+            return mockQueryResponse("A,C".equals(fieldName) ? "A" : fieldName);
+        });
+
+        final PartialParametricValues results = parametricValuesService.getPartialParametricValues(idolParametricRequest);
+
+        assertThat(results.isComplete(), is(true));
+        assertThat(results.getMissingFields(), empty());
+        assertThat(results.getValues().stream().map(QueryTagInfo::getId).collect(Collectors.toList()), contains("A", "E"));
+    }
+
+    @Test(expected = AciErrorException.class)
+    public void failWhenEveryShardFails() {
+        parametricValuesService = createService(2);
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "B", "C"));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenThrow(new AciErrorException("Bad query"));
+
+        parametricValuesService.getPartialParametricValues(idolParametricRequest);
+    }
+
+    @Test(expected = ParallelRequestTimeoutException.class)
+    public void failWhenEveryShardTimesOut() {
+        parametricValuesService = createService(2);
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "B", "C"));
+        when(parallelRequestExecutor.executeAllPartial(any(), any(), anyInt(), anyLong())).thenAnswer(invocation -> executeInline(invocation, Integer.MAX_VALUE));
+
+        parametricValuesService.getPartialParametricValues(idolParametricRequest);
+    }
+
+    @Test
+    public void evaluateFacetsAgainstStateToken() {
+        parametricValuesService = createService(0, 100);
+        final IdolParametricRequest idolParametricRequest = mockRequest(Collections.singletonList("Some field"));
+        final IdolQueryRestrictions queryRestrictions = mock(IdolQueryRestrictions.class);
+        final IdolQueryRestrictions stateTokenRestrictions = mock(IdolQueryRestrictions.class);
+        final IdolQueryRestrictionsBuilder restrictionsBuilder = mockRestrictionsBuilder(stateTokenRestrictions);
+        when(idolParametricRequest.getQueryRestrictions()).thenReturn(queryRestrictions);
+        when(queryRestrictions.toBuilder()).thenReturn(restrictionsBuilder);
+        when(documentsService.getExpiringStateToken(queryRestrictions, 100, false, Duration.ofMinutes(6))).thenReturn(stateTokenAndResultCount(100));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenReturn(mockQueryResponse());
+
+        parametricValuesService.getParametricValues(idolParametricRequest);
+
+        verify(restrictionsBuilder).queryText("*");
+        verify(restrictionsBuilder).fieldText(null);
+        verify(restrictionsBuilder).stateMatchId("STATE-TOKEN");
+        verify(idolParametricRequest.toBuilder()).queryRestrictions(stateTokenRestrictions);
+        verify(resultCache).get(eq(CacheNames.STATE_TOKEN_AND_RESULT_COUNT), eq(queryRestrictions), any());
+    }
+
+    @Test
+    public void sendRestrictionsWhenStateTokenTruncated() {
+        parametricValuesService = createService(0, 100);
+        final IdolParametricRequest idolParametricRequest = mockRequest(Collections.singletonList("Some field"));
+        final IdolQueryRestrictions queryRestrictions = mock(IdolQueryRestrictions.class);
+        when(idolParametricRequest.getQueryRestrictions()).thenReturn(queryRestrictions);
+        when(documentsService.getExpiringStateToken(queryRestrictions, 100, false, Duration.ofMinutes(6))).thenReturn(stateTokenAndResultCount(101));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenReturn(mockQueryResponse());
+
+        parametricValuesService.getParametricValues(idolParametricRequest);
+
+        verify(queryRestrictions, never()).toBuilder();
+        verify(parameterHandler).addSearchRestrictions(any(), eq(queryRestrictions));
+    }
+
+    @Test
+    public void sendRestrictionsForModifiedRequest() {
+        parametricValuesService = createService(0, 100);
+        final IdolParametricRequest idolParametricRequest = mockRequest(Collections.singletonList("Some field"));
+        when(idolParametricRequest.isModified()).thenReturn(true);
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenReturn(mockQueryResponse());
+
+        parametricValuesService.getParametricValues(idolParametricRequest);
+
+        verify(documentsService, never()).getExpiringStateToken(any(), anyInt(), anyBoolean(), any());
+    }
+
+    @Test
+    public void sendRestrictionsWhenResultCacheDisabled() {
+        parametricValuesService = createService(0, 100);
+        when(resultCache.isEnabled()).thenReturn(false);
+        final IdolParametricRequest idolParametricRequest = mockRequest(Collections.singletonList("Some field"));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenReturn(mockQueryResponse());
+
+        parametricValuesService.getParametricValues(idolParametricRequest);
+
+        verify(documentsService, never()).getExpiringStateToken(any(), anyInt(), anyBoolean(), any());
+    }
+
     @Test
     public void getNumericValueDetailsNoFields() {
         final IdolParametricRequest parametricRequest = mockRequest(Collections.emptyList());
@@ -318,6 +559,156 @@ public class IdolParametricValuesServiceTest {
         assertThat(results, is(empty()));
     }
 
+    @Test
+    public void answerCoarserBucketsFromHistogram() {
+        parametricValuesService = createService(0, 0, 100);
+        mockHistogramCache();
+        mockFineBucketResponse(0, 16, 1);
+
+        final IdolParametricRequest idolParametricRequest = mockRequest(Collections.singletonList("ParametricNumericDateField"));
+        final FieldPath fieldPath = tagNameFactory.getFieldPath("ParametricNumericDateField");
+        parametricValuesService.getNumericParametricValuesInBuckets(idolParametricRequest, ImmutableMap.of(fieldPath, new BucketingParams<>(4, 0.0, 40.0)));
+        final List<NumericRangeInfo> results = parametricValuesService.getNumericParametricValuesInBuckets(idolParametricRequest, ImmutableMap.of(fieldPath, new BucketingParams<>(2, 0.0, 40.0)));
+
+        verify(queryExecutor, times(1)).executeGetQueryTagValues(any(AciParameters.class), any());
+        final NumericRangeInfo info = results.get(0);
+        assertEquals(16, info.getCount());
+        assertThat(info.getValues(), contains(new NumericRangeInfo.Value(0D, 20D, 8), new NumericRangeInfo.Value(20D, 40D, 8)));
+    }
+
+    @Test
+    public void fetchOnlyUncoveredEdgesOfHistogram() {
+        parametricValuesService = createService(0, 0, 100);
+        mockHistogramCache();
+        mockFineBucketResponse(0, 16, 1);
+
+        final IdolParametricRequest idolParametricRequest = mockRequest(Collections.singletonList("ParametricNumericDateField"));
+        final FieldPath fieldPath = tagNameFactory.getFieldPath("ParametricNumericDateField");
+        parametricValuesService.getNumericParametricValuesInBuckets(idolParametricRequest, ImmutableMap.of(fieldPath, new BucketingParams<>(4, 0.0, 40.0)));
+
+        mockFineBucketResponse(16, 20, 2);
+        final List<NumericRangeInfo> results = parametricValuesService.getNumericParametricValuesInBuckets(idolParametricRequest, ImmutableMap.of(fieldPath, new BucketingParams<>(4, 10.0, 50.0)));
+
+        final ArgumentCaptor<AciParameters> captor = ArgumentCaptor.forClass(AciParameters.class);
+        verify(queryExecutor, times(2)).executeGetQueryTagValues(captor.capture(), any());
+        final String ranges = captor.getAllValues().get(1).get(GetQueryTagValuesParams.Ranges.name());
+        assertThat(ranges, containsString("47.5"));
+        assertThat(ranges, not(containsString("12.5")));
+
+        final NumericRangeInfo info = results.get(0);
+        assertEquals(20, info.getCount());
+        assertThat(info.getValues(), contains(
+            new NumericRangeInfo.Value(10D, 20D, 4),
+            new NumericRangeInfo.Value(20D, 30D, 4),
+            new NumericRangeInfo.Value(30D, 40D, 4),
+            new NumericRangeInfo.Value(40D, 50D, 8)
+        ));
+    }
+
+    @Test
+    public void leaveOutFieldsMissingFromHistogramResponse() {
+        parametricValuesService = createService(0, 0, 100);
+        mockHistogramCache();
+        mockFineBucketResponse(0, 16, 1);
+
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("ParametricNumericDateField", "OtherNumericField"));
+        final FieldPath fieldPath = tagNameFactory.getFieldPath("ParametricNumericDateField");
+        final FieldPath otherFieldPath = tagNameFactory.getFieldPath("OtherNumericField");
+        final Map<FieldPath, BucketingParams<Double>> bucketingParams = ImmutableMap.of(
+            fieldPath, new BucketingParams<>(4, 0.0, 40.0),
+            otherFieldPath, new BucketingParams<>(4, 0.0, 40.0)
+        );
+
+        parametricValuesService.getNumericParametricValuesInBuckets(idolParametricRequest, bucketingParams);
+        final List<NumericRangeInfo> results = parametricValuesService.getNumericParametricValuesInBuckets(idolParametricRequest, bucketingParams);
+
+        // the missing field's buckets are not held, so it is requested again
+        verify(queryExecutor, times(2)).executeGetQueryTagValues(any(AciParameters.class), any());
+        assertThat(results.size(), is(1));
+        assertEquals(fieldPath.getNormalisedPath(), results.get(0).getId());
+        assertEquals(16, results.get(0).getCount());
+    }
+
+    @Test
+    public void fallBackToIdolWhenHistogramChangesDuringFetch() {
+        parametricValuesService = createService(0, 0, 100);
+        final Map<Object, Object> histograms = mockHistogramCache();
+        mockFineBucketResponse(4, 12, 1);
+
+        final IdolParametricRequest idolParametricRequest = mockRequest(Collections.singletonList("ParametricNumericDateField"));
+        final FieldPath fieldPath = tagNameFactory.getFieldPath("ParametricNumericDateField");
+        parametricValuesService.getNumericParametricValuesInBuckets(idolParametricRequest, ImmutableMap.of(fieldPath, new BucketingParams<>(2, 10.0, 30.0)));
+
+        final FieldHistogram histogram = (FieldHistogram) histograms.values().iterator().next();
+        final GetQueryTagValuesResponseData edgeResponse = mockFineBucketResponse(0, 16, 1);
+        final GetQueryTagValuesResponseData bucketResponse = mockBucketResponses(16,
+                                                                                 mockTagValue("0,10", 4),
+                                                                                 mockTagValue("10,20", 4),
+                                                                                 mockTagValue("20,30", 4),
+                                                                                 mockTagValue("30,40", 4)
+        );
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any()))
+            .thenAnswer(invocation -> {
+                // a concurrent request for a distant range replaces the held buckets while the edges are fetched
+                final FieldHistogram.Plan plan = histogram.plan(new double[]{200, 210, 220});
+                histogram.storeAndCount(plan, new long[plan.getUncoveredCount()]);
+                return edgeResponse;
+            })
+            .thenReturn(bucketResponse);
+
+        final List<NumericRangeInfo> results = parametricValuesService.getNumericParametricValuesInBuckets(idolParametricRequest, ImmutableMap.of(fieldPath, new BucketingParams<>(4, 0.0, 40.0)));
+
+        // the fetched edges no longer surround held buckets, so the requested buckets are fetched directly
+        verify(queryExecutor, times(3)).executeGetQueryTagValues(any(AciParameters.class), any());
+        final NumericRangeInfo info = results.get(0);
+        assertEquals(16, info.getCount());
+        assertThat(info.getValues(), contains(
+            new NumericRangeInfo.Value(0D, 10D, 4),
+            new NumericRangeInfo.Value(10D, 20D, 4),
+            new NumericRangeInfo.Value(20D, 30D, 4),
+            new NumericRangeInfo.Value(30D, 40D, 4)
+        ));
+    }
+
+    @Test
+    public void bypassHistogramWhenResultCacheDisabled() {
+        parametricValuesService = createService(0, 0, 100);
+        when(resultCache.isEnabled()).thenReturn(false);
+        mockBucketResponses(7,
+                            mockTagValue("1,2", 0),
+                            mockTagValue("2,3", 5),
+                            mockTagValue("3,4", 2),
+                            mockTagValue("4,5", 0),
+                            mockTagValue("5,6", 0)
+        );
+
+        final IdolParametricRequest idolParametricRequest = mockRequest(Collections.singletonList("ParametricNumericDateField"));
+        final FieldPath fieldPath = tagNameFactory.getFieldPath("ParametricNumericDateField");
+        parametricValuesService.getNumericParametricValuesInBuckets(idolParametricRequest, ImmutableMap.of(fieldPath, new BucketingParams<>(5, 1.0, 6.0)));
+
+        verify(resultCache, never()).get(eq(CacheNames.PARAMETRIC_HISTOGRAMS), any(), any());
+    }
+
+    @Test
+    public void bypassHistogramWhenDisabled() {
+        mockHistogramCache();
+        mockBucketResponses(7,
+                            mockTagValue("1,2", 0),
+                            mockTagValue("2,3", 5),
+                            mockTagValue("3,4", 2),
+                            mockTagValue("4,5", 0),
+                            mockTagValue("5,6", 0)
+        );
+
+        final IdolParametricRequest idolParametricRequest = mockRequest(Collections.singletonList("ParametricNumericDateField"));
+        final FieldPath fieldPath = tagNameFactory.getFieldPath("ParametricNumericDateField");
+        parametricValuesService.getNumericParametricValuesInBuckets(idolParametricRequest, ImmutableMap.of(fieldPath, new BucketingParams<>(5, 1.0, 6.0)));
+        parametricValuesService.getNumericParametricValuesInBuckets(idolParametricRequest, ImmutableMap.of(fieldPath, new BucketingParams<>(5, 1.0, 6.0)));
+
+        verify(queryExecutor, times(2)).executeGetQueryTagValues(any(AciParameters.class), any());
+        verify(resultCache, never()).get(eq(CacheNames.PARAMETRIC_HISTOGRAMS), any(), any());
+    }
+
     @Test
     public void getDateParametricValues() {
         final ZonedDateTime max = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
@@ -428,6 +819,79 @@ public class IdolParametricValuesServiceTest {
         assertThat(results, is(empty()));
     }
 
+    @Test
+    public void expandDependentSubtree() {
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "B", "C", "D"));
+        final IdolQueryRestrictions queryRestrictions = mock(IdolQueryRestrictions.class);
+        final IdolQueryRestrictionsBuilder restrictionsBuilder = mockRestrictionsBuilder(queryRestrictions);
+        when(idolParametricRequest.getQueryRestrictions()).thenReturn(queryRestrictions);
+        when(queryRestrictions.toBuilder()).thenReturn(restrictionsBuilder);
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenReturn(mockRecursiveResponse("B", "C"));
+
+        final DependentParametricValuesOptions options = DependentParametricValuesOptions.builder()
+            .parentValue("x")
+            .depth(2)
+            .build();
+        parametricValuesService.getDependentParametricValues(idolParametricRequest, options);
+
+        final ArgumentCaptor<AciParameters> aciParameters = ArgumentCaptor.forClass(AciParameters.class);
+        verify(queryExecutor).executeGetQueryTagValues(aciParameters.capture(), any());
+        assertThat(fieldName(aciParameters.getValue()), is("B,C"));
+
+        final ArgumentCaptor<String> fieldText = ArgumentCaptor.forClass(String.class);
+        verify(restrictionsBuilder).fieldText(fieldText.capture());
+        assertThat(fieldText.getValue(), containsString("MATCH{x}:A"));
+    }
+
+    @Test
+    public void limitDependentValues() {
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "B"));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenReturn(mockRecursiveResponse("A", "B"));
+
+        final DependentParametricValuesOptions options = DependentParametricValuesOptions.builder()
+            .maxValues(2)
+            .minCount(2)
+            .build();
+        final List<DependentParametricField> results = parametricValuesService.getDependentParametricValues(idolParametricRequest, options);
+
+        assertThat(results.stream().map(DependentParametricField::getValue).collect(Collectors.toList()), contains("v1", "v2"));
+        assertThat(results.get(0).getSubFields().stream().map(DependentParametricField::getValue).collect(Collectors.toList()), contains("c1", "c2"));
+        assertThat(results.get(1).getSubFields().stream().map(DependentParametricField::getValue).collect(Collectors.toList()), contains("c5"));
+    }
+
+    @Test
+    public void pageDependentValues() {
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "B"));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenReturn(mockRecursiveResponse("A", "B"));
+
+        final DependentParametricValuesOptions options = DependentParametricValuesOptions.builder()
+            .start(1)
+            .maxValues(1)
+            .build();
+        final List<DependentParametricField> results = parametricValuesService.getDependentParametricValues(idolParametricRequest, options);
+
+        assertThat(results.stream().map(DependentParametricField::getValue).collect(Collectors.toList()), contains("v2"));
+        assertThat(results.get(0).getSubFields().stream().map(DependentParametricField::getValue).collect(Collectors.toList()), contains("c5"));
+    }
+
+    @Test
+    public void getWholeDependentTree() {
+        final IdolParametricRequest idolParametricRequest = mockRequest(Arrays.asList("A", "B"));
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenReturn(mockRecursiveResponse("A", "B"));
+
+        final List<DependentParametricField> results = parametricValuesService.getDependentParametricValues(idolParametricRequest);
+
+        assertThat(results.stream().map(DependentParametricField::getValue).collect(Collectors.toList()), contains("v1", "v2", "v3"));
+        assertThat(results.get(0).getSubFields().size(), is(4));
+        assertThat(results.get(0).getSubFields().get(0).getSubFields(), is(empty()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectMoreParentValuesThanFields() {
+        final IdolParametricRequest idolParametricRequest = mockRequest(Collections.singletonList("A"));
+        parametricValuesService.getDependentParametricValues(idolParametricRequest, DependentParametricValuesOptions.builder().parentValue("x").parentValue("y").build());
+    }
+
     private IdolParametricRequest mockRequest(final Collection<String> fieldNames) {
         final IdolParametricRequest parametricRequest = mock(IdolParametricRequest.class);
         final List<FieldPath> paths = fieldNames.stream().map(tagNameFactory::getFieldPath).collect(Collectors.toList());
@@ -438,12 +902,71 @@ public class IdolParametricValuesServiceTest {
         when(parametricRequestBuilder.ranges(any())).thenReturn(parametricRequestBuilder);
         when(parametricRequestBuilder.start(any())).thenReturn(parametricRequestBuilder);
         when(parametricRequestBuilder.sort(any())).thenReturn(parametricRequestBuilder);
+        when(parametricRequestBuilder.queryRestrictions(any())).thenReturn(parametricRequestBuilder);
         when(parametricRequest.toBuilder()).thenReturn(parametricRequestBuilder);
         when(parametricRequestBuilder.build()).thenReturn(parametricRequest);
 
         return parametricRequest;
     }
 
+    private IdolQueryRestrictionsBuilder mockRestrictionsBuilder(final IdolQueryRestrictions restrictions) {
+        // every builder method returns the builder, apart from build
+        final IdolQueryRestrictionsBuilder builder = mock(IdolQueryRestrictionsBuilder.class, invocation ->
+            invocation.getMethod().getReturnType().isInstance(invocation.getMock())
+                ? invocation.getMock()
+                : RETURNS_DEFAULTS.answer(invocation));
+        when(builder.build()).thenReturn(restrictions);
+        return builder;
+    }
+
+    private StateTokenAndResultCount stateTokenAndResultCount(final long resultCount) {
+        return new StateTokenAndResultCount(new TypedStateToken("STATE-TOKEN", TypedStateToken.StateTokenType.QUERY), resultCount);
+    }
+
+    /**
+     * Runs the tasks of a partial execution in turn, treating the given number of leading inputs as timed out
+     */
+    @SuppressWarnings("unchecked")
+    private PartialResults<Object, Object> executeInline(final InvocationOnMock invocation, final int timedOut) {
+        final Map<Object, Object> results = new LinkedHashMap<>();
+        final Map<Object, RuntimeException> failures = new LinkedHashMap<>();
+
+        for(final Object input : (Collection<Object>) invocation.getArguments()[0]) {
+            if(failures.size() < timedOut) {
+                failures.put(input, new ParallelRequestTimeoutException("Timed out", null));
+                continue;
+            }
+
+            try {
+                results.put(input, ((Function<Object, Object>) invocation.getArguments()[1]).apply(input));
+            } catch(final RuntimeException e) {
+                failures.put(input, e);
+            }
+        }
+
+        return new PartialResults<>(results, failures);
+    }
+
+    private String fieldName(final Object aciParameters) {
+        return ((AciParameters) aciParameters).get(GetQueryTagValuesParams.FieldName.name());
+    }
+
+    /**
+     * A response with values for every other field, starting with the first
+     */
+    private GetQueryTagValuesResponseData mockQueryResponse(final String fieldNames) {
+        final GetQueryTagValuesResponseData responseData = new GetQueryTagValuesResponseData();
+        for(final String fieldName : fieldNames.split(",")) {
+            final FlatField field = new FlatField();
+            field.getName().add(fieldName);
+            if((fieldName.charAt(0) - 'A') % 2 == 0) {
+                field.getValueAndSubvalueOrValues().add(new JAXBElement<>(new QName("", IdolParametricValuesServiceImpl.VALUE_NODE_NAME), TagValue.class, mockTagValue("value", 1)));
+            }
+            responseData.getField().add(field);
+        }
+        return responseData;
+    }
+
     private GetQueryTagValuesResponseData mockQueryResponse() {
         final GetQueryTagValuesResponseData responseData = new GetQueryTagValuesResponseData();
         final FlatField field = new FlatField();
@@ -505,7 +1028,7 @@ public class IdolParametricValuesServiceTest {
         return jaxbElement;
     }
 
-    private void mockBucketResponses(final int count, final TagValue... tagValues) {
+    private GetQueryTagValuesResponseData mockBucketResponses(final int count, final TagValue... tagValues) {
         when(element.getName()).thenReturn(
             new QName("", IdolParametricValuesServiceImpl.VALUES_NODE_NAME),
             new QName("", IdolParametricValuesServiceImpl.VALUE_NODE_NAME)
@@ -527,6 +1050,31 @@ public class IdolParametricValuesServiceTest {
         responseData.getField().add(field2);
 
         when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenReturn(responseData);
+        return responseData;
+    }
+
+    private Map<Object, Object> mockHistogramCache() {
+        final Map<Object, Object> histograms = new HashMap<>();
+        doAnswer(invocation -> histograms.computeIfAbsent(invocation.getArguments()[1], key -> ((Supplier<?>) invocation.getArguments()[2]).get()))
+            .when(resultCache).get(eq(CacheNames.PARAMETRIC_HISTOGRAMS), any(), any());
+        return histograms;
+    }
+
+    /**
+     * A response with the given count in each 2.5 wide fine bucket from start to end
+     */
+    private GetQueryTagValuesResponseData mockFineBucketResponse(final int start, final int end, final int count) {
+        final FlatField field = new FlatField();
+        field.getName().add("ParametricNumericDateField");
+        for(int i = start; i < end; i++) {
+            final TagValue tagValue = mockTagValue(i * 2.5 + "," + (i + 1) * 2.5, count);
+            field.getValueAndSubvalueOrValues().add(new JAXBElement<>(new QName("", IdolParametricValuesServiceImpl.VALUE_NODE_NAME), TagValue.class, tagValue));
+        }
+
+        final GetQueryTagValuesResponseData responseData = new GetQueryTagValuesResponseData();
+        responseData.getField().add(field);
+        when(queryExecutor.executeGetQueryTagValues(any(AciParameters.class), any())).thenReturn(responseData);
+        return responseData;
     }
 
     private TagValue mockTagValue(
@@ -555,6 +1103,33 @@ public class IdolParametricValuesServiceTest {
         return tagValue;
     }
 
+    /**
+     * A two level tree: v1 (10) with c1 (5), c2 (3), c3 (2) and c4 (1); v2 (8) with c5 (8); v3 (1) with c6 (1)
+     */
+    private GetQueryTagValuesResponseData mockRecursiveResponse(final String... fieldNames) {
+        final GetQueryTagValuesResponseData responseData = new GetQueryTagValuesResponseData();
+
+        final FlatField names = new FlatField();
+        names.getName().addAll(Arrays.asList(fieldNames));
+        responseData.getField().add(names);
+
+        final Values values = new Values();
+        values.getField().add(recursiveField("v1", 10, recursiveField("c1", 5), recursiveField("c2", 3), recursiveField("c3", 2), recursiveField("c4", 1)));
+        values.getField().add(recursiveField("v2", 8, recursiveField("c5", 8)));
+        values.getField().add(recursiveField("v3", 1, recursiveField("c6", 1)));
+        responseData.setValues(values);
+
+        return responseData;
+    }
+
+    private RecursiveField recursiveField(final String value, final int count, final RecursiveField... subFields) {
+        final RecursiveField field = new RecursiveField();
+        field.setValue(value);
+        field.setCount(count);
+        field.getField().addAll(Arrays.asList(subFields));
+        return field;
+    }
+
     private GetQueryTagValuesResponseData mockRecursiveResponse() {
         final GetQueryTagValuesResponseData responseData = new GetQueryTagValuesResponseData();
 
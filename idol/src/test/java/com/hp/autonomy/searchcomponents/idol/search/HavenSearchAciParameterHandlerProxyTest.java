@@ -24,6 +24,8 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+
 import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -112,6 +114,13 @@ public class HavenSearchAciParameterHandlerProxyTest {
         verify(parameterHandler).addStoreStateParameters(aciParameters);
     }
 
+    @Test
+    public void addStoreStateParametersWithLifetime() {
+        final AciParameters aciParameters = new AciParameters();
+        proxy.addStoreStateParameters(aciParameters, Duration.ofMinutes(5));
+        verify(parameterHandler).addStoreStateParameters(aciParameters, Duration.ofMinutes(5));
+    }
+
     @Test
     public void addViewParameters() {
         final AciParameters aciParameters = new AciParameters();
@@ -16,6 +16,7 @@ package com.hp.autonomy.searchcomponents.idol.search;
 
 import com.autonomy.aci.client.transport.AciParameter;
 import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.aci.content.printfields.PrintFields;
 import com.hp.autonomy.frontend.configuration.ConfigService;
 import com.hp.autonomy.frontend.configuration.authentication.CommunityPrincipal;
 import com.hp.autonomy.searchcomponents.core.search.fields.DocumentFieldsService;
@@ -33,14 +34,18 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -102,6 +107,21 @@ public class HavenSearchAciParameterHandlerTest {
         assertThat(aciParameters, hasSize(10));
     }
 
+    @Test
+    public void addPrintFieldsForRepeatedSelection() {
+        final List<String> printFields = Collections.unmodifiableList(Arrays.asList("CATEGORY", "REFERENCE"));
+        when(documentFieldsService.getPrintFields(any())).thenReturn(printFields);
+        when(searchRequest.getPrint()).thenReturn(PrintParam.Fields.name());
+        final String expected = new PrintFields(printFields).toString();
+
+        final AciParameters otherAciParameters = new AciParameters();
+        parameterHandler.addSearchOutputParameters(aciParameters, searchRequest);
+        parameterHandler.addSearchOutputParameters(otherAciParameters, searchRequest);
+
+        assertThat(aciParameters.get(QueryParams.PrintFields.name()), is(expected));
+        assertThat(otherAciParameters.get(QueryParams.PrintFields.name()), is(expected));
+    }
+
     @Test
     public void addSearchOutputParameters() {
         when(searchRequest.getStart()).thenReturn(1);
@@ -177,6 +197,15 @@ public class HavenSearchAciParameterHandlerTest {
         assertThat(aciParameters, hasSize(2));
     }
 
+    @Test
+    public void addStoreStateParameters_withLifetime() {
+        when(configService.getConfig()).thenReturn(mock(IdolSearchCapable.class));
+        parameterHandler.addStoreStateParameters(aciParameters, Duration.ofMillis(90500));
+        assertThat(aciParameters, hasSize(2));
+        assertThat(aciParameters,
+            hasItem(new AciParameter(QueryParams.StoredStateTokenLifetime.name(), "91")));
+    }
+
     @Test
     public void addStoreStateParameters_withStoredStateField() {
         final IdolSearchCapable config = mock(IdolSearchCapable.class);
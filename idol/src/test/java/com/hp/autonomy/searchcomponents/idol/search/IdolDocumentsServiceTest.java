@@ -14,30 +14,50 @@
 
 package com.hp.autonomy.searchcomponents.idol.search;
 
+import com.autonomy.aci.client.transport.AciParameter;
 import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.searchcomponents.core.concurrent.ParallelRequestExecutor;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
 import com.hp.autonomy.searchcomponents.core.search.StateTokenAndResultCount;
+import com.hp.autonomy.searchcomponents.core.search.TypedStateToken;
+import com.hp.autonomy.searchcomponents.idol.caching.IdolResultCache;
 import com.hp.autonomy.types.idol.responses.Hit;
 import com.hp.autonomy.types.idol.responses.QueryResponseData;
 import com.hp.autonomy.types.idol.responses.SuggestResponseData;
 import com.hp.autonomy.types.requests.Documents;
 import com.hp.autonomy.types.requests.idol.actions.query.params.PrintParam;
+import com.hp.autonomy.types.requests.idol.actions.query.params.QueryParams;
 import com.hp.autonomy.types.requests.idol.actions.query.params.SummaryParam;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -56,6 +76,9 @@ public class IdolDocumentsServiceTest {
     @Mock
     private QueryResponseParser queryResponseParser;
 
+    @Mock
+    private ParallelRequestExecutor parallelRequestExecutor;
+
     @Mock
     private IdolQueryRestrictions queryRestrictions;
 
@@ -71,11 +94,33 @@ public class IdolDocumentsServiceTest {
     @Mock
     private IdolGetContentRequestIndex getContentRequestIndex;
 
+    @Mock
+    private IdolGetContentRequestIndex otherGetContentRequestIndex;
+
+    @Mock
+    private IdolResultCache resultCache;
+
+    private SpellCheckProbeStatistics spellCheckProbeStatistics;
+
     private IdolDocumentsService idolDocumentsService;
 
+    @SuppressWarnings("unchecked")
     @Before
     public void setUp() {
-        idolDocumentsService = new IdolDocumentsServiceImpl(parameterHandler, queryExecutor, queryResponseParser);
+        when(parallelRequestExecutor.executeAll(any(), any())).thenAnswer(invocation -> {
+            final Collection<Object> inputs = (Collection<Object>) invocation.getArguments()[0];
+            final Function<Object, Object> task = (Function<Object, Object>) invocation.getArguments()[1];
+            return inputs.stream().map(task).collect(Collectors.toList());
+        });
+        when(parallelRequestExecutor.submit(any())).thenAnswer(invocation ->
+            CompletableFuture.completedFuture(((Supplier<Object>) invocation.getArguments()[0]).get()));
+        when(parallelRequestExecutor.await(any())).thenAnswer(invocation ->
+            ((CompletableFuture<Object>) invocation.getArguments()[0]).join());
+
+        when(resultCache.get(any(), any(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArguments()[2]).get());
+
+        spellCheckProbeStatistics = new SpellCheckProbeStatistics();
+        idolDocumentsService = new IdolDocumentsServiceImpl(parameterHandler, queryExecutor, queryResponseParser, parallelRequestExecutor, spellCheckProbeStatistics, resultCache, false, false, 3600000);
     }
 
     @Test
@@ -89,6 +134,19 @@ public class IdolDocumentsServiceTest {
         verify(queryResponseParser).parseQueryResults(any(), any(AciParameters.class), eq(responseData), any());
     }
 
+    @Test
+    public void queryContentStreaming() {
+        idolDocumentsService = new IdolDocumentsServiceImpl(parameterHandler, queryExecutor, queryResponseParser, parallelRequestExecutor, spellCheckProbeStatistics, resultCache, false, true, 3600000);
+        when(queryExecutor.performQuery(any())).thenReturn(true);
+
+        final StreamedQueryResponse streamedResponse = new StreamedQueryResponse(new QueryResponseData(), Collections.emptyList());
+        when(queryExecutor.executeQuery(any(), any(), any(QueryResponseStreamProcessor.class))).thenReturn(streamedResponse);
+
+        idolDocumentsService.queryTextIndex(mockQueryParams(QueryRequest.QueryType.RAW));
+        verify(queryResponseParser).parseStreamedQueryResults(any(), any(AciParameters.class), eq(streamedResponse), any());
+        verify(queryExecutor, never()).executeQuery(any(), any());
+    }
+
     @Test
     public void queryQms() {
         when(queryExecutor.performQuery(any())).thenReturn(true);
@@ -100,6 +158,36 @@ public class IdolDocumentsServiceTest {
         verify(queryResponseParser).parseQueryResults(any(), any(AciParameters.class), eq(responseData), any());
     }
 
+    @Test
+    public void speculativeAutoCorrectSkipsOriginalQuery() {
+        idolDocumentsService = new IdolDocumentsServiceImpl(parameterHandler, queryExecutor, queryResponseParser, parallelRequestExecutor, spellCheckProbeStatistics, resultCache, true, false, 3600000);
+        when(queryExecutor.performQuery(any())).thenReturn(true);
+
+        final QueryResponseData probeResponseData = new QueryResponseData();
+        probeResponseData.setSpellingquery("corrected");
+        when(queryExecutor.executeQuery(any(), any())).thenReturn(probeResponseData);
+
+        idolDocumentsService.queryTextIndex(mockQueryParams(QueryRequest.QueryType.RAW));
+        verify(queryExecutor, times(1)).executeQuery(any(), any());
+        verify(queryResponseParser).parseQueryResults(any(), any(AciParameters.class), eq(probeResponseData), any());
+        assertThat(spellCheckProbeStatistics.getCorrections(), is(1L));
+    }
+
+    @Test
+    public void speculativeAutoCorrectRunsOriginalQueryWithoutCorrection() {
+        idolDocumentsService = new IdolDocumentsServiceImpl(parameterHandler, queryExecutor, queryResponseParser, parallelRequestExecutor, spellCheckProbeStatistics, resultCache, true, false, 3600000);
+        when(queryExecutor.performQuery(any())).thenReturn(true);
+
+        final QueryResponseData probeResponseData = new QueryResponseData();
+        final QueryResponseData responseData = new QueryResponseData();
+        when(queryExecutor.executeQuery(any(), any())).thenReturn(probeResponseData, responseData);
+
+        idolDocumentsService.queryTextIndex(mockQueryParams(QueryRequest.QueryType.RAW));
+        verify(queryResponseParser).parseQueryResults(any(), any(AciParameters.class), eq(responseData), any());
+        assertThat(spellCheckProbeStatistics.getProbes(), is(1L));
+        assertThat(spellCheckProbeStatistics.getMisses(), is(1L));
+    }
+
     @Test
     public void queryContentForPromotions() {
         final Documents<IdolSearchResult> results = idolDocumentsService.queryTextIndex(mockQueryParams(QueryRequest.QueryType.PROMOTIONS));
@@ -150,6 +238,42 @@ public class IdolDocumentsServiceTest {
         verify(queryResponseParser).parseQueryHits(responseData.getHits());
     }
 
+    @Test
+    public void getContentFromMultipleIndexes() {
+        final IdolSearchResult result1 = IdolSearchResult.builder().reference("Reference1").build();
+        final IdolSearchResult result2 = IdolSearchResult.builder().reference("Reference2").build();
+
+        final QueryResponseData responseData1 = new QueryResponseData();
+        responseData1.getHits().add(new Hit());
+        final QueryResponseData responseData2 = new QueryResponseData();
+        responseData2.getHits().addAll(Arrays.asList(new Hit(), new Hit()));
+        when(queryExecutor.executeQuery(any(), any())).thenReturn(responseData1, responseData2);
+        when(queryResponseParser.parseQueryHits(responseData1.getHits())).thenReturn(Collections.singletonList(result1));
+        when(queryResponseParser.parseQueryHits(responseData2.getHits())).thenReturn(Collections.singletonList(result2));
+
+        when(getContentRequest.getIndexesAndReferences()).thenReturn(new LinkedHashSet<>(Arrays.asList(getContentRequestIndex, otherGetContentRequestIndex)));
+        when(getContentRequest.getPrint()).thenReturn(PrintParam.Fields);
+
+        assertThat(idolDocumentsService.getDocumentContent(getContentRequest), contains(result1, result2));
+        verify(parameterHandler).addGetDocumentOutputParameters(any(), eq(getContentRequestIndex), eq(PrintParam.Fields));
+        verify(parameterHandler).addGetDocumentOutputParameters(any(), eq(otherGetContentRequestIndex), eq(PrintParam.Fields));
+    }
+
+    @Test
+    public void getContentStreaming() {
+        idolDocumentsService = new IdolDocumentsServiceImpl(parameterHandler, queryExecutor, queryResponseParser, parallelRequestExecutor, spellCheckProbeStatistics, resultCache, false, true, 3600000);
+
+        final IdolSearchResult result = IdolSearchResult.builder().reference("Reference1").build();
+        final StreamedQueryResponse streamedResponse = new StreamedQueryResponse(new QueryResponseData(), Collections.singletonList(result));
+        when(queryExecutor.executeQuery(any(), any(), any(QueryResponseStreamProcessor.class))).thenReturn(streamedResponse);
+
+        when(getContentRequest.getIndexesAndReferences()).thenReturn(Collections.singleton(getContentRequestIndex));
+        when(getContentRequest.getPrint()).thenReturn(PrintParam.All);
+
+        assertThat(idolDocumentsService.getDocumentContent(getContentRequest), contains(result));
+        verify(queryResponseParser, never()).parseQueryHits(any());
+    }
+
     @Test
     public void getStateToken() {
         when(queryExecutor.executeQuery(any(), any())).thenReturn(mockStateTokenResponse());
@@ -167,6 +291,56 @@ public class IdolDocumentsServiceTest {
         assertThat(stateTokenAndResultCount.getResultCount(), is((long)MOCK_TOTAL_HITS));
     }
 
+    @Test
+    public void getStateTokenAndResultCountAsync() {
+        final QueryResponseData resultCountResponse = new QueryResponseData();
+        resultCountResponse.setTotalhits(MOCK_TOTAL_HITS + 1);
+        when(queryExecutor.executeQuery(any(), any())).thenReturn(mockStateTokenResponse(), resultCountResponse);
+
+        final StateTokenAndResultCount stateTokenAndResultCount = idolDocumentsService.getStateTokenAndResultCountAsync(mockQueryParams(QueryRequest.QueryType.RAW).getQueryRestrictions(), 3, true).join();
+        assertThat(stateTokenAndResultCount.getTypedStateToken().getStateToken(), is(MOCK_STATE_TOKEN));
+        assertThat(stateTokenAndResultCount.getTypedStateToken().getType(), is(TypedStateToken.StateTokenType.PROMOTIONS));
+        assertThat(stateTokenAndResultCount.getResultCount(), is((long)MOCK_TOTAL_HITS + 1));
+        verify(queryExecutor, times(2)).executeQuery(any(), eq(QueryRequest.QueryType.RAW));
+    }
+
+    @Test
+    public void getExpiringStateToken() {
+        when(queryExecutor.executeQuery(any(), any())).thenReturn(mockStateTokenResponse());
+
+        final StateTokenAndResultCount stateTokenAndResultCount = idolDocumentsService.getExpiringStateToken(mockQueryParams(QueryRequest.QueryType.RAW).getQueryRestrictions(), 3, false, Duration.ofMinutes(2));
+        assertThat(stateTokenAndResultCount.getTypedStateToken().getStateToken(), is(MOCK_STATE_TOKEN));
+        assertThat(stateTokenAndResultCount.getResultCount(), is((long)MOCK_TOTAL_HITS));
+
+        // One query both stores the state and counts its results
+        verify(parameterHandler).addStoreStateParameters(any(), eq(Duration.ofMinutes(2)));
+        verify(parameterHandler, never()).addStoreStateParameters(any());
+        final ArgumentCaptor<AciParameters> aciParameters = ArgumentCaptor.forClass(AciParameters.class);
+        verify(queryExecutor).executeQuery(aciParameters.capture(), eq(QueryRequest.QueryType.RAW));
+        assertThat(aciParameters.getValue(), hasItem(new AciParameter(QueryParams.TotalResults.name(), true)));
+    }
+
+    @Test
+    public void streamQueryResultsPinsExpiringStateToken() {
+        final IdolQueryRequest queryRequest = mockQueryParams(QueryRequest.QueryType.RAW);
+        when(queryExecutor.performQuery(QueryRequest.QueryType.RAW)).thenReturn(true);
+        when(queryExecutor.executeQuery(any(), any())).thenReturn(mockStateTokenResponse());
+
+        final IdolQueryRestrictionsBuilder restrictionsBuilder = mock(IdolQueryRestrictionsBuilder.class);
+        when(queryRestrictions.toBuilder()).thenReturn(restrictionsBuilder);
+        when(restrictionsBuilder.stateMatchId(any())).thenReturn(restrictionsBuilder);
+        final IdolQueryRequestBuilder requestBuilder = mock(IdolQueryRequestBuilder.class);
+        when(queryRequest.toBuilder()).thenReturn(requestBuilder);
+        when(requestBuilder.queryRestrictions(any())).thenReturn(requestBuilder);
+        when(requestBuilder.autoCorrect(anyBoolean())).thenReturn(requestBuilder);
+
+        try(final Stream<IdolSearchResult> ignored = idolDocumentsService.streamQueryResults(queryRequest, 10)) {
+            verify(restrictionsBuilder).stateMatchId(MOCK_STATE_TOKEN);
+            verify(parameterHandler).addStoreStateParameters(any(), eq(Duration.ofHours(1)));
+            verify(parameterHandler, never()).addStoreStateParameters(any());
+        }
+    }
+
     private IdolQueryRequest mockQueryParams(final QueryRequest.QueryType queryType) {
         when(queryRestrictions.getQueryText()).thenReturn("*");
         when(queryRestrictions.getDatabases()).thenReturn(Arrays.asList("Database1", "Database2"));
@@ -14,6 +14,7 @@
 
 package com.hp.autonomy.searchcomponents.idol.search;
 
+import com.hp.autonomy.searchcomponents.idol.caching.IdolResultCache;
 import com.hp.autonomy.types.idol.responses.Qs;
 import com.hp.autonomy.types.idol.responses.QsElement;
 import com.hp.autonomy.types.idol.responses.QueryResponseData;
@@ -24,6 +25,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
@@ -43,11 +45,16 @@ public class IdolRelatedConceptsServiceTest {
     @Mock
     private IdolRelatedConceptsRequest request;
 
+    @Mock
+    private IdolResultCache resultCache;
+
     private IdolRelatedConceptsService idolRelatedConceptsService;
 
     @Before
     public void setUp() {
-        idolRelatedConceptsService = new IdolRelatedConceptsServiceImpl(parameterHandler, queryExecutor);
+        when(resultCache.get(any(), any(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArguments()[2]).get());
+
+        idolRelatedConceptsService = new IdolRelatedConceptsServiceImpl(parameterHandler, queryExecutor, resultCache);
     }
 
     @Test
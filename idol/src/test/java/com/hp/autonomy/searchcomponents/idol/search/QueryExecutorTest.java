@@ -14,20 +14,46 @@
 
 package com.hp.autonomy.searchcomponents.idol.search;
 
+import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.ProcessorException;
+import com.autonomy.aci.client.services.impl.AbstractStAXProcessor;
 import com.autonomy.aci.client.util.AciParameters;
 import com.hp.autonomy.searchcomponents.core.search.QueryRequest;
 import com.hp.autonomy.searchcomponents.idol.configuration.AciServiceRetriever;
 import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import com.hp.autonomy.types.idol.responses.QueryResponseData;
+import com.hp.autonomy.types.requests.idol.actions.query.params.QueryParams;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -40,13 +66,30 @@ public class QueryExecutorTest {
     @Mock
     private ProcessorFactory processorFactory;
 
+    private CountDownLatch coalesced;
+    private QueryCoalescingStatistics coalescingStatistics;
     private QueryExecutor queryExecutor;
+    private ExecutorService executorService;
 
     @Before
     public void setUp() {
         when(aciServiceRetriever.getAciService(any())).thenReturn(aciService);
 
-        queryExecutor = new QueryExecutorImpl(aciServiceRetriever, processorFactory);
+        coalesced = new CountDownLatch(1);
+        coalescingStatistics = new QueryCoalescingStatistics() {
+            @Override
+            void recordCoalesced() {
+                super.recordCoalesced();
+                coalesced.countDown();
+            }
+        };
+        queryExecutor = new QueryExecutorImpl(aciServiceRetriever, processorFactory, coalescingStatistics, false);
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
     }
 
     @Test
@@ -76,9 +119,198 @@ public class QueryExecutorTest {
         verify(aciService).executeAction(any(), any());
     }
 
+    @Test
+    public void executeQueryWithProcessor() {
+        final QueryResponseStreamProcessor processor = new QueryResponseStreamProcessor(hit -> null);
+        queryExecutor.executeQuery(new AciParameters(), QueryRequest.QueryType.MODIFIED, processor);
+        verify(aciService).executeAction(any(), eq(processor));
+    }
+
     @Test
     public void executeSuggest() {
         queryExecutor.executeSuggest(new AciParameters(), QueryRequest.QueryType.RAW);
         verify(aciService).executeAction(any(), any());
     }
+
+    @Test
+    public void coalesceConcurrentIdenticalQueries() throws Exception {
+        queryExecutor = coalescingQueryExecutor();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(aciService.executeAction(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return totalHitsResponse(42);
+        });
+
+        final Future<QueryResponseData> first = executorService.submit(() -> queryExecutor.executeQuery(parameters("cat", "alice"), QueryRequest.QueryType.RAW));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final Future<QueryResponseData> second = executorService.submit(() -> queryExecutor.executeQuery(parameters("cat", "alice"), QueryRequest.QueryType.RAW));
+        assertTrue(coalesced.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        final QueryResponseData firstResponse = first.get(5, TimeUnit.SECONDS);
+        final QueryResponseData secondResponse = second.get(5, TimeUnit.SECONDS);
+        assertThat(firstResponse.getTotalhits(), is(42));
+        assertThat(secondResponse.getTotalhits(), is(42));
+        // each caller parses its own copy of the shared response
+        assertThat(secondResponse, is(not(sameInstance(firstResponse))));
+        verify(aciService).executeAction(any(), any());
+    }
+
+    @Test
+    public void doNotCoalesceQueriesWithDifferentSecurityInfo() throws Exception {
+        queryExecutor = coalescingQueryExecutor();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        when(aciService.executeAction(any(), any())).thenAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                started.countDown();
+                release.await();
+            }
+            return totalHitsResponse(1);
+        });
+
+        final Future<QueryResponseData> first = executorService.submit(() -> queryExecutor.executeQuery(parameters("cat", "alice"), QueryRequest.QueryType.RAW));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        queryExecutor.executeQuery(parameters("cat", "bob"), QueryRequest.QueryType.RAW);
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        verify(aciService, times(2)).executeAction(any(), any());
+        assertThat(coalescingStatistics.getExecuted(), is(2L));
+        assertThat(coalescingStatistics.getCoalesced(), is(0L));
+    }
+
+    @Test
+    public void parseErrorResponseForEachCoalescedQuery() throws Exception {
+        queryExecutor = coalescingQueryExecutor();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(aciService.executeAction(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "<error/>".getBytes(StandardCharsets.UTF_8);
+        });
+
+        final Future<QueryResponseData> first = executorService.submit(() -> queryExecutor.executeQuery(parameters("cat", "alice"), QueryRequest.QueryType.RAW));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final Future<QueryResponseData> second = executorService.submit(() -> queryExecutor.executeQuery(parameters("cat", "alice"), QueryRequest.QueryType.RAW));
+        assertTrue(coalesced.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertFailedWithAciError(first);
+        assertFailedWithAciError(second);
+        verify(aciService).executeAction(any(), any());
+    }
+
+    @Test
+    public void retryWhenCoalescedQueryIsCancelled() throws Exception {
+        queryExecutor = coalescingQueryExecutor();
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        when(aciService.executeAction(any(), any())).thenAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                started.countDown();
+                // blocks until the caller is cancelled
+                new CountDownLatch(1).await();
+            }
+            return totalHitsResponse(42);
+        });
+
+        final Future<QueryResponseData> first = executorService.submit(() -> queryExecutor.executeQuery(parameters("cat", "alice"), QueryRequest.QueryType.RAW));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final Future<QueryResponseData> second = executorService.submit(() -> queryExecutor.executeQuery(parameters("cat", "alice"), QueryRequest.QueryType.RAW));
+        assertTrue(coalesced.await(5, TimeUnit.SECONDS));
+        first.cancel(true);
+
+        assertThat(second.get(5, TimeUnit.SECONDS).getTotalhits(), is(42));
+        verify(aciService, times(2)).executeAction(any(), any());
+    }
+
+    @Test
+    public void doNotCoalesceSequentialQueries() {
+        queryExecutor = coalescingQueryExecutor();
+        when(aciService.executeAction(any(), any())).thenAnswer(invocation -> totalHitsResponse(1));
+
+        queryExecutor.executeQuery(parameters("cat", "alice"), QueryRequest.QueryType.RAW);
+        queryExecutor.executeQuery(parameters("cat", "alice"), QueryRequest.QueryType.RAW);
+
+        verify(aciService, times(2)).executeAction(any(), any());
+        assertThat(coalescingStatistics.getExecuted(), is(2L));
+    }
+
+    @Test
+    public void doNotCoalesceWhenDisabled() throws Exception {
+        when(processorFactory.getResponseDataProcessor(QueryResponseData.class)).thenReturn(new TotalHitsProcessor());
+        queryExecutor = new QueryExecutorImpl(aciServiceRetriever, processorFactory, coalescingStatistics, false);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        when(aciService.executeAction(any(), any())).thenAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                started.countDown();
+                release.await();
+            }
+            return new QueryResponseData();
+        });
+
+        final Future<QueryResponseData> first = executorService.submit(() -> queryExecutor.executeQuery(parameters("cat", "alice"), QueryRequest.QueryType.RAW));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        queryExecutor.executeQuery(parameters("cat", "alice"), QueryRequest.QueryType.RAW);
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        verify(aciService, times(2)).executeAction(any(), any());
+    }
+
+    private QueryExecutor coalescingQueryExecutor() {
+        when(processorFactory.getResponseDataProcessor(QueryResponseData.class)).thenReturn(new TotalHitsProcessor());
+        return new QueryExecutorImpl(aciServiceRetriever, processorFactory, coalescingStatistics, true);
+    }
+
+    private AciParameters parameters(final String text, final String securityInfo) {
+        final AciParameters aciParameters = new AciParameters();
+        aciParameters.add(QueryParams.Text.name(), text);
+        aciParameters.add(QueryParams.SecurityInfo.name(), securityInfo);
+        return aciParameters;
+    }
+
+    private byte[] totalHitsResponse(final int totalHits) {
+        return ("<totalhits>" + totalHits + "</totalhits>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void assertFailedWithAciError(final Future<?> future) throws InterruptedException, TimeoutException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected AciErrorException");
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(AciErrorException.class)));
+        }
+    }
+
+    /**
+     * Reads a response holding only a total hits count, and treats any other response as an Idol error
+     */
+    private static class TotalHitsProcessor extends AbstractStAXProcessor<QueryResponseData> {
+        private static final long serialVersionUID = -4817230956410248312L;
+
+        @Override
+        public QueryResponseData process(final XMLStreamReader xmlStreamReader) {
+            try {
+                xmlStreamReader.nextTag();
+                if (!"totalhits".equals(xmlStreamReader.getLocalName())) {
+                    throw new AciErrorException();
+                }
+
+                final QueryResponseData responseData = new QueryResponseData();
+                responseData.setTotalhits(Integer.parseInt(xmlStreamReader.getElementText()));
+                return responseData;
+            } catch (final XMLStreamException e) {
+                throw new ProcessorException(e);
+            }
+        }
+    }
 }
@@ -15,8 +15,7 @@
 package com.hp.autonomy.searchcomponents.idol.search;
 
 import com.autonomy.aci.client.util.AciParameters;
-import com.hp.autonomy.searchcomponents.idol.databases.IdolDatabasesRequestBuilder;
-import com.hp.autonomy.searchcomponents.idol.databases.IdolDatabasesService;
+import com.hp.autonomy.searchcomponents.idol.databases.IdolDatabaseCatalogue;
 import com.hp.autonomy.searchcomponents.idol.search.fields.FieldsParser;
 import com.hp.autonomy.types.idol.responses.Database;
 import com.hp.autonomy.types.idol.responses.Hit;
@@ -27,13 +26,15 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.springframework.beans.factory.ObjectFactory;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.function.Function;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
 import static org.hamcrest.core.Is.is;
@@ -41,6 +42,9 @@ import static org.hamcrest.core.IsNot.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SuppressWarnings("WeakerAccess")
@@ -50,13 +54,7 @@ public class QueryResponseParserTest {
     private FieldsParser documentFieldsService;
 
     @Mock
-    private IdolDatabasesService databasesService;
-
-    @Mock
-    private ObjectFactory<IdolDatabasesRequestBuilder> databasesRequestBuilderFactory;
-
-    @Mock
-    private IdolDatabasesRequestBuilder databasesRequestBuilder;
+    private IdolDatabaseCatalogue databaseCatalogue;
 
     @Mock
     private Function<AciParameters, QueryResponseData> queryExecutor;
@@ -71,12 +69,10 @@ public class QueryResponseParserTest {
 
     @Before
     public void setUp() {
-        when(databasesRequestBuilderFactory.getObject()).thenReturn(databasesRequestBuilder);
-
         when(queryRestrictions.getDatabases()).thenReturn(Arrays.asList("Database1", "Database2"));
         when(searchRequest.getQueryRestrictions()).thenReturn(queryRestrictions);
 
-        queryResponseParser = new QueryResponseParserImpl(documentFieldsService, databasesService, databasesRequestBuilderFactory);
+        queryResponseParser = new QueryResponseParserImpl(documentFieldsService, databaseCatalogue);
     }
 
     @Test
@@ -99,6 +95,35 @@ public class QueryResponseParserTest {
         assertThat(results.getDocuments(), is(not(empty())));
     }
 
+    @Test
+    public void parseStreamedResults() {
+        final IdolSearchResult result = IdolSearchResult.builder().reference("Reference1").build();
+        final StreamedQueryResponse streamedResponse = new StreamedQueryResponse(mockQueryResponse(), Collections.singletonList(result));
+
+        final Documents<IdolSearchResult> results = queryResponseParser.parseStreamedQueryResults(searchRequest, new AciParameters(), streamedResponse, parameters -> null);
+        assertThat(results.getDocuments(), contains(result));
+        assertThat(results.getTotalResults(), is(1));
+    }
+
+    @Test
+    public void autoCorrectStreamed() {
+        final QueryResponseData responseData = mockQueryResponse();
+        responseData.setSpellingquery("spelling");
+        responseData.setSpelling("mm, mmh");
+
+        final IdolSearchResult correctedResult = IdolSearchResult.builder().reference("Reference1").build();
+        final StreamedQueryResponse correctedResponse = new StreamedQueryResponse(mockQueryResponse(), Collections.singletonList(correctedResult));
+
+        final Documents<IdolSearchResult> results = queryResponseParser.parseStreamedQueryResults(
+            searchRequest,
+            new AciParameters(),
+            new StreamedQueryResponse(responseData, Collections.emptyList()),
+            parameters -> correctedResponse
+        );
+        assertThat(results.getDocuments(), contains(correctedResult));
+        assertNotNull(results.getAutoCorrection());
+    }
+
     @Test
     public void invalidDatabaseWarning() {
         final QueryResponseData responseData = mockQueryResponse();
@@ -106,13 +131,45 @@ public class QueryResponseParserTest {
 
         final Database goodDatabase = new Database();
         goodDatabase.setName("Database2");
-        when(databasesService.getDatabases(any())).thenReturn(Collections.singleton(goodDatabase));
+        when(databaseCatalogue.getDatabases()).thenReturn(Collections.singleton(goodDatabase));
 
         final Documents<IdolSearchResult> results = queryResponseParser.parseQueryResults(searchRequest, new AciParameters(), responseData, queryExecutor);
         assertThat(results.getDocuments(), is(not(empty())));
         assertNotNull(results.getWarnings());
         assertThat(results.getWarnings().getInvalidDatabases(), hasSize(1));
         assertEquals("Database1", results.getWarnings().getInvalidDatabases().iterator().next());
+        verify(databaseCatalogue, never()).invalidate(any());
+    }
+
+    @Test
+    public void invalidDatabaseWarningRefreshesOutOfDateDatabases() {
+        final QueryResponseData responseData = mockQueryResponse();
+        responseData.getWarning().add(QueryResponseParserImpl.MISSING_DATABASE_WARNING);
+
+        final Set<Database> staleDatabases = new HashSet<>(Arrays.asList(database("Database1"), database("Database2")));
+        when(databaseCatalogue.getDatabases()).thenReturn(staleDatabases);
+        when(databaseCatalogue.invalidate(staleDatabases)).thenReturn(Collections.singleton(database("Database2")));
+
+        final Documents<IdolSearchResult> results = queryResponseParser.parseQueryResults(searchRequest, new AciParameters(), responseData, queryExecutor);
+        assertThat(results.getWarnings().getInvalidDatabases(), contains("Database1"));
+    }
+
+    @Test
+    public void readDatabasesOncePerResponse() {
+        final QueryResponseData responseData = mockQueryResponse();
+        responseData.getWarning().add(QueryResponseParserImpl.MISSING_DATABASE_WARNING);
+        responseData.getWarning().add(QueryResponseParserImpl.MISSING_DATABASE_WARNING);
+
+        when(databaseCatalogue.getDatabases()).thenReturn(Collections.singleton(database("Database2")));
+
+        queryResponseParser.parseQueryResults(searchRequest, new AciParameters(), responseData, queryExecutor);
+        verify(databaseCatalogue, times(1)).getDatabases();
+    }
+
+    private Database database(final String name) {
+        final Database database = new Database();
+        database.setName(name);
+        return database;
     }
 
     protected QueryResponseData mockQueryResponse() {
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.search;
+
+import com.hp.autonomy.test.xml.XmlTestUtils;
+import com.hp.autonomy.types.idol.responses.Hit;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+
+public class QueryResponseStreamProcessorTest {
+    private List<Hit> parsedHits;
+    private QueryResponseStreamProcessor processor;
+
+    @Before
+    public void setUp() {
+        parsedHits = new ArrayList<>();
+        processor = new QueryResponseStreamProcessor(hit -> {
+            parsedHits.add(hit);
+            return IdolSearchResult.builder()
+                .reference(hit.getReference())
+                .title(hit.getTitle())
+                .build();
+        });
+    }
+
+    @Test
+    public void parsesHitsAsTheyAreRead() throws XMLStreamException {
+        final XMLStreamReader reader = XmlTestUtils.getResourceAsXMLStreamReader("/query-response.xml");
+        final StreamedQueryResponse response = processor.process(reader);
+
+        assertThat(response.getResults().stream().map(IdolSearchResult::getReference).collect(Collectors.toList()), contains("Reference1", "Reference2"));
+        assertThat(response.getResults().stream().map(IdolSearchResult::getTitle).collect(Collectors.toList()), contains("First Title", "Second Title"));
+
+        assertThat(parsedHits, hasSize(2));
+        assertThat(parsedHits.get(0).getDatabase(), is("Wikipedia"));
+        assertThat(parsedHits.get(0).getContent().getContent().get(0), is(instanceOf(Element.class)));
+        assertThat(((Element) parsedHits.get(0).getContent().getContent().get(0)).getElementsByTagName("CATEGORY").getLength(), is(1));
+    }
+
+    @Test
+    public void readsResponseDataWithoutHits() throws XMLStreamException {
+        final XMLStreamReader reader = XmlTestUtils.getResourceAsXMLStreamReader("/query-response.xml");
+        final StreamedQueryResponse response = processor.process(reader);
+
+        assertThat(response.getResponseData().getTotalhits(), is(57));
+        assertThat(response.getResponseData().getWarning(), contains("At least one of the databases provided in the query does not exist"));
+        assertThat(response.getResponseData().getHits(), is(empty()));
+    }
+}
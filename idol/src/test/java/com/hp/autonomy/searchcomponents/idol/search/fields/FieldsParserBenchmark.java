@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 Micro Focus International plc.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.searchcomponents.idol.search.fields;
+
+import com.hp.autonomy.frontend.configuration.ConfigService;
+import com.hp.autonomy.searchcomponents.core.config.FieldInfo;
+import com.hp.autonomy.searchcomponents.core.config.FieldType;
+import com.hp.autonomy.searchcomponents.core.config.FieldsInfo;
+import com.hp.autonomy.searchcomponents.core.fields.FieldDisplayNameGenerator;
+import com.hp.autonomy.searchcomponents.core.fields.FieldPathNormaliser;
+import com.hp.autonomy.searchcomponents.idol.configuration.IdolSearchCapable;
+import com.hp.autonomy.searchcomponents.idol.fields.IdolFieldPathNormaliserImpl;
+import com.hp.autonomy.searchcomponents.idol.search.IdolSearchResult;
+import com.hp.autonomy.types.idol.responses.DocContent;
+import com.hp.autonomy.types.idol.responses.Hit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Parses a page of 50 hits with 200 fields each, of which a tenth are configured and the remainder unconfigured or
+ * repeated, using the real Idol field path normaliser and display name generator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldsParserBenchmark {
+    private static final int HITS = 50;
+    private static final int FIELDS = 200;
+    private static final int DISTINCT_FIELDS = 80;
+
+    private FieldsParser fieldsParser;
+    private List<Hit> hits;
+
+    @SuppressWarnings("unchecked")
+    @Setup
+    public void setUp() throws ParserConfigurationException {
+        final FieldPathNormaliser fieldPathNormaliser = new IdolFieldPathNormaliserImpl();
+
+        final FieldsInfo.FieldsInfoBuilder fieldsInfoBuilder = FieldsInfo.builder();
+        for(int i = 0; i < DISTINCT_FIELDS; i += 10) {
+            fieldsInfoBuilder.populateResponseMap("field" + i, FieldInfo.<Double>builder()
+                .id("field" + i)
+                .name(fieldPathNormaliser.normaliseFieldPath("DOCUMENT/FIELD_" + i))
+                .type(FieldType.NUMBER)
+                .build());
+        }
+
+        final IdolSearchCapable config = mock(IdolSearchCapable.class);
+        when(config.getFieldsInfo()).thenReturn(fieldsInfoBuilder.build());
+        final ConfigService<IdolSearchCapable> configService = mock(ConfigService.class);
+        when(configService.getConfig()).thenReturn(config);
+
+        final FieldDisplayNameGenerator fieldDisplayNameGenerator;
+        try(final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.getBeanFactory().registerSingleton("configService", configService);
+            context.register(DisplayNameGeneratorConfiguration.class);
+            context.refresh();
+            fieldDisplayNameGenerator = context.getBean(FieldDisplayNameGenerator.class);
+        }
+
+        fieldsParser = new FieldsParserImpl(
+            configService,
+            fieldPathNormaliser,
+            fieldDisplayNameGenerator,
+            new IdolDocumentFieldsServiceImpl(configService, fieldPathNormaliser)
+        );
+
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        hits = new ArrayList<>(HITS);
+        for(int i = 0; i < HITS; i++) {
+            final Element root = document.createElement("DOCUMENT");
+            for(int j = 0; j < FIELDS; j++) {
+                final Element field = document.createElement("FIELD_" + j % DISTINCT_FIELDS);
+                field.appendChild(document.createTextNode(String.valueOf(i * FIELDS + j)));
+                root.appendChild(field);
+            }
+
+            final DocContent content = new DocContent();
+            content.getContent().add(root);
+            final Hit hit = new Hit();
+            hit.setContent(content);
+            hits.add(hit);
+        }
+    }
+
+    @Benchmark
+    public void parseDocumentFields(final Blackhole blackhole) {
+        for(final Hit hit : hits) {
+            final IdolSearchResult.IdolSearchResultBuilder builder = IdolSearchResult.builder();
+            fieldsParser.parseDocumentFields(hit, builder);
+            blackhole.consume(builder.build());
+        }
+    }
+
+    /**
+     * Creates the default display name generator as the application would, without depending on the implementation class
+     */
+    @Configuration
+    @ComponentScan(
+        basePackageClasses = FieldDisplayNameGenerator.class,
+        useDefaultFilters = false,
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = FieldDisplayNameGenerator.class)
+    )
+    static class DisplayNameGeneratorConfiguration {
+    }
+
+    public static void main(final String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FieldsParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -46,6 +46,7 @@ import static com.hp.autonomy.searchcomponents.core.test.CoreTestContext.CORE_CL
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
@@ -113,6 +114,37 @@ public class FieldsParserTest {
             fieldMap.get("complex").getValues());
     }
 
+    @Test(expected = UnsupportedOperationException.class)
+    public void parsedFieldMapIsReadOnly() {
+        final IdolSearchResult.IdolSearchResultBuilder builder = IdolSearchResult.builder();
+        fieldsParser.parseDocumentFields(mockHit(), builder);
+        builder.build().getFieldMap().remove("author");
+    }
+
+    @Test
+    public void parseDocumentFieldsAfterConfigChange() {
+        final IdolSearchResult.IdolSearchResultBuilder builder = IdolSearchResult.builder();
+        fieldsParser.parseDocumentFields(mockHit(), builder);
+        assertNotNull(builder.build().getFieldMap().get("author"));
+
+        final FieldsInfo fieldsInfo = FieldsInfo.builder()
+            .populateResponseMap("writer", FieldInfo.<String>builder()
+                .id("writer")
+                .name(fieldPathNormaliser.normaliseFieldPath("DOCUMENT/CUSTOM_ARRAY"))
+                .build())
+            .build();
+        when(config.getFieldsInfo()).thenReturn(fieldsInfo);
+
+        final IdolSearchResult.IdolSearchResultBuilder updatedBuilder = IdolSearchResult.builder();
+        fieldsParser.parseDocumentFields(mockHit(), updatedBuilder);
+        final Map<String, FieldInfo<?>> fieldMap = updatedBuilder.build().getFieldMap();
+
+        assertNull(fieldMap.get("author"));
+        assertEquals(
+            Arrays.asList(new FieldValue<>("a", null), new FieldValue<>("b", null)),
+            fieldMap.get("writer").getValues());
+    }
+
     @Test
     public void parseStaticContentPromotionResult() {
         final IdolSearchResult.IdolSearchResultBuilder builder = IdolSearchResult.builder();
@@ -81,7 +81,7 @@ public class IdolViewServerServiceTest {
     private IdolViewServerService idolViewServerService;
 
     @Before
-    public void setUp() {
+    public void setUp() throws IOException {
         final ViewConfig viewConfig = ViewConfig.builder().referenceField(SAMPLE_REFERENCE_FIELD_NAME).build();
         when(viewCapableConfig.getViewConfig()).thenReturn(viewConfig);
         when(configService.getConfig()).thenReturn(viewCapableConfig);
@@ -89,9 +89,10 @@ public class IdolViewServerServiceTest {
         when(request.getDocumentReference()).thenReturn("dede952d-8a4d-4f54-ac1f-5187bf10a744");
         when(request.getHighlightExpression()).thenReturn("SomeText");
 
-        when(rawContentViewer.formatRawContent(any())).then(invocation -> {
-            return IOUtils.toInputStream("raw_content", StandardCharsets.UTF_8);
-        });
+        doAnswer(invocation -> {
+            IOUtils.write("raw_content", (OutputStream) invocation.getArguments()[1], StandardCharsets.UTF_8);
+            return null;
+        }).when(rawContentViewer).formatRawContent(any(), any());
 
         idolViewServerService = new IdolViewServerServiceImpl(contentAciService, viewAciService, processorFactory, parameterHandler, configService, rawContentViewer);
     }
@@ -179,7 +180,7 @@ public class IdolViewServerServiceTest {
                 .reference(reference)
                 .build();
 
-        verify(rawContentViewer).formatRawContent(eq(expectedRawDocument));
+        verify(rawContentViewer).formatRawContent(eq(expectedRawDocument), eq(outputStream));
     }
 
     @Test(expected = ViewServerErrorException.class)